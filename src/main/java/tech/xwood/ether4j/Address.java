@@ -0,0 +1,117 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import java.math.BigInteger;
+
+/**
+ * 20 bytes quantity kept in primitive fields, its hex is rendered once and cached.
+ */
+public final class Address extends Quantity {
+
+  public static final int BYTES = 20;
+
+  public static Address of(final byte[] bytes) {
+    if (bytes.length > BYTES) {
+      throw new Error("Address must have at most " + BYTES + " bytes, got " + bytes.length);
+    }
+    final int end = bytes.length;
+    return new Address(
+      (int) getWord(bytes, end - 2 * Long.BYTES, Integer.BYTES),
+      getWord(bytes, end - Long.BYTES, Long.BYTES),
+      getWord(bytes, end, Long.BYTES));
+  }
+
+  public static Address of(final Quantity quantity) {
+    if (quantity instanceof Address) {
+      return (Address) quantity;
+    }
+    if (quantity instanceof LongQuantity) {
+      return new Address(0, 0, quantity.toLong());
+    }
+    final BigInteger value = quantity.toBigInteger();
+    if (value.signum() < 0 || value.bitLength() > BYTES * Byte.SIZE) {
+      throw new Error("Value " + value.toString(16) + " is not an address");
+    }
+    return new Address(value.shiftRight(2 * Long.SIZE).intValue(), value.shiftRight(Long.SIZE).longValue(), value.longValue());
+  }
+
+  @JsonCreator
+  public static Address of(final String hex) {
+    if (HEX_PREFIX.equals(hex)) {
+      return null;
+    }
+    if (!validateHex(hex) || hex.length() - 2 > ADDRESS_HEX_LENGH) {
+      throw new Error("Address must be in format 0x followed by at most " + ADDRESS_HEX_LENGH + " hex digits");
+    }
+    final int end = hex.length();
+    return new Address(
+      (int) decodeWord(hex, end - 2 * Long.BYTES * 2, Integer.BYTES * 2),
+      decodeWord(hex, end - Long.BYTES * 2, Long.BYTES * 2),
+      decodeWord(hex, end, Long.BYTES * 2));
+  }
+
+  private final int high;
+  private final long middle;
+  private final long low;
+  private String hex;
+
+  private Address(final int high, final long middle, final long low) {
+    this.high = high;
+    this.middle = middle;
+    this.low = low;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (obj instanceof Address) {
+      final Address other = (Address) obj;
+      return high == other.high && middle == other.middle && low == other.low;
+    }
+    return super.equals(obj);
+  }
+
+  @Override
+  int getHexLength() {
+    return ADDRESS_HEX_LENGH;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashWord(hashWord(hashWord(0, high), middle), low);
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return new BigInteger(1, toBytes(BYTES));
+  }
+
+  @Override
+  public byte[] toBytes(final int size) {
+    if (size != BYTES) {
+      return super.toBytes(size);
+    }
+    final byte[] dest = new byte[BYTES];
+    putWord(dest, Integer.BYTES, high, Integer.BYTES);
+    putWord(dest, Integer.BYTES + Long.BYTES, middle, Long.BYTES);
+    putWord(dest, BYTES, low, Long.BYTES);
+    return dest;
+  }
+
+  @Override
+  String toHex(final int size, final boolean prefix) {
+    if (size != ADDRESS_HEX_LENGH) {
+      return super.toHex(size, prefix);
+    }
+    String result = hex;
+    if (result == null) {
+      final char[] dest = new char[2 + ADDRESS_HEX_LENGH];
+      dest[0] = '0';
+      dest[1] = 'x';
+      int index = Hex.encode(high, Integer.BYTES * 2, dest, 2);
+      index = Hex.encode(middle, Long.BYTES * 2, dest, index);
+      Hex.encode(low, Long.BYTES * 2, dest, index);
+      hex = result = new String(dest);
+    }
+    return prefix ? result : result.substring(2);
+  }
+}
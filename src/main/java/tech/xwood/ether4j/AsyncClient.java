@@ -0,0 +1,450 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import tech.xwood.ether4j.abi.AbiFunction;
+import tech.xwood.ether4j.abi.AbiType;
+import tech.xwood.ether4j.abi.AbiValue;
+
+/**
+ * Non-blocking counterpart of {@link Client}, every RPC method returns a {@link CompletableFuture}.
+ * Requests above max in flight limit are queued and sent as soon as earlier requests complete,
+ * no caller thread is ever blocked as long as the transport is non-blocking. Futures are completed on the transport
+ * I/O threads, so heavy work should be moved to another executor with async stages.
+ *
+ * @see https://github.com/ethereum/wiki/wiki/JSON-RPC
+ */
+public class AsyncClient implements AutoCloseable {
+
+  public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+
+  /**
+   * @return Returns non-blocking transport for the uri.
+   */
+  static Transport createTransport(final String uri, final int maxInFlight) {
+    final String scheme = uri.contains(":") ? uri.substring(0, uri.indexOf(':')).toLowerCase(Locale.ROOT) : "";
+    if (scheme.equals("http") || scheme.equals("https")) {
+      return new AsyncHttpTransport(uri, maxInFlight);
+    }
+    return Client.builder(uri).buildTransport();
+  }
+
+  private final Transport transport;
+  private final Semaphore inFlight;
+  private final Queue<Runnable> queued;
+  private final AtomicInteger drainRequests = new AtomicInteger();
+  private final NonceManager nonceManager = new NonceManager(address -> getTransactionCount(address, Tag.PENDING));
+
+  public AsyncClient(final String uri) {
+    this(uri, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * @param uri - node JSON-RPC endpoint, see {@link Client.Builder} for supported schemes.
+   * @param maxInFlight - max number of requests sent to the node and not yet answered.
+   */
+  public AsyncClient(final String uri, final int maxInFlight) {
+    this(createTransport(uri, maxInFlight), maxInFlight);
+  }
+
+  /**
+   * @param transport - non-blocking transport, closed together with the client.
+   * @param maxInFlight - max number of requests sent to the node and not yet answered.
+   */
+  public AsyncClient(final Transport transport, final int maxInFlight) {
+
+    Utils.require(maxInFlight > 0, "Max in flight must be positive");
+    this.transport = transport;
+    inFlight = new Semaphore(maxInFlight);
+    queued = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * @see Client#callContractMethodLocal(Quantity, Quantity, Quantity, Quantity, Quantity, Tag, String, AbiValue[], AbiType[])
+   */
+  public CompletableFuture<AbiValue[]> callContractMethodLocal(
+    final Quantity from,
+    final Quantity to,
+    final Quantity gasLimit,
+    final Quantity gasPrice,
+    final Quantity value,
+    final Tag tag,
+    final String functionName,
+    final AbiValue[] args,
+    final AbiType[] resultTypes) {
+
+    final Transaction tx = Transaction.create()
+      .setFrom(from)
+      .setTo(to)
+      .setGasLimit(gasLimit)
+      .setGasPrice(gasPrice)
+      .setValue(value)
+      .setData(AbiFunction.encodeCallAsQuantity(functionName, args));
+
+    return rpcRequest(String.class, "eth_call", tx, tag.getName())
+      .thenApply(result -> AbiFunction.decodeResult(Hex.decode(result, 2, result.length()), resultTypes));
+  }
+
+  /**
+   * @see Client#callContractMethodTransact(Account, Quantity, Quantity, Quantity, Quantity, String, AbiValue[])
+   */
+  public CompletableFuture<Quantity> callContractMethodTransact(
+    final Account from,
+    final Quantity to,
+    final Quantity gasLimit,
+    final Quantity gasPrice,
+    final Quantity value,
+    final String functionName,
+    final AbiValue[] args) {
+
+    final Transaction tx = Transaction.create()
+      .setTo(to)
+      .setGasLimit(gasLimit)
+      .setGasPrice(gasPrice)
+      .setValue(value)
+      .setData(AbiFunction.encodeCallAsQuantity(functionName, args));
+
+    return sendRawTransaction(from, tx);
+  }
+
+  @Override
+  public void close() {
+    transport.close();
+  }
+
+  /**
+   * Sends queued requests while in flight permits are available. Only one thread drains at a time,
+   * so a transport completing in the caller thread does not recurse into drain for every queued request.
+   */
+  private void drain() {
+    if (drainRequests.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      while (!queued.isEmpty() && inFlight.tryAcquire()) {
+        final Runnable request = queued.poll();
+        if (request == null) {
+          inFlight.release();
+        }
+        else {
+          request.run();
+        }
+      }
+      missed = drainRequests.addAndGet(-missed);
+    }
+    while (missed != 0);
+  }
+
+  /**
+   * @see Client#estimateGas(Quantity, Quantity, Quantity, Quantity, Quantity, String, AbiValue[])
+   */
+  public CompletableFuture<Quantity> estimateGas(
+    final Quantity from,
+    final Quantity to,
+    final Quantity gasLimit,
+    final Quantity gasPrice,
+    final Quantity value,
+    final String functionName,
+    final AbiValue[] args) {
+
+    final Transaction tx = Transaction.create()
+      .setFrom(from)
+      .setTo(to)
+      .setGasLimit(gasLimit)
+      .setGasPrice(gasPrice)
+      .setValue(value)
+      .setData(AbiFunction.encodeCallAsQuantity(functionName, args));
+
+    return rpcRequest(Quantity.class, "eth_estimateGas", tx);
+  }
+
+  /**
+   * Never throws, a transport failing synchronously releases the permit and fails the future,
+   * otherwise the permit would be lost and the drain loop stopped.
+   */
+  private void execute(final byte[] request, final CompletableFuture<byte[]> future) {
+    final CompletableFuture<byte[]> sent;
+    try {
+      sent = transport.send(request);
+    }
+    catch (final RuntimeException e) {
+      release();
+      future.completeExceptionally(e instanceof Error ? e : new Error(e));
+      return;
+    }
+    sent.whenComplete((response, e) -> {
+      release();
+      if (e != null) {
+        final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        future.completeExceptionally(cause instanceof Error ? cause : new Error(cause));
+      }
+      else {
+        future.complete(response);
+      }
+    });
+  }
+
+  /**
+   * @see Client#getAccounts()
+   */
+  public CompletableFuture<Set<Quantity>> getAccounts() {
+    return rpcRequest(ArrayNode.class, "eth_accounts").thenApply(response -> {
+      final Set<Quantity> accounts = new LinkedHashSet<>();
+      for (int i = 0; i < response.size(); i++) {
+        accounts.add(Quantity.of(response.get(i).asText()));
+      }
+      return accounts;
+    });
+  }
+
+  /**
+   * @see Client#getBalance(Quantity)
+   */
+  public CompletableFuture<Quantity> getBalance(final Quantity address) {
+    return getBalance(address, Tag.LATEST);
+  }
+
+  /**
+   * @see Client#getBalance(Quantity, Quantity)
+   */
+  public CompletableFuture<Quantity> getBalance(final Quantity address, final Quantity blockNumber) {
+    return rpcRequest(Quantity.class, "eth_getBalance", address.toHexAddress(), blockNumber.toHex());
+  }
+
+  /**
+   * @see Client#getBalance(Quantity, Tag)
+   */
+  public CompletableFuture<Quantity> getBalance(final Quantity address, final Tag tag) {
+    return rpcRequest(Quantity.class, "eth_getBalance", address.toHexAddress(), tag.getName());
+  }
+
+  /**
+   * @see Client#getBlockTransactionCountByHash(Quantity)
+   */
+  public CompletableFuture<Quantity> getBlockTransactionCountByHash(final Quantity blockHash) {
+    return rpcRequest(Quantity.class, "eth_getBlockTransactionCountByHash", blockHash.toHexHash());
+  }
+
+  /**
+   * @see Client#getBlockTransactionCountByNumber(Quantity)
+   */
+  public CompletableFuture<Quantity> getBlockTransactionCountByNumber(final Quantity blockNumber) {
+    return rpcRequest(Quantity.class, "eth_getBlockTransactionCountByNumber", blockNumber.toHex());
+  }
+
+  /**
+   * @see Client#getBlockTransactionCountByNumber(Tag)
+   */
+  public CompletableFuture<Quantity> getBlockTransactionCountByNumber(final Tag blockTag) {
+    return rpcRequest(Quantity.class, "eth_getBlockTransactionCountByNumber", blockTag.getName());
+  }
+
+  /**
+   * @see Client#getCoinbase()
+   */
+  public CompletableFuture<Quantity> getCoinbase() {
+    return rpcRequest(Quantity.class, "eth_coinbase");
+  }
+
+  /**
+   * @see Client#getGasPrice()
+   */
+  public CompletableFuture<Quantity> getGasPrice() {
+    return rpcRequest(Quantity.class, "eth_gasPrice");
+  }
+
+  /**
+   * @see Client#getHashRate()
+   */
+  public CompletableFuture<Quantity> getHashRate() {
+    return rpcRequest(Quantity.class, "eth_hashrate");
+  }
+
+  /**
+   * @see Client#getLastBlockNumber()
+   */
+  public CompletableFuture<Quantity> getLastBlockNumber() {
+    return rpcRequest(Quantity.class, "eth_blockNumber");
+  }
+
+  /**
+   * @see Client#getNetVersion()
+   */
+  public CompletableFuture<Quantity> getNetVersion() {
+    return rpcRequest(String.class, "net_version").thenApply(version -> Quantity.of(Integer.parseInt(version)));
+  }
+
+  /**
+   * @see Client#getNonce(Quantity)
+   */
+  public CompletableFuture<Quantity> getNonce(final Quantity address) {
+    return getTransactionCount(address, Tag.LATEST);
+  }
+
+  /**
+   * @see Client#getNonceManager()
+   */
+  public NonceManager getNonceManager() {
+    return nonceManager;
+  }
+
+  /**
+   * @see Client#getPeerCount()
+   */
+  public CompletableFuture<Quantity> getPeerCount() {
+    return rpcRequest(Quantity.class, "net_peerCount");
+  }
+
+  /**
+   * @see Client#getProtocolVersion()
+   */
+  public CompletableFuture<Quantity> getProtocolVersion() {
+    return rpcRequest(Quantity.class, "eth_protocolVersion");
+  }
+
+  /**
+   * @return Returns number of requests waiting for a free in flight slot.
+   */
+  public int getQueuedCount() {
+    return queued.size();
+  }
+
+  /**
+   * @see Client#getStorageAt(Quantity, Quantity, Quantity)
+   */
+  public CompletableFuture<Quantity> getStorageAt(final Quantity address, final Quantity position, final Quantity blockNumber) {
+    return rpcRequest(Quantity.class, "eth_getStorageAt", address.toHexAddress(), position.toHex(), blockNumber.toHex());
+  }
+
+  /**
+   * @see Client#getStorageAt(Quantity, Quantity, Tag)
+   */
+  public CompletableFuture<Quantity> getStorageAt(final Quantity address, final Quantity position, final Tag blockTag) {
+    return rpcRequest(Quantity.class, "eth_getStorageAt", address.toHexAddress(), position.toHex(), blockTag.getName());
+  }
+
+  /**
+   * @see Client#getTransactionByHash(Quantity)
+   */
+  public CompletableFuture<Transaction> getTransactionByHash(final Quantity hash) {
+    return rpcRequest(Transaction.class, "eth_getTransactionByHash", hash.toHexHash());
+  }
+
+  /**
+   * @see Client#getTransactionCount(Quantity, Quantity)
+   */
+  public CompletableFuture<Quantity> getTransactionCount(final Quantity address, final Quantity blockNumber) {
+    return rpcRequest(Quantity.class, "eth_getTransactionCount", address.toHexAddress(), blockNumber.toHex());
+  }
+
+  /**
+   * @see Client#getTransactionCount(Quantity, Tag)
+   */
+  public CompletableFuture<Quantity> getTransactionCount(final Quantity address, final Tag blockTag) {
+    return rpcRequest(Quantity.class, "eth_getTransactionCount", address.toHexAddress(), blockTag.getName());
+  }
+
+  /**
+   * @see Client#getTransactionReceipt(Quantity)
+   */
+  public CompletableFuture<TransactionReceipt> getTransactionReceipt(final Quantity txHash) {
+    return rpcRequest(TransactionReceipt.class, "eth_getTransactionReceipt", txHash.toHexHash());
+  }
+
+  /**
+   * @see Client#isListening()
+   */
+  public CompletableFuture<Boolean> isListening() {
+    return rpcRequest(Boolean.class, "net_listening");
+  }
+
+  /**
+   * @see Client#isMining()
+   */
+  public CompletableFuture<Boolean> isMining() {
+    return rpcRequest(Boolean.class, "eth_mining");
+  }
+
+  private void release() {
+    inFlight.release();
+    drain();
+  }
+
+  private <T> CompletableFuture<T> rpcRequest(final Class<T> resultType, final String method, final Object... params) {
+
+    final long rpcRequestId = JsonRpc.nextIds(1);
+    final byte[] jsonRpcRequestBytes = JsonRpc.writeRequest(rpcRequestId, method, params);
+
+    final CompletableFuture<byte[]> response = new CompletableFuture<>();
+    queued.add(() -> execute(jsonRpcRequestBytes, response));
+    drain();
+    return response.thenApply(jsonRpcResponse -> JsonRpc.readResult(jsonRpcResponse, String.valueOf(rpcRequestId), resultType));
+  }
+
+  /**
+   * @see Client#sendRawTransaction(Account, Transaction)
+   */
+  public CompletableFuture<Quantity> sendRawTransaction(final Account account, final Transaction transaction) {
+
+    if (transaction.getNonce() != null) {
+      final Quantity nonce = transaction.getNonce();
+      final Quantity rawTx = Crypto.createRawTransaction(account.getPrivateKey(), account.getPublicKey(), transaction);
+      return rpcRequest(Quantity.class, "eth_sendRawTransaction", rawTx.toHex()).thenApply(txHash -> {
+        nonceManager.markUsed(account.getAddress(), nonce);
+        return txHash;
+      });
+    }
+    return sendRawTransaction(account, transaction, 1);
+  }
+
+  private CompletableFuture<Quantity> sendRawTransaction(final Account account, final Transaction transaction, final int attempt) {
+
+    final Quantity address = account.getAddress();
+    return nonceManager.allocate(address).thenCompose(nonce -> {
+      final Quantity rawTx;
+      try {
+        rawTx = Crypto.createRawTransaction(account.getPrivateKey(), account.getPublicKey(), transaction.copy().setNonce(nonce));
+      }
+      catch (final RuntimeException e) {
+        nonceManager.release(address, nonce);
+        throw e;
+      }
+      return rpcRequest(Quantity.class, "eth_sendRawTransaction", rawTx.toHex()).handle((txHash, e) -> {
+        if (e == null) {
+          nonceManager.confirm(address, nonce);
+          return CompletableFuture.completedFuture(txHash);
+        }
+        final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        final Error error = cause instanceof Error ? (Error) cause : new Error(cause);
+        final boolean retry = nonceManager.onError(address, nonce, error);
+        if (NonceManager.isAlreadyKnown(error)) {
+          return CompletableFuture.completedFuture(Crypto.keccak256(rawTx));
+        }
+        if (retry && attempt < Client.MAX_NONCE_ATTEMPTS) {
+          return sendRawTransaction(account, transaction, attempt + 1);
+        }
+        final CompletableFuture<Quantity> failed = new CompletableFuture<>();
+        failed.completeExceptionally(error);
+        return failed;
+      }).thenCompose(Function.identity());
+    });
+  }
+
+  /**
+   * @see Client#sendTransaction(Transaction)
+   */
+  public CompletableFuture<Quantity> sendTransaction(final Transaction transaction) {
+    return rpcRequest(Quantity.class, "eth_sendTransaction", transaction);
+  }
+
+}
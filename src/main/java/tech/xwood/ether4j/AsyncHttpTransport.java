@@ -0,0 +1,79 @@
+package tech.xwood.ether4j;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+
+/**
+ * Non-blocking JSON-RPC over HTTP POST, futures are completed on the I/O dispatch threads.
+ */
+public class AsyncHttpTransport implements Transport {
+
+  private final String uri;
+  private final CloseableHttpAsyncClient httpClient;
+
+  /**
+   * @param uri - http or https endpoint.
+   * @param maxConnections - max number of concurrent connections to the node.
+   */
+  public AsyncHttpTransport(final String uri, final int maxConnections) {
+    this(uri, HttpAsyncClients.custom()
+      .setMaxConnPerRoute(maxConnections)
+      .setMaxConnTotal(maxConnections)
+      .build());
+  }
+
+  /**
+   * @param uri - http or https endpoint.
+   * @param httpClient - client used for every request, started if needed and closed together with the transport.
+   */
+  public AsyncHttpTransport(final String uri, final CloseableHttpAsyncClient httpClient) {
+    this.uri = uri;
+    this.httpClient = httpClient;
+    if (!httpClient.isRunning()) {
+      httpClient.start();
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      httpClient.close();
+    }
+    catch (final IOException e) {
+    }
+  }
+
+  @Override
+  public CompletableFuture<byte[]> send(final byte[] request) {
+
+    final CompletableFuture<byte[]> future = new CompletableFuture<>();
+    httpClient.execute(HttpTransport.createPost(uri, request), new FutureCallback<HttpResponse>() {
+
+      @Override
+      public void cancelled() {
+        future.cancel(false);
+      }
+
+      @Override
+      public void completed(final HttpResponse response) {
+        try {
+          future.complete(HttpTransport.readBody(response));
+        }
+        catch (final IOException | RuntimeException e) {
+          future.completeExceptionally(e instanceof Error ? e : new Error(e));
+        }
+      }
+
+      @Override
+      public void failed(final Exception e) {
+        future.completeExceptionally(new Error(e));
+      }
+    });
+    return future;
+  }
+
+}
@@ -0,0 +1,225 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects single requests sent concurrently by many threads into JSON-RPC batches,
+ * so the node is called once per batch instead of once per request. A batch is sent once it has max batch size requests,
+ * or max delay after its first request. With a blocking delegate such as {@link HttpTransport} batches are sent one at a
+ * time, requests arriving meanwhile form the next batch. Batch requests and subscriptions are passed through as is.
+ */
+public class BatchingTransport implements Transport {
+
+  private static class Call {
+
+    final String id;
+    final byte[] request;
+    final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+    Call(final String id, final byte[] request) {
+      this.id = id;
+      this.request = request;
+    }
+  }
+
+  private static boolean isBatch(final byte[] request) {
+    for (final byte b : request) {
+      if (!Character.isWhitespace(b)) {
+        return b == '[';
+      }
+    }
+    return false;
+  }
+
+  private static Error toError(final Throwable e) {
+    final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    return cause instanceof Error ? (Error) cause : new Error(cause);
+  }
+
+  private final Transport transport;
+  private final int maxBatchSize;
+  private final long maxDelay;
+  private final ScheduledExecutorService flusher;
+  private final Object lock = new Object();
+  private List<Call> queued = new ArrayList<>();
+
+  /**
+   * @param transport - delegate transport, closed together with this transport.
+   * @param maxBatchSize - max number of requests in one batch.
+   * @param maxDelay - max time the first request of a batch waits for more requests.
+   */
+  public BatchingTransport(final Transport transport, final int maxBatchSize, final long maxDelay, final TimeUnit unit) {
+
+    Utils.require(maxBatchSize > 0, "Max batch size must be positive");
+    Utils.require(maxDelay >= 0, "Max delay must not be negative");
+    this.transport = transport;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelay = unit.toNanos(maxDelay);
+    flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "ether4j-batching");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  public void close() {
+    flusher.shutdown();
+    flush();
+    transport.close();
+  }
+
+  private void flush() {
+    final List<Call> calls;
+    synchronized (lock) {
+      calls = queued;
+      queued = new ArrayList<>();
+    }
+    if (!calls.isEmpty()) {
+      send(calls);
+    }
+  }
+
+  /**
+   * @return Returns number of requests waiting for the next batch.
+   */
+  public int getQueuedCount() {
+    synchronized (lock) {
+      return queued.size();
+    }
+  }
+
+  @Override
+  public CompletableFuture<byte[]> send(final byte[] request) {
+
+    if (isBatch(request)) {
+      return transport.send(request);
+    }
+    final List<String> ids = JsonRpc.readIds(request);
+    if (ids.isEmpty()) {
+      return transport.send(request);
+    }
+    final Call call = new Call(ids.get(0), request);
+    List<Call> full = null;
+    synchronized (lock) {
+      queued.add(call);
+      if (queued.size() >= maxBatchSize) {
+        full = queued;
+        queued = new ArrayList<>();
+      }
+      else if (queued.size() == 1) {
+        flusher.schedule(this::flush, maxDelay, TimeUnit.NANOSECONDS);
+      }
+    }
+    if (full != null) {
+      send(full);
+    }
+    return call.future;
+  }
+
+  /**
+   * Never throws, it runs on the flusher thread where an exception would be lost, a transport failing synchronously
+   * fails all calls of the batch.
+   */
+  private void send(final List<Call> calls) {
+
+    if (calls.size() == 1) {
+      final Call call = calls.get(0);
+      final CompletableFuture<byte[]> sent;
+      try {
+        sent = transport.send(call.request);
+      }
+      catch (final RuntimeException e) {
+        call.future.completeExceptionally(toError(e));
+        return;
+      }
+      sent.whenComplete((response, e) -> {
+        if (e != null) {
+          call.future.completeExceptionally(toError(e));
+        }
+        else {
+          call.future.complete(response);
+        }
+      });
+      return;
+    }
+
+    final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    batch.write('[');
+    for (int i = 0; i < calls.size(); i++) {
+      if (i > 0) {
+        batch.write(',');
+      }
+      final byte[] request = calls.get(i).request;
+      batch.write(request, 0, request.length);
+    }
+    batch.write(']');
+
+    final CompletableFuture<byte[]> sent;
+    try {
+      sent = transport.send(batch.toByteArray());
+    }
+    catch (final RuntimeException e) {
+      final Error error = toError(e);
+      calls.forEach(call -> call.future.completeExceptionally(error));
+      return;
+    }
+    sent.whenComplete((response, e) -> {
+      if (e != null) {
+        final Error error = toError(e);
+        calls.forEach(call -> call.future.completeExceptionally(error));
+        return;
+      }
+      try {
+        final List<byte[]> items = JsonRpc.readItems(response);
+        if (items.size() == 1 && items.get(0) == response) {
+          // top level error of the whole batch
+          calls.forEach(call -> call.future.complete(response));
+          return;
+        }
+        final Map<String, byte[]> responses = new HashMap<>(items.size() * 2);
+        for (final byte[] item : items) {
+          final List<String> ids = JsonRpc.readIds(item);
+          if (!ids.isEmpty()) {
+            responses.put(ids.get(0), item);
+          }
+        }
+        for (final Call call : calls) {
+          final byte[] item = responses.get(call.id);
+          if (item == null) {
+            call.future.completeExceptionally(new Error("Missing response for request id " + call.id));
+          }
+          else {
+            call.future.complete(item);
+          }
+        }
+      }
+      catch (final RuntimeException ex) {
+        final Error error = toError(ex);
+        calls.forEach(call -> call.future.completeExceptionally(error));
+      }
+    });
+  }
+
+  @Override
+  public CompletableFuture<byte[]> subscribe(final byte[] request, final Consumer<JsonNode> listener) {
+    return transport.subscribe(request, listener);
+  }
+
+  @Override
+  public void unsubscribe(final String subscriptionId) {
+    transport.unsubscribe(subscriptionId);
+  }
+
+}
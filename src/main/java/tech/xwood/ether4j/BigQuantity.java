@@ -0,0 +1,32 @@
+package tech.xwood.ether4j;
+
+import java.math.BigInteger;
+
+/**
+ * Quantity of any size or sign.
+ */
+final class BigQuantity extends Quantity {
+
+  private final BigInteger value;
+  private final int hexLength;
+
+  BigQuantity(final BigInteger value, final int hexLength) {
+    this.value = value;
+    this.hexLength = hexLength;
+  }
+
+  @Override
+  int getHexLength() {
+    return hexLength;
+  }
+
+  @Override
+  public int hashCode() {
+    return value.hashCode();
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return value;
+  }
+}
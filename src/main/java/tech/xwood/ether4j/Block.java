@@ -0,0 +1,268 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class Block {
+
+  /**
+   * Binds transaction hashes and full transaction objects straight from the parser, without an intermediate tree.
+   */
+  static class TransactionsDeserializer extends JsonDeserializer<List<Transaction>> {
+
+    @Override
+    public List<Transaction> deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+
+      if (!parser.isExpectedStartArrayToken()) {
+        throw context.wrongTokenException(parser, List.class, JsonToken.START_ARRAY, "Block transactions must be an array");
+      }
+      final List<Transaction> transactions = new ArrayList<>();
+      for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+        if (token == JsonToken.VALUE_STRING) {
+          transactions.add(Transaction.create().setHash(Quantity.of(parser.getText())));
+        }
+        else if (token == JsonToken.START_OBJECT) {
+          transactions.add(context.readValue(parser, Transaction.class));
+        }
+        else {
+          throw context.wrongTokenException(parser, Transaction.class, JsonToken.START_OBJECT, "Block transaction must be a hash or an object");
+        }
+      }
+      return transactions;
+    }
+
+    @Override
+    public List<Transaction> getNullValue(final DeserializationContext context) {
+      return Collections.emptyList();
+    }
+  }
+
+  @JsonCreator
+  public static Block create() {
+    return new Block();
+  }
+
+  /**
+   * the block number. null when its pending block.
+   */
+  @JsonProperty("number")
+  private Quantity number;
+
+  /**
+   * 32 Bytes - hash of the block. null when its pending block.
+   */
+  @JsonProperty("hash")
+  private Quantity hash;
+
+  /**
+   * 32 Bytes - hash of the parent block.
+   */
+  @JsonProperty("parentHash")
+  private Quantity parentHash;
+
+  /**
+   * 8 Bytes - hash of the generated proof-of-work. null when its pending block.
+   */
+  @JsonProperty("nonce")
+  private Quantity nonce;
+
+  /**
+   * 32 Bytes - SHA3 of the uncles data in the block.
+   */
+  @JsonProperty("sha3Uncles")
+  private Quantity sha3Uncles;
+
+  /**
+   * 256 Bytes - the bloom filter for the logs of the block. null when its pending block.
+   */
+  @JsonProperty("logsBloom")
+  private Quantity logsBloom;
+
+  /**
+   * 32 Bytes - the root of the transaction trie of the block.
+   */
+  @JsonProperty("transactionsRoot")
+  private Quantity transactionsRoot;
+
+  /**
+   * 32 Bytes - the root of the final state trie of the block.
+   */
+  @JsonProperty("stateRoot")
+  private Quantity stateRoot;
+
+  /**
+   * 32 Bytes - the root of the receipts trie of the block.
+   */
+  @JsonProperty("receiptsRoot")
+  private Quantity receiptsRoot;
+
+  /**
+   * 20 Bytes - the address of the beneficiary to whom the mining rewards were given.
+   */
+  @JsonProperty("miner")
+  private Quantity miner;
+
+  /**
+   * integer of the difficulty for this block.
+   */
+  @JsonProperty("difficulty")
+  private Quantity difficulty;
+
+  /**
+   * the "extra data" field of this block.
+   */
+  @JsonProperty("extraData")
+  private Quantity extraData;
+
+  /**
+   * the maximum gas allowed in this block.
+   */
+  @JsonProperty("gasLimit")
+  private Quantity gasLimit;
+
+  /**
+   * the total used gas by all transactions in this block.
+   */
+  @JsonProperty("gasUsed")
+  private Quantity gasUsed;
+
+  /**
+   * the unix timestamp for when the block was collated.
+   */
+  @JsonProperty("timestamp")
+  private Quantity timestamp;
+
+  /**
+   * 32 Bytes - proof-of-work mix hash.
+   */
+  @JsonProperty("mixHash")
+  private Quantity mixHash;
+
+  /**
+   * integer the size of this block in bytes.
+   */
+  @JsonProperty("size")
+  private Quantity size;
+
+  /**
+   * integer of the total difficulty of the chain until this block.
+   */
+  @JsonProperty("totalDifficulty")
+  private Quantity totalDifficulty;
+
+  /**
+   * Transaction objects, or transactions with hash set only when the block was requested without full transactions.
+   * Empty for block headers.
+   */
+  @JsonProperty("transactions")
+  @JsonDeserialize(using = TransactionsDeserializer.class)
+  private List<Transaction> transactions = Collections.emptyList();
+
+  /**
+   * Array of uncle hashes.
+   */
+  @JsonProperty("uncles")
+  private List<Quantity> uncles = Collections.emptyList();
+
+  private Block() {
+  }
+
+  public Quantity getDifficulty() {
+    return difficulty;
+  }
+
+  public Quantity getExtraData() {
+    return extraData;
+  }
+
+  public Quantity getGasLimit() {
+    return gasLimit;
+  }
+
+  public Quantity getGasUsed() {
+    return gasUsed;
+  }
+
+  public Quantity getHash() {
+    return hash;
+  }
+
+  public Quantity getLogsBloom() {
+    return logsBloom;
+  }
+
+  public Quantity getMiner() {
+    return miner;
+  }
+
+  public Quantity getMixHash() {
+    return mixHash;
+  }
+
+  public Quantity getNonce() {
+    return nonce;
+  }
+
+  public Quantity getNumber() {
+    return number;
+  }
+
+  public Quantity getParentHash() {
+    return parentHash;
+  }
+
+  public Quantity getReceiptsRoot() {
+    return receiptsRoot;
+  }
+
+  public Quantity getSha3Uncles() {
+    return sha3Uncles;
+  }
+
+  public Quantity getStateRoot() {
+    return stateRoot;
+  }
+
+  public Quantity getSize() {
+    return size;
+  }
+
+  public Quantity getTimestamp() {
+    return timestamp;
+  }
+
+  public Quantity getTotalDifficulty() {
+    return totalDifficulty;
+  }
+
+  public List<Transaction> getTransactions() {
+    return transactions;
+  }
+
+  public Quantity getTransactionsRoot() {
+    return transactionsRoot;
+  }
+
+  public List<Quantity> getUncles() {
+    return uncles;
+  }
+
+  public boolean isPending() {
+    return number == null;
+  }
+
+  @Override
+  public String toString() {
+    return Utils.toJson(this, true);
+  }
+
+}
@@ -0,0 +1,173 @@
+package tech.xwood.ether4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads block ranges with eth_getBlockByNumber: the range is split into batches of consecutive blocks,
+ * at most max concurrency batches are requested in parallel and blocks are returned in order by an iterator.
+ * Memory is bounded by max concurrency times batch size blocks, a slow consumer slows the download down.
+ */
+public class BlockDownloader implements AutoCloseable {
+
+  public static class Builder {
+
+    private final Client client;
+    private int batchSize = 50;
+    private int maxConcurrency = 4;
+    private boolean fullTransactions;
+
+    private Builder(final Client client) {
+      this.client = client;
+    }
+
+    public BlockDownloader build() {
+      return new BlockDownloader(this);
+    }
+
+    /**
+     * @param batchSize - number of blocks requested in one batch.
+     */
+    public Builder setBatchSize(final int batchSize) {
+      Utils.require(batchSize > 0, "Batch size must be positive");
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * @param fullTransactions - true downloads full transaction objects, false transactions with hash set only.
+     */
+    public Builder setFullTransactions(final boolean fullTransactions) {
+      this.fullTransactions = fullTransactions;
+      return this;
+    }
+
+    /**
+     * @param maxConcurrency - max number of batches in flight.
+     */
+    public Builder setMaxConcurrency(final int maxConcurrency) {
+      Utils.require(maxConcurrency > 0, "Max concurrency must be positive");
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+  }
+
+  private class Range implements Iterator<Block> {
+
+    private final long to;
+    private final Deque<CompletableFuture<List<Block>>> batches = new ArrayDeque<>();
+    private long nextRequested;
+    private Iterator<Block> current = Collections.emptyIterator();
+
+    private Range(final long from, final long to) {
+      this.to = to;
+      nextRequested = from;
+      requestMore();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return current.hasNext() || !batches.isEmpty();
+    }
+
+    @Override
+    public Block next() {
+      if (!current.hasNext()) {
+        if (batches.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        final CompletableFuture<List<Block>> batch = batches.poll();
+        requestMore();
+        try {
+          current = batch.join().iterator();
+        }
+        catch (final CompletionException e) {
+          throw e.getCause() instanceof Error ? (Error) e.getCause() : new Error(e.getCause());
+        }
+      }
+      return current.next();
+    }
+
+    private void requestMore() {
+      while (batches.size() < maxConcurrency && nextRequested <= to) {
+        final long first = nextRequested;
+        final long last = Math.min(to, first + batchSize - 1);
+        batches.add(CompletableFuture.supplyAsync(() -> fetch(first, last), executor));
+        nextRequested = last + 1;
+      }
+    }
+  }
+
+  public static Builder builder(final Client client) {
+    Utils.require(client != null, "Client is required");
+    return new Builder(client);
+  }
+
+  private final Client client;
+  private final int batchSize;
+  private final int maxConcurrency;
+  private final boolean fullTransactions;
+  private final ExecutorService executor;
+
+  private BlockDownloader(final Builder builder) {
+
+    client = builder.client;
+    batchSize = builder.batchSize;
+    maxConcurrency = builder.maxConcurrency;
+    fullTransactions = builder.fullTransactions;
+    final AtomicInteger threadNumber = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+      final Thread thread = new Thread(runnable, "ether4j-blocks-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Stops download threads, the client is not closed.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * @param from - first block number.
+   * @param to - last block number, inclusive.
+   * @return Returns blocks in ascending order, {@link Error} is thrown by next when a batch failed or a block is not found.
+   */
+  public Iterator<Block> download(final long from, final long to) {
+    Utils.require(from >= 0 && from <= to + 1, "Invalid block range");
+    return new Range(from, to);
+  }
+
+  private List<Block> fetch(final long first, final long last) {
+
+    final Client.Batch batch = client.createBatch((int) (last - first + 1));
+    final List<Client.Batch.Call<Block>> calls = new ArrayList<>();
+    for (long number = first; number <= last; number++) {
+      calls.add(batch.add(Block.class, "eth_getBlockByNumber", Quantity.of(number).toHex(), fullTransactions));
+    }
+    batch.execute();
+    final List<Block> blocks = new ArrayList<>(calls.size());
+    for (int i = 0; i < calls.size(); i++) {
+      final Block block = calls.get(i).get();
+      if (block == null) {
+        throw new Error("Block " + (first + i) + " not found");
+      }
+      blocks.add(block);
+    }
+    return blocks;
+  }
+
+}
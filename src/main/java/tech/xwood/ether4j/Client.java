@@ -1,20 +1,39 @@
 package tech.xwood.ether4j;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.File;
-import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ByteArrayEntity;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import tech.xwood.ether4j.abi.AbiFunction;
 import tech.xwood.ether4j.abi.AbiType;
 import tech.xwood.ether4j.abi.AbiValue;
@@ -24,16 +43,587 @@ import tech.xwood.ether4j.abi.AbiValue;
  */
 public class Client implements AutoCloseable {
 
+  /**
+   * Several JSON-RPC calls sent as one JSON-RPC 2.0 batch.
+   * Responses are matched back to calls by id, errors are kept per call.
+   * Batches larger than max size are split into several HTTP requests.
+   */
+  public static class Batch {
+
+    public static class Call<T> {
+
+      private final Class<T> resultType;
+      private final String method;
+      private final Object[] params;
+      private boolean done;
+      private T result;
+      private Error error;
+
+      private Call(final Class<T> resultType, final String method, final Object[] params) {
+        this.resultType = resultType;
+        this.method = method;
+        this.params = params;
+      }
+
+      private void complete(final T result, final Error error) {
+        this.result = result;
+        this.error = error;
+        done = true;
+      }
+
+      /**
+       * @return Returns the call result.
+       * @throws Error if the node returned an error for this call or batch is not executed yet.
+       */
+      public T get() {
+        if (!done) {
+          throw new Error("Batch is not executed");
+        }
+        if (error != null) {
+          throw error;
+        }
+        return result;
+      }
+
+      public Error getError() {
+        return error;
+      }
+
+      public String getMethod() {
+        return method;
+      }
+
+      public boolean isDone() {
+        return done;
+      }
+
+      public boolean isSuccess() {
+        return done && error == null;
+      }
+    }
+
+    private final Client client;
+    private final int maxSize;
+    private final List<Call<?>> calls;
+
+    private Batch(final Client client, final int maxSize) {
+      Utils.require(maxSize > 0, "Batch max size must be positive");
+      this.client = client;
+      this.maxSize = maxSize;
+      calls = new ArrayList<>();
+    }
+
+    public <T> Call<T> add(final Class<T> resultType, final String method, final Object... params) {
+      final Call<T> call = new Call<>(resultType, method, params);
+      calls.add(call);
+      return call;
+    }
+
+    private <T> void complete(final Call<T> call, final JsonNode response, final String id) {
+      try {
+        call.complete(JsonRpc.getResult(response, id, call.resultType), null);
+      }
+      catch (final Error e) {
+        call.complete(null, e);
+      }
+      catch (final IllegalArgumentException e) {
+        call.complete(null, new Error(e));
+      }
+    }
+
+    /**
+     * Sends all added calls, at most max size calls per HTTP request.
+     * Chunks are sent in order and sending stops at the first chunk failing as a whole (e.g. transport error):
+     * calls of the failed chunk and of all chunks after it are completed with that error before it is thrown,
+     * so every call is done once execute returns or throws.
+     */
+    public Batch execute() {
+      for (int from = 0; from < calls.size(); from += maxSize) {
+        try {
+          execute(calls.subList(from, Math.min(from + maxSize, calls.size())));
+        }
+        catch (final RuntimeException e) {
+          final Error error = e instanceof Error ? (Error) e : new Error(e);
+          for (final Call<?> call : calls.subList(from, calls.size())) {
+            if (!call.done) {
+              call.complete(null, error);
+            }
+          }
+          throw error;
+        }
+      }
+      return this;
+    }
+
+    private void execute(final List<Call<?>> chunk) {
+
+      final long firstId = JsonRpc.nextIds(chunk.size());
+      final byte[] jsonRpcRequest = JsonRpc.writeBatch(firstId, chunk.size(), i -> chunk.get(i).method, i -> chunk.get(i).params);
+      final ArrayNode jsonRpcResponse = client.post(jsonRpcRequest, ArrayNode.class);
+
+      final Map<String, JsonNode> responsesById = new HashMap<>(jsonRpcResponse.size() * 2);
+      for (final JsonNode response : jsonRpcResponse) {
+        responsesById.put(JsonRpc.getId(response), response);
+      }
+      for (int i = 0; i < chunk.size(); i++) {
+        final String id = String.valueOf(firstId + i);
+        final JsonNode response = responsesById.get(id);
+        if (response == null) {
+          chunk.get(i).complete(null, new Error("No response for request id " + id));
+        }
+        else {
+          complete(chunk.get(i), response, id);
+        }
+      }
+    }
+
+    public List<Call<?>> getCalls() {
+      return Collections.unmodifiableList(calls);
+    }
+
+    public int size() {
+      return calls.size();
+    }
+  }
+
+  /**
+   * Connection settings of a {@link Client}, the transport is chosen by uri scheme:
+   * http(s) for HTTP, ws(s) for WebSocket, ipc or file scheme or a plain path (e.g. /home/user/.ethereum/geth.ipc)
+   * for Unix domain socket. Pool, keep-alive and socket timeout settings apply to HTTP only.
+   * Timeouts are in milliseconds, zero means infinite. A custom {@link Transport} may be given instead of uri.
+   */
+  public static class Builder {
+
+    private final String uri;
+    private final Transport transport;
+    private int maxConnectionsPerRoute = 20;
+    private int maxConnectionsTotal = 100;
+    private int connectTimeout;
+    private int socketTimeout;
+    private int connectionRequestTimeout;
+    private long maxIdleTime = 30_000;
+    private long keepAlive = 60_000;
+    private int validateAfterInactivity = 2_000;
+    private int subscriptionBufferSize = 1024;
+    private int maxMessageSize = DuplexTransport.DEFAULT_MAX_MESSAGE_SIZE;
+    private Consumer<Throwable> errorHandler = e -> {
+    };
+    private int cacheMaxSize;
+    private long cacheTtl;
+    private long cacheFinalityDepth = DEFAULT_CACHE_FINALITY_DEPTH;
+    private boolean coalescing;
+    private long coalescingWindow;
+
+    private Builder(final String uri, final Transport transport) {
+      this.uri = uri;
+      this.transport = transport;
+    }
+
+    public Client build() {
+      return new Client(this);
+    }
+
+    private CloseableHttpClient buildHttpClient() {
+
+      final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+      connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+      connectionManager.setMaxTotal(maxConnectionsTotal);
+      connectionManager.setValidateAfterInactivity(validateAfterInactivity);
+
+      final RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(connectTimeout)
+        .setSocketTimeout(socketTimeout)
+        .setConnectionRequestTimeout(connectionRequestTimeout)
+        .build();
+
+      final ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+        final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return serverKeepAlive > 0 && serverKeepAlive < keepAlive ? serverKeepAlive : keepAlive;
+      };
+
+      final HttpClientBuilder builder = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setKeepAliveStrategy(keepAliveStrategy)
+        .evictExpiredConnections();
+      if (maxIdleTime > 0) {
+        builder.evictIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+      }
+      return builder.build();
+    }
+
+    /**
+     * @return Returns transport for the uri, e.g. to combine it with {@link BatchingTransport} or {@link LoadBalancingTransport}.
+     */
+    public Transport buildTransport() {
+      if (transport != null) {
+        return transport;
+      }
+      final URI parsedUri = URI.create(uri);
+      final String scheme = parsedUri.getScheme() == null ? "" : parsedUri.getScheme().toLowerCase(Locale.ROOT);
+      switch (scheme) {
+        case "http":
+        case "https":
+          return new HttpTransport(uri, buildHttpClient());
+        case "ws":
+        case "wss":
+          return withErrorHandler(WebSocketTransport.connect(parsedUri, connectTimeout, maxMessageSize));
+        case "":
+          return withErrorHandler(IpcTransport.connect(Paths.get(uri), maxMessageSize));
+        case "ipc":
+        case "file":
+          return withErrorHandler(IpcTransport.connect(Paths.get(parsedUri.getPath()), maxMessageSize));
+        default:
+          throw new Error("Unsupported uri scheme: " + uri);
+      }
+    }
+
+    /**
+     * Enables {@link ResponseCache} of results pinned to a block: blocks by hash, transactions and receipts of mined transactions,
+     * transaction counts by block hash, balance, nonce, storage and transaction counts at an explicit block number.
+     * A chain reorganization replaces the block at a number and may move a transaction to another block, so results by
+     * block number, transactions and receipts are cached only once the block is at least cache finality depth blocks
+     * behind the latest block.
+     *
+     * @param cacheMaxSize - max number of cached results, zero disables the cache.
+     */
+    public Builder setCacheMaxSize(final int cacheMaxSize) {
+      Utils.require(cacheMaxSize >= 0, "Cache max size must not be negative");
+      this.cacheMaxSize = cacheMaxSize;
+      return this;
+    }
+
+    /**
+     * @param cacheFinalityDepth - number of blocks after which a block number is not expected to be reorganized,
+     *          see {@link Client#DEFAULT_CACHE_FINALITY_DEPTH}.
+     */
+    public Builder setCacheFinalityDepth(final long cacheFinalityDepth) {
+      Utils.require(cacheFinalityDepth >= 0, "Cache finality depth must not be negative");
+      this.cacheFinalityDepth = cacheFinalityDepth;
+      return this;
+    }
+
+    /**
+     * @param cacheTtl - time to live of a cached result, zero means until evicted by size.
+     */
+    public Builder setCacheTtl(final long cacheTtl) {
+      Utils.require(cacheTtl >= 0, "Cache time to live must not be negative");
+      this.cacheTtl = cacheTtl;
+      return this;
+    }
+
+    /**
+     * Enables coalescing of identical read-only requests, see {@link LoadBalancingTransport#DEFAULT_READ_ONLY_METHODS}:
+     * while a request is in flight, identical requests of other threads wait for its response instead of being sent.
+     */
+    public Builder setCoalescing(final boolean coalescing) {
+      this.coalescing = coalescing;
+      return this;
+    }
+
+    /**
+     * @param coalescingWindow - time a response of a request without params or with latest tag is reused
+     *          by identical requests after it arrived, zero reuses in flight requests only.
+     */
+    public Builder setCoalescingWindow(final long coalescingWindow) {
+      Utils.require(coalescingWindow >= 0, "Coalescing window must not be negative");
+      this.coalescingWindow = coalescingWindow;
+      return this;
+    }
+
+    /**
+     * @param connectionRequestTimeout - max time to wait for a free connection from the pool.
+     */
+    public Builder setConnectionRequestTimeout(final int connectionRequestTimeout) {
+      Utils.require(connectionRequestTimeout >= 0, "Timeout must not be negative");
+      this.connectionRequestTimeout = connectionRequestTimeout;
+      return this;
+    }
+
+    /**
+     * @param connectTimeout - max time to establish a connection.
+     */
+    public Builder setConnectTimeout(final int connectTimeout) {
+      Utils.require(connectTimeout >= 0, "Timeout must not be negative");
+      this.connectTimeout = connectTimeout;
+      return this;
+    }
+
+    /**
+     * @param errorHandler - receives exceptions of subscription listeners and messages of ws and ipc connections
+     *          which can not be routed, by default they are ignored.
+     */
+    public Builder setErrorHandler(final Consumer<Throwable> errorHandler) {
+      Utils.require(errorHandler != null, "Error handler is required");
+      this.errorHandler = errorHandler;
+      return this;
+    }
+
+    /**
+     * @param keepAlive - max time an idle connection is kept alive, server Keep-Alive header may shorten it.
+     */
+    public Builder setKeepAlive(final long keepAlive) {
+      Utils.require(keepAlive > 0, "Keep-alive must be positive");
+      this.keepAlive = keepAlive;
+      return this;
+    }
+
+    public Builder setMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+      Utils.require(maxConnectionsPerRoute > 0, "Max connections per route must be positive");
+      this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+      return this;
+    }
+
+    public Builder setMaxConnectionsTotal(final int maxConnectionsTotal) {
+      Utils.require(maxConnectionsTotal > 0, "Max connections total must be positive");
+      this.maxConnectionsTotal = maxConnectionsTotal;
+      return this;
+    }
+
+    /**
+     * @param maxIdleTime - idle connections are evicted from the pool by a background thread after this time, zero disables eviction.
+     */
+    public Builder setMaxIdleTime(final long maxIdleTime) {
+      Utils.require(maxIdleTime >= 0, "Max idle time must not be negative");
+      this.maxIdleTime = maxIdleTime;
+      return this;
+    }
+
+    /**
+     * @param maxMessageSize - max size in bytes of a message received over ws or ipc, see {@link DuplexTransport#DEFAULT_MAX_MESSAGE_SIZE}.
+     */
+    public Builder setMaxMessageSize(final int maxMessageSize) {
+      Utils.require(maxMessageSize > 0, "Max message size must be positive");
+      this.maxMessageSize = maxMessageSize;
+      return this;
+    }
+
+    /**
+     * @param socketTimeout - max time of inactivity between two data packets.
+     */
+    public Builder setSocketTimeout(final int socketTimeout) {
+      Utils.require(socketTimeout >= 0, "Timeout must not be negative");
+      this.socketTimeout = socketTimeout;
+      return this;
+    }
+
+    /**
+     * @param subscriptionBufferSize - max number of notifications buffered per subscription, see {@link Subscription}.
+     */
+    public Builder setSubscriptionBufferSize(final int subscriptionBufferSize) {
+      Utils.require(subscriptionBufferSize > 0, "Subscription buffer size must be positive");
+      this.subscriptionBufferSize = subscriptionBufferSize;
+      return this;
+    }
+
+    /**
+     * @param validateAfterInactivity - pooled connections idle longer than this are checked for staleness before reuse.
+     */
+    public Builder setValidateAfterInactivity(final int validateAfterInactivity) {
+      this.validateAfterInactivity = validateAfterInactivity;
+      return this;
+    }
+
+    private Transport withErrorHandler(final DuplexTransport transport) {
+      transport.setErrorHandler(errorHandler);
+      return transport;
+    }
+  }
+
+  /**
+   * Shared in-flight request of coalesced identical reads, kept for the coalescing window once completed.
+   */
+  private static class Flight {
+
+    private final long id;
+    private final CompletableFuture<byte[]> response = new CompletableFuture<>();
+    private volatile long expiresAt = Long.MAX_VALUE;
+
+    Flight(final long id) {
+      this.id = id;
+    }
+
+    boolean isExpired(final long now) {
+      return now >= expiresAt;
+    }
+  }
+
+  /**
+   * Push subscription created with eth_subscribe.
+   * Notifications are buffered in a bounded queue and delivered to the listener in arrival order on a dedicated thread.
+   * The connection reader never waits for the listener: when the buffer is full, new notifications are dropped
+   * and counted in {@link #getDroppedCount()}, so a slow listener can not stall responses of other requests.
+   * Listener exceptions are passed to {@link Builder#setErrorHandler(Consumer)}.
+   */
+  public static class Subscription implements AutoCloseable {
+
+    private final Client client;
+    private final BlockingQueue<JsonNode> buffer;
+    private final Thread dispatcher;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile String id;
+    private volatile boolean active;
+
+    private <T> Subscription(final Client client, final Function<JsonNode, T> decoder, final Consumer<T> listener) {
+      this.client = client;
+      buffer = new ArrayBlockingQueue<>(client.subscriptionBufferSize);
+      dispatcher = new Thread(() -> {
+        try {
+          while (active) {
+            final JsonNode notification = buffer.take();
+            try {
+              listener.accept(decoder.apply(notification));
+            }
+            catch (final RuntimeException e) {
+              client.errorHandler.accept(e);
+            }
+          }
+        }
+        catch (final InterruptedException e) {
+        }
+      });
+      dispatcher.setDaemon(true);
+    }
+
+    /**
+     * Sends eth_unsubscribe and stops delivery, buffered notifications are dropped.
+     */
+    @Override
+    public void close() {
+      if (!active) {
+        return;
+      }
+      active = false;
+      dispatcher.interrupt();
+      client.transport.unsubscribe(id);
+      buffer.clear();
+      try {
+        client.rpcRequest(Boolean.class, "eth_unsubscribe", id);
+      }
+      catch (final Error e) {
+      }
+    }
+
+    /**
+     * @return Returns number of notifications received and not yet delivered to the listener.
+     */
+    public int getBufferedCount() {
+      return buffer.size();
+    }
+
+    /**
+     * @return Returns number of notifications dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+      return droppedCount.get();
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public boolean isActive() {
+      return active;
+    }
+
+    private void offer(final JsonNode notification) {
+      if (!buffer.offer(notification)) {
+        droppedCount.incrementAndGet();
+      }
+    }
+
+    private void start(final String id) {
+      this.id = id;
+      active = true;
+      dispatcher.setName("ether4j-subscription-" + id);
+      dispatcher.start();
+    }
+  }
+
+  public static final int DEFAULT_BATCH_MAX_SIZE = 1000;
+  /**
+   * Two epochs of proof of stake Ethereum, the usual depth of a finalized block.
+   */
+  public static final long DEFAULT_CACHE_FINALITY_DEPTH = 64;
+  private static final int MAX_FLIGHTS = 1024;
+  static final int MAX_NONCE_ATTEMPTS = 3;
+
+  public static Builder builder(final String uri) {
+    return new Builder(uri, null);
+  }
+
+  /**
+   * @param transport - custom transport, closed together with the client.
+   */
+  public static Builder builder(final Transport transport) {
+    Utils.require(transport != null, "Transport is required");
+    return new Builder(null, transport);
+  }
+
+  static ObjectNode createLogQuery(final LogFilter filter, final Quantity fromBlock, final Quantity toBlock) {
+    final ObjectNode query = filter.toJson();
+    query.put("fromBlock", fromBlock.toHex());
+    query.put("toBlock", toBlock.toHex());
+    return query;
+  }
+
+  /**
+   * Responses to requests without params or for the latest block go stale and are reused only within the window,
+   * requests pinned to a block number or hash belong to the response cache. Pending state changes with every sent
+   * transaction, so pending requests are coalesced only while in flight.
+   */
+  private static boolean isReusable(final Object... params) {
+    if (params.length == 0) {
+      return true;
+    }
+    for (final Object param : params) {
+      if (Tag.LATEST.getName().equals(param)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static byte[] join(final CompletableFuture<byte[]> response) {
+    try {
+      return response.join();
+    }
+    catch (final CompletionException e) {
+      throw e.getCause() instanceof Error ? (Error) e.getCause() : new Error(e.getCause());
+    }
+  }
+
   private final SolidityCompiler solidityCompiller;
-  private final String uri;
-  private final CloseableHttpClient httpClient;
+  private final Transport transport;
+  private final int subscriptionBufferSize;
+  private final Consumer<Throwable> errorHandler;
+  private final ResponseCache cache;
+  private final long cacheFinalityDepth;
+  private volatile long lastBlockNumber = -1;
+  private final Map<String, Flight> flights;
+  private final long coalescingWindow;
+  private final AtomicLong coalescedCount = new AtomicLong();
+  private final NonceManager nonceManager = new NonceManager(address -> CompletableFuture.supplyAsync(
+    () -> sendRpcRequest(Quantity.class, "eth_getTransactionCount", address.toHexAddress(), Tag.PENDING.getName()), Runnable::run));
 
-  public Client(final String uri) {
+  private Client(final Builder builder) {
 
     solidityCompiller = SolidityCompiler.create();
-    this.uri = uri;
-    httpClient = HttpClients.createDefault();
-    //typeMapStringString = Json.MAPPER.getTypeFactory().constructMapLikeType(HashMap.class, String.class, String.class);
+    transport = builder.buildTransport();
+    subscriptionBufferSize = builder.subscriptionBufferSize;
+    errorHandler = builder.errorHandler;
+    cache = builder.cacheMaxSize > 0 ? new ResponseCache(builder.cacheMaxSize, builder.cacheTtl) : null;
+    cacheFinalityDepth = builder.cacheFinalityDepth;
+    flights = builder.coalescing ? new ConcurrentHashMap<>() : null;
+    coalescingWindow = builder.coalescingWindow;
+  }
+
+  public Client(final String uri) {
+    this(builder(uri));
+  }
+
+  public Client(final Transport transport) {
+    this(builder(transport));
   }
 
   /**
@@ -71,7 +661,7 @@ public class Client implements AutoCloseable {
       .setData(AbiFunction.encodeCallAsQuantity(functionName, args));
 
     final String result = rpcRequest(String.class, "eth_call", tx, tag.getName());
-    return AbiFunction.decodeResult(result.substring(2), resultTypes);
+    return AbiFunction.decodeResult(Hex.decode(result, 2, result.length()), resultTypes);
   }
 
   /**
@@ -99,21 +689,127 @@ public class Client implements AutoCloseable {
       .setGasLimit(gasLimit)
       .setGasPrice(gasPrice)
       .setValue(value)
-      .setNonce(getNonce(from.getAddress()))
       .setData(AbiFunction.encodeCallAsQuantity(functionName, args));
 
     return sendRawTransaction(from, tx);
   }
 
+  /**
+   * Sends request through the response cache when it is enabled, results accepted by the cacheable predicate are stored.
+   */
+  private <T> T cachedRpcRequest(final Class<T> resultType, final Predicate<T> cacheable, final String method, final Object... params) {
+
+    if (cache == null) {
+      return rpcRequest(resultType, method, params);
+    }
+    final String key = ResponseCache.key(method, params);
+    final JsonNode cached = cache.get(key);
+    if (cached != null) {
+      return Utils.fromJson(cached, resultType);
+    }
+    final T result = rpcRequest(resultType, method, params);
+    if (result != null && cacheable.test(result)) {
+      cache.put(key, Utils.toJsonNode(result));
+    }
+    return result;
+  }
+
   @Override
   public void close() {
-    try {
-      httpClient.close();
+    transport.close();
+  }
+
+  /**
+   * @return Returns true when the block is at least cache finality depth blocks behind the latest block,
+   *         the latest block number is requested only when the last known one is not enough to tell.
+   *         A failed request leaves the result uncached.
+   */
+  private boolean isFinal(final Quantity blockNumber) {
+    final long number = blockNumber.toLong();
+    if (lastBlockNumber - number < cacheFinalityDepth) {
+      try {
+        lastBlockNumber = Math.max(lastBlockNumber, getLastBlockNumber().toLong());
+      }
+      catch (final Error e) {
+        return false;
+      }
     }
-    catch (final IOException e) {
+    return lastBlockNumber - number >= cacheFinalityDepth;
+  }
+
+  /**
+   * Sends the request unless an identical one is in flight or its response is still within the coalescing window,
+   * in that case waits for the shared response.
+   */
+  private <T> T coalescedRpcRequest(final Class<T> resultType, final String method, final Object... params) {
+
+    final String key = ResponseCache.key(method, params);
+    while (true) {
+      final Flight flight = flights.get(key);
+      if (flight != null && flight.isExpired(System.currentTimeMillis())) {
+        flights.remove(key, flight);
+        continue;
+      }
+      if (flight != null) {
+        coalescedCount.incrementAndGet();
+        return JsonRpc.readResult(join(flight.response), String.valueOf(flight.id), resultType);
+      }
+      final Flight leader = new Flight(JsonRpc.nextIds(1));
+      if (flights.putIfAbsent(key, leader) != null) {
+        continue;
+      }
+      final boolean reusable = coalescingWindow > 0 && isReusable(params);
+      CompletableFuture<byte[]> response;
+      try {
+        response = transport.send(JsonRpc.writeRequest(leader.id, method, params));
+      }
+      catch (final RuntimeException e) {
+        response = new CompletableFuture<>();
+        response.completeExceptionally(e);
+      }
+      response.whenComplete((bytes, e) -> {
+        if (e != null || !reusable) {
+          flights.remove(key, leader);
+        }
+        else {
+          leader.expiresAt = System.currentTimeMillis() + coalescingWindow;
+          if (flights.size() > MAX_FLIGHTS) {
+            final long now = System.currentTimeMillis();
+            flights.values().removeIf(f -> f.isExpired(now));
+          }
+        }
+        if (e != null) {
+          leader.response.completeExceptionally(e);
+        }
+        else {
+          leader.response.complete(bytes);
+        }
+      });
+      try {
+        return JsonRpc.readResult(join(leader.response), String.valueOf(leader.id), resultType);
+      }
+      catch (final RuntimeException e) {
+        flights.remove(key, leader);
+        throw e;
+      }
     }
   }
 
+  /**
+   * @return Returns a new empty batch, split into chunks of {@link #DEFAULT_BATCH_MAX_SIZE} calls.
+   */
+  public Batch createBatch() {
+    return createBatch(DEFAULT_BATCH_MAX_SIZE);
+  }
+
+  /**
+   * @param maxSize - max number of calls sent in one HTTP request.
+   * @return Returns a new empty batch.
+   */
+  public Batch createBatch(final int maxSize) {
+    return new Batch(this, maxSize);
+  }
+
   /**
    * @return Transaction hash
    */
@@ -142,7 +838,6 @@ public class Client implements AutoCloseable {
       transaction = Transaction.create()
         .setGasLimit(gasLimit)
         .setGasPrice(getGasPrice())
-        .setNonce(getNonce(fromAccount.getAddress()))
         .setData(deployByteCode);
     }
 
@@ -213,7 +908,7 @@ public class Client implements AutoCloseable {
    * @return Returns the balance of the account of given address.
    */
   public Quantity getBalance(final Quantity address, final Quantity blockNumber) {
-    return rpcRequest(Quantity.class, "eth_getBalance", address.toHexAddress(), blockNumber.toHex());
+    return cachedRpcRequest(Quantity.class, result -> isFinal(blockNumber), "eth_getBalance", address.toHexAddress(), blockNumber.toHex());
   }
 
   /**
@@ -226,12 +921,71 @@ public class Client implements AutoCloseable {
     return rpcRequest(Quantity.class, "eth_getBalance", address.toHexAddress(), tag.getName());
   }
 
+  /**
+   * Fetches balances of many accounts using batch requests.
+   *
+   * @param addresses - 20 Bytes - addresses to check for balance.
+   * @param tag
+   * @return Returns the balances of the accounts in the order of given addresses.
+   */
+  public Map<Quantity, Quantity> getBalances(final Collection<Quantity> addresses, final Tag tag) {
+
+    final Batch batch = createBatch();
+    final Map<Quantity, Batch.Call<Quantity>> calls = new LinkedHashMap<>(addresses.size() * 2);
+    for (final Quantity address : addresses) {
+      calls.put(address, batch.add(Quantity.class, "eth_getBalance", address.toHexAddress(), tag.getName()));
+    }
+    batch.execute();
+
+    final Map<Quantity, Quantity> balances = new LinkedHashMap<>(calls.size() * 2);
+    for (final Map.Entry<Quantity, Batch.Call<Quantity>> call : calls.entrySet()) {
+      balances.put(call.getKey(), call.getValue().get());
+    }
+    return balances;
+  }
+
+  /**
+   * @param blockHash - 32 Bytes - hash of a block.
+   * @param fullTransactions - true returns full transaction objects, false transactions with hash set only.
+   * @return Returns block matching the given hash, null when no block was found.
+   */
+  public Block getBlockByHash(final Quantity blockHash, final boolean fullTransactions) {
+    return cachedRpcRequest(Block.class, block -> !block.isPending(), "eth_getBlockByHash", blockHash.toHexHash(), fullTransactions);
+  }
+
+  /**
+   * @param blockNumber - number of a block.
+   * @param fullTransactions - true returns full transaction objects, false transactions with hash set only.
+   * @return Returns block matching the given number, null when no block was found.
+   *         Not cached, blocks are cached by hash only, see {@link #getBlockByHash(Quantity, boolean)}.
+   * @see BlockDownloader for block ranges.
+   */
+  public Block getBlockByNumber(final Quantity blockNumber, final boolean fullTransactions) {
+    return rpcRequest(Block.class, "eth_getBlockByNumber", blockNumber.toHex(), fullTransactions);
+  }
+
+  /**
+   * @param blockTag - earliest, latest or pending block.
+   * @param fullTransactions - true returns full transaction objects, false transactions with hash set only.
+   */
+  public Block getBlockByNumber(final Tag blockTag, final boolean fullTransactions) {
+    return rpcRequest(Block.class, "eth_getBlockByNumber", blockTag.getName(), fullTransactions);
+  }
+
+  /**
+   * @param filterId - id of a filter created with {@link #newBlockFilter()}.
+   * @return Returns hashes of blocks arrived since the last poll.
+   */
+  public List<Quantity> getBlockFilterChanges(final String filterId) {
+    return Arrays.asList(rpcRequest(Quantity[].class, "eth_getFilterChanges", filterId));
+  }
+
   /**
    * @param blockHash - hash of a block.
    * @return Returns the number of transactions in a block from a block matching the given block hash.
    */
   public Quantity getBlockTransactionCountByHash(final Quantity blockHash) {
-    return rpcRequest(Quantity.class, "eth_getBlockTransactionCountByHash", blockHash.toHexHash());
+    return cachedRpcRequest(Quantity.class, result -> true, "eth_getBlockTransactionCountByHash", blockHash.toHexHash());
   }
 
   /**
@@ -239,7 +993,7 @@ public class Client implements AutoCloseable {
   * @return Returns the number of transactions in a block matching the given block number.
   */
   public Quantity getBlockTransactionCountByNumber(final Quantity blockNumber) {
-    return rpcRequest(Quantity.class, "eth_getBlockTransactionCountByNumber", blockNumber.toHex());
+    return cachedRpcRequest(Quantity.class, result -> isFinal(blockNumber), "eth_getBlockTransactionCountByNumber", blockNumber.toHex());
   }
 
   /**
@@ -250,6 +1004,20 @@ public class Client implements AutoCloseable {
     return rpcRequest(Quantity.class, "eth_getBlockTransactionCountByNumber", blockTag.getName());
   }
 
+  /**
+   * @return Returns response cache with hit and miss metrics, null when the cache is disabled.
+   */
+  public ResponseCache getCache() {
+    return cache;
+  }
+
+  /**
+   * @return Returns number of requests answered by an identical request in flight or within the coalescing window.
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
   /**
    * @return Returns the client coinbase address.
    */
@@ -257,6 +1025,14 @@ public class Client implements AutoCloseable {
     return rpcRequest(Quantity.class, "eth_coinbase");
   }
 
+  /**
+   * @param filterId - id of a filter created with {@link #newFilter(LogFilter)}.
+   * @return Returns logs arrived since the last poll, logs of removed blocks may come again with removed flag.
+   */
+  public List<Event> getFilterChanges(final String filterId) {
+    return Arrays.asList(rpcRequest(Event[].class, "eth_getFilterChanges", filterId));
+  }
+
   /**
    * @return Returns the current price per gas in wei.
    */
@@ -278,6 +1054,17 @@ public class Client implements AutoCloseable {
     return rpcRequest(Quantity.class, "eth_blockNumber");
   }
 
+  /**
+   * @param filter - addresses and topics of the logs.
+   * @param fromBlock - first block number.
+   * @param toBlock - last block number, inclusive.
+   * @return Returns logs matching the filter, the node may reject ranges with too many results.
+   * @see LogDownloader for large ranges.
+   */
+  public List<Event> getLogs(final LogFilter filter, final Quantity fromBlock, final Quantity toBlock) {
+    return Arrays.asList(rpcRequest(Event[].class, "eth_getLogs", createLogQuery(filter, fromBlock, toBlock)));
+  }
+
   /**
    * @return Returns the current network id.
    */
@@ -293,6 +1080,13 @@ public class Client implements AutoCloseable {
     return getTransactionCount(address, Tag.LATEST);
   }
 
+  /**
+   * @return Returns local nonce allocator used by {@link #sendRawTransaction(Account, Transaction)} for transactions without nonce.
+   */
+  public NonceManager getNonceManager() {
+    return nonceManager;
+  }
+
   /**
    * @return Returns number of peers currently connected to the client.
    */
@@ -319,7 +1113,7 @@ public class Client implements AutoCloseable {
   * @return Returns the value from a storage position at a given address.
   */
   public Quantity getStorageAt(final Quantity address, final Quantity position, final Quantity blockNumber) {
-    return rpcRequest(Quantity.class, "eth_getStorageAt", address.toHexAddress(), position.toHex(), blockNumber.toHex());
+    return cachedRpcRequest(Quantity.class, result -> isFinal(blockNumber), "eth_getStorageAt", address.toHexAddress(), position.toHex(), blockNumber.toHex());
   }
 
   /**
@@ -338,7 +1132,8 @@ public class Client implements AutoCloseable {
    * @return Returns the information about a transaction requested by transaction hash.
    */
   public Transaction getTransactionByHash(final Quantity hash) {
-    return rpcRequest(Transaction.class, "eth_getTransactionByHash", hash.toHexHash());
+    return cachedRpcRequest(Transaction.class, tx -> tx.getBlockHash() != null && isFinal(tx.getBlockNumber()),
+      "eth_getTransactionByHash", hash.toHexHash());
   }
 
   /**
@@ -347,7 +1142,7 @@ public class Client implements AutoCloseable {
   * @return Returns the number of transactions sent from an address.
   */
   public Quantity getTransactionCount(final Quantity address, final Quantity blockNumber) {
-    return rpcRequest(Quantity.class, "eth_getTransactionCount", address.toHexAddress(), blockNumber.toHex());
+    return cachedRpcRequest(Quantity.class, result -> isFinal(blockNumber), "eth_getTransactionCount", address.toHexAddress(), blockNumber.toHex());
   }
 
   /**
@@ -365,7 +1160,8 @@ public class Client implements AutoCloseable {
    *        Note That the receipt is not available for pending transactions.
    */
   public TransactionReceipt getTransactionReceipt(final Quantity txHash) {
-    return rpcRequest(TransactionReceipt.class, "eth_getTransactionReceipt", txHash.toHexHash());
+    return cachedRpcRequest(TransactionReceipt.class, receipt -> receipt.getBlockHash() != null && isFinal(receipt.getBlockNumber()),
+      "eth_getTransactionReceipt", txHash.toHexHash());
   }
 
   /**
@@ -382,6 +1178,26 @@ public class Client implements AutoCloseable {
     return rpcRequest(Boolean.class, "eth_mining");
   }
 
+  /**
+   * Creates a filter in the node to notify when a new block arrives, poll it with {@link #getBlockFilterChanges(String)}.
+   * The node removes filters not polled for a while.
+   *
+   * @return Returns filter id.
+   */
+  public String newBlockFilter() {
+    return rpcRequest(String.class, "eth_newBlockFilter");
+  }
+
+  /**
+   * Creates a filter in the node to notify when new logs match, poll it with {@link #getFilterChanges(String)}.
+   * The node removes filters not polled for a while.
+   *
+   * @return Returns filter id.
+   */
+  public String newFilter(final LogFilter filter) {
+    return rpcRequest(String.class, "eth_newFilter", filter.toJson());
+  }
+
   /**
    * Generates a new private key and stores it in the key store directory. The key file is encrypted with the given passphrase.
    * @param passphrase Passphrase
@@ -391,53 +1207,77 @@ public class Client implements AutoCloseable {
     return rpcRequest(Quantity.class, "personal_newAccount", passphrase);
   }
 
-  private <T> T rpcRequest(final Class<T> resultType, final String method, final Object... params) {
+  private <T extends JsonNode> T post(final byte[] jsonRpcRequest, final Class<T> responseType) {
+    return JsonRpc.readResponse(join(transport.send(jsonRpcRequest)), responseType);
+  }
 
-    final String rpcRequestId = UUID.randomUUID().toString();
+  private <T> T rpcRequest(final Class<T> resultType, final String method, final Object... params) {
 
-    final Map<String, Object> jsonRpcRequest = new HashMap<>(5);
-    jsonRpcRequest.put("id", rpcRequestId);
-    jsonRpcRequest.put("jsonrpc", "2.0");
-    jsonRpcRequest.put("method", method);
-    if (params != null && params.length > 0) {
-      jsonRpcRequest.put("params", params);
+    if (flights != null && LoadBalancingTransport.DEFAULT_READ_ONLY_METHODS.contains(method)) {
+      return coalescedRpcRequest(resultType, method, params);
     }
-    final byte[] jsonRpcRequestBytes = Utils.toJsonAsBytes(jsonRpcRequest, false);
-
-    final HttpPost post = new HttpPost(uri);
-    post.setHeader("Content-Type", "application/json");
-    post.setEntity(new ByteArrayEntity(jsonRpcRequestBytes));
-
-    try (CloseableHttpResponse response = httpClient.execute(post)) {
+    return sendRpcRequest(resultType, method, params);
+  }
 
-      if (response.getStatusLine().getStatusCode() != 200) {
-        throw new Error(response.getStatusLine() + "\n\n" + EntityUtils.toString(response.getEntity()));
-      }
-      final ObjectNode jsonRpcResponse = Utils.fromJson(response.getEntity().getContent(), ObjectNode.class);
-      final String rpcResponseId = jsonRpcResponse.get("id") == null ? "" : jsonRpcResponse.get("id").asText();
-      if (!rpcRequestId.equals(rpcResponseId)) {
-        throw new Error("Request id and response id are not equals.");
-      }
-      if (jsonRpcResponse.has("error")) {
-        final ObjectNode rpcError = jsonRpcResponse.with("error");
-        throw new Error(rpcError.get("code").asInt(), rpcError.get("message").asText());
-      }
-      return Utils.fromJson(jsonRpcResponse.get("result"), resultType);
-    }
-    catch (final IOException e) {
-      throw new Error(e);
-    }
+  /**
+   * Sends the request straight to the transport, bypassing coalescing and the response cache.
+   */
+  private <T> T sendRpcRequest(final Class<T> resultType, final String method, final Object... params) {
 
+    final long rpcRequestId = JsonRpc.nextIds(1);
+    final byte[] jsonRpcRequestBytes = JsonRpc.writeRequest(rpcRequestId, method, params);
+    return JsonRpc.readResult(join(transport.send(jsonRpcRequestBytes)), String.valueOf(rpcRequestId), resultType);
   }
 
   /**
    * Creates new message call transaction or a contract creation for signed transactions.
    * @return - 32 Bytes - the transaction hash, or the zero hash if the transaction is not yet available.
    *        Use eth_getTransactionReceipt to get the contract address, after the transaction was mined, when you created a contract.
+   *        The nonce is allocated by the {@link NonceManager} when the transaction has none, and resynced on "nonce too low".
+   *        A copy is signed with the allocated nonce, the given transaction is not modified and may be reused as a template.
+   *        An explicit nonce is recorded in the {@link NonceManager}, so it is never allocated.
    */
   public Quantity sendRawTransaction(final Account account, final Transaction transaction) {
-    final Quantity rawTx = Crypto.createRawTransaction(account.getPrivateKey(), account.getPublicKey(), transaction);
-    return rpcRequest(Quantity.class, "eth_sendRawTransaction", rawTx.toHex());
+
+    final Quantity address = account.getAddress();
+    if (transaction.getNonce() != null) {
+      final Quantity rawTx = Crypto.createRawTransaction(account.getPrivateKey(), account.getPublicKey(), transaction);
+      final Quantity txHash = rpcRequest(Quantity.class, "eth_sendRawTransaction", rawTx.toHex());
+      nonceManager.markUsed(address, transaction.getNonce());
+      return txHash;
+    }
+    for (int attempt = 1;; attempt++) {
+      final Quantity nonce;
+      try {
+        nonce = nonceManager.allocate(address).join();
+      }
+      catch (final CompletionException e) {
+        throw e.getCause() instanceof Error ? (Error) e.getCause() : new Error(e.getCause());
+      }
+      final Quantity rawTx;
+      try {
+        rawTx = Crypto.createRawTransaction(account.getPrivateKey(), account.getPublicKey(), transaction.copy().setNonce(nonce));
+      }
+      catch (final RuntimeException e) {
+        nonceManager.release(address, nonce);
+        throw e;
+      }
+      try {
+        final Quantity txHash = rpcRequest(Quantity.class, "eth_sendRawTransaction", rawTx.toHex());
+        nonceManager.confirm(address, nonce);
+        return txHash;
+      }
+      catch (final Error e) {
+        final boolean retry = nonceManager.onError(address, nonce, e);
+        if (NonceManager.isAlreadyKnown(e)) {
+          return Crypto.keccak256(rawTx);
+        }
+        if (retry && attempt < MAX_NONCE_ATTEMPTS) {
+          continue;
+        }
+        throw e;
+      }
+    }
   }
 
   /**
@@ -457,6 +1297,69 @@ public class Client implements AutoCloseable {
     return rpcRequest(boolean.class, "miner_stop");
   }
 
+  private <T> Subscription subscribe(final Function<JsonNode, T> decoder, final Consumer<T> listener, final Object... params) {
+
+    final Subscription subscription = new Subscription(this, decoder, listener);
+    final long rpcRequestId = JsonRpc.nextIds(1);
+    final byte[] request = JsonRpc.writeRequest(rpcRequestId, "eth_subscribe", params);
+    final byte[] response = join(transport.subscribe(request, subscription::offer));
+    subscription.start(JsonRpc.readResult(response, String.valueOf(rpcRequestId), String.class));
+    return subscription;
+  }
+
+  /**
+   * Subscribes to logs included in new imported blocks, logs of removed blocks are sent again with removed flag.
+   *
+   * @param addresses - (optional) 20 Bytes - contract addresses the logs originated from.
+   * @param topics - (optional) 32 Bytes - topics the logs must match by position, null matches any topic.
+   * @param listener
+   */
+  public Subscription subscribeLogs(final Collection<Quantity> addresses, final List<Quantity> topics, final Consumer<Event> listener) {
+
+    final LogFilter filter = LogFilter.create();
+    if (addresses != null) {
+      filter.addAddress(addresses.toArray(new Quantity[0]));
+    }
+    if (topics != null) {
+      topics.forEach(filter::addTopic);
+    }
+    return subscribeLogs(filter, listener);
+  }
+
+  /**
+   * Subscribes to logs matching the filter included in new imported blocks, logs of removed blocks are sent again with removed flag.
+   */
+  public Subscription subscribeLogs(final LogFilter filter, final Consumer<Event> listener) {
+    return subscribe(result -> Utils.fromJson(result, Event.class), listener, "logs", filter.toJson());
+  }
+
+  /**
+   * Subscribes to headers of new blocks appended to the chain, including chain reorganizations.
+   */
+  public Subscription subscribeNewHeads(final Consumer<Block> listener) {
+    return subscribe(result -> Utils.fromJson(result, Block.class), listener, "newHeads");
+  }
+
+  /**
+   * Subscribes to transactions added to the pending state.
+   * Nodes sending only hashes produce transactions with hash set only.
+   */
+  public Subscription subscribeNewPendingTransactions(final Consumer<Transaction> listener) {
+    return subscribe(
+      result -> result.isTextual()
+        ? Transaction.create().setHash(Quantity.of(result.asText()))
+        : Utils.fromJson(result, Transaction.class),
+      listener,
+      "newPendingTransactions");
+  }
+
+  /**
+   * @return Returns true when the filter was uninstalled, false when the node did not know it.
+   */
+  public boolean uninstallFilter(final String filterId) {
+    return rpcRequest(boolean.class, "eth_uninstallFilter", filterId);
+  }
+
   /**
    * Decrypts the key with the given address from the key store.
    * The account can be used with eth_sign and eth_sendTransaction while it is unlocked.
@@ -7,14 +7,14 @@ import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.SecureRandom;
 import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.bouncycastle.asn1.x9.X9ECParameters;
 import org.bouncycastle.asn1.x9.X9IntegerConverter;
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.ec.CustomNamedCurves;
 import org.bouncycastle.crypto.params.ECDomainParameters;
-import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
-import org.bouncycastle.crypto.signers.ECDSASigner;
 import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
 import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPrivateKey;
 import org.bouncycastle.jcajce.provider.digest.Keccak;
@@ -36,12 +36,8 @@ public class Crypto {
       this.s = s;
     }
 
-    public boolean isCanonical() {
-      return s.compareTo(HALF_CURVE_ORDER) <= 0;
-    }
-
-    public ECDSASignature toCanonicalised() {
-      return isCanonical() ? this : new ECDSASignature(r, SIGN_CURVE.getN().subtract(s));
+    public boolean isValid() {
+      return r.signum() > 0 && r.compareTo(SIGN_CURVE.getN()) < 0 && s.signum() > 0 && s.compareTo(SIGN_CURVE.getN()) < 0;
     }
   }
 
@@ -70,6 +66,9 @@ public class Crypto {
   private static final KeyPairGenerator KEY_PAIR_GENERATOR;
   private static final ECGenParameterSpec EC_GEN_PARAMTER_SPEC = new ECGenParameterSpec("secp256k1");
   private static final BigInteger HALF_CURVE_ORDER = SIGN_CURVE_PARAMS.getN().shiftRight(1);
+  private static final int PUBLIC_KEY_BYTES = 64;
+  private static final int TX_FIELDS = 9;
+  private static final int TX_SIGNED_FIELDS = 6;
   static {
     try {
       KEY_PAIR_GENERATOR = KeyPairGenerator.getInstance("ECDSA", SECURITY_PROVIDER);
@@ -80,12 +79,7 @@ public class Crypto {
   }
 
   public static Quantity createAddress(final Quantity publicKey) {
-
-    final Quantity hash = keccak256(publicKey);
-    final String hashHex = hash.toHex();
-    final String addressHex = Quantity.HEX_PREFIX + hashHex.substring(hashHex.length() - Quantity.ADDRESS_HEX_LENGH);
-    final Quantity address = Quantity.of(addressHex);
-    return address;
+    return toAddress(publicKey.toBytes(PUBLIC_KEY_BYTES));
   }
 
   public static Quantity createPrivateKey() {
@@ -118,15 +112,94 @@ public class Crypto {
     return Quantity.of(new BigInteger(1, publicKeyBytes));
   }
 
+  /**
+   * @param publicKey - not used, recovery id is derived while signing.
+   */
   public static Quantity createRawTransaction(final Quantity privateKey, final Quantity publicKey, final Transaction tx) {
 
     final byte[] txRlp = txToRlp(tx, null);
     final byte[] txRlpHash = keccak256(txRlp);
-    final SignatureData signData = sign(privateKey, publicKey, txRlpHash);
+    final SignatureData signData = sign(privateKey, txRlpHash);
     final byte[] rawTxBytes = txToRlp(tx, signData);
     return Quantity.of(rawTxBytes);
   }
 
+  /**
+   * Decodes raw signed transaction, legacy or EIP-155 replay protected, without any RPC call. Sender is recovered from
+   * the signature and hash is keccak of the raw bytes. Payload is set as both data and input. High-s signatures are
+   * rejected as in EIP-2.
+   */
+  public static Transaction decodeRawTransaction(final byte[] raw) {
+
+    if (raw.length == 0 || (raw[0] & 0xff) < 0xc0) {
+      throw new Error("Only legacy transactions are supported, typed transactions start with type byte");
+    }
+    final Rlp.Slice fields = Rlp.view(raw);
+    if (fields.size() != TX_FIELDS) {
+      throw new Error("Raw transaction must have " + TX_FIELDS + " fields, got " + fields.size());
+    }
+    final List<Rlp.Type> signed = new ArrayList<>(TX_FIELDS);
+    for (int i = 0; i < TX_SIGNED_FIELDS; i++) {
+      signed.add(fields.get(i));
+    }
+    final Rlp.Slice to = fields.get(3);
+    if (to.getLength() != 0 && to.getLength() != Address.BYTES) {
+      throw new Error("Raw transaction recipient must be empty or " + Address.BYTES + " bytes, got " + to.getLength());
+    }
+    final long v = fields.get(6).getLong();
+    final int recId;
+    if (v == 27 || v == 28) {
+      recId = (int) (v - 27);
+    }
+    else if (v >= 35) {
+      recId = (int) ((v - 35) & 1);
+      signed.add(Rlp.createString(Quantity.of((v - 35) >> 1)));
+      signed.add(Rlp.createEmptyString());
+      signed.add(Rlp.createEmptyString());
+    }
+    else {
+      throw new Error("Invalid signature v " + v);
+    }
+    final Quantity r = fields.get(7).getQuantity();
+    final Quantity s = fields.get(8).getQuantity();
+    final ECDSASignature signature = new ECDSASignature(r.toBigInteger(), s.toBigInteger());
+    if (!signature.isValid() || signature.s.compareTo(HALF_CURVE_ORDER) > 0) {
+      throw new Error("Invalid signature r " + r + " s " + s);
+    }
+    final BigInteger publicKey = recoverFromSignature(recId, signature, keccak256(Rlp.encode(Rlp.createList(signed))));
+    if (publicKey == null) {
+      throw new Error("Could not recover sender of raw transaction");
+    }
+
+    final Rlp.Slice payload = fields.get(5);
+    Quantity data = null;
+    if (payload.getLength() > 0) {
+      final char[] hex = new char[Quantity.HEX_PREFIX.length() + payload.getLength() * 2];
+      hex[0] = '0';
+      hex[1] = 'x';
+      Hex.encode(raw, payload.getOffset(), payload.getLength(), hex, Quantity.HEX_PREFIX.length());
+      data = Quantity.of(new String(hex));
+    }
+    return Transaction
+      .create()
+      .setNonce(fields.get(0).getQuantity())
+      .setGasPrice(fields.get(1).getQuantity())
+      .setGasLimit(fields.get(2).getQuantity())
+      .setTo(to.getLength() == 0 ? null : Address.of(to.getBytes()))
+      .setValue(fields.get(4).getQuantity())
+      .setData(data)
+      .setInput(data)
+      .setV(Quantity.of(v))
+      .setR(r)
+      .setS(s)
+      .setFrom(toAddress(toBytesPadded(publicKey, PUBLIC_KEY_BYTES)))
+      .setHash(Hash.of(keccak256(raw)));
+  }
+
+  public static Transaction decodeRawTransaction(final Quantity raw) {
+    return decodeRawTransaction(raw.toBytes());
+  }
+
   private static ECPoint decompressKey(final BigInteger xBN, final boolean yBit) {
     final X9IntegerConverter x9 = new X9IntegerConverter();
     final byte[] compEnc = x9.integerToBytes(xBN, 1 + x9.getByteLength(SIGN_CURVE.getCurve()));
@@ -166,8 +239,12 @@ public class Crypto {
     if (x.compareTo(prime) >= 0) {
       return null;
     }
-    final ECPoint R = decompressKey(x, (recId & 1) == 1);
-    if (!R.multiply(n).isInfinity()) {
+    // cofactor of secp256k1 is 1, so any decoded point has order n and needs no n * R check
+    final ECPoint R;
+    try {
+      R = decompressKey(x, (recId & 1) == 1);
+    }
+    catch (final IllegalArgumentException e) {
       return null;
     }
     final BigInteger e = new BigInteger(1, data);
@@ -180,38 +257,45 @@ public class Crypto {
     return new BigInteger(1, Arrays.copyOfRange(qBytes, 1, qBytes.length));
   }
 
-  private static ECDSASignature sign(final Quantity privateKey, final byte[] data) {
-
-    final ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
-    final ECPrivateKeyParameters privKey = new ECPrivateKeyParameters(privateKey.toBigInteger(), SIGN_CURVE);
-    signer.init(true, privKey);
-    final BigInteger[] components = signer.generateSignature(data);
-    return new ECDSASignature(components[0], components[1]).toCanonicalised();
-  }
+  /**
+   * Deterministic ECDSA with RFC 6979 k as {@link org.bouncycastle.crypto.signers.ECDSASigner}, s is canonicalised
+   * to lower half of the order. Recovery id comes from the nonce point R: bit 0 is parity of its y, flipped when s is
+   * negated, bit 1 is set when its x overflowed the order.
+   */
+  private static SignatureData sign(final Quantity privateKey, final byte[] data) {
 
-  private static SignatureData sign(final Quantity privateKey, final Quantity publicKey, final byte[] data) {
-
-    final BigInteger pubKey = publicKey.toBigInteger();
-    final ECDSASignature sig = sign(privateKey, data);
-
-    int recId = -1;
-    {
-      for (int i = 0; i < 4; i++) {
-        final BigInteger k = recoverFromSignature(i, sig, data);
-        if (k != null && k.equals(pubKey)) {
-          recId = i;
-          break;
-        }
+    final BigInteger n = SIGN_CURVE.getN();
+    final BigInteger d = privateKey.toBigInteger();
+    BigInteger e = new BigInteger(1, data);
+    if (data.length * 8 > n.bitLength()) {
+      e = e.shiftRight(data.length * 8 - n.bitLength());
+    }
+    final HMacDSAKCalculator kCalculator = new HMacDSAKCalculator(new SHA256Digest());
+    kCalculator.init(n, d, data);
+    while (true) {
+      final BigInteger k = kCalculator.nextK();
+      final ECPoint point = new FixedPointCombMultiplier().multiply(SIGN_CURVE.getG(), k).normalize();
+      final BigInteger x = point.getAffineXCoord().toBigInteger();
+      final BigInteger r = x.mod(n);
+      if (r.signum() == 0) {
+        continue;
       }
-      if (recId == -1) {
-        throw new Error("Could not construct a recoverable key. This should never happen.");
+      BigInteger s = k.modInverse(n).multiply(e.add(d.multiply(r))).mod(n);
+      if (s.signum() == 0) {
+        continue;
       }
+      int recId = (point.getAffineYCoord().testBitZero() ? 1 : 0) | (x.compareTo(n) >= 0 ? 2 : 0);
+      if (s.compareTo(HALF_CURVE_ORDER) > 0) {
+        s = n.subtract(s);
+        recId ^= 1;
+      }
+      return new SignatureData((byte) (recId + 27), toBytesPadded(r, 32), toBytesPadded(s, 32));
     }
-    final int headerByte = recId + 27;
-    final byte v = (byte) headerByte;
-    final byte[] r = toBytesPadded(sig.r, 32);
-    final byte[] s = toBytesPadded(sig.s, 32);
-    return new SignatureData(v, r, s);
+  }
+
+  private static Address toAddress(final byte[] publicKey) {
+    final byte[] hash = keccak256(publicKey);
+    return Address.of(Arrays.copyOfRange(hash, hash.length - Address.BYTES, hash.length));
   }
 
   private static byte[] toBytesPadded(final BigInteger value, final int length) {
@@ -254,7 +338,7 @@ public class Crypto {
       .add(Rlp.createString(tx.getNonce()))
       .add(Rlp.createString(tx.getGasPrice()))
       .add(Rlp.createString(tx.getGasLimit()))
-      .add(Rlp.createString(tx.getTo()))
+      .add(tx.getTo() == null ? Rlp.createEmptyString() : Rlp.createString(tx.getTo().toBytes(Address.BYTES)))
       .add(Rlp.createString(tx.getValue()))
       .add(Rlp.createString(tx.getData()));
 
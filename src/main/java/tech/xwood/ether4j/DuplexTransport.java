@@ -0,0 +1,168 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Base of transports keeping one persistent connection to the node.
+ * Requests are pipelined and responses are matched back by id, so any number of requests may be in flight at once.
+ * Incoming eth_subscription notifications are dispatched to the subscription listeners on the reader thread,
+ * a listener blocking the reader thread stops reading from the connection.
+ * Messages which can not be routed and listener exceptions are passed to the error handler, see {@link #setErrorHandler(Consumer)}.
+ * Custom persistent transports extend this class, implement {@link #write(byte[])} and feed every
+ * received message to {@link #onMessage(byte[])} and connection loss to {@link #onClose(Throwable)}.
+ */
+public abstract class DuplexTransport implements Transport {
+
+  /**
+   * Default max size in bytes of a received message, a larger message closes the connection.
+   */
+  public static final int DEFAULT_MAX_MESSAGE_SIZE = 128 * 1024 * 1024;
+
+  private final Map<String, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+  private final Map<String, Consumer<JsonNode>> pendingSubscriptions = new ConcurrentHashMap<>();
+  private final Map<String, Consumer<JsonNode>> subscriptions = new ConcurrentHashMap<>();
+  private volatile Consumer<Throwable> errorHandler = e -> {
+  };
+  private volatile Error closed;
+
+  private void fail(final String id, final Error error) {
+    pendingSubscriptions.remove(id);
+    final CompletableFuture<byte[]> future = pending.remove(id);
+    if (future != null) {
+      future.completeExceptionally(error);
+    }
+  }
+
+  /**
+   * @return Returns number of requests waiting for response.
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Fails all pending requests, called once the connection is lost or closed.
+   */
+  protected void onClose(final Throwable cause) {
+    closed = cause == null ? new Error("Connection closed") : new Error("Connection closed", cause);
+    for (final String id : pending.keySet()) {
+      fail(id, closed);
+    }
+    subscriptions.clear();
+  }
+
+  /**
+   * Routes incoming message to the pending request or subscription, called by the reader thread.
+   * Never throws, errors are passed to the error handler.
+   */
+  protected void onMessage(final byte[] message) {
+    try {
+      route(message);
+    }
+    catch (final RuntimeException e) {
+      errorHandler.accept(e);
+    }
+  }
+
+  private void onNotification(final byte[] message) {
+    final JsonNode notification = Utils.fromJson(message, JsonNode.class);
+    if ("eth_subscription".equals(notification.path("method").asText())) {
+      final JsonNode params = notification.path("params");
+      final Consumer<JsonNode> listener = subscriptions.get(params.path("subscription").asText());
+      if (listener != null) {
+        listener.accept(params.get("result"));
+      }
+    }
+  }
+
+  private void route(final byte[] message) {
+
+    final List<String> ids = JsonRpc.readIds(message);
+    if (ids.isEmpty()) {
+      onNotification(message);
+      return;
+    }
+    for (final String id : ids) {
+      final CompletableFuture<byte[]> future = pending.remove(id);
+      if (future != null) {
+        final Consumer<JsonNode> listener = pendingSubscriptions.remove(id);
+        if (listener != null) {
+          final JsonNode subscriptionId = Utils.fromJson(message, JsonNode.class).get("result");
+          if (subscriptionId != null && subscriptionId.isTextual()) {
+            subscriptions.put(subscriptionId.asText(), listener);
+          }
+        }
+        future.complete(message);
+        return;
+      }
+    }
+  }
+
+  @Override
+  public CompletableFuture<byte[]> send(final byte[] request) {
+    return send(request, null);
+  }
+
+  private CompletableFuture<byte[]> send(final byte[] request, final Consumer<JsonNode> listener) {
+
+    final CompletableFuture<byte[]> future = new CompletableFuture<>();
+    final List<String> ids = JsonRpc.readIds(request);
+    if (ids.isEmpty()) {
+      future.completeExceptionally(new Error("Request id is required"));
+      return future;
+    }
+    final String id = ids.get(0);
+    if (pending.putIfAbsent(id, future) != null) {
+      future.completeExceptionally(new Error("Duplicate request id " + id));
+      return future;
+    }
+    if (listener != null) {
+      pendingSubscriptions.put(id, listener);
+    }
+    if (closed != null) {
+      fail(id, closed);
+      return future;
+    }
+    try {
+      write(request);
+    }
+    catch (final IOException e) {
+      fail(id, new Error(e));
+    }
+    return future;
+  }
+
+  /**
+   * @param errorHandler - receives messages which can not be parsed or routed and exceptions of subscription listeners,
+   *          by default they are ignored.
+   */
+  public void setErrorHandler(final Consumer<Throwable> errorHandler) {
+    Utils.require(errorHandler != null, "Error handler is required");
+    this.errorHandler = errorHandler;
+  }
+
+  /**
+   * The listener is registered before any later message is read, so no notification is missed.
+   */
+  @Override
+  public CompletableFuture<byte[]> subscribe(final byte[] request, final Consumer<JsonNode> listener) {
+    return send(request, listener);
+  }
+
+  @Override
+  public void unsubscribe(final String subscriptionId) {
+    subscriptions.remove(subscriptionId);
+  }
+
+  /**
+   * Writes one complete message to the connection, may be called concurrently.
+   */
+  protected abstract void write(byte[] message) throws IOException;
+
+}
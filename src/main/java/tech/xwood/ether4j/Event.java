@@ -66,6 +66,12 @@ public class Event {
   @JsonProperty("type")
   private String type;
 
+  /**
+   * true when the log was removed due to a chain reorganization, false if it is a valid log.
+   */
+  @JsonProperty("removed")
+  private boolean removed;
+
   private Event() {
   }
 
@@ -109,6 +115,19 @@ public class Event {
     return type;
   }
 
+  public boolean isRemoved() {
+    return removed;
+  }
+
+  /**
+   * @return Returns copy of this log with removed flag, retracts a log delivered before a chain reorganization.
+   */
+  Event toRemoved() {
+    final Event removedEvent = Utils.fromJson(Utils.toJsonNode(this), Event.class);
+    removedEvent.removed = true;
+    return removedEvent;
+  }
+
   @Override
   public String toString() {
     return Utils.toJson(this, true);
@@ -0,0 +1,349 @@
+package tech.xwood.ether4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Streams logs of a filter block by block with reorganization handling. Block headers are fetched in batches
+ * and linked by parent hash, logs are queried with eth_getLogs and checked against the linked block hashes.
+ * <p>
+ * Logs are released to the listener once their block has the given number of confirmations.
+ * When the chain reorganizes, logs of replaced blocks already released are delivered again with removed flag,
+ * newest first, followed by logs of the new blocks once they are confirmed.
+ * <p>
+ * Recent blocks and their logs are kept in a ring buffer of history size slots, so memory is bounded
+ * regardless of the stream length. Reorganizations deeper than the history are retracted down to the oldest
+ * remembered block only. Listener is called on the stream thread, its exceptions are passed to the error handler
+ * and do not stop delivery of other logs.
+ */
+public class EventStream implements AutoCloseable {
+
+  public static class Builder {
+
+    private final Client client;
+    private final LogFilter filter;
+    private Consumer<Event> listener;
+    private int confirmations = 12;
+    private int historySize = 128;
+    private int maxRange = 100;
+    private long pollInterval = 1_000;
+    private long fromBlock = -1;
+    private Consumer<Throwable> errorHandler = e -> {
+    };
+
+    private Builder(final Client client, final LogFilter filter) {
+      this.client = client;
+      this.filter = filter;
+    }
+
+    public EventStream build() {
+      Utils.require(listener != null, "Listener is required");
+      Utils.require(historySize >= confirmations, "History size must not be less than confirmations");
+      return new EventStream(this);
+    }
+
+    /**
+     * @param confirmations - number of blocks including the log block required to release the log, 1 releases on inclusion.
+     */
+    public Builder setConfirmations(final int confirmations) {
+      Utils.require(confirmations > 0, "Confirmations must be positive");
+      this.confirmations = confirmations;
+      return this;
+    }
+
+    /**
+     * @param errorHandler - receives exceptions of the listener, by default they are ignored.
+     */
+    public Builder setErrorHandler(final Consumer<Throwable> errorHandler) {
+      Utils.require(errorHandler != null, "Error handler is required");
+      this.errorHandler = errorHandler;
+      return this;
+    }
+
+    /**
+     * @param fromBlock - first block number of the stream, by default the latest block on the first poll.
+     */
+    public Builder setFromBlock(final long fromBlock) {
+      Utils.require(fromBlock >= 0, "From block must not be negative");
+      this.fromBlock = fromBlock;
+      return this;
+    }
+
+    /**
+     * @param historySize - number of recent blocks remembered to detect reorganizations and retract released logs.
+     */
+    public Builder setHistorySize(final int historySize) {
+      Utils.require(historySize > 0, "History size must be positive");
+      this.historySize = historySize;
+      return this;
+    }
+
+    public Builder setListener(final Consumer<Event> listener) {
+      this.listener = listener;
+      return this;
+    }
+
+    /**
+     * @param maxRange - max number of blocks fetched in one batch and one eth_getLogs query.
+     */
+    public Builder setMaxRange(final int maxRange) {
+      Utils.require(maxRange > 0, "Max range must be positive");
+      this.maxRange = maxRange;
+      return this;
+    }
+
+    /**
+     * @param pollInterval - time in milliseconds between polls.
+     */
+    public Builder setPollInterval(final long pollInterval) {
+      Utils.require(pollInterval > 0, "Poll interval must be positive");
+      this.pollInterval = pollInterval;
+      return this;
+    }
+  }
+
+  private static class Slot {
+
+    private final long number;
+    private final Quantity hash;
+    private final List<Event> events = new ArrayList<>();
+    private boolean released;
+
+    private Slot(final long number, final Quantity hash) {
+      this.number = number;
+      this.hash = hash;
+    }
+  }
+
+  /**
+   * @param client - client used for polling, it is not closed by the stream.
+   * @param filter - addresses and topics of the logs.
+   */
+  public static Builder builder(final Client client, final LogFilter filter) {
+    Utils.require(client != null, "Client is required");
+    Utils.require(filter != null, "Filter is required");
+    return new Builder(client, filter);
+  }
+
+  private final Client client;
+  private final LogFilter filter;
+  private final Consumer<Event> listener;
+  private final Consumer<Throwable> errorHandler;
+  private final int confirmations;
+  private final int maxRange;
+  private final long fromBlock;
+  private final Slot[] history;
+  private final ScheduledExecutorService scheduler;
+  private final AtomicLong releasedBlock = new AtomicLong(-1);
+  private final AtomicLong reorgCount = new AtomicLong();
+  private final AtomicLong retractedCount = new AtomicLong();
+  private final AtomicLong errorCount = new AtomicLong();
+  private long nextBlock = -1;
+
+  private EventStream(final Builder builder) {
+
+    client = builder.client;
+    filter = builder.filter;
+    listener = builder.listener;
+    errorHandler = builder.errorHandler;
+    confirmations = builder.confirmations;
+    maxRange = builder.maxRange;
+    fromBlock = builder.fromBlock;
+    history = new Slot[builder.historySize];
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "ether4j-event-stream");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::poll, 0, builder.pollInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Calls the listener, its exception is passed to the error handler.
+   */
+  private void accept(final Event event) {
+    try {
+      listener.accept(event);
+    }
+    catch (final RuntimeException e) {
+      errorHandler.accept(e);
+    }
+  }
+
+  /**
+   * Fetches headers and logs of the blocks from first to last, stores them and releases confirmed logs.
+   *
+   * @return Returns false when nothing was stored, the range is fetched again on the next poll.
+   */
+  private boolean advance(final long first, final long last) {
+
+    final Client.Batch batch = client.createBatch((int) (last - first + 1));
+    final List<Client.Batch.Call<Block>> calls = new ArrayList<>();
+    for (long number = first; number <= last; number++) {
+      calls.add(batch.add(Block.class, "eth_getBlockByNumber", Quantity.of(number).toHex(), false));
+    }
+    batch.execute();
+    final List<Block> blocks = new ArrayList<>(calls.size());
+    for (final Client.Batch.Call<Block> call : calls) {
+      final Block block = call.get();
+      if (block == null || block.isPending() || !blocks.isEmpty()
+        && !block.getParentHash().equals(blocks.get(blocks.size() - 1).getHash())) {
+        // head moved back or the chain changed while fetching
+        break;
+      }
+      blocks.add(block);
+    }
+    if (blocks.isEmpty()) {
+      return false;
+    }
+    final Slot previous = slot(first - 1);
+    if (previous != null && !blocks.get(0).getParentHash().equals(previous.hash)) {
+      rewind(first - 1);
+      return true;
+    }
+    final long fetched = first + blocks.size() - 1;
+    final List<Event> events = client.getLogs(filter, Quantity.of(first), Quantity.of(fetched));
+    final Slot[] slots = new Slot[blocks.size()];
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = new Slot(first + i, blocks.get(i).getHash());
+    }
+    for (final Event event : events) {
+      final int index = (int) (event.getBlockNumber().toLong() - first);
+      if (index < 0 || index >= slots.length) {
+        continue;
+      }
+      if (event.getBlockHash() != null && !event.getBlockHash().equals(slots[index].hash)) {
+        // logs of a block replaced after the headers were fetched
+        return false;
+      }
+      slots[index].events.add(event);
+    }
+    for (final Slot slot : slots) {
+      history[index(slot.number)] = slot;
+      nextBlock = slot.number + 1;
+      release(slot(slot.number - confirmations + 1));
+    }
+    return true;
+  }
+
+  /**
+   * Stops polling, the client is not closed.
+   */
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return Returns number of failed polls, failed polls are repeated on the next interval.
+   */
+  public long getErrorCount() {
+    return errorCount.get();
+  }
+
+  /**
+   * @return Returns number of the latest block with released logs, -1 before the first release.
+   */
+  public long getReleasedBlock() {
+    return releasedBlock.get();
+  }
+
+  /**
+   * @return Returns number of detected chain reorganizations.
+   */
+  public long getReorgCount() {
+    return reorgCount.get();
+  }
+
+  /**
+   * @return Returns number of released logs delivered again with removed flag.
+   */
+  public long getRetractedCount() {
+    return retractedCount.get();
+  }
+
+  private int index(final long number) {
+    return (int) (number % history.length);
+  }
+
+  private void poll() {
+    try {
+      final long head = client.getLastBlockNumber().toLong();
+      if (nextBlock < 0) {
+        nextBlock = fromBlock < 0 ? head : fromBlock;
+      }
+      while (nextBlock <= head && !scheduler.isShutdown()) {
+        if (!advance(nextBlock, Math.min(head, nextBlock + maxRange - 1))) {
+          break;
+        }
+      }
+    }
+    catch (final RuntimeException e) {
+      errorCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * Delivers logs of the slot, the slot is marked released once all its logs were delivered.
+   */
+  private void release(final Slot slot) {
+    if (slot != null && !slot.released) {
+      slot.events.forEach(this::accept);
+      slot.released = true;
+      releasedBlock.set(slot.number);
+    }
+  }
+
+  /**
+   * Finds the fork point below the given block, retracts released logs of the replaced blocks and continues
+   * from the first replaced block.
+   */
+  private void rewind(final long number) {
+
+    reorgCount.incrementAndGet();
+    long fork = number;
+    for (Slot slot = slot(fork); slot != null; slot = slot(--fork)) {
+      final Block block = client.getBlockByNumber(Quantity.of(fork), false);
+      if (block != null && block.getHash().equals(slot.hash)) {
+        break;
+      }
+    }
+    for (long replaced = nextBlock - 1; replaced > fork; replaced--) {
+      final Slot slot = slot(replaced);
+      if (slot == null) {
+        continue;
+      }
+      history[index(replaced)] = null;
+      if (slot.released) {
+        for (int i = slot.events.size() - 1; i >= 0; i--) {
+          accept(slot.events.get(i).toRemoved());
+          retractedCount.incrementAndGet();
+        }
+      }
+    }
+    nextBlock = fork + 1;
+    if (releasedBlock.get() > fork) {
+      releasedBlock.set(fork);
+    }
+  }
+
+  private Slot slot(final long number) {
+    if (number < 0) {
+      return null;
+    }
+    final Slot slot = history[index(number)];
+    return slot != null && slot.number == number ? slot : null;
+  }
+
+}
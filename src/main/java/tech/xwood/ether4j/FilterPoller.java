@@ -0,0 +1,415 @@
+package tech.xwood.ether4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Polls logs and new blocks over HTTP with node side filters (eth_newFilter, eth_newBlockFilter, eth_getFilterChanges),
+ * so every poll returns only changes since the previous one. Filters forgotten by the node are reinstalled,
+ * logs of blocks arrived meanwhile are queried with eth_getLogs.
+ * <p>
+ * Chain reorganizations are detected by re-verifying block hashes: the hash of the latest block with delivered logs
+ * is compared with the canonical block on every poll, logs of replaced blocks are delivered again with removed flag
+ * followed by logs of the new blocks. Block listeners get the new canonical blocks from the fork point.
+ * <p>
+ * The node forgets filter changes once they are read, so changes not delivered because a later request of the poll
+ * failed are kept and delivered on the next poll. Listeners are called on the poller thread, their exceptions are
+ * passed to the error handler and do not stop delivery of other changes.
+ */
+public class FilterPoller implements AutoCloseable {
+
+  public static class Builder {
+
+    private final Client client;
+    private long pollInterval = 1_000;
+    private int historySize = 64;
+    private Consumer<Throwable> errorHandler = e -> {
+    };
+
+    private Builder(final Client client) {
+      this.client = client;
+    }
+
+    public FilterPoller build() {
+      return new FilterPoller(this);
+    }
+
+    /**
+     * @param errorHandler - receives exceptions of listeners, by default they are ignored.
+     */
+    public Builder setErrorHandler(final Consumer<Throwable> errorHandler) {
+      Utils.require(errorHandler != null, "Error handler is required");
+      this.errorHandler = errorHandler;
+      return this;
+    }
+
+    /**
+     * @param historySize - number of recent blocks remembered to detect reorganizations, deeper ones are not retracted.
+     */
+    public Builder setHistorySize(final int historySize) {
+      Utils.require(historySize > 0, "History size must be positive");
+      this.historySize = historySize;
+      return this;
+    }
+
+    /**
+     * @param pollInterval - time in milliseconds between polls.
+     */
+    public Builder setPollInterval(final long pollInterval) {
+      Utils.require(pollInterval > 0, "Poll interval must be positive");
+      this.pollInterval = pollInterval;
+      return this;
+    }
+  }
+
+  private class BlockWatch extends Watch {
+
+    private final Consumer<Block> listener;
+    private final TreeMap<Long, Quantity> history = new TreeMap<>();
+    private final Deque<Quantity> undelivered = new ArrayDeque<>();
+
+    private BlockWatch(final Consumer<Block> listener) {
+      this.listener = listener;
+    }
+
+    private void deliver(final Block block) {
+
+      final long number = block.getNumber().toLong();
+      if (block.getHash().equals(history.get(number))) {
+        return;
+      }
+      final Deque<Block> chain = new ArrayDeque<>();
+      chain.push(block);
+      boolean reorganized = false;
+      Block cursor = block;
+      for (int depth = 0; depth < historySize && !history.isEmpty(); depth++) {
+        final long parentNumber = cursor.getNumber().toLong() - 1;
+        final Quantity known = history.get(parentNumber);
+        if (known == null && parentNumber < history.firstKey() || cursor.getParentHash().equals(known)) {
+          break;
+        }
+        reorganized |= known != null;
+        final Block parent = client.getBlockByHash(cursor.getParentHash(), false);
+        if (parent == null) {
+          break;
+        }
+        chain.push(parent);
+        cursor = parent;
+      }
+      if (reorganized) {
+        reorgCount.incrementAndGet();
+      }
+      for (final Block next : chain) {
+        final long nextNumber = next.getNumber().toLong();
+        history.tailMap(nextNumber, true).clear();
+        history.put(nextNumber, next.getHash());
+        accept(listener, next);
+      }
+      while (history.size() > historySize) {
+        history.pollFirstEntry();
+      }
+    }
+
+    @Override
+    String install() {
+      return client.newBlockFilter();
+    }
+
+    @Override
+    void poll() {
+      undelivered.addAll(client.getBlockFilterChanges(filterId));
+      while (!undelivered.isEmpty()) {
+        final Block block = client.getBlockByHash(undelivered.peekFirst(), false);
+        if (block != null && !block.isPending()) {
+          deliver(block);
+        }
+        undelivered.pollFirst();
+      }
+    }
+  }
+
+  private static class DeliveredBlock {
+
+    private final Quantity hash;
+    private final List<Event> events = new ArrayList<>();
+    private final Set<Quantity> logIndexes = new HashSet<>();
+
+    private DeliveredBlock(final Quantity hash) {
+      this.hash = hash;
+    }
+  }
+
+  private class LogWatch extends Watch {
+
+    private final LogFilter filter;
+    private final Consumer<Event> listener;
+    private final TreeMap<Long, DeliveredBlock> history = new TreeMap<>();
+    private final Deque<Event> undelivered = new ArrayDeque<>();
+    private long scannedTo = -1;
+
+    private LogWatch(final LogFilter filter, final Consumer<Event> listener) {
+      this.filter = filter;
+      this.listener = listener;
+    }
+
+    private void deliver(final Event event) {
+
+      if (event.getBlockNumber() == null || event.getBlockHash() == null) {
+        accept(listener, event);
+        return;
+      }
+      final long number = event.getBlockNumber().toLong();
+      DeliveredBlock block = history.get(number);
+      if (event.isRemoved()) {
+        if (block != null && block.hash.equals(event.getBlockHash()) && block.logIndexes.remove(event.getLogIndex())) {
+          block.events.removeIf(delivered -> delivered.getLogIndex().equals(event.getLogIndex()));
+          accept(listener, event);
+        }
+        return;
+      }
+      if (block != null && !block.hash.equals(event.getBlockHash())) {
+        reorgCount.incrementAndGet();
+        retract(number);
+        block = null;
+      }
+      if (block == null) {
+        block = new DeliveredBlock(event.getBlockHash());
+        history.put(number, block);
+      }
+      if (block.logIndexes.add(event.getLogIndex())) {
+        block.events.add(event);
+        scannedTo = Math.max(scannedTo, number);
+        accept(listener, event);
+      }
+      while (history.size() > historySize) {
+        history.pollFirstEntry();
+      }
+    }
+
+    @Override
+    String install() {
+      final String id = client.newFilter(filter);
+      final long head = client.getLastBlockNumber().toLong();
+      if (scannedTo >= 0 && scannedTo < head) {
+        client.getLogs(filter, Quantity.of(scannedTo + 1), Quantity.of(head)).forEach(this::deliver);
+      }
+      scannedTo = Math.max(scannedTo, head);
+      return id;
+    }
+
+    @Override
+    void poll() {
+      undelivered.addAll(client.getFilterChanges(filterId));
+      verify();
+      while (!undelivered.isEmpty()) {
+        deliver(undelivered.pollFirst());
+      }
+    }
+
+    /**
+     * Delivers logs of blocks from the given number again with removed flag, newest first.
+     */
+    private void retract(final long fromNumber) {
+      final Map<Long, DeliveredBlock> removed = history.tailMap(fromNumber, true).descendingMap();
+      for (final DeliveredBlock block : removed.values()) {
+        for (int i = block.events.size() - 1; i >= 0; i--) {
+          accept(listener, block.events.get(i).toRemoved());
+        }
+      }
+      removed.clear();
+    }
+
+    /**
+     * Compares hash of the latest block with delivered logs with the canonical chain, on mismatch finds the fork point,
+     * retracts logs of replaced blocks and queries logs of the new ones.
+     */
+    private void verify() {
+
+      if (history.isEmpty()) {
+        return;
+      }
+      final long top = history.lastKey();
+      if (isCanonical(top)) {
+        return;
+      }
+      reorgCount.incrementAndGet();
+      long forkNumber = top;
+      for (final Long number : history.headMap(top, false).descendingKeySet()) {
+        if (isCanonical(number)) {
+          break;
+        }
+        forkNumber = number;
+      }
+      retract(forkNumber);
+      final long head = client.getLastBlockNumber().toLong();
+      if (forkNumber <= head) {
+        client.getLogs(filter, Quantity.of(forkNumber), Quantity.of(head)).forEach(this::deliver);
+      }
+    }
+
+    private boolean isCanonical(final long number) {
+      final Block block = client.getBlockByNumber(Quantity.of(number), false);
+      return block != null && block.getHash().equals(history.get(number).hash);
+    }
+  }
+
+  private abstract class Watch {
+
+    String filterId;
+
+    abstract String install();
+
+    abstract void poll();
+  }
+
+  public static Builder builder(final Client client) {
+    Utils.require(client != null, "Client is required");
+    return new Builder(client);
+  }
+
+  /**
+   * @return Returns true when the node does not know the filter, e.g. it expired after not being polled.
+   */
+  static boolean isFilterNotFound(final Error error) {
+    final String message = error.getMessage() == null ? "" : error.getMessage().toLowerCase(Locale.ROOT);
+    return message.contains("filter") && (message.contains("not found") || message.contains("not exist"));
+  }
+
+  private final Client client;
+  private final int historySize;
+  private final Consumer<Throwable> errorHandler;
+  private final List<Watch> watches = new CopyOnWriteArrayList<>();
+  private final ScheduledExecutorService scheduler;
+  private final AtomicLong pollCount = new AtomicLong();
+  private final AtomicLong reinstallCount = new AtomicLong();
+  private final AtomicLong reorgCount = new AtomicLong();
+  private final AtomicLong errorCount = new AtomicLong();
+
+  private FilterPoller(final Builder builder) {
+
+    client = builder.client;
+    historySize = builder.historySize;
+    errorHandler = builder.errorHandler;
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "ether4j-filter-poller");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::poll, 0, builder.pollInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Calls the listener, its exception is passed to the error handler.
+   */
+  private <T> void accept(final Consumer<T> listener, final T value) {
+    try {
+      listener.accept(value);
+    }
+    catch (final RuntimeException e) {
+      errorHandler.accept(e);
+    }
+  }
+
+  /**
+   * Delivers blocks arriving after the block filter is installed on the next poll. Blocks are linked by parent hash,
+   * missing and replaced ancestors are fetched and delivered first.
+   */
+  public void addBlockListener(final Consumer<Block> listener) {
+    watches.add(new BlockWatch(listener));
+  }
+
+  /**
+   * Delivers logs matching the filter of blocks arriving after the filter is installed on the next poll.
+   */
+  public void addLogListener(final LogFilter filter, final Consumer<Event> listener) {
+    watches.add(new LogWatch(filter, listener));
+  }
+
+  /**
+   * Stops polling and uninstalls the filters, the client is not closed.
+   */
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    for (final Watch watch : watches) {
+      if (watch.filterId != null) {
+        try {
+          client.uninstallFilter(watch.filterId);
+        }
+        catch (final Error e) {
+        }
+      }
+    }
+  }
+
+  /**
+   * @return Returns number of failed polls, failed polls are repeated on the next interval.
+   */
+  public long getErrorCount() {
+    return errorCount.get();
+  }
+
+  public long getPollCount() {
+    return pollCount.get();
+  }
+
+  /**
+   * @return Returns number of filters installed again after the node forgot them.
+   */
+  public long getReinstallCount() {
+    return reinstallCount.get();
+  }
+
+  /**
+   * @return Returns number of detected chain reorganizations.
+   */
+  public long getReorgCount() {
+    return reorgCount.get();
+  }
+
+  private void poll() {
+    pollCount.incrementAndGet();
+    for (final Watch watch : watches) {
+      try {
+        if (watch.filterId == null) {
+          watch.filterId = watch.install();
+          continue;
+        }
+        try {
+          watch.poll();
+        }
+        catch (final Error e) {
+          if (!isFilterNotFound(e)) {
+            throw e;
+          }
+          reinstallCount.incrementAndGet();
+          watch.filterId = watch.install();
+          watch.poll();
+        }
+      }
+      catch (final RuntimeException e) {
+        errorCount.incrementAndGet();
+      }
+    }
+  }
+
+}
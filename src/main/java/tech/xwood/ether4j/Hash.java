@@ -0,0 +1,124 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import java.math.BigInteger;
+
+/**
+ * 32 bytes quantity, e.g. block or transaction hash, topic or storage word, kept in primitive fields, its hex is
+ * rendered once and cached.
+ */
+public final class Hash extends Quantity {
+
+  public static final int BYTES = 32;
+
+  public static Hash of(final byte[] bytes) {
+    if (bytes.length > BYTES) {
+      throw new Error("Hash must have at most " + BYTES + " bytes, got " + bytes.length);
+    }
+    final int end = bytes.length;
+    return new Hash(
+      getWord(bytes, end - 3 * Long.BYTES, Long.BYTES),
+      getWord(bytes, end - 2 * Long.BYTES, Long.BYTES),
+      getWord(bytes, end - Long.BYTES, Long.BYTES),
+      getWord(bytes, end, Long.BYTES));
+  }
+
+  public static Hash of(final Quantity quantity) {
+    if (quantity instanceof Hash) {
+      return (Hash) quantity;
+    }
+    if (quantity instanceof LongQuantity) {
+      return new Hash(0, 0, 0, quantity.toLong());
+    }
+    final BigInteger value = quantity.toBigInteger();
+    if (value.signum() < 0 || value.bitLength() > BYTES * Byte.SIZE) {
+      throw new Error("Value " + value.toString(16) + " is not a hash");
+    }
+    return of(quantity.toBytes());
+  }
+
+  @JsonCreator
+  public static Hash of(final String hex) {
+    if (HEX_PREFIX.equals(hex)) {
+      return null;
+    }
+    if (!validateHex(hex) || hex.length() - 2 > HASH_HEX_LENGH) {
+      throw new Error("Hash must be in format 0x followed by at most " + HASH_HEX_LENGH + " hex digits");
+    }
+    final int end = hex.length();
+    return new Hash(
+      decodeWord(hex, end - 3 * Long.BYTES * 2, Long.BYTES * 2),
+      decodeWord(hex, end - 2 * Long.BYTES * 2, Long.BYTES * 2),
+      decodeWord(hex, end - Long.BYTES * 2, Long.BYTES * 2),
+      decodeWord(hex, end, Long.BYTES * 2));
+  }
+
+  private final long high;
+  private final long upper;
+  private final long lower;
+  private final long low;
+  private String hex;
+
+  private Hash(final long high, final long upper, final long lower, final long low) {
+    this.high = high;
+    this.upper = upper;
+    this.lower = lower;
+    this.low = low;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (obj instanceof Hash) {
+      final Hash other = (Hash) obj;
+      return high == other.high && upper == other.upper && lower == other.lower && low == other.low;
+    }
+    return super.equals(obj);
+  }
+
+  @Override
+  int getHexLength() {
+    return HASH_HEX_LENGH;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashWord(hashWord(hashWord(hashWord(0, high), upper), lower), low);
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return new BigInteger(1, toBytes(BYTES));
+  }
+
+  @Override
+  public byte[] toBytes(final int size) {
+    if (size != BYTES) {
+      return super.toBytes(size);
+    }
+    final byte[] dest = new byte[BYTES];
+    putWord(dest, Long.BYTES, high, Long.BYTES);
+    putWord(dest, 2 * Long.BYTES, upper, Long.BYTES);
+    putWord(dest, 3 * Long.BYTES, lower, Long.BYTES);
+    putWord(dest, BYTES, low, Long.BYTES);
+    return dest;
+  }
+
+  @Override
+  String toHex(final int size, final boolean prefix) {
+    if (size != HASH_HEX_LENGH) {
+      return super.toHex(size, prefix);
+    }
+    String result = hex;
+    if (result == null) {
+      final char[] dest = new char[2 + HASH_HEX_LENGH];
+      dest[0] = '0';
+      dest[1] = 'x';
+      int index = Hex.encode(high, Long.BYTES * 2, dest, 2);
+      index = Hex.encode(upper, Long.BYTES * 2, dest, index);
+      index = Hex.encode(lower, Long.BYTES * 2, dest, index);
+      Hex.encode(low, Long.BYTES * 2, dest, index);
+      hex = result = new String(dest);
+    }
+    return prefix ? result : result.substring(2);
+  }
+}
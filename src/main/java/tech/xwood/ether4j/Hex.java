@@ -0,0 +1,197 @@
+package tech.xwood.ether4j;
+
+import java.math.BigInteger;
+
+/**
+ * Lowercase hex codec with lookup tables. Encodes into preallocated char arrays, decodes from any CharSequence range
+ * into byte arrays, both upper and lower case digits are accepted.
+ */
+public class Hex {
+
+  private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+  private static final byte[] VALUES = new byte[128];
+  private static final int MAX_LONG_DIGITS = 15;
+
+  static {
+    for (int i = 0; i < VALUES.length; i++) {
+      VALUES[i] = -1;
+    }
+    for (int i = 0; i < 16; i++) {
+      VALUES[DIGITS[i]] = (byte) i;
+      VALUES[Character.toUpperCase(DIGITS[i])] = (byte) i;
+    }
+  }
+
+  public static byte[] decode(final CharSequence hex) {
+    return decode(hex, 0, hex.length());
+  }
+
+  /**
+   * Decodes the characters from start to end, odd number of digits is decoded as if led by zero.
+   */
+  public static byte[] decode(final CharSequence hex, final int start, final int end) {
+    final byte[] dest = new byte[(end - start + 1) >> 1];
+    decode(hex, start, end, dest, 0);
+    return dest;
+  }
+
+  /**
+   * @return Returns number of bytes written to dest.
+   */
+  public static int decode(final CharSequence hex, final int start, final int end, final byte[] dest, final int destOffset) {
+
+    int index = start;
+    int destIndex = destOffset;
+    if (((end - start) & 1) != 0) {
+      dest[destIndex++] = (byte) digit(hex, index++);
+    }
+    while (index < end) {
+      dest[destIndex++] = (byte) (digit(hex, index) << 4 | digit(hex, index + 1));
+      index += 2;
+    }
+    return destIndex - destOffset;
+  }
+
+  /**
+   * Decodes at most 16 characters from start to end as bits of long, zero for empty range.
+   */
+  public static long decodeLong(final CharSequence hex, final int start, final int end) {
+    long value = 0;
+    for (int i = start; i < end; i++) {
+      value = value << 4 | digit(hex, i);
+    }
+    return value;
+  }
+
+  /**
+   * Decodes the characters from start to end as unsigned number.
+   */
+  public static BigInteger decodeNumber(final CharSequence hex, final int start, final int end) {
+    if (end - start <= MAX_LONG_DIGITS) {
+      return BigInteger.valueOf(decodeLong(hex, start, end));
+    }
+    return new BigInteger(1, decode(hex, start, end));
+  }
+
+  private static int digit(final CharSequence hex, final int index) {
+    final char c = hex.charAt(index);
+    final int value = c < VALUES.length ? VALUES[c] : -1;
+    if (value < 0) {
+      throw new Error("Invalid hex character '" + c + "' at " + index);
+    }
+    return value;
+  }
+
+  /**
+   * @return Returns lowercase hex of the bytes without prefix.
+   */
+  public static String encode(final byte[] bytes) {
+    final char[] dest = new char[bytes.length << 1];
+    encode(bytes, 0, bytes.length, dest, 0);
+    return new String(dest);
+  }
+
+  /**
+   * Encodes the non negative number without leading zeros.
+   *
+   * @param size - min number of digits, padded with leading zeros.
+   * @param prefix - prepends 0x.
+   */
+  public static String encode(final BigInteger value, final int size, final boolean prefix) {
+
+    final int digits = getDigitCount(value);
+    final int length = Math.max(digits, size) + (prefix ? 2 : 0);
+    final char[] dest = new char[length];
+    int index = 0;
+    if (prefix) {
+      dest[index++] = '0';
+      dest[index++] = 'x';
+    }
+    while (index < length - digits) {
+      dest[index++] = '0';
+    }
+    if (value.bitLength() < Long.SIZE) {
+      encode(value.longValue(), digits, dest, index);
+    }
+    else {
+      final byte[] bytes = value.toByteArray();
+      for (int i = length - 1, nibble = 0; i >= index; i--, nibble++) {
+        final int b = bytes[bytes.length - 1 - (nibble >> 1)];
+        dest[i] = DIGITS[(nibble & 1) == 0 ? b & 0xf : b >> 4 & 0xf];
+      }
+    }
+    return new String(dest);
+  }
+
+  /**
+   * Encodes the non negative number without leading zeros.
+   *
+   * @param size - min number of digits, padded with leading zeros.
+   * @param prefix - prepends 0x.
+   */
+  public static String encode(final long value, final int size, final boolean prefix) {
+
+    final int digits = getDigitCount(value);
+    final int length = Math.max(digits, size) + (prefix ? 2 : 0);
+    final char[] dest = new char[length];
+    int index = 0;
+    if (prefix) {
+      dest[index++] = '0';
+      dest[index++] = 'x';
+    }
+    while (index < length - digits) {
+      dest[index++] = '0';
+    }
+    encode(value, digits, dest, index);
+    return new String(dest);
+  }
+
+  /**
+   * Writes the low digits of the bits, leading zeros included.
+   *
+   * @return Returns index in dest after the last written character.
+   */
+  public static int encode(final long bits, final int digits, final char[] dest, final int destOffset) {
+    long remaining = bits;
+    for (int i = destOffset + digits - 1; i >= destOffset; i--) {
+      dest[i] = DIGITS[(int) (remaining & 0xf)];
+      remaining >>>= 4;
+    }
+    return destOffset + digits;
+  }
+
+  /**
+   * Writes 2 * length characters to dest.
+   *
+   * @return Returns index in dest after the last written character.
+   */
+  public static int encode(final byte[] bytes, final int offset, final int length, final char[] dest, final int destOffset) {
+    int destIndex = destOffset;
+    for (int i = offset; i < offset + length; i++) {
+      dest[destIndex++] = DIGITS[bytes[i] >> 4 & 0xf];
+      dest[destIndex++] = DIGITS[bytes[i] & 0xf];
+    }
+    return destIndex;
+  }
+
+  public static void encodeTo(final StringBuilder dest, final byte[] bytes) {
+    final char[] chars = new char[bytes.length << 1];
+    encode(bytes, 0, bytes.length, chars, 0);
+    dest.append(chars);
+  }
+
+  /**
+   * @return Returns number of hex digits of the non negative number without leading zeros, 1 for zero.
+   */
+  public static int getDigitCount(final BigInteger value) {
+    return value.signum() == 0 ? 1 : (value.bitLength() + 3) >> 2;
+  }
+
+  /**
+   * @return Returns number of hex digits of the non negative number without leading zeros, 1 for zero.
+   */
+  public static int getDigitCount(final long value) {
+    return value == 0 ? 1 : (Long.SIZE - Long.numberOfLeadingZeros(value) + 3) >> 2;
+  }
+
+}
@@ -0,0 +1,67 @@
+package tech.xwood.ether4j;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * JSON-RPC over HTTP POST, the caller thread is blocked until the response is read.
+ */
+public class HttpTransport implements Transport {
+
+  static HttpPost createPost(final String uri, final byte[] request) {
+    final HttpPost post = new HttpPost(uri);
+    post.setHeader("Content-Type", "application/json");
+    post.setEntity(new ByteArrayEntity(request));
+    return post;
+  }
+
+  static byte[] readBody(final HttpResponse response) throws IOException {
+    if (response.getStatusLine().getStatusCode() != 200) {
+      throw new Error(response.getStatusLine() + "\n\n" + EntityUtils.toString(response.getEntity()));
+    }
+    return EntityUtils.toByteArray(response.getEntity());
+  }
+
+  private final String uri;
+  private final CloseableHttpClient httpClient;
+
+  /**
+   * @param uri - http or https endpoint.
+   * @param httpClient - client used for every request, closed together with the transport.
+   */
+  public HttpTransport(final String uri, final CloseableHttpClient httpClient) {
+    this.uri = uri;
+    this.httpClient = httpClient;
+  }
+
+  @Override
+  public void close() {
+    try {
+      httpClient.close();
+    }
+    catch (final IOException e) {
+    }
+  }
+
+  @Override
+  public CompletableFuture<byte[]> send(final byte[] request) {
+    final CompletableFuture<byte[]> future = new CompletableFuture<>();
+    try (CloseableHttpResponse response = httpClient.execute(createPost(uri, request))) {
+      future.complete(readBody(response));
+    }
+    catch (final IOException e) {
+      future.completeExceptionally(new Error(e));
+    }
+    catch (final Error e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+}
@@ -0,0 +1,75 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Answers JSON-RPC requests in the caller thread with a handler, no node is involved.
+ * Useful for tests and for serving calls locally, e.g. fixed chain id or stubbed contracts.
+ */
+public class InMemoryTransport implements Transport {
+
+  public interface Handler {
+
+    /**
+     * @param method - JSON-RPC method name.
+     * @param params - request params, missing node when the request has no params.
+     * @return Returns result of the call, throw {@link Error} to respond with JSON-RPC error.
+     */
+    Object handle(String method, JsonNode params);
+  }
+
+  private final Handler handler;
+
+  public InMemoryTransport(final Handler handler) {
+    this.handler = handler;
+  }
+
+  private ObjectNode call(final JsonNode request) {
+
+    final ObjectNode response = Utils.createJsonObject();
+    response.put("jsonrpc", "2.0");
+    response.set("id", request.get("id"));
+    try {
+      final Object result = handler.handle(request.path("method").asText(), request.path("params"));
+      response.set("result", result == null ? NullNode.getInstance() : Utils.toJsonNode(result));
+    }
+    catch (final Error e) {
+      final ObjectNode error = response.putObject("error");
+      error.put("code", e.getCode());
+      error.put("message", e.getMessage());
+    }
+    catch (final RuntimeException e) {
+      final ObjectNode error = response.putObject("error");
+      error.put("code", -32603);
+      error.put("message", String.valueOf(e));
+    }
+    return response;
+  }
+
+  @Override
+  public void close() {
+  }
+
+  @Override
+  public CompletableFuture<byte[]> send(final byte[] request) {
+
+    final JsonNode jsonRpcRequest = Utils.fromJson(request, JsonNode.class);
+    final JsonNode jsonRpcResponse;
+    if (jsonRpcRequest.isArray()) {
+      final ArrayNode responses = Utils.createJsonArray();
+      for (final JsonNode item : jsonRpcRequest) {
+        responses.add(call(item));
+      }
+      jsonRpcResponse = responses;
+    }
+    else {
+      jsonRpcResponse = call(jsonRpcRequest);
+    }
+    return CompletableFuture.completedFuture(Utils.toJsonAsBytes(jsonRpcResponse, false));
+  }
+
+}
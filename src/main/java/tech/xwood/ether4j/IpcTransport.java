@@ -0,0 +1,222 @@
+package tech.xwood.ether4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * JSON-RPC over Unix domain socket (e.g. geth.ipc), for clients running on the same host as the node.
+ * Requests are pipelined on one socket and matched by id, eth_subscribe notifications are supported.
+ * Unix domain socket channels are available since Java 16 and are opened reflectively,
+ * so the library still runs on Java 8 with HTTP and WebSocket transports.
+ */
+public class IpcTransport extends DuplexTransport {
+
+  /**
+   * Splits a byte stream of concatenated JSON values (with or without newline delimiters) into messages.
+   */
+  static class Framer {
+
+    private final int maxMessageSize;
+    private final ByteArrayOutputStream message = new ByteArrayOutputStream(BUFFER_SIZE);
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+
+    Framer(final int maxMessageSize) {
+      this.maxMessageSize = maxMessageSize;
+    }
+
+    private void checkSize(final int length) {
+      if (message.size() + (long) length > maxMessageSize) {
+        throw new Error("IPC message is too large");
+      }
+    }
+
+    /**
+     * Consumes all remaining bytes of the buffer, passes every complete message to the consumer.
+     *
+     * @throws Error if a message, complete or not, exceeds max message size.
+     */
+    void feed(final ByteBuffer buffer, final Consumer<byte[]> consumer) {
+      int start = buffer.position();
+      final int limit = buffer.limit();
+      for (int i = start; i < limit; i++) {
+        final byte b = buffer.get(i);
+        if (inString) {
+          if (escaped) {
+            escaped = false;
+          }
+          else if (b == '\\') {
+            escaped = true;
+          }
+          else if (b == '"') {
+            inString = false;
+          }
+        }
+        else if (b == '"') {
+          inString = true;
+        }
+        else if (b == '{' || b == '[') {
+          if (depth++ == 0) {
+            start = i;
+          }
+        }
+        else if ((b == '}' || b == ']') && depth > 0 && --depth == 0) {
+          consumer.accept(take(buffer, start, i + 1));
+          start = i + 1;
+        }
+        else if (depth == 0) {
+          start = i + 1;
+        }
+      }
+      if (depth > 0) {
+        checkSize(limit - start);
+        message.write(buffer.array(), buffer.arrayOffset() + start, limit - start);
+      }
+      buffer.position(limit);
+    }
+
+    private byte[] take(final ByteBuffer buffer, final int start, final int end) {
+      checkSize(end - start);
+      if (message.size() == 0) {
+        final byte[] result = new byte[end - start];
+        System.arraycopy(buffer.array(), buffer.arrayOffset() + start, result, 0, result.length);
+        return result;
+      }
+      message.write(buffer.array(), buffer.arrayOffset() + start, end - start);
+      final byte[] result = message.toByteArray();
+      message.reset();
+      return result;
+    }
+  }
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * @param path - node IPC socket file, e.g. ~/.ethereum/geth.ipc.
+   */
+  public static IpcTransport connect(final Path path) {
+    return connect(path, DEFAULT_MAX_MESSAGE_SIZE);
+  }
+
+  /**
+   * @param path - node IPC socket file, e.g. ~/.ethereum/geth.ipc.
+   * @param maxMessageSize - max size in bytes of a received message,
+   *          a larger message closes the connection and fails pending requests.
+   */
+  public static IpcTransport connect(final Path path, final int maxMessageSize) {
+    Utils.require(maxMessageSize > 0, "Max message size must be positive");
+    SocketChannel channel = null;
+    try {
+      channel = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unixProtocolFamily());
+      channel.connect(unixSocketAddress(path));
+      final IpcTransport transport = new IpcTransport(channel, path, maxMessageSize);
+      transport.reader.start();
+      return transport;
+    }
+    catch (final IOException | ReflectiveOperationException | RuntimeException e) {
+      closeQuietly(channel);
+      if (e instanceof Error) {
+        throw (Error) e;
+      }
+      throw new Error("IPC connect to " + path + " failed", e instanceof InvocationTargetException ? e.getCause() : e);
+    }
+  }
+
+  private static void closeQuietly(final SocketChannel channel) {
+    if (channel != null) {
+      try {
+        channel.close();
+      }
+      catch (final IOException e) {
+      }
+    }
+  }
+
+  /**
+   * @return Returns true when the running JVM supports Unix domain sockets.
+   */
+  public static boolean isSupported() {
+    try {
+      unixProtocolFamily();
+      ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+      Class.forName("java.net.UnixDomainSocketAddress");
+      return true;
+    }
+    catch (final Error | ReflectiveOperationException e) {
+      return false;
+    }
+  }
+
+  static ProtocolFamily unixProtocolFamily() {
+    try {
+      return StandardProtocolFamily.valueOf("UNIX");
+    }
+    catch (final IllegalArgumentException e) {
+      throw new Error("Unix domain sockets require Java 16 or later");
+    }
+  }
+
+  static SocketAddress unixSocketAddress(final Path path) throws ReflectiveOperationException {
+    return (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class).invoke(null, path);
+  }
+
+  private final SocketChannel channel;
+  private final int maxMessageSize;
+  private final Thread reader;
+  private volatile boolean closing;
+
+  private IpcTransport(final SocketChannel channel, final Path path, final int maxMessageSize) {
+    this.channel = channel;
+    this.maxMessageSize = maxMessageSize;
+    reader = new Thread(this::read, "ether4j-ipc-" + path);
+    reader.setDaemon(true);
+  }
+
+  @Override
+  public void close() {
+    closing = true;
+    closeQuietly(channel);
+  }
+
+  private void read() {
+
+    Throwable cause = null;
+    try {
+      final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      final Framer framer = new Framer(maxMessageSize);
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        framer.feed(buffer, this::onMessage);
+        buffer.clear();
+      }
+    }
+    catch (final IOException | RuntimeException e) {
+      cause = closing ? null : e;
+    }
+    finally {
+      closeQuietly(channel);
+      onClose(cause);
+    }
+  }
+
+  @Override
+  protected void write(final byte[] message) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.wrap(message);
+    synchronized (channel) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,280 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * JSON-RPC 2.0 envelope helpers shared by single and batch calls.
+ *
+ * @see https://www.jsonrpc.org/specification
+ */
+class JsonRpc {
+
+  /**
+   * Per thread output buffer and generator, reused by every request written on the thread.
+   */
+  private static class RequestWriter {
+
+    private final Buffer buffer = new Buffer();
+    private final JsonGenerator generator = Utils.createJsonGenerator(buffer);
+
+    private byte[] finish() throws IOException {
+      generator.flush();
+      final byte[] request = buffer.toByteArray();
+      if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+        WRITERS.remove();
+      }
+      else {
+        buffer.reset();
+      }
+      return request;
+    }
+
+    private void write(final long id, final String method, final Object[] params) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("jsonrpc", "2.0");
+      generator.writeNumberField("id", id);
+      generator.writeStringField("method", method);
+      if (params != null && params.length > 0) {
+        generator.writeArrayFieldStart("params");
+        for (final Object param : params) {
+          if (param instanceof String) {
+            generator.writeString((String) param);
+          }
+          else {
+            generator.writeObject(param);
+          }
+        }
+        generator.writeEndArray();
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  private static class Buffer extends ByteArrayOutputStream {
+
+    Buffer() {
+      super(INITIAL_BUFFER_SIZE);
+    }
+
+    int capacity() {
+      return buf.length;
+    }
+  }
+
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+  private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+  private static final ThreadLocal<RequestWriter> WRITERS = ThreadLocal.withInitial(RequestWriter::new);
+  private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+  static String getId(final JsonNode response) {
+    return response.get("id") == null ? "" : response.get("id").asText();
+  }
+
+  static <T> T getResult(final JsonNode response, final String expectedId, final Class<T> resultType) {
+
+    if (!expectedId.equals(getId(response))) {
+      throw new Error("Request id and response id are not equals.");
+    }
+    if (response.has("error")) {
+      final JsonNode rpcError = response.get("error");
+      throw new Error(rpcError.path("code").asInt(), rpcError.path("message").asText());
+    }
+    return Utils.fromJson(response.get("result"), resultType);
+  }
+
+  static boolean isError(final JsonNode response) {
+    return response instanceof ObjectNode && response.has("error");
+  }
+
+  /**
+   * @return Returns first of count consecutive request ids, unique within the JVM so clients may share a transport.
+   */
+  static long nextIds(final int count) {
+    return NEXT_ID.getAndAdd(count);
+  }
+
+  private static void readField(final JsonParser parser, final String name, final List<String> values) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      final JsonToken value = parser.nextToken();
+      if (name.equals(field) && value != JsonToken.VALUE_NULL) {
+        values.add(parser.getText());
+      }
+      else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  /**
+   * @return Returns the field of a single message, or of every item of a batch, messages without the field are skipped.
+   */
+  private static List<String> readFields(final byte[] message, final String name) {
+    try (JsonParser parser = Utils.createJsonParser(message)) {
+      final List<String> values = new ArrayList<>(1);
+      final JsonToken token = parser.nextToken();
+      if (token == JsonToken.START_ARRAY) {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          readField(parser, name, values);
+        }
+      }
+      else if (token == JsonToken.START_OBJECT) {
+        readField(parser, name, values);
+      }
+      return values;
+    }
+    catch (final IOException e) {
+      throw new Error(e);
+    }
+  }
+
+  /**
+   * Reads ids of a JSON-RPC message without building a tree.
+   *
+   * @return Returns one id for a single message, ids of all items for a batch, empty list for a notification.
+   */
+  static List<String> readIds(final byte[] message) {
+    return readFields(message, "id");
+  }
+
+  /**
+   * Splits a batch message into its items without building a tree.
+   *
+   * @return Returns the items of a batch array, or the message itself when it is not an array.
+   */
+  static List<byte[]> readItems(final byte[] message) {
+    try (JsonParser parser = Utils.createJsonParser(message)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        return Collections.singletonList(message);
+      }
+      final List<byte[]> items = new ArrayList<>();
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        final int start = (int) parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        final int end = (int) parser.getCurrentLocation().getByteOffset();
+        items.add(Arrays.copyOfRange(message, start, end));
+      }
+      return items;
+    }
+    catch (final IOException e) {
+      throw new Error(e);
+    }
+  }
+
+  /**
+   * Reads methods of a JSON-RPC request without building a tree.
+   *
+   * @return Returns one method for a single request, methods of all items for a batch.
+   */
+  static List<String> readMethods(final byte[] request) {
+    return readFields(request, "method");
+  }
+
+  /**
+   * Parses JSON-RPC response message, a top level error response is thrown as {@link Error}.
+   */
+  static <T extends JsonNode> T readResponse(final byte[] message, final Class<T> responseType) {
+
+    final JsonNode jsonRpcResponse = Utils.fromJson(message, JsonNode.class);
+    if (!responseType.isInstance(jsonRpcResponse)) {
+      if (isError(jsonRpcResponse)) {
+        final JsonNode rpcError = jsonRpcResponse.get("error");
+        throw new Error(rpcError.path("code").asInt(), rpcError.path("message").asText());
+      }
+      throw new Error("Unexpected JSON-RPC response: " + jsonRpcResponse);
+    }
+    return responseType.cast(jsonRpcResponse);
+  }
+
+  /**
+   * Reads result of a single JSON-RPC response in one streaming pass, the result is bound directly to the result type
+   * without building an intermediate tree. Error response is thrown as {@link Error}.
+   */
+  static <T> T readResult(final byte[] message, final String expectedId, final Class<T> resultType) {
+
+    try (JsonParser parser = Utils.createJsonParser(message)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new Error("Unexpected JSON-RPC response: " + new String(message, StandardCharsets.UTF_8));
+      }
+      String id = null;
+      JsonNode rpcError = null;
+      T result = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String field = parser.getCurrentName();
+        final JsonToken value = parser.nextToken();
+        switch (field) {
+          case "id":
+            id = value == JsonToken.VALUE_NULL ? null : parser.getText();
+            break;
+          case "error":
+            rpcError = Utils.fromJson(parser, JsonNode.class);
+            break;
+          case "result":
+            result = Utils.fromJson(parser, resultType);
+            break;
+          default:
+            parser.skipChildren();
+            break;
+        }
+      }
+      if (rpcError != null) {
+        throw new Error(rpcError.path("code").asInt(), rpcError.path("message").asText());
+      }
+      if (!expectedId.equals(id)) {
+        throw new Error("Request id and response id are not equals.");
+      }
+      return result;
+    }
+    catch (final IOException e) {
+      throw new Error(e);
+    }
+  }
+
+  /**
+   * Writes batch request of count calls with consecutive ids starting from first id.
+   */
+  static byte[] writeBatch(final long firstId, final int count, final IntFunction<String> methods, final IntFunction<Object[]> params) {
+    final RequestWriter writer = WRITERS.get();
+    try {
+      writer.generator.writeStartArray();
+      for (int i = 0; i < count; i++) {
+        writer.write(firstId + i, methods.apply(i), params.apply(i));
+      }
+      writer.generator.writeEndArray();
+      return writer.finish();
+    }
+    catch (final IOException | RuntimeException e) {
+      WRITERS.remove();
+      throw e instanceof Error ? (Error) e : new Error(e);
+    }
+  }
+
+  /**
+   * Writes request envelope straight to a per thread buffer, without an intermediate map.
+   */
+  static byte[] writeRequest(final long id, final String method, final Object... params) {
+    final RequestWriter writer = WRITERS.get();
+    try {
+      writer.write(id, method, params);
+      return writer.finish();
+    }
+    catch (final IOException | RuntimeException e) {
+      WRITERS.remove();
+      throw e instanceof Error ? (Error) e : new Error(e);
+    }
+  }
+
+}
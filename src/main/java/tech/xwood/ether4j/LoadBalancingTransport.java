@@ -0,0 +1,509 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Spreads requests over several nodes. Every request goes to the best available endpoint by the selection strategy.
+ * Read-only requests fail over to another endpoint on transport failure and may be hedged: when no response arrives
+ * within hedge delay, the same request is also sent to another endpoint and the first response wins.
+ * An endpoint failing at transport level is ejected for ejection time. Health checks poll eth_blockNumber of every
+ * endpoint and eject endpoints which do not answer or lag more than max block lag behind the highest one.
+ * Health check round trips also update endpoint latency, so an endpoint not selected for a slow sample is re-measured.
+ * When no endpoint is available, requests are sent to ejected endpoints anyway.
+ */
+public class LoadBalancingTransport implements Transport {
+
+  public static class Builder {
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private Strategy strategy = Strategy.LEAST_OUTSTANDING;
+    private Set<String> readOnlyMethods = DEFAULT_READ_ONLY_METHODS;
+    private long hedgeDelay;
+    private long ejectionTime = 5_000;
+    private long healthCheckInterval;
+    private long maxBlockLag = 5;
+
+    private Builder() {
+    }
+
+    /**
+     * Adds endpoint with non-blocking transport for the uri, {@link AsyncHttpTransport} for http(s).
+     */
+    public Builder addEndpoint(final String uri) {
+      return addEndpoint(uri, AsyncClient.createTransport(uri, AsyncClient.DEFAULT_MAX_IN_FLIGHT));
+    }
+
+    /**
+     * @param name - endpoint name for statistics, e.g. uri.
+     * @param transport - endpoint transport, closed together with this transport. Hedging and failover need
+     *          a non-blocking transport, a blocking one holds the caller thread until its own response.
+     */
+    public Builder addEndpoint(final String name, final Transport transport) {
+      Utils.require(transport != null, "Transport is required");
+      endpoints.add(new Endpoint(name, transport));
+      return this;
+    }
+
+    public LoadBalancingTransport build() {
+      Utils.require(!endpoints.isEmpty(), "At least one endpoint is required");
+      return new LoadBalancingTransport(this);
+    }
+
+    /**
+     * @param ejectionTime - time in milliseconds an endpoint is not selected after transport failure.
+     */
+    public Builder setEjectionTime(final long ejectionTime) {
+      Utils.require(ejectionTime >= 0, "Ejection time must not be negative");
+      this.ejectionTime = ejectionTime;
+      return this;
+    }
+
+    /**
+     * @param healthCheckInterval - time in milliseconds between eth_blockNumber health checks, zero disables checks.
+     */
+    public Builder setHealthCheckInterval(final long healthCheckInterval) {
+      Utils.require(healthCheckInterval >= 0, "Health check interval must not be negative");
+      this.healthCheckInterval = healthCheckInterval;
+      return this;
+    }
+
+    /**
+     * @param hedgeDelay - time in milliseconds to wait for a read-only response before the request is also sent to
+     *          another endpoint, zero disables hedging.
+     */
+    public Builder setHedgeDelay(final long hedgeDelay) {
+      Utils.require(hedgeDelay >= 0, "Hedge delay must not be negative");
+      this.hedgeDelay = hedgeDelay;
+      return this;
+    }
+
+    /**
+     * @param maxBlockLag - max number of blocks a healthy endpoint may lag behind the highest endpoint.
+     */
+    public Builder setMaxBlockLag(final long maxBlockLag) {
+      Utils.require(maxBlockLag >= 0, "Max block lag must not be negative");
+      this.maxBlockLag = maxBlockLag;
+      return this;
+    }
+
+    /**
+     * @param readOnlyMethods - methods safe to fail over and hedge, see {@link LoadBalancingTransport#DEFAULT_READ_ONLY_METHODS}.
+     */
+    public Builder setReadOnlyMethods(final Set<String> readOnlyMethods) {
+      this.readOnlyMethods = Collections.unmodifiableSet(new HashSet<>(readOnlyMethods));
+      return this;
+    }
+
+    public Builder setStrategy(final Strategy strategy) {
+      Utils.require(strategy != null, "Strategy is required");
+      this.strategy = strategy;
+      return this;
+    }
+  }
+
+  /**
+   * One node behind the load balancer with its live statistics.
+   */
+  public static class Endpoint {
+
+    private final String name;
+    private final Transport transport;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile double latency;
+    private volatile long ejectedUntil;
+    private volatile boolean lagging;
+    private volatile boolean responsive;
+    private volatile boolean checked;
+    private volatile boolean checkPending;
+    private volatile int missedChecks;
+    private volatile long blockNumber = -1;
+
+    private Endpoint(final String name, final Transport transport) {
+      this.name = name;
+      this.transport = transport;
+    }
+
+    /**
+     * @return Returns last block number reported by health check, -1 if unknown.
+     */
+    public long getBlockNumber() {
+      return blockNumber;
+    }
+
+    /**
+     * @return Returns exponentially weighted moving average of response time in milliseconds.
+     */
+    public double getLatency() {
+      return latency / 1e6;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return Returns number of requests sent to the endpoint and not yet answered.
+     */
+    public int getOutstanding() {
+      return outstanding.get();
+    }
+
+    public boolean isAvailable() {
+      return !lagging && System.currentTimeMillis() >= ejectedUntil;
+    }
+
+    private void onFailure(final long ejectionTime) {
+      ejectedUntil = System.currentTimeMillis() + ejectionTime;
+    }
+
+    private void onSuccess(final long nanos) {
+      final double current = latency;
+      latency = current == 0 ? nanos : current + LATENCY_WEIGHT * (nanos - current);
+    }
+
+    private double score(final Strategy strategy) {
+      final int load = outstanding.get() + 1;
+      return strategy == Strategy.LATENCY_WEIGHTED ? (latency + 1) * load : load;
+    }
+
+    @Override
+    public String toString() {
+      return name + " (outstanding " + getOutstanding() + ", latency " + getLatency() + " ms, block " + blockNumber
+        + (isAvailable() ? ")" : ", ejected)");
+    }
+  }
+
+  /**
+   * Request routed to one or more endpoints. Running counts attempts in flight and attempts about to start,
+   * it is incremented before an endpoint is reserved in tried, so it drops to zero only when no attempt can follow.
+   */
+  private static class Request {
+
+    final byte[] bytes;
+    final boolean readOnly;
+    final CompletableFuture<byte[]> result = new CompletableFuture<>();
+    final Set<Endpoint> tried = ConcurrentHashMap.newKeySet();
+    final AtomicInteger running = new AtomicInteger();
+    volatile Throwable lastError;
+
+    Request(final byte[] bytes, final boolean readOnly) {
+      this.bytes = bytes;
+      this.readOnly = readOnly;
+    }
+  }
+
+  /**
+   * Endpoint selection strategy.
+   */
+  public enum Strategy {
+
+    /**
+     * Endpoint with fewest requests in flight.
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * Endpoint with the lowest moving average latency multiplied by requests in flight.
+     * Enable health checks, else an endpoint is measured only by the requests it is selected for.
+     */
+    LATENCY_WEIGHTED
+  }
+
+  /**
+   * Methods not changing node state, safe to send to several nodes.
+   */
+  public static final Set<String> DEFAULT_READ_ONLY_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+    "eth_blockNumber",
+    "eth_call",
+    "eth_chainId",
+    "eth_estimateGas",
+    "eth_gasPrice",
+    "eth_getBalance",
+    "eth_getBlockByHash",
+    "eth_getBlockByNumber",
+    "eth_getBlockTransactionCountByHash",
+    "eth_getBlockTransactionCountByNumber",
+    "eth_getCode",
+    "eth_getLogs",
+    "eth_getStorageAt",
+    "eth_getTransactionByHash",
+    "eth_getTransactionCount",
+    "eth_getTransactionReceipt",
+    "net_version")));
+
+  private static final double LATENCY_WEIGHT = 0.2;
+  private static final int MAX_MISSED_CHECKS = 3;
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private static Error toError(final Throwable e) {
+    final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    return cause instanceof Error ? (Error) cause : new Error(cause);
+  }
+
+  private final List<Endpoint> endpoints;
+  private final Strategy strategy;
+  private final Set<String> readOnlyMethods;
+  private final long hedgeDelay;
+  private final long ejectionTime;
+  private final long maxBlockLag;
+  private final ScheduledExecutorService scheduler;
+  private final Map<String, Endpoint> subscriptions = new ConcurrentHashMap<>();
+  private final AtomicInteger nextStart = new AtomicInteger();
+
+  private LoadBalancingTransport(final Builder builder) {
+
+    endpoints = Collections.unmodifiableList(new ArrayList<>(builder.endpoints));
+    strategy = builder.strategy;
+    readOnlyMethods = builder.readOnlyMethods;
+    hedgeDelay = builder.hedgeDelay;
+    ejectionTime = builder.ejectionTime;
+    maxBlockLag = builder.maxBlockLag;
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "ether4j-load-balancer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (builder.healthCheckInterval > 0) {
+      scheduler.scheduleWithFixedDelay(this::checkHealth, 0, builder.healthCheckInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Sends the request to the endpoint, running must already count this attempt.
+   */
+  private void attempt(final Request request, final Endpoint endpoint) {
+
+    endpoint.outstanding.incrementAndGet();
+    final long start = System.nanoTime();
+    CompletableFuture<byte[]> response;
+    try {
+      response = endpoint.transport.send(request.bytes);
+    }
+    catch (final RuntimeException e) {
+      response = new CompletableFuture<>();
+      response.completeExceptionally(e);
+    }
+    response.whenComplete((message, e) -> {
+      endpoint.outstanding.decrementAndGet();
+      if (e == null) {
+        endpoint.onSuccess(System.nanoTime() - start);
+        request.result.complete(message);
+        release(request);
+        return;
+      }
+      endpoint.onFailure(ejectionTime);
+      request.lastError = e;
+      if (request.readOnly && !request.result.isDone()) {
+        attemptNext(request);
+      }
+      release(request);
+    });
+  }
+
+  /**
+   * Reserves an attempt and sends the request to the best endpoint not yet tried.
+   *
+   * @return Returns false when all endpoints were tried.
+   */
+  private boolean attemptNext(final Request request) {
+    request.running.incrementAndGet();
+    for (Endpoint next = select(request.tried); next != null; next = select(request.tried)) {
+      if (request.tried.add(next)) {
+        attempt(request, next);
+        return true;
+      }
+    }
+    release(request);
+    return false;
+  }
+
+  /**
+   * Polls block number of every endpoint. An endpoint is ejected when its check fails, when it has not answered
+   * for max missed checks intervals, or when it lags behind the highest endpoint. Until its first check completes
+   * an endpoint keeps its state.
+   */
+  private void checkHealth() {
+
+    for (final Endpoint endpoint : endpoints) {
+      if (endpoint.checkPending) {
+        if (++endpoint.missedChecks >= MAX_MISSED_CHECKS) {
+          endpoint.responsive = false;
+          endpoint.checked = true;
+        }
+        continue;
+      }
+      endpoint.checkPending = true;
+      final long id = JsonRpc.nextIds(1);
+      final long start = System.nanoTime();
+      CompletableFuture<byte[]> response;
+      try {
+        response = endpoint.transport.send(JsonRpc.writeRequest(id, "eth_blockNumber"));
+      }
+      catch (final RuntimeException e) {
+        response = new CompletableFuture<>();
+        response.completeExceptionally(e);
+      }
+      response.whenComplete((message, e) -> {
+        try {
+          if (e != null) {
+            throw toError(e);
+          }
+          endpoint.blockNumber = JsonRpc.readResult(message, String.valueOf(id), Quantity.class).toLong();
+          endpoint.responsive = true;
+          endpoint.onSuccess(System.nanoTime() - start);
+        }
+        catch (final RuntimeException ex) {
+          endpoint.responsive = false;
+        }
+        endpoint.checked = true;
+        endpoint.missedChecks = 0;
+        endpoint.checkPending = false;
+        updateLagging();
+      });
+    }
+    updateLagging();
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    for (final Endpoint endpoint : endpoints) {
+      endpoint.transport.close();
+    }
+  }
+
+  /**
+   * @return Returns endpoints with live statistics.
+   */
+  public List<Endpoint> getEndpoints() {
+    return endpoints;
+  }
+
+  private void hedge(final Request request) {
+    if (!request.result.isDone()) {
+      attemptNext(request);
+    }
+  }
+
+  private boolean isReadOnly(final List<String> methods) {
+    if (methods.isEmpty()) {
+      return false;
+    }
+    for (final String method : methods) {
+      if (!readOnlyMethods.contains(method)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Ends an attempt or a reservation, the last one fails the request with the last error unless it already completed.
+   */
+  private void release(final Request request) {
+    if (request.running.decrementAndGet() == 0 && request.lastError != null) {
+      request.result.completeExceptionally(toError(request.lastError));
+    }
+  }
+
+  /**
+   * @return Returns best endpoint not yet tried, preferring available ones, null when all were tried.
+   */
+  private Endpoint select(final Set<Endpoint> tried) {
+
+    final int size = endpoints.size();
+    final int start = Math.floorMod(nextStart.getAndIncrement(), size);
+    Endpoint best = null;
+    double bestScore = Double.MAX_VALUE;
+    boolean bestAvailable = false;
+    for (int i = 0; i < size; i++) {
+      final Endpoint endpoint = endpoints.get((start + i) % size);
+      if (tried.contains(endpoint)) {
+        continue;
+      }
+      final boolean available = endpoint.isAvailable();
+      final double score = endpoint.score(strategy);
+      if (best == null || available && !bestAvailable || available == bestAvailable && score < bestScore) {
+        best = endpoint;
+        bestScore = score;
+        bestAvailable = available;
+      }
+    }
+    return best;
+  }
+
+  @Override
+  public CompletableFuture<byte[]> send(final byte[] request) {
+
+    final List<String> methods = JsonRpc.readMethods(request);
+    if (methods.contains("eth_unsubscribe")) {
+      final JsonNode params = Utils.fromJson(request, JsonNode.class).path("params");
+      final Endpoint owner = subscriptions.remove(params.path(0).asText());
+      if (owner != null) {
+        return owner.transport.send(request);
+      }
+    }
+    final Request call = new Request(request, isReadOnly(methods));
+    attemptNext(call);
+    if (call.readOnly && hedgeDelay > 0 && endpoints.size() > 1 && !call.result.isDone()) {
+      scheduler.schedule(() -> hedge(call), hedgeDelay, TimeUnit.MILLISECONDS);
+    }
+    return call.result;
+  }
+
+  @Override
+  public CompletableFuture<byte[]> subscribe(final byte[] request, final Consumer<JsonNode> listener) {
+    final Endpoint endpoint = select(Collections.emptySet());
+    return endpoint.transport.subscribe(request, listener).thenApply(response -> {
+      final JsonNode subscriptionId = Utils.fromJson(response, JsonNode.class).get("result");
+      if (subscriptionId != null && subscriptionId.isTextual()) {
+        subscriptions.put(subscriptionId.asText(), endpoint);
+      }
+      return response;
+    });
+  }
+
+  @Override
+  public void unsubscribe(final String subscriptionId) {
+    final Endpoint owner = subscriptions.get(subscriptionId);
+    if (owner != null) {
+      owner.transport.unsubscribe(subscriptionId);
+    }
+  }
+
+  /**
+   * Called by the scheduler and by completed checks, locked so a stale highest block number is never applied last.
+   */
+  private synchronized void updateLagging() {
+    long highest = -1;
+    for (final Endpoint endpoint : endpoints) {
+      if (endpoint.responsive) {
+        highest = Math.max(highest, endpoint.blockNumber);
+      }
+    }
+    for (final Endpoint endpoint : endpoints) {
+      if (endpoint.checked) {
+        endpoint.lagging = !endpoint.responsive || highest - endpoint.blockNumber > maxBlockLag;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,252 @@
+package tech.xwood.ether4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Backfills logs of large block ranges with eth_getLogs. The range is split into sub-ranges queried in parallel,
+ * at most max concurrency at a time, and logs are returned in block order. When the node rejects a query
+ * for too many results or a too wide range, the sub-range is split in halves queried in parallel and the size of the next
+ * sub-ranges is halved, successful queries grow it again up to the max range.
+ */
+public class LogDownloader implements AutoCloseable {
+
+  public static class Builder {
+
+    private final Client client;
+    private long maxRange = 10_000;
+    private int maxConcurrency = 4;
+
+    private Builder(final Client client) {
+      this.client = client;
+    }
+
+    public LogDownloader build() {
+      return new LogDownloader(this);
+    }
+
+    /**
+     * @param maxConcurrency - max number of queries in flight.
+     */
+    public Builder setMaxConcurrency(final int maxConcurrency) {
+      Utils.require(maxConcurrency > 0, "Max concurrency must be positive");
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * @param maxRange - max number of blocks in one query, also the initial size.
+     */
+    public Builder setMaxRange(final long maxRange) {
+      Utils.require(maxRange > 0, "Max range must be positive");
+      this.maxRange = maxRange;
+      return this;
+    }
+  }
+
+  private class Range implements Iterator<Event> {
+
+    private final LogFilter filter;
+    private final long to;
+    private final Deque<CompletableFuture<List<Event>>> queries = new ArrayDeque<>();
+    private long nextRequested;
+    private Iterator<Event> current = Collections.emptyIterator();
+
+    private Range(final LogFilter filter, final long from, final long to) {
+      this.filter = filter;
+      this.to = to;
+      nextRequested = from;
+      requestMore();
+    }
+
+    private void advance() {
+      while (!current.hasNext() && !queries.isEmpty()) {
+        final CompletableFuture<List<Event>> query = queries.poll();
+        requestMore();
+        try {
+          current = query.join().iterator();
+        }
+        catch (final CompletionException e) {
+          throw e.getCause() instanceof Error ? (Error) e.getCause() : new Error(e.getCause());
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      advance();
+      return current.hasNext();
+    }
+
+    @Override
+    public Event next() {
+      advance();
+      if (!current.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return current.next();
+    }
+
+    private void requestMore() {
+      while (queries.size() < maxConcurrency && nextRequested <= to) {
+        final long first = nextRequested;
+        final long last = Math.min(to, first + rangeSize.get() - 1);
+        queries.add(query(filter, first, last));
+        nextRequested = last + 1;
+      }
+    }
+  }
+
+  /**
+   * Lower case message prefixes of too many results rejections of geth, Infura, Alchemy, QuickNode, Ankr and BSC nodes.
+   */
+  private static final String[] TOO_MANY_RESULTS_MESSAGES = {
+    "query returned more than ",
+    "log response size exceeded",
+    "eth_getlogs is limited to ",
+    "block range is too wide",
+    "exceed maximum block range"
+  };
+
+  public static Builder builder(final Client client) {
+    Utils.require(client != null, "Client is required");
+    return new Builder(client);
+  }
+
+  private static List<Event> concat(final List<Event> first, final List<Event> second) {
+    final List<Event> events = new ArrayList<>(first.size() + second.size());
+    events.addAll(first);
+    events.addAll(second);
+    return events;
+  }
+
+  /**
+   * @return Returns true when the node rejected the query for too many results or a too wide block range:
+   *         code -32005 limit exceeded of EIP-1474 or a known message of a node or provider,
+   *         e.g. geth "query returned more than 10000 results".
+   */
+  static boolean isTooManyResults(final Error error) {
+    if (error.getCode() == -32005) {
+      return true;
+    }
+    final String message = error.getMessage() == null ? "" : error.getMessage().toLowerCase(Locale.ROOT);
+    for (final String tooManyResults : TOO_MANY_RESULTS_MESSAGES) {
+      if (message.startsWith(tooManyResults)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private final Client client;
+  private final long maxRange;
+  private final int maxConcurrency;
+  private final ExecutorService executor;
+  private final AtomicLong rangeSize;
+  private final AtomicLong queryCount = new AtomicLong();
+  private final AtomicLong splitCount = new AtomicLong();
+
+  private LogDownloader(final Builder builder) {
+
+    client = builder.client;
+    maxRange = builder.maxRange;
+    maxConcurrency = builder.maxConcurrency;
+    rangeSize = new AtomicLong(maxRange);
+    final AtomicInteger threadNumber = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+      final Thread thread = new Thread(runnable, "ether4j-logs-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Stops query threads, the client is not closed.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * @param filter - addresses and topics of the logs.
+   * @param from - first block number.
+   * @param to - last block number, inclusive.
+   * @return Returns logs in block order, {@link Error} is thrown by next when a query failed.
+   */
+  public Iterator<Event> download(final LogFilter filter, final long from, final long to) {
+    Utils.require(from >= 0 && from <= to + 1, "Invalid block range");
+    return new Range(filter, from, to);
+  }
+
+  private List<Event> getLogs(final LogFilter filter, final long first, final long last) {
+    queryCount.incrementAndGet();
+    final List<Event> events = client.getLogs(filter, Quantity.of(first), Quantity.of(last));
+    rangeSize.accumulateAndGet(last - first + 1, (size, queried) -> queried >= size ? Math.min(maxRange, size * 2) : size);
+    return events;
+  }
+
+  /**
+   * @return Returns number of eth_getLogs requests sent.
+   */
+  public long getQueryCount() {
+    return queryCount.get();
+  }
+
+  /**
+   * @return Returns current number of blocks in one query.
+   */
+  public long getRangeSize() {
+    return rangeSize.get();
+  }
+
+  /**
+   * @return Returns number of queries split for too many results.
+   */
+  public long getSplitCount() {
+    return splitCount.get();
+  }
+
+  /**
+   * Queries the sub-range on a query thread, a rejected sub-range is split and both halves are queried in parallel.
+   */
+  private CompletableFuture<List<Event>> query(final LogFilter filter, final long first, final long last) {
+
+    final CompletableFuture<List<Event>> events = CompletableFuture.supplyAsync(() -> getLogs(filter, first, last), executor);
+    return events.handle((result, e) -> {
+      final Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+      if (first == last || !(cause instanceof Error) || !isTooManyResults((Error) cause)) {
+        return events;
+      }
+      splitCount.incrementAndGet();
+      final long middle = first + (last - first) / 2;
+      rangeSize.accumulateAndGet(middle - first + 1, Math::min);
+      return query(filter, first, middle).thenCombine(query(filter, middle + 1, last), LogDownloader::concat);
+    }).thenCompose(Function.identity());
+  }
+
+  /**
+   * @see #download(LogFilter, long, long)
+   */
+  public Stream<Event> stream(final LogFilter filter, final long from, final long to) {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(download(filter, from, to), Spliterator.ORDERED), false);
+  }
+
+}
@@ -0,0 +1,106 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Address and topic filter of eth_getLogs, eth_newFilter and logs subscriptions.
+ * Topics are matched by position, every position matches any of its alternatives, a position without alternatives matches any topic.
+ */
+public class LogFilter {
+
+  public static LogFilter create() {
+    return new LogFilter();
+  }
+
+  private final List<Quantity> addresses = new ArrayList<>();
+  private final List<List<Quantity>> topics = new ArrayList<>();
+
+  private LogFilter() {
+  }
+
+  /**
+   * @param addresses - 20 Bytes - contract addresses the logs originated from.
+   */
+  public LogFilter addAddress(final Quantity... addresses) {
+    this.addresses.addAll(Arrays.asList(addresses));
+    return this;
+  }
+
+  /**
+   * Adds the next topic position.
+   *
+   * @param alternatives - 32 Bytes - topics matched at this position, none or null matches any topic.
+   */
+  public LogFilter addTopic(final Quantity... alternatives) {
+    final List<Quantity> position = new ArrayList<>();
+    if (alternatives != null) {
+      for (final Quantity alternative : alternatives) {
+        if (alternative != null) {
+          position.add(alternative);
+        }
+      }
+    }
+    topics.add(position);
+    return this;
+  }
+
+  public List<Quantity> getAddresses() {
+    return Collections.unmodifiableList(addresses);
+  }
+
+  public List<List<Quantity>> getTopics() {
+    return Collections.unmodifiableList(topics);
+  }
+
+  /**
+   * @return Returns true when the log matches addresses and topics.
+   */
+  public boolean matches(final Event event) {
+    if (!addresses.isEmpty() && !addresses.contains(event.getAddress())) {
+      return false;
+    }
+    final Quantity[] eventTopics = event.getTopics() == null ? new Quantity[0] : event.getTopics();
+    for (int i = 0; i < topics.size(); i++) {
+      if (!topics.get(i).isEmpty() && (i >= eventTopics.length || !topics.get(i).contains(eventTopics[i]))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  ObjectNode toJson() {
+
+    final ObjectNode filter = Utils.createJsonObject();
+    if (!addresses.isEmpty()) {
+      final ArrayNode addressesJson = filter.putArray("address");
+      addresses.forEach(address -> addressesJson.add(address.toHexAddress()));
+    }
+    if (!topics.isEmpty()) {
+      final ArrayNode topicsJson = filter.putArray("topics");
+      for (final List<Quantity> position : topics) {
+        if (position.isEmpty()) {
+          topicsJson.addNull();
+        }
+        else if (position.size() == 1) {
+          topicsJson.add(position.get(0).toHexHash());
+        }
+        else {
+          final ArrayNode alternatives = topicsJson.addArray();
+          position.forEach(topic -> alternatives.add(topic.toHexHash()));
+        }
+      }
+    }
+    return filter;
+  }
+
+  @Override
+  public String toString() {
+    return toJson().toString();
+  }
+
+}
@@ -0,0 +1,53 @@
+package tech.xwood.ether4j;
+
+import java.math.BigInteger;
+
+/**
+ * Non negative quantity which fits in long.
+ */
+final class LongQuantity extends Quantity {
+
+  private final long value;
+  private final int hexLength;
+
+  LongQuantity(final long value, final int hexLength) {
+    this.value = value;
+    this.hexLength = hexLength;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (obj instanceof LongQuantity) {
+      return value == ((LongQuantity) obj).value;
+    }
+    return super.equals(obj);
+  }
+
+  @Override
+  int getHexLength() {
+    return hexLength;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashWord(0, value);
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return BigInteger.valueOf(value);
+  }
+
+  @Override
+  String toHex(final int size, final boolean prefix) {
+    if (size > 0 && Hex.getDigitCount(value) > size) {
+      throw new Error("Value " + Hex.encode(value, 0, false) + "is larger then length " + size);
+    }
+    return Hex.encode(value, size, prefix);
+  }
+
+  @Override
+  public long toLong() {
+    return value;
+  }
+}
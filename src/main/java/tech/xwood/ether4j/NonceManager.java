@@ -0,0 +1,228 @@
+package tech.xwood.ether4j;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Allocates transaction nonces locally, so many threads can send from one account without a round trip per transaction
+ * and without nonce collisions. Every address is synced once with eth_getTransactionCount(pending),
+ * then nonces are handed out atomically. Nonces of rejected transactions are released and reused first,
+ * so the account has no gaps that would block later transactions in the node queue.
+ * <p>
+ * Every allocated nonce must be either confirmed (sent, or consumed by another transaction) or released (not sent).
+ * Nonces chosen by the caller instead of allocated are recorded with {@link #markUsed(Quantity, Quantity)}.
+ */
+public class NonceManager {
+
+  private static final int MAX_GAP = 1024;
+
+  private static class State {
+
+    private long next;
+    private final TreeSet<Long> released = new TreeSet<>();
+    private int inFlight;
+    private boolean synced;
+    private CompletableFuture<Long> sync;
+
+    private long take() {
+      inFlight++;
+      final Long gap = released.pollFirst();
+      return gap != null ? gap : next++;
+    }
+
+    private void update(final long pendingCount) {
+      if (inFlight == 0 || pendingCount > next) {
+        next = pendingCount;
+      }
+      released.headSet(pendingCount).clear();
+      released.tailSet(next).clear();
+      synced = true;
+      sync = null;
+    }
+  }
+
+  /**
+   * @return Returns true when the node already has the same signed transaction in its pool.
+   */
+  static boolean isAlreadyKnown(final Error error) {
+    return message(error).contains("already known");
+  }
+
+  /**
+   * @return Returns true when the node rejected the transaction because its nonce is already used
+   *         ("nonce too low" or "already known"), local nonces must be resynced.
+   */
+  public static boolean isNonceError(final Error error) {
+    return message(error).contains("nonce too low") || isAlreadyKnown(error);
+  }
+
+  private static String message(final Error error) {
+    return error.getMessage() == null ? "" : error.getMessage().toLowerCase(Locale.ROOT);
+  }
+
+  private final Function<Quantity, CompletableFuture<Quantity>> pendingCount;
+  private final Map<Quantity, State> states = new ConcurrentHashMap<>();
+
+  /**
+   * @param pendingCount - returns eth_getTransactionCount of the address at the pending block.
+   */
+  public NonceManager(final Function<Quantity, CompletableFuture<Quantity>> pendingCount) {
+    Utils.require(pendingCount != null, "Pending transaction count source is required");
+    this.pendingCount = pendingCount;
+  }
+
+  /**
+   * @return Returns the next free nonce of the address, syncs with the node first when needed.
+   */
+  public CompletableFuture<Quantity> allocate(final Quantity address) {
+
+    final State state = states.computeIfAbsent(address, a -> new State());
+    final CompletableFuture<Long> sync;
+    final boolean leader;
+    synchronized (state) {
+      if (state.synced) {
+        return CompletableFuture.completedFuture(Quantity.of(state.take()));
+      }
+      leader = state.sync == null;
+      if (leader) {
+        state.sync = new CompletableFuture<>();
+      }
+      sync = state.sync;
+    }
+    if (leader) {
+      fetch(address, state, sync);
+    }
+    return sync.thenCompose(ignored -> allocate(address));
+  }
+
+  /**
+   * Marks the nonce as used, the transaction was sent or the node reported the nonce as used.
+   */
+  public void confirm(final Quantity address, final Quantity nonce) {
+    final State state = states.get(address);
+    if (state != null) {
+      synchronized (state) {
+        state.inFlight = Math.max(0, state.inFlight - 1);
+      }
+    }
+  }
+
+  private void fetch(final Quantity address, final State state, final CompletableFuture<Long> sync) {
+
+    CompletableFuture<Quantity> count;
+    try {
+      count = pendingCount.apply(address);
+    }
+    catch (final RuntimeException e) {
+      count = new CompletableFuture<>();
+      count.completeExceptionally(e);
+    }
+    count.whenComplete((value, e) -> {
+      synchronized (state) {
+        if (e == null) {
+          state.update(value.toLong());
+        }
+        else {
+          state.sync = null;
+        }
+      }
+      if (e != null) {
+        sync.completeExceptionally(e);
+      }
+      else {
+        sync.complete(state.next);
+      }
+    });
+  }
+
+  /**
+   * @return Returns number of allocated nonces of the address that are neither confirmed nor released.
+   */
+  public int getInFlightCount(final Quantity address) {
+    final State state = states.get(address);
+    if (state == null) {
+      return 0;
+    }
+    synchronized (state) {
+      return state.inFlight;
+    }
+  }
+
+  /**
+   * Records a nonce chosen by the caller, e.g. of a transaction sent with explicit nonce, so it is never allocated.
+   * Skipped nonces below it are allocated first, as they block it in the node queue. A gap larger than
+   * {@value #MAX_GAP} nonces is not filled, the address is resynced instead.
+   */
+  public void markUsed(final Quantity address, final Quantity nonce) {
+    final State state = states.get(address);
+    if (state != null) {
+      synchronized (state) {
+        final long value = nonce.toLong();
+        state.released.remove(value);
+        if (value - state.next > MAX_GAP) {
+          state.synced = false;
+        }
+        else if (value >= state.next) {
+          for (long gap = state.next; gap < value; gap++) {
+            state.released.add(gap);
+          }
+          state.next = value + 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Confirms, releases or resyncs the nonce of a failed send: nonce errors and transport failures with unknown outcome
+   * are resynced, other node errors release the nonce.
+   *
+   * @return Returns true when the transaction may be signed again with a new nonce ("nonce too low").
+   */
+  public boolean onError(final Quantity address, final Quantity nonce, final Error error) {
+    if (isNonceError(error) || error.getCode() == -1) {
+      confirm(address, nonce);
+      resync(address);
+      return isNonceError(error) && !isAlreadyKnown(error);
+    }
+    release(address, nonce);
+    return false;
+  }
+
+  /**
+   * Returns the unused nonce, the transaction was not sent or was rejected by the node. The nonce is allocated again first.
+   */
+  public void release(final Quantity address, final Quantity nonce) {
+    final State state = states.get(address);
+    if (state != null) {
+      synchronized (state) {
+        state.inFlight = Math.max(0, state.inFlight - 1);
+        final long value = nonce.toLong();
+        if (value + 1 == state.next) {
+          state.next = value;
+        }
+        else if (value < state.next) {
+          state.released.add(value);
+        }
+      }
+    }
+  }
+
+  /**
+   * Forces sync with eth_getTransactionCount(pending) before the next allocation, e.g. after "nonce too low",
+   * a transaction sent by another client or a transport failure with unknown outcome.
+   * Allocated nonces above the pending count are kept while transactions are in flight.
+   */
+  public void resync(final Quantity address) {
+    final State state = states.get(address);
+    if (state != null) {
+      synchronized (state) {
+        state.synced = false;
+      }
+    }
+  }
+
+}
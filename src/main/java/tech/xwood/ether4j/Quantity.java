@@ -6,23 +6,60 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
 
-public class Quantity {
+/**
+ * Immutable number with hex representation. Non negative values which fit in long are kept without
+ * {@link BigInteger}, hex with exactly {@link #ADDRESS_HEX_LENGH} or {@link #HASH_HEX_LENGH} digits is parsed into
+ * {@link Address} or {@link Hash}. Quantities of different representations with the same value are equal.
+ */
+public abstract class Quantity {
 
   public static final int ADDRESS_HEX_LENGH = 40;
   public static final int HASH_HEX_LENGH = 64;
   public static final String HEX_PREFIX = "0x";
 
+  /**
+   * @return Returns the low digits of the hex ending at end as bits of long, zero past the prefix.
+   */
+  static long decodeWord(final String hex, final int end, final int digits) {
+    return Hex.decodeLong(hex, Math.max(HEX_PREFIX.length(), end - digits), Math.max(HEX_PREFIX.length(), end));
+  }
+
+  /**
+   * @return Returns the low length bytes ending at end as bits of long, zero before the array.
+   */
+  static long getWord(final byte[] bytes, final int end, final int length) {
+    long word = 0;
+    for (int i = Math.max(0, end - length); i < end; i++) {
+      word = word << Byte.SIZE | bytes[i] & 0xff;
+    }
+    return word;
+  }
+
+  /**
+   * @return Returns hash code of {@link BigInteger} of the non negative value given by big endian int words.
+   */
+  static int hashWord(final int hashCode, final int word) {
+    return 31 * hashCode + word;
+  }
+
+  static int hashWord(final int hashCode, final long word) {
+    return hashWord(hashWord(hashCode, (int) (word >>> Integer.SIZE)), (int) word);
+  }
+
   public static Quantity of(final BigDecimal value, final Unit unit) {
     final BigInteger bigInt = value.multiply(unit.getWeiFactor()).toBigInteger();
-    return new Quantity(bigInt, 0);
+    return of(bigInt);
   }
 
   public static Quantity of(final BigInteger value) {
-    return new Quantity(value, 0);
+    if (value.signum() >= 0 && value.bitLength() < Long.SIZE) {
+      return new LongQuantity(value.longValue(), 0);
+    }
+    return new BigQuantity(value, 0);
   }
 
   public static Quantity of(final byte[] bytes) {
-    return new Quantity(new BigInteger(1, bytes), 0);
+    return of(new BigInteger(1, bytes));
   }
 
   public static Quantity of(final double value, final Unit unit) {
@@ -30,7 +67,10 @@ public class Quantity {
   }
 
   public static Quantity of(final long value) {
-    return new Quantity(BigInteger.valueOf(value), 0);
+    if (value >= 0) {
+      return new LongQuantity(value, 0);
+    }
+    return new BigQuantity(BigInteger.valueOf(value), 0);
   }
 
   public static Quantity of(final long value, final Unit unit) {
@@ -45,33 +85,42 @@ public class Quantity {
     if (!validateHex(hex)) {
       throw new Error("Value must be in format 0x[1-9]+[0-9]* or 0x0");
     }
-    try {
-      final BigInteger value = new BigInteger(hex.substring(2), 16);
-      return new Quantity(value, hex.length() - 2);
+    final int digits = hex.length() - 2;
+    if (digits == ADDRESS_HEX_LENGH) {
+      return Address.of(hex);
     }
-    catch (final NumberFormatException e) {
-      throw new Error("Negative ", e);
+    if (digits == HASH_HEX_LENGH) {
+      return Hash.of(hex);
+    }
+    if (digits <= Long.BYTES * 2) {
+      final long value = Hex.decodeLong(hex, 2, hex.length());
+      if (value >= 0) {
+        return new LongQuantity(value, digits);
+      }
     }
+    return new BigQuantity(Hex.decodeNumber(hex, 2, hex.length()), digits);
   }
 
   public static Quantity ofHexWithoutPrefix(final String hexWithoutPrefix) {
     return Quantity.of(HEX_PREFIX + hexWithoutPrefix);
   }
 
-  private static String strRepeat(final char value, final int n) {
-    return new String(new char[n]).replace("\0", String.valueOf(value));
+  /**
+   * Writes the low length bytes of the word big endian ending at end.
+   */
+  static void putWord(final byte[] dest, final int end, final long word, final int length) {
+    long remaining = word;
+    for (int i = end - 1; i >= end - length; i--) {
+      dest[i] = (byte) remaining;
+      remaining >>>= Byte.SIZE;
+    }
   }
 
-  private static boolean validateHex(final String value) {
+  static boolean validateHex(final String value) {
     return value != null && value.length() >= 3 && value.startsWith(HEX_PREFIX);
   }
 
-  private final BigInteger value;
-  private final int hexLength;
-
-  private Quantity(final BigInteger value, final int hexLength) {
-    this.value = value;
-    this.hexLength = hexLength;
+  Quantity() {
   }
 
   public Quantity appendHex(final String hexWithoutPrefix) {
@@ -86,20 +135,24 @@ public class Quantity {
     if (obj == null || !(obj instanceof Quantity)) {
       return false;
     }
-    final Quantity other = (Quantity) obj;
-    return (value == other.value) || (value != null && value.equals(other.value));
+    return toBigInteger().equals(((Quantity) obj).toBigInteger());
   }
 
+  /**
+   * @return Returns number of digits of {@link #toHex()}, 0 for no padding.
+   */
+  abstract int getHexLength();
+
+  /**
+   * Equal to hash code of {@link #toBigInteger()}.
+   */
   @Override
-  public int hashCode() {
-    return value.hashCode();
-  }
+  public abstract int hashCode();
 
-  public BigInteger toBigInteger() {
-    return value;
-  }
+  public abstract BigInteger toBigInteger();
 
   public byte[] toBytes() {
+    final BigInteger value = toBigInteger();
     if (value.signum() < 1) {
       return new byte[] {};
     }
@@ -107,18 +160,42 @@ public class Quantity {
     return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
   }
 
+  /**
+   * @return Returns the value as size bytes big endian padded with leading zeros.
+   */
+  public byte[] toBytes(final int size) {
+    final byte[] bytes = toBytes();
+    if (bytes.length > size) {
+      throw new Error("Value " + toHex(0) + " is larger then " + size + " bytes");
+    }
+    final byte[] dest = new byte[size];
+    System.arraycopy(bytes, 0, dest, size - bytes.length, bytes.length);
+    return dest;
+  }
+
   public BigDecimal toDecimal(final Unit unit) {
-    return new BigDecimal(value)
+    return new BigDecimal(toBigInteger())
       .divide(unit.getWeiFactor());
   }
 
   @JsonValue
   public String toHex() {
-    return toHex(hexLength);
+    return toHex(getHexLength());
   }
 
   public String toHex(final int size) {
-    return HEX_PREFIX + toHexWithoutPrefix(size);
+    return toHex(size, true);
+  }
+
+  String toHex(final int size, final boolean prefix) {
+    final BigInteger value = toBigInteger();
+    if (value.signum() < 0) {
+      throw new Error("Negative values are not supported");
+    }
+    if (size > 0 && Hex.getDigitCount(value) > size) {
+      throw new Error("Value " + Hex.encode(value, 0, false) + "is larger then length " + size);
+    }
+    return Hex.encode(value, size, prefix);
   }
 
   public String toHexAddress() {
@@ -130,24 +207,22 @@ public class Quantity {
   }
 
   public String toHexWithoutPrefix() {
-    return toHexWithoutPrefix(hexLength);
+    return toHexWithoutPrefix(getHexLength());
   }
 
   public String toHexWithoutPrefix(final int size) {
-    if (value.signum() < 0) {
-      throw new Error("Negative values are not supported");
-    }
-    String result = value.toString(16);
-    if (size > 0) {
-      final int length = result.length();
-      if (length > size) {
-        throw new Error("Value " + result + "is larger then length " + size);
-      }
-      if (length < size) {
-        result = strRepeat('0', size - length) + result;
-      }
+    return toHex(size, false);
+  }
+
+  /**
+   * @return Returns the value, throws {@link Error} when it does not fit in long.
+   */
+  public long toLong() {
+    final BigInteger value = toBigInteger();
+    if (value.bitLength() >= Long.SIZE) {
+      throw new Error("Value " + value + " does not fit in long");
     }
-    return result;
+    return value.longValue();
   }
 
   @Override
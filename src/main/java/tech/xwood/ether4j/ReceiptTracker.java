@@ -0,0 +1,276 @@
+package tech.xwood.ether4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Waits for receipts of many pending transactions with constant RPC load. One thread polls eth_blockNumber,
+ * and only when a new block arrives (or transactions were added) requests receipts of all pending transactions
+ * in one batched eth_getTransactionReceipt. With new heads enabled the poll is triggered by eth_subscribe newHeads too.
+ * <p>
+ * A receipt completes its future after the given number of confirmations, receipts are polled again until then,
+ * so a transaction dropped by a chain reorganization keeps waiting. Futures fail with {@link Error} on timeout.
+ */
+public class ReceiptTracker implements AutoCloseable {
+
+  public static class Builder {
+
+    private final Client client;
+    private long pollInterval = 1_000;
+    private int maxBatchSize = Client.DEFAULT_BATCH_MAX_SIZE;
+    private int confirmations = 1;
+    private long timeout;
+    private boolean newHeads;
+
+    private Builder(final Client client) {
+      this.client = client;
+    }
+
+    public ReceiptTracker build() {
+      return new ReceiptTracker(this);
+    }
+
+    /**
+     * @param confirmations - default number of blocks including the transaction block, 1 completes on inclusion.
+     */
+    public Builder setConfirmations(final int confirmations) {
+      Utils.require(confirmations > 0, "Confirmations must be positive");
+      this.confirmations = confirmations;
+      return this;
+    }
+
+    /**
+     * @param maxBatchSize - max number of receipts requested in one HTTP request.
+     */
+    public Builder setMaxBatchSize(final int maxBatchSize) {
+      Utils.require(maxBatchSize > 0, "Max batch size must be positive");
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * @param newHeads - polls on eth_subscribe newHeads notifications too, requires WebSocket or IPC connection.
+     */
+    public Builder setNewHeads(final boolean newHeads) {
+      this.newHeads = newHeads;
+      return this;
+    }
+
+    /**
+     * @param pollInterval - time in milliseconds between eth_blockNumber polls.
+     */
+    public Builder setPollInterval(final long pollInterval) {
+      Utils.require(pollInterval > 0, "Poll interval must be positive");
+      this.pollInterval = pollInterval;
+      return this;
+    }
+
+    /**
+     * @param timeout - default max time in milliseconds to wait for a receipt, zero means infinite.
+     */
+    public Builder setTimeout(final long timeout) {
+      Utils.require(timeout >= 0, "Timeout must not be negative");
+      this.timeout = timeout;
+      return this;
+    }
+  }
+
+  private static class Entry {
+
+    private final Quantity txHash;
+    private final int confirmations;
+    private final long deadline;
+    private final CompletableFuture<TransactionReceipt> receipt = new CompletableFuture<>();
+    private TransactionReceipt lastReceipt;
+    private long polledBlock = -1;
+
+    private Entry(final Quantity txHash, final int confirmations, final long deadline) {
+      this.txHash = txHash;
+      this.confirmations = confirmations;
+      this.deadline = deadline;
+    }
+  }
+
+  public static Builder builder(final Client client) {
+    Utils.require(client != null, "Client is required");
+    return new Builder(client);
+  }
+
+  private final Client client;
+  private final int maxBatchSize;
+  private final int confirmations;
+  private final long timeout;
+  private final Set<Entry> entries = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService scheduler;
+  private final Client.Subscription newHeads;
+  private final AtomicLong requestCount = new AtomicLong();
+  private volatile long headBlock = -1;
+
+  private ReceiptTracker(final Builder builder) {
+
+    client = builder.client;
+    maxBatchSize = builder.maxBatchSize;
+    confirmations = builder.confirmations;
+    timeout = builder.timeout;
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "ether4j-receipts");
+      thread.setDaemon(true);
+      return thread;
+    });
+    newHeads = builder.newHeads ? client.subscribeNewHeads(this::onNewHead) : null;
+    scheduler.scheduleWithFixedDelay(() -> poll(-1), builder.pollInterval, builder.pollInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops polling, pending futures fail.
+   */
+  @Override
+  public void close() {
+    if (newHeads != null) {
+      newHeads.close();
+    }
+    scheduler.shutdownNow();
+    final Error error = new Error("Receipt tracker is closed");
+    for (final Entry entry : entries) {
+      entry.receipt.completeExceptionally(error);
+    }
+    entries.clear();
+  }
+
+  /**
+   * @return Returns number of the latest block seen, -1 before the first poll.
+   */
+  public long getHeadBlock() {
+    return headBlock;
+  }
+
+  /**
+   * @return Returns number of transactions waiting for a receipt or confirmations.
+   */
+  public int getPendingCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return Returns number of RPC requests sent by the tracker, batches count as one request each.
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  private void onNewHead(final Block block) {
+    if (block.getNumber() != null) {
+      final long number = block.getNumber().toLong();
+      try {
+        scheduler.execute(() -> poll(number));
+      }
+      catch (final RejectedExecutionException e) {
+      }
+    }
+  }
+
+  /**
+   * Runs on the tracker thread only.
+   *
+   * @param knownHead - block number from new heads notification, -1 to request it.
+   */
+  private void poll(final long knownHead) {
+
+    try {
+      long head = knownHead;
+      if (head < 0) {
+        head = client.getLastBlockNumber().toLong();
+        requestCount.incrementAndGet();
+      }
+      if (head < headBlock) {
+        head = headBlock;
+      }
+      headBlock = head;
+
+      final List<Entry> due = new ArrayList<>();
+      for (final Entry entry : entries) {
+        if (entry.polledBlock < head) {
+          due.add(entry);
+        }
+      }
+      if (!due.isEmpty()) {
+        final Client.Batch batch = client.createBatch(maxBatchSize);
+        final Map<Quantity, Client.Batch.Call<TransactionReceipt>> calls = new LinkedHashMap<>();
+        for (final Entry entry : due) {
+          calls.computeIfAbsent(entry.txHash, hash -> batch.add(TransactionReceipt.class, "eth_getTransactionReceipt", hash.toHexHash()));
+        }
+        batch.execute();
+        requestCount.addAndGet((calls.size() + maxBatchSize - 1) / maxBatchSize);
+        for (final Entry entry : due) {
+          final Client.Batch.Call<TransactionReceipt> call = calls.get(entry.txHash);
+          if (call.isSuccess()) {
+            entry.lastReceipt = call.get();
+            entry.polledBlock = head;
+          }
+        }
+      }
+
+      for (final Iterator<Entry> i = entries.iterator(); i.hasNext();) {
+        final Entry entry = i.next();
+        final TransactionReceipt receipt = entry.lastReceipt;
+        if (receipt != null && receipt.getBlockNumber() != null
+          && head - receipt.getBlockNumber().toLong() + 1 >= entry.confirmations) {
+          i.remove();
+          entry.receipt.complete(receipt);
+        }
+      }
+    }
+    catch (final RuntimeException e) {
+      // transient node failure, polled again on the next tick
+    }
+    finally {
+      final long now = System.currentTimeMillis();
+      for (final Iterator<Entry> i = entries.iterator(); i.hasNext();) {
+        final Entry entry = i.next();
+        if (now >= entry.deadline) {
+          i.remove();
+          entry.receipt.completeExceptionally(new Error("Transaction receipt timeout: " + entry.txHash.toHexHash()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits for the receipt with default confirmations and timeout.
+   */
+  public CompletableFuture<TransactionReceipt> track(final Quantity txHash) {
+    return track(txHash, confirmations, timeout);
+  }
+
+  /**
+   * @param txHash - 32 Bytes - hash of a sent transaction.
+   * @param confirmations - number of blocks including the transaction block, 1 completes on inclusion.
+   * @param timeout - max time in milliseconds to wait, zero means infinite.
+   * @return Returns future receipt, completed on the tracker thread.
+   */
+  public CompletableFuture<TransactionReceipt> track(final Quantity txHash, final int confirmations, final long timeout) {
+
+    Utils.require(confirmations > 0, "Confirmations must be positive");
+    Utils.require(timeout >= 0, "Timeout must not be negative");
+    final Entry entry = new Entry(txHash, confirmations, timeout == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + timeout);
+    if (scheduler.isShutdown()) {
+      entry.receipt.completeExceptionally(new Error("Receipt tracker is closed"));
+      return entry.receipt;
+    }
+    entries.add(entry);
+    entry.receipt.whenComplete((receipt, e) -> entries.remove(entry));
+    return entry.receipt;
+  }
+
+}
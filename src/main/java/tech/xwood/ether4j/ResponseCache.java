@@ -0,0 +1,121 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache of RPC results which can not change any more, keyed by method and params.
+ * Entries are evicted when the cache is full or once they are older than time to live.
+ * Results are kept as JSON trees and bound again on every hit, so callers can not alter cached values.
+ */
+public class ResponseCache {
+
+  private static class CachedResult {
+
+    final JsonNode result;
+    final long expiresAt;
+
+    CachedResult(final JsonNode result, final long expiresAt) {
+      this.result = result;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  static String key(final String method, final Object... params) {
+    final StringBuilder key = new StringBuilder(method);
+    for (final Object param : params) {
+      key.append(',').append(param instanceof String ? (String) param : Utils.toJson(param));
+    }
+    return key.toString();
+  }
+
+  private final int maxSize;
+  private final long ttl;
+  private final LinkedHashMap<String, CachedResult> entries;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * @param maxSize - max number of cached results.
+   * @param ttl - time to live of a result in milliseconds, zero means infinite.
+   */
+  public ResponseCache(final int maxSize, final long ttl) {
+    Utils.require(maxSize > 0, "Max size must be positive");
+    Utils.require(ttl >= 0, "Time to live must not be negative");
+    this.maxSize = maxSize;
+    this.ttl = ttl;
+    entries = new LinkedHashMap<String, CachedResult>(Math.min(maxSize, 1024), 0.75f, true) {
+
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, CachedResult> eldest) {
+        if (size() > ResponseCache.this.maxSize) {
+          evictionCount++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  synchronized JsonNode get(final String key) {
+    final CachedResult entry = entries.get(key);
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    if (entry.expiresAt > 0 && System.currentTimeMillis() >= entry.expiresAt) {
+      entries.remove(key);
+      evictionCount++;
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.result;
+  }
+
+  /**
+   * @return Returns number of results removed because the cache was full or the result expired.
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return Returns hits divided by lookups, zero before the first lookup.
+   */
+  public synchronized double getHitRatio() {
+    final long lookups = hitCount + missCount;
+    return lookups == 0 ? 0 : (double) hitCount / lookups;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  synchronized void put(final String key, final JsonNode result) {
+    entries.put(key, new CachedResult(result, ttl > 0 ? System.currentTimeMillis() + ttl : 0));
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "ResponseCache (size " + entries.size() + "/" + maxSize + ", hits " + hitCount + ", misses " + missCount
+      + ", evictions " + evictionCount + ")";
+  }
+
+}
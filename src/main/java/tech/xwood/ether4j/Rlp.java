@@ -1,5 +1,8 @@
 package tech.xwood.ether4j;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -66,27 +69,215 @@ public class Rlp {
 
   }
 
-  private static final int OFFSET_SHORT_STRING = 0x80;
-  private static final int OFFSET_LONG_STRING = 0xb7;
-  private static final int OFFSET_SHORT_LIST = 0xc0;
-  private static final int OFFSET_LONG_LIST = 0xf7;
+  /**
+   * View of an item over the source array without copying. Header is validated on creation, items of a list are
+   * created on first access, so only the accessed part of nested data is parsed. Lengths must be canonical and must
+   * fit in the enclosing item, otherwise {@link Error} is thrown. Encoding a slice copies its raw bytes.
+   */
+  public static final class Slice implements Type {
+
+    private static int readLength(final byte[] data, final int encodedOffset, final int offset, final int limit) {
+      final int start = encodedOffset + 1;
+      if (offset > limit) {
+        throw new Error("RLP length at " + encodedOffset + " is truncated at " + limit);
+      }
+      if (offset - start > Integer.BYTES || data[start] == 0) {
+        throw new Error("RLP length at " + encodedOffset + " is not canonical or too long");
+      }
+      int length = 0;
+      for (int i = start; i < offset; i++) {
+        length = length << Byte.SIZE | data[i] & 0xff;
+      }
+      if (length < 0 || length <= SHORT_LENGTH) {
+        throw new Error("RLP length " + length + " at " + encodedOffset + " is not canonical or too long");
+      }
+      return length;
+    }
 
-  private static int calcLength(final int lengthOfLength, final byte[] data, final int pos) {
-    byte pow = (byte) (lengthOfLength - 1);
-    int length = 0;
-    for (int i = 1; i <= lengthOfLength; ++i) {
-      length += (data[pos + i] & 0xff) << (8 * pow);
-      pow--;
+    private final byte[] data;
+    private final int encodedOffset;
+    private final int offset;
+    private final int end;
+    private final boolean list;
+    private Slice[] items;
+
+    private Slice(final byte[] data, final int encodedOffset, final int limit) {
+
+      final int prefix = data[encodedOffset] & 0xff;
+      final int length;
+      if (prefix < OFFSET_SHORT_STRING) {
+        offset = encodedOffset;
+        length = 1;
+      }
+      else if (prefix < OFFSET_SHORT_LIST) {
+        offset = encodedOffset + 1 + Math.max(0, prefix - OFFSET_LONG_STRING);
+        length = prefix <= OFFSET_LONG_STRING ? prefix - OFFSET_SHORT_STRING : readLength(data, encodedOffset, offset, limit);
+        if (length == 1 && offset < limit && (data[offset] & 0xff) < OFFSET_SHORT_STRING) {
+          throw new Error("RLP single byte " + (data[offset] & 0xff) + " at " + encodedOffset + " is not encoded as itself");
+        }
+      }
+      else {
+        offset = encodedOffset + 1 + Math.max(0, prefix - OFFSET_LONG_LIST);
+        length = prefix <= OFFSET_LONG_LIST ? prefix - OFFSET_SHORT_LIST : readLength(data, encodedOffset, offset, limit);
+      }
+      if (length > limit - offset) {
+        throw new Error("RLP item at " + encodedOffset + " of length " + length + " is truncated at " + limit);
+      }
+      this.data = data;
+      this.encodedOffset = encodedOffset;
+      this.end = offset + length;
+      this.list = prefix >= OFFSET_SHORT_LIST;
+    }
+
+    public Slice get(final int index) {
+      return items()[index];
+    }
+
+    /**
+     * @return Returns payload of the string as buffer sharing the source array.
+     */
+    public ByteBuffer getByteBuffer() {
+      requireString();
+      return ByteBuffer.wrap(data, offset, end - offset).slice();
+    }
+
+    /**
+     * @return Returns copy of payload of the string.
+     */
+    public byte[] getBytes() {
+      requireString();
+      return Arrays.copyOfRange(data, offset, end);
+    }
+
+    /**
+     * @return Returns the source array.
+     */
+    public byte[] getData() {
+      return data;
+    }
+
+    /**
+     * @return Returns length of the item with header, e.g. to hash the item in the source array.
+     */
+    public int getEncodedLength() {
+      return end - encodedOffset;
+    }
+
+    /**
+     * @return Returns offset of the header of the item in the source array.
+     */
+    public int getEncodedOffset() {
+      return encodedOffset;
+    }
+
+    public int getLength() {
+      return end - offset;
+    }
+
+    /**
+     * @return Returns payload of the string of at most 8 bytes as big endian number.
+     */
+    public long getLong() {
+      requireString();
+      if (end - offset > Long.BYTES) {
+        throw new Error("RLP string at " + encodedOffset + " of length " + (end - offset) + " does not fit in long");
+      }
+      long value = 0;
+      for (int i = offset; i < end; i++) {
+        value = value << Byte.SIZE | data[i] & 0xff;
+      }
+      return value;
+    }
+
+    /**
+     * @return Returns offset of the payload in the source array.
+     */
+    public int getOffset() {
+      return offset;
+    }
+
+    /**
+     * @return Returns payload of the string as unsigned number.
+     */
+    public Quantity getQuantity() {
+      if (end - offset < Long.BYTES) {
+        return Quantity.of(getLong());
+      }
+      return Quantity.of(getBytes());
+    }
+
+    public boolean isList() {
+      return list;
+    }
+
+    private Slice[] items() {
+      if (items == null) {
+        if (!list) {
+          throw new Error("RLP item at " + encodedOffset + " is not a list");
+        }
+        final List<Slice> result = new ArrayList<>();
+        for (int index = offset; index < end;) {
+          final Slice item = new Slice(data, index, end);
+          result.add(item);
+          index = item.end;
+        }
+        items = result.toArray(new Slice[result.size()]);
+      }
+      return items;
+    }
+
+    private void requireString() {
+      if (list) {
+        throw new Error("RLP item at " + encodedOffset + " is not a string");
+      }
+    }
+
+    public int size() {
+      return items().length;
+    }
+
+    /**
+     * @return Returns copy of the item and all nested items.
+     */
+    public Type toType() {
+      if (!list) {
+        return new TypeString(getBytes());
+      }
+      final TypeList result = createList();
+      for (final Slice item : items()) {
+        result.items.add(item.toType());
+      }
+      return result;
     }
-    return length;
   }
 
-  private static byte[] concat(final byte[] b1, final byte[] b2) {
-    final byte[] result = Arrays.copyOf(b1, b1.length + b2.length);
-    System.arraycopy(b2, 0, result, b1.length, b2.length);
-    return result;
+  /**
+   * Payload lengths of lists in pre-order, consumed in the same order while writing.
+   */
+  private static class Lengths {
+
+    private int[] values = new int[8];
+    private int count;
+    private int cursor;
+
+    private int next() {
+      return values[cursor++];
+    }
+
+    private int reserve() {
+      if (count == values.length) {
+        values = Arrays.copyOf(values, count * 2);
+      }
+      return count++;
+    }
   }
 
+  private static final int OFFSET_SHORT_STRING = 0x80;
+  private static final int OFFSET_LONG_STRING = 0xb7;
+  private static final int OFFSET_SHORT_LIST = 0xc0;
+  private static final int OFFSET_LONG_LIST = 0xf7;
+  private static final int SHORT_LENGTH = 55;
+
   public static TypeString createEmptyString() {
     return new TypeString(new byte[] {});
   }
@@ -115,132 +306,173 @@ public class Rlp {
     return new TypeString(string.getBytes());
   }
 
+  /**
+   * Decodes all items of the data into copies, see {@link #view(byte[])} for decoding without copying.
+   */
   public static TypeList decode(final byte[] rlpEncoded) {
     final TypeList rlpList = createList();
-    decode(rlpEncoded, 0, rlpEncoded.length, rlpList);
+    int offset = 0;
+    while (offset < rlpEncoded.length) {
+      final Slice item = new Slice(rlpEncoded, offset, rlpEncoded.length);
+      rlpList.items.add(item.toType());
+      offset = item.end;
+    }
     return rlpList;
   }
 
-  private static void decode(final byte[] data, int startPos, final int endPos, final TypeList list) {
+  /**
+   * Encodes into exactly sized array, list lengths are computed once before writing.
+   */
+  public static byte[] encode(final Type value) {
+    final Lengths lengths = new Lengths();
+    final byte[] dest = new byte[measure(value, lengths)];
+    put(ByteBuffer.wrap(dest), value, lengths);
+    return dest;
+  }
 
-    if (data == null || data.length == 0) {
-      return;
+  /**
+   * Writes {@link #getEncodedLength(Type)} bytes at the position of the buffer.
+   */
+  public static void encodeTo(final ByteBuffer dest, final Type value) {
+    final Lengths lengths = new Lengths();
+    measure(value, lengths);
+    put(dest, value, lengths);
+  }
+
+  /**
+   * Streams the encoding, string bytes are written without copying, headers byte by byte, so the stream should be
+   * buffered.
+   */
+  public static void encodeTo(final OutputStream dest, final Type value) {
+    final Lengths lengths = new Lengths();
+    measure(value, lengths);
+    try {
+      write(dest, value, lengths);
     }
-    while (startPos < endPos) {
-      final int prefix = data[startPos] & 0xff;
-      if (prefix < OFFSET_SHORT_STRING) {
-        final byte[] rlpData = { (byte) prefix };
-        list.items.add(new TypeString(rlpData));
-        startPos += 1;
-      }
-      else if (prefix == OFFSET_SHORT_STRING) {
-        list.items.add(new TypeString(new byte[0]));
-        startPos += 1;
-      }
-      else if (prefix > OFFSET_SHORT_STRING && prefix <= OFFSET_LONG_STRING) {
-        final byte strLen = (byte) (prefix - OFFSET_SHORT_STRING);
-        final byte[] rlpData = new byte[strLen];
-        System.arraycopy(data, startPos + 1, rlpData, 0, strLen);
-        list.items.add(new TypeString(rlpData));
-        startPos += 1 + strLen;
-      }
-      else if (prefix > OFFSET_LONG_STRING && prefix < OFFSET_SHORT_LIST) {
-        final byte lenOfStrLen = (byte) (prefix - OFFSET_LONG_STRING);
-        final int strLen = calcLength(lenOfStrLen, data, startPos);
-        final byte[] rlpData = new byte[strLen];
-        System.arraycopy(data, startPos + lenOfStrLen + 1, rlpData, 0, strLen);
-        list.items.add(new TypeString(rlpData));
-        startPos += lenOfStrLen + strLen + 1;
-      }
-      else if (prefix >= OFFSET_SHORT_LIST && prefix <= OFFSET_LONG_LIST) {
-        final byte listLen = (byte) (prefix - OFFSET_SHORT_LIST);
-        final TypeList newLevelList = createList();
-        decode(data, startPos + 1, startPos + listLen + 1, newLevelList);
-        list.items.add(newLevelList);
-        startPos += 1 + listLen;
-      }
-      else if (prefix > OFFSET_LONG_LIST) {
-        final byte lenOfListLen = (byte) (prefix - OFFSET_LONG_LIST);
-        final int listLen = calcLength(lenOfListLen, data, startPos);
-        final TypeList newLevelList = createList();
-        decode(data, startPos + lenOfListLen + 1, startPos + lenOfListLen + listLen + 1, newLevelList);
-        list.items.add(newLevelList);
-        startPos += lenOfListLen + listLen + 1;
-      }
-    }
-  }
-
-  private static byte[] encode(final byte[] bytesValue, final int offset) {
-    if (bytesValue.length == 1
-      && offset == OFFSET_SHORT_STRING
-      && bytesValue[0] >= (byte) 0x00
-      && bytesValue[0] <= (byte) 0x7f) {
-      return bytesValue;
-    }
-    else if (bytesValue.length <= 55) {
-      final byte[] result = new byte[bytesValue.length + 1];
-      result[0] = (byte) (offset + bytesValue.length);
-      System.arraycopy(bytesValue, 0, result, 1, bytesValue.length);
-      return result;
+    catch (final IOException e) {
+      throw new Error(e);
     }
-    else {
-      final byte[] encodedStringLength = toMinimalByteArray(bytesValue.length);
-      final byte[] result = new byte[bytesValue.length + encodedStringLength.length + 1];
+  }
 
-      result[0] = (byte) ((offset + 0x37) + encodedStringLength.length);
-      System.arraycopy(encodedStringLength, 0, result, 1, encodedStringLength.length);
-      System.arraycopy(
-        bytesValue, 0, result, encodedStringLength.length + 1, bytesValue.length);
-      return result;
-    }
+  public static int getEncodedLength(final Type value) {
+    return measure(value, new Lengths());
+  }
 
+  private static int getHeaderLength(final int length) {
+    return length <= SHORT_LENGTH ? 1 : 1 + getLengthOfLength(length);
   }
 
-  public static byte[] encode(final Type value) {
+  private static int getLengthOfLength(final int length) {
+    return (Integer.SIZE - Integer.numberOfLeadingZeros(length) + 7) / 8;
+  }
+
+  private static boolean isSingleByte(final byte[] bytes) {
+    return bytes.length == 1 && (bytes[0] & 0xff) < OFFSET_SHORT_STRING;
+  }
+
+  /**
+   * @return Returns encoded length of the value, records payload length of each list in pre-order.
+   */
+  private static int measure(final Type value, final Lengths lengths) {
+    if (value instanceof Slice) {
+      return ((Slice) value).getEncodedLength();
+    }
     if (value instanceof TypeString) {
-      return encodeString((TypeString) value);
+      final byte[] bytes = ((TypeString) value).bytes;
+      return isSingleByte(bytes) ? 1 : getHeaderLength(bytes.length) + bytes.length;
     }
-    else {
-      return encodeList((TypeList) value);
+    final int index = lengths.reserve();
+    int length = 0;
+    for (final Type item : ((TypeList) value).items) {
+      length += measure(item, lengths);
     }
+    lengths.values[index] = length;
+    return getHeaderLength(length) + length;
   }
 
-  private static byte[] encodeList(final TypeList list) {
-    final List<Type> items = list.items;
-    if (items.isEmpty()) {
-      return encode(new byte[] {}, OFFSET_SHORT_LIST);
+  private static void put(final ByteBuffer dest, final Type value, final Lengths lengths) {
+    if (value instanceof Slice) {
+      final Slice slice = (Slice) value;
+      dest.put(slice.data, slice.encodedOffset, slice.getEncodedLength());
+      return;
     }
-    else {
-      byte[] result = new byte[0];
-      for (final Type entry : items) {
-        result = concat(result, encode(entry));
+    if (value instanceof TypeString) {
+      final byte[] bytes = ((TypeString) value).bytes;
+      if (!isSingleByte(bytes)) {
+        putHeader(dest, OFFSET_SHORT_STRING, bytes.length);
       }
-      return encode(result, OFFSET_SHORT_LIST);
+      dest.put(bytes);
+      return;
+    }
+    putHeader(dest, OFFSET_SHORT_LIST, lengths.next());
+    for (final Type item : ((TypeList) value).items) {
+      put(dest, item, lengths);
     }
   }
 
-  private static byte[] encodeString(final TypeString string) {
-    return encode(string.bytes, OFFSET_SHORT_STRING);
+  private static void putHeader(final ByteBuffer dest, final int offset, final int length) {
+    if (length <= SHORT_LENGTH) {
+      dest.put((byte) (offset + length));
+      return;
+    }
+    final int lengthOfLength = getLengthOfLength(length);
+    dest.put((byte) (offset + SHORT_LENGTH + lengthOfLength));
+    for (int shift = (lengthOfLength - 1) * 8; shift >= 0; shift -= 8) {
+      dest.put((byte) (length >>> shift));
+    }
   }
 
-  private static byte[] toByteArray(final int value) {
-    return new byte[] {
-      (byte) ((value >> 24) & 0xff),
-      (byte) ((value >> 16) & 0xff),
-      (byte) ((value >> 8) & 0xff),
-      (byte) (value & 0xff)
-    };
+  /**
+   * @return Returns view of the single item which spans the whole data.
+   */
+  public static Slice view(final byte[] encoded) {
+    return view(encoded, 0, encoded.length);
   }
 
-  private static byte[] toMinimalByteArray(final int value) {
+  /**
+   * @return Returns view of the single item which spans exactly length bytes from offset.
+   */
+  public static Slice view(final byte[] encoded, final int offset, final int length) {
+    if (offset < 0 || length < 1 || offset + length > encoded.length) {
+      throw new Error("RLP range " + offset + "+" + length + " is out of data of length " + encoded.length);
+    }
+    final Slice slice = new Slice(encoded, offset, offset + length);
+    if (slice.end != offset + length) {
+      throw new Error("RLP item ends at " + slice.end + " before end of data at " + (offset + length));
+    }
+    return slice;
+  }
 
-    final byte[] encoded = toByteArray(value);
-    for (int i = 0; i < encoded.length; i++) {
-      if (encoded[i] != 0) {
-        return Arrays.copyOfRange(encoded, i, encoded.length);
+  private static void write(final OutputStream dest, final Type value, final Lengths lengths) throws IOException {
+    if (value instanceof Slice) {
+      final Slice slice = (Slice) value;
+      dest.write(slice.data, slice.encodedOffset, slice.getEncodedLength());
+      return;
+    }
+    if (value instanceof TypeString) {
+      final byte[] bytes = ((TypeString) value).bytes;
+      if (!isSingleByte(bytes)) {
+        writeHeader(dest, OFFSET_SHORT_STRING, bytes.length);
       }
+      dest.write(bytes);
+      return;
+    }
+    writeHeader(dest, OFFSET_SHORT_LIST, lengths.next());
+    for (final Type item : ((TypeList) value).items) {
+      write(dest, item, lengths);
+    }
+  }
+
+  private static void writeHeader(final OutputStream dest, final int offset, final int length) throws IOException {
+    if (length <= SHORT_LENGTH) {
+      dest.write(offset + length);
+      return;
+    }
+    final int lengthOfLength = getLengthOfLength(length);
+    dest.write(offset + SHORT_LENGTH + lengthOfLength);
+    for (int shift = (lengthOfLength - 1) * 8; shift >= 0; shift -= 8) {
+      dest.write(length >>> shift);
     }
-    return new byte[] {};
   }
 
 }
@@ -89,6 +89,29 @@ public class Transaction {
   private Transaction() {
   }
 
+  /**
+   * @return Returns a new transaction with the same fields.
+   */
+  Transaction copy() {
+    final Transaction copy = new Transaction();
+    copy.blockHash = blockHash;
+    copy.blockNumber = blockNumber;
+    copy.from = from;
+    copy.gasLimit = gasLimit;
+    copy.gasPrice = gasPrice;
+    copy.hash = hash;
+    copy.input = input;
+    copy.nonce = nonce;
+    copy.to = to;
+    copy.transactionIndex = transactionIndex;
+    copy.data = data;
+    copy.value = value;
+    copy.v = v;
+    copy.r = r;
+    copy.s = s;
+    return copy;
+  }
+
   @Override
   public boolean equals(final Object obj) {
     if (this == obj) {
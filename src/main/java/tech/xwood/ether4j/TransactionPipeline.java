@@ -0,0 +1,378 @@
+package tech.xwood.ether4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends signed transactions at high rate. Submitted transactions are signed in parallel on a worker pool
+ * and sent by one sender thread in JSON-RPC batches of eth_sendRawTransaction, as many as are signed at that moment.
+ * Nonces of transactions without nonce are allocated by the client {@link NonceManager}.
+ * {@link #submit(Account, Transaction)} blocks while max pending transactions are in the pipeline.
+ * <p>
+ * The client is not closed together with the pipeline.
+ */
+public class TransactionPipeline implements AutoCloseable {
+
+  public static class Builder {
+
+    private final Client client;
+    private int signerThreads = Runtime.getRuntime().availableProcessors();
+    private int maxBatchSize = 100;
+    private int maxPending = 10_000;
+
+    private Builder(final Client client) {
+      this.client = client;
+    }
+
+    public TransactionPipeline build() {
+      return new TransactionPipeline(this);
+    }
+
+    /**
+     * @param maxBatchSize - max number of transactions sent in one request.
+     */
+    public Builder setMaxBatchSize(final int maxBatchSize) {
+      Utils.require(maxBatchSize > 0, "Max batch size must be positive");
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * @param maxPending - max number of submitted transactions not sent yet, submit blocks above it.
+     */
+    public Builder setMaxPending(final int maxPending) {
+      Utils.require(maxPending > 0, "Max pending must be positive");
+      this.maxPending = maxPending;
+      return this;
+    }
+
+    /**
+     * @param signerThreads - size of the signing worker pool, number of processors by default.
+     */
+    public Builder setSignerThreads(final int signerThreads) {
+      Utils.require(signerThreads > 0, "Signer threads must be positive");
+      this.signerThreads = signerThreads;
+      return this;
+    }
+  }
+
+  /**
+   * Statistics of one pipeline stage.
+   */
+  public static class Stage {
+
+    private final String name;
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong runCount = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+
+    private Stage(final String name) {
+      this.name = name;
+    }
+
+    /**
+     * @return Returns average time in milliseconds of one run: a signature or a batch request.
+     */
+    public double getAverageTime() {
+      final long runs = runCount.get();
+      return runs == 0 ? 0 : totalTime.get() / 1e6 / runs;
+    }
+
+    public long getCompletedCount() {
+      return completedCount.get();
+    }
+
+    public long getFailedCount() {
+      return failedCount.get();
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return Returns number of transactions waiting for this stage.
+     */
+    public int getQueuedCount() {
+      return queuedCount.get();
+    }
+
+    /**
+     * @return Returns number of runs: signatures or batch requests.
+     */
+    public long getRunCount() {
+      return runCount.get();
+    }
+
+    private void onRun(final long start) {
+      runCount.incrementAndGet();
+      totalTime.addAndGet(System.nanoTime() - start);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: queued %d, completed %d, failed %d, runs %d, avg %.3f ms",
+        name, getQueuedCount(), getCompletedCount(), getFailedCount(), getRunCount(), getAverageTime());
+    }
+  }
+
+  private static class Submission {
+
+    private final Account account;
+    private final Transaction transaction;
+    private final boolean managedNonce;
+    private final CompletableFuture<Quantity> txHash = new CompletableFuture<>();
+    private int attempt = 1;
+    private Quantity nonce;
+    private Quantity rawTx;
+
+    private Submission(final Account account, final Transaction transaction) {
+      this.account = account;
+      this.transaction = transaction.copy();
+      nonce = transaction.getNonce();
+      managedNonce = nonce == null;
+    }
+  }
+
+  public static Builder builder(final Client client) {
+    Utils.require(client != null, "Client is required");
+    return new Builder(client);
+  }
+
+  private static Error toError(final Throwable e) {
+    final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    return cause instanceof Error ? (Error) cause : new Error(cause);
+  }
+
+  private final Client client;
+  private final NonceManager nonceManager;
+  private final int maxBatchSize;
+  private final int maxPending;
+  private final Semaphore permits;
+  private final ExecutorService signers;
+  private final BlockingQueue<Submission> signed = new LinkedBlockingQueue<>();
+  private final Thread sender;
+  private final Stage signStage = new Stage("sign");
+  private final Stage sendStage = new Stage("send");
+  private volatile boolean closed;
+
+  private TransactionPipeline(final Builder builder) {
+
+    client = builder.client;
+    nonceManager = client.getNonceManager();
+    maxBatchSize = builder.maxBatchSize;
+    maxPending = builder.maxPending;
+    permits = new Semaphore(maxPending);
+    final AtomicInteger signerNumber = new AtomicInteger();
+    signers = Executors.newFixedThreadPool(builder.signerThreads, runnable -> {
+      final Thread thread = new Thread(runnable, "ether4j-signer-" + signerNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    sender = new Thread(this::send, "ether4j-sender");
+    sender.setDaemon(true);
+    sender.start();
+  }
+
+  /**
+   * Stops accepting transactions, waits until already submitted ones are sent.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    signers.shutdown();
+    try {
+      sender.join();
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void complete(final Submission submission, final Quantity txHash, final Error error) {
+
+    final Quantity address = submission.account.getAddress();
+    if (error == null) {
+      if (submission.managedNonce) {
+        nonceManager.confirm(address, submission.nonce);
+      }
+      else {
+        nonceManager.markUsed(address, submission.nonce);
+      }
+      sendStage.completedCount.incrementAndGet();
+      submission.txHash.complete(txHash);
+      return;
+    }
+    final boolean retry = submission.managedNonce && nonceManager.onError(address, submission.nonce, error);
+    if (NonceManager.isAlreadyKnown(error)) {
+      sendStage.completedCount.incrementAndGet();
+      submission.txHash.complete(Crypto.keccak256(submission.rawTx));
+      return;
+    }
+    sendStage.failedCount.incrementAndGet();
+    if (retry && submission.attempt < Client.MAX_NONCE_ATTEMPTS) {
+      submission.attempt++;
+      submission.nonce = null;
+      sign(submission);
+      return;
+    }
+    submission.txHash.completeExceptionally(error);
+  }
+
+  /**
+   * Fails the submission before signing: nonce sync failed or the pipeline is closed
+   * and the signers rejected the task, an allocated nonce is released by the caller.
+   */
+  private void fail(final Submission submission, final Error error) {
+    signStage.queuedCount.decrementAndGet();
+    signStage.failedCount.incrementAndGet();
+    submission.txHash.completeExceptionally(error);
+  }
+
+  /**
+   * @return Returns number of submitted transactions not completed yet.
+   */
+  public int getPendingCount() {
+    return maxPending - permits.availablePermits();
+  }
+
+  public Stage getSendStage() {
+    return sendStage;
+  }
+
+  public Stage getSignStage() {
+    return signStage;
+  }
+
+  private void send() {
+
+    final List<Submission> batch = new ArrayList<>(maxBatchSize);
+    while (!closed || !signers.isTerminated() || !signed.isEmpty()) {
+      try {
+        final Submission first = signed.poll(50, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        signed.drainTo(batch, maxBatchSize - 1);
+      }
+      catch (final InterruptedException e) {
+        break;
+      }
+      sendStage.queuedCount.addAndGet(-batch.size());
+      final Client.Batch request = client.createBatch(maxBatchSize);
+      for (final Submission submission : batch) {
+        request.add(Quantity.class, "eth_sendRawTransaction", submission.rawTx.toHex());
+      }
+      final long start = System.nanoTime();
+      Error error = null;
+      try {
+        request.execute();
+      }
+      catch (final RuntimeException e) {
+        error = toError(e);
+      }
+      sendStage.onRun(start);
+      for (int i = 0; i < batch.size(); i++) {
+        final Client.Batch.Call<?> call = request.getCalls().get(i);
+        if (error != null) {
+          complete(batch.get(i), null, error);
+        }
+        else {
+          complete(batch.get(i), call.isSuccess() ? (Quantity) call.get() : null, call.getError());
+        }
+      }
+      batch.clear();
+    }
+    final Error error = new Error("Transaction pipeline is closed");
+    for (Submission submission = signed.poll(); submission != null; submission = signed.poll()) {
+      submission.txHash.completeExceptionally(error);
+    }
+  }
+
+  private void sign(final Submission submission) {
+
+    signStage.queuedCount.incrementAndGet();
+    final CompletableFuture<Quantity> nonce = submission.managedNonce
+      ? nonceManager.allocate(submission.account.getAddress())
+      : CompletableFuture.completedFuture(submission.nonce);
+    nonce.thenAcceptAsync(value -> sign(submission, value), signers).whenComplete((ignored, e) -> {
+      if (e != null) {
+        if (submission.managedNonce && !nonce.isCompletedExceptionally()) {
+          nonceManager.release(submission.account.getAddress(), nonce.join());
+        }
+        fail(submission, toError(e));
+      }
+    });
+  }
+
+  private void sign(final Submission submission, final Quantity nonce) {
+
+    signStage.queuedCount.decrementAndGet();
+    final long start = System.nanoTime();
+    try {
+      submission.nonce = nonce;
+      final Account account = submission.account;
+      submission.rawTx = Crypto.createRawTransaction(account.getPrivateKey(), account.getPublicKey(),
+        submission.transaction.copy().setNonce(nonce));
+    }
+    catch (final RuntimeException e) {
+      signStage.failedCount.incrementAndGet();
+      if (submission.managedNonce) {
+        nonceManager.release(submission.account.getAddress(), nonce);
+        submission.nonce = null;
+      }
+      submission.txHash.completeExceptionally(toError(e));
+      return;
+    }
+    finally {
+      signStage.onRun(start);
+    }
+    signStage.completedCount.incrementAndGet();
+    sendStage.queuedCount.incrementAndGet();
+    signed.add(submission);
+  }
+
+  /**
+   * Queues the transaction for signing and sending, blocks while max pending transactions are in the pipeline.
+   * A transaction without nonce gets the next nonce of the account. The transaction is copied, later changes of it
+   * do not affect the submission.
+   *
+   * @return Returns future transaction hash, completed after the node accepted the transaction.
+   */
+  public CompletableFuture<Quantity> submit(final Account account, final Transaction transaction) {
+
+    if (closed) {
+      throw new Error("Transaction pipeline is closed");
+    }
+    try {
+      permits.acquire();
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new Error("Interrupted while waiting for pipeline capacity", e);
+    }
+    final Submission submission = new Submission(account, transaction);
+    submission.txHash.whenComplete((txHash, e) -> permits.release());
+    sign(submission);
+    return submission.txHash;
+  }
+
+  @Override
+  public String toString() {
+    return signStage + "; " + sendStage + "; pending " + getPendingCount();
+  }
+
+}
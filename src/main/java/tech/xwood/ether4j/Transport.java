@@ -0,0 +1,42 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Carries serialized JSON-RPC messages between {@link Client} and a node.
+ * Implementations must be thread safe, {@link Client} may send any number of requests concurrently.
+ * Built-in implementations are {@link HttpTransport}, {@link AsyncHttpTransport}, {@link WebSocketTransport},
+ * {@link IpcTransport}, {@link BatchingTransport} and {@link InMemoryTransport}.
+ */
+public interface Transport extends AutoCloseable {
+
+  @Override
+  void close();
+
+  /**
+   * @param request - JSON-RPC request object or batch array, every request object has an id.
+   * @return Returns the matching JSON-RPC response message, or a future failed with {@link Error} on transport failure.
+   */
+  CompletableFuture<byte[]> send(byte[] request);
+
+  /**
+   * Sends eth_subscribe request, the listener receives the result of every eth_subscription notification
+   * once the node responded with subscription id. Supported by persistent connections only.
+   *
+   * @return Returns eth_subscribe response message.
+   */
+  default CompletableFuture<byte[]> subscribe(final byte[] request, final Consumer<JsonNode> listener) {
+    final CompletableFuture<byte[]> future = new CompletableFuture<>();
+    future.completeExceptionally(new Error("Subscriptions require a WebSocket or IPC connection"));
+    return future;
+  }
+
+  /**
+   * Stops dispatching notifications of the subscription, called before eth_unsubscribe is sent.
+   */
+  default void unsubscribe(final String subscriptionId) {
+  }
+
+}
@@ -2,6 +2,8 @@ package tech.xwood.ether4j;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -48,6 +50,38 @@ public class Utils {
     return MAPPER.createObjectNode();
   }
 
+  /**
+   * Creates generator bound to the shared mapper, root values are written without separator.
+   */
+  public static JsonGenerator createJsonGenerator(final OutputStream outputStream) {
+    try {
+      final JsonGenerator generator = MAPPER.getFactory().createGenerator(outputStream);
+      generator.setRootValueSeparator(null);
+      return generator;
+    }
+    catch (final IOException e) {
+      throw new Error(e);
+    }
+  }
+
+  public static JsonParser createJsonParser(final byte[] json) {
+    try {
+      return MAPPER.getFactory().createParser(json);
+    }
+    catch (final IOException e) {
+      throw new Error(e);
+    }
+  }
+
+  public static <T> T fromJson(final byte[] json, final Class<T> targetType) {
+    try {
+      return MAPPER.readValue(json, targetType);
+    }
+    catch (final IOException e) {
+      throw new Error(e);
+    }
+  }
+
   public static <T> T fromJson(final InputStream jsonInputStream, final Class<T> targetType) {
     try {
       return MAPPER.readValue(jsonInputStream, targetType);
@@ -57,6 +91,18 @@ public class Utils {
     }
   }
 
+  /**
+   * Binds the value at the current token of the parser, the parser is left at the last token of the value.
+   */
+  public static <T> T fromJson(final JsonParser parser, final Class<T> targetType) {
+    try {
+      return MAPPER.readValue(parser, targetType);
+    }
+    catch (final IOException e) {
+      throw new Error(e);
+    }
+  }
+
   public static <T> T fromJson(final JsonNode jsonNode, final Class<T> targetType) {
     return MAPPER.convertValue(jsonNode, targetType);
   }
@@ -112,4 +158,8 @@ public class Utils {
     }
   }
 
+  public static JsonNode toJsonNode(final Object value) {
+    return MAPPER.valueToTree(value);
+  }
+
 }
@@ -0,0 +1,375 @@
+package tech.xwood.ether4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Minimal RFC 6455 WebSocket client, enough for JSON-RPC: text and binary messages,
+ * fragmentation, ping/pong and close. Messages are read on a daemon thread.
+ *
+ * @see https://tools.ietf.org/html/rfc6455
+ */
+class WebSocket implements AutoCloseable {
+
+  static class Frame {
+
+    final boolean fin;
+    final int opcode;
+    final byte[] payload;
+
+    Frame(final boolean fin, final int opcode, final byte[] payload) {
+      this.fin = fin;
+      this.opcode = opcode;
+      this.payload = payload;
+    }
+  }
+
+  interface Listener {
+
+    void onClose(Throwable cause);
+
+    void onMessage(byte[] message);
+  }
+
+  static final int OPCODE_CONTINUATION = 0x0;
+  static final int OPCODE_TEXT = 0x1;
+  static final int OPCODE_BINARY = 0x2;
+  static final int OPCODE_CLOSE = 0x8;
+  static final int OPCODE_PING = 0x9;
+  static final int OPCODE_PONG = 0xA;
+
+  private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  static String acceptKey(final String key) {
+    try {
+      final MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+      return Base64.getEncoder().encodeToString(sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII)));
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new Error(e);
+    }
+  }
+
+  /**
+   * @param connectTimeout - max time to establish the connection and to wait for each read of the TLS and upgrade handshakes,
+   *          zero means infinite. Once connected, reads wait for messages without timeout.
+   * @param maxMessageSize - max size of a received message in bytes including all its fragments,
+   *          a larger message closes the connection.
+   */
+  static WebSocket connect(final URI uri, final int connectTimeout, final int maxMessageSize, final Listener listener) {
+    return connect(uri, connectTimeout, maxMessageSize, (SSLSocketFactory) SSLSocketFactory.getDefault(), listener);
+  }
+
+  static WebSocket connect(
+    final URI uri,
+    final int connectTimeout,
+    final int maxMessageSize,
+    final SSLSocketFactory sslSocketFactory,
+    final Listener listener) {
+
+    final boolean secure = "wss".equalsIgnoreCase(uri.getScheme());
+    final int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+    Socket socket = null;
+    try {
+      socket = new Socket();
+      socket.setTcpNoDelay(true);
+      socket.connect(new InetSocketAddress(uri.getHost(), port), connectTimeout);
+      socket.setSoTimeout(connectTimeout);
+      if (secure) {
+        socket = startTls(sslSocketFactory, socket, uri.getHost(), port);
+      }
+      final WebSocket webSocket = new WebSocket(socket, maxMessageSize, listener);
+      webSocket.handshake(uri, port);
+      socket.setSoTimeout(0);
+      webSocket.reader.start();
+      return webSocket;
+    }
+    catch (final IOException | RuntimeException e) {
+      closeQuietly(socket);
+      throw e instanceof Error ? (Error) e : new Error("WebSocket connect to " + uri + " failed", e);
+    }
+  }
+
+  private static void closeQuietly(final Socket socket) {
+    if (socket != null) {
+      try {
+        socket.close();
+      }
+      catch (final IOException e) {
+      }
+    }
+  }
+
+  private static String readLine(final InputStream in) throws IOException {
+    final ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+    int b;
+    while ((b = in.read()) != '\n') {
+      if (b < 0) {
+        throw new EOFException("Unexpected end of WebSocket handshake");
+      }
+      if (b != '\r') {
+        line.write(b);
+      }
+    }
+    return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+  private static void readFully(final InputStream in, final byte[] dest) throws IOException {
+    int offset = 0;
+    while (offset < dest.length) {
+      final int read = in.read(dest, offset, dest.length - offset);
+      if (read < 0) {
+        throw new EOFException("Unexpected end of WebSocket stream");
+      }
+      offset += read;
+    }
+  }
+
+  /**
+   * Reads one frame, masked payload is unmasked.
+   */
+  static Frame readFrame(final InputStream in) throws IOException {
+    return readFrame(in, Integer.MAX_VALUE - 8);
+  }
+
+  /**
+   * Reads one frame, masked payload is unmasked.
+   *
+   * @param maxLength - max payload length, a longer frame is rejected before its payload is read.
+   */
+  static Frame readFrame(final InputStream in, final int maxLength) throws IOException {
+
+    final int b0 = in.read();
+    final int b1 = in.read();
+    if (b0 < 0 || b1 < 0) {
+      throw new EOFException("Unexpected end of WebSocket stream");
+    }
+    long length = b1 & 0x7f;
+    if (length == 126) {
+      final byte[] ext = new byte[2];
+      readFully(in, ext);
+      length = ((ext[0] & 0xff) << 8) | (ext[1] & 0xff);
+    }
+    else if (length == 127) {
+      final byte[] ext = new byte[8];
+      readFully(in, ext);
+      length = 0;
+      for (final byte b : ext) {
+        length = (length << 8) | (b & 0xff);
+      }
+    }
+    if (length < 0) {
+      throw new IOException("Invalid WebSocket frame length");
+    }
+    if (length > maxLength) {
+      throw new IOException("WebSocket message is too large");
+    }
+    final byte[] mask = (b1 & 0x80) != 0 ? new byte[4] : null;
+    if (mask != null) {
+      readFully(in, mask);
+    }
+    final byte[] payload = new byte[(int) length];
+    readFully(in, payload);
+    if (mask != null) {
+      for (int i = 0; i < payload.length; i++) {
+        payload[i] ^= mask[i & 3];
+      }
+    }
+    return new Frame((b0 & 0x80) != 0, b0 & 0x0f, payload);
+  }
+
+  /**
+   * Layers TLS over the connected socket. The host name is sent as SNI and verified against the server certificate
+   * like HTTPS does, the handshake fails on mismatch.
+   */
+  private static SSLSocket startTls(final SSLSocketFactory factory, final Socket socket, final String host, final int port) throws IOException {
+    final SSLSocket sslSocket = (SSLSocket) factory.createSocket(socket, host, port, true);
+    final SSLParameters parameters = sslSocket.getSSLParameters();
+    parameters.setEndpointIdentificationAlgorithm("HTTPS");
+    sslSocket.setSSLParameters(parameters);
+    sslSocket.startHandshake();
+    return sslSocket;
+  }
+
+  /**
+   * Writes one final frame, clients must mask every frame, servers must not.
+   */
+  static void writeFrame(final OutputStream out, final int opcode, final byte[] payload, final boolean masked) throws IOException {
+
+    final int length = payload.length;
+    out.write(0x80 | opcode);
+    final int maskBit = masked ? 0x80 : 0;
+    if (length < 126) {
+      out.write(maskBit | length);
+    }
+    else if (length <= 0xffff) {
+      out.write(maskBit | 126);
+      out.write(length >>> 8);
+      out.write(length);
+    }
+    else {
+      out.write(maskBit | 127);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        out.write((int) ((long) length >>> shift));
+      }
+    }
+    if (masked) {
+      final byte[] mask = new byte[4];
+      ThreadLocalRandom.current().nextBytes(mask);
+      out.write(mask);
+      final byte[] maskedPayload = new byte[length];
+      for (int i = 0; i < length; i++) {
+        maskedPayload[i] = (byte) (payload[i] ^ mask[i & 3]);
+      }
+      out.write(maskedPayload);
+    }
+    else {
+      out.write(payload);
+    }
+    out.flush();
+  }
+
+  private final Socket socket;
+  private final int maxMessageSize;
+  private final InputStream in;
+  private final OutputStream out;
+  private final Listener listener;
+  private final Thread reader;
+  private volatile boolean closing;
+
+  private WebSocket(final Socket socket, final int maxMessageSize, final Listener listener) throws IOException {
+    this.socket = socket;
+    this.maxMessageSize = maxMessageSize;
+    this.listener = listener;
+    in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+    out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+    reader = new Thread(this::read, "ether4j-websocket-" + socket.getRemoteSocketAddress());
+    reader.setDaemon(true);
+  }
+
+  @Override
+  public void close() {
+    if (closing) {
+      return;
+    }
+    closing = true;
+    try {
+      final byte[] normalClosure = { 0x03, (byte) 0xe8 };
+      write(OPCODE_CLOSE, normalClosure);
+    }
+    catch (final IOException e) {
+    }
+    closeQuietly(socket);
+  }
+
+  private void handshake(final URI uri, final int port) throws IOException {
+
+    final byte[] nonce = new byte[16];
+    ThreadLocalRandom.current().nextBytes(nonce);
+    final String key = Base64.getEncoder().encodeToString(nonce);
+    final String path = (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+      + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+
+    final String request = "GET " + path + " HTTP/1.1\r\n"
+      + "Host: " + uri.getHost() + ":" + port + "\r\n"
+      + "Upgrade: websocket\r\n"
+      + "Connection: Upgrade\r\n"
+      + "Sec-WebSocket-Key: " + key + "\r\n"
+      + "Sec-WebSocket-Version: 13\r\n\r\n";
+    out.write(request.getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+
+    final String statusLine = readLine(in);
+    String accept = null;
+    for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+      final int colon = line.indexOf(':');
+      if (colon > 0 && line.substring(0, colon).trim().toLowerCase(Locale.ROOT).equals("sec-websocket-accept")) {
+        accept = line.substring(colon + 1).trim();
+      }
+    }
+    if (!statusLine.matches("HTTP/1\\.1 101( .*)?")) {
+      throw new Error("WebSocket upgrade rejected: " + statusLine);
+    }
+    if (!acceptKey(key).equals(accept)) {
+      throw new Error("WebSocket upgrade rejected: wrong Sec-WebSocket-Accept");
+    }
+  }
+
+  private void read() {
+
+    Throwable cause = null;
+    try {
+      final ByteArrayOutputStream message = new ByteArrayOutputStream(BUFFER_SIZE);
+      while (!closing) {
+        final Frame frame = readFrame(in, maxMessageSize - message.size());
+        switch (frame.opcode) {
+          case OPCODE_TEXT:
+          case OPCODE_BINARY:
+          case OPCODE_CONTINUATION:
+            if (frame.fin && message.size() == 0) {
+              listener.onMessage(frame.payload);
+            }
+            else {
+              message.write(frame.payload);
+              if (frame.fin) {
+                listener.onMessage(message.toByteArray());
+                message.reset();
+              }
+            }
+            break;
+          case OPCODE_PING:
+            write(OPCODE_PONG, frame.payload);
+            break;
+          case OPCODE_CLOSE:
+            close();
+            break;
+          default:
+            break;
+        }
+      }
+    }
+    catch (final IOException | RuntimeException e) {
+      cause = closing ? null : e;
+    }
+    finally {
+      closing = true;
+      closeQuietly(socket);
+      listener.onClose(cause);
+    }
+  }
+
+  /**
+   * Sends text message.
+   */
+  void send(final byte[] message) throws IOException {
+    if (closing) {
+      throw new IOException("WebSocket is closed");
+    }
+    write(OPCODE_TEXT, message);
+  }
+
+  private void write(final int opcode, final byte[] payload) throws IOException {
+    synchronized (out) {
+      writeFrame(out, opcode, payload, true);
+    }
+  }
+
+}
@@ -0,0 +1,58 @@
+package tech.xwood.ether4j;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * JSON-RPC over WebSocket, supports eth_subscribe push notifications.
+ */
+public class WebSocketTransport extends DuplexTransport {
+
+  /**
+   * @param uri - ws or wss endpoint.
+   * @param connectTimeout - max time in milliseconds to establish a connection, zero means infinite.
+   */
+  public static WebSocketTransport connect(final URI uri, final int connectTimeout) {
+    return connect(uri, connectTimeout, DEFAULT_MAX_MESSAGE_SIZE);
+  }
+
+  /**
+   * @param uri - ws or wss endpoint.
+   * @param connectTimeout - max time in milliseconds to establish a connection, zero means infinite.
+   * @param maxMessageSize - max size in bytes of a received message including all its fragments,
+   *          a larger message closes the connection and fails pending requests.
+   */
+  public static WebSocketTransport connect(final URI uri, final int connectTimeout, final int maxMessageSize) {
+    Utils.require(maxMessageSize > 0, "Max message size must be positive");
+    final WebSocketTransport transport = new WebSocketTransport();
+    transport.webSocket = WebSocket.connect(uri, connectTimeout, maxMessageSize, new WebSocket.Listener() {
+
+      @Override
+      public void onClose(final Throwable cause) {
+        transport.onClose(cause);
+      }
+
+      @Override
+      public void onMessage(final byte[] message) {
+        transport.onMessage(message);
+      }
+    });
+    return transport;
+  }
+
+  private volatile WebSocket webSocket;
+
+  private WebSocketTransport() {
+  }
+
+  @Override
+  public void close() {
+    webSocket.close();
+  }
+
+  @Override
+  protected void write(final byte[] message) throws IOException {
+    webSocket.send(message);
+  }
+
+}
@@ -1,43 +1,130 @@
 package tech.xwood.ether4j.abi;
 
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import tech.xwood.ether4j.Error;
+import tech.xwood.ether4j.Hex;
+
 public class Abi {
 
   static final int MAX_BIT_LENGTH = 256;
   static final int MAX_BYTE_LENGTH = MAX_BIT_LENGTH / 8;
-  static final int MAX_BYTE_LENGTH_FOR_HEX_STRING = MAX_BYTE_LENGTH << 1;
 
-  static void hexTo(final StringBuilder dest, final byte[] input) {
-    for (final byte element : input) {
-      dest.append(String.format("%02x", element & 0xFF));
+  private static final byte[] ZEROS = new byte[MAX_BYTE_LENGTH];
+  private static final byte[] ONES = new byte[MAX_BYTE_LENGTH];
+
+  static {
+    Arrays.fill(ONES, (byte) 0xff);
+  }
+
+  static ByteBuffer fromHex(final String hex) {
+    return ByteBuffer.wrap(Hex.decode(hex));
+  }
+
+  /**
+   * Copies bytes from the index of the buffer without changing its position.
+   */
+  static void get(final ByteBuffer raw, final int index, final byte[] dest) {
+    if (raw.hasArray()) {
+      System.arraycopy(raw.array(), raw.arrayOffset() + index, dest, 0, dest.length);
     }
+    else {
+      final ByteBuffer view = raw.duplicate();
+      view.position(index);
+      view.get(dest);
+    }
+  }
+
+  /**
+   * @return Returns the word at the index as int, e.g. a length or an offset.
+   * @throws Error if the word is out of the data or its value is negative or larger than the data.
+   */
+  static int getInt(final ByteBuffer raw, final int index) {
+    if (index < 0 || index > raw.limit() - MAX_BYTE_LENGTH) {
+      throw new Error("ABI data is too short, no word at " + index);
+    }
+    final int word = raw.getInt(index + MAX_BYTE_LENGTH - Integer.BYTES);
+    final int value = raw.order() == ByteOrder.BIG_ENDIAN ? word : Integer.reverseBytes(word);
+    if (value < 0 || value > raw.limit() || !isZero(raw, index, MAX_BYTE_LENGTH - Integer.BYTES)) {
+      throw new Error("ABI length or offset at " + index + " is out of the data");
+    }
+    return value;
+  }
+
+  private static long getLong(final ByteBuffer raw, final int index) {
+    final long value = raw.getLong(index);
+    return raw.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+  }
+
+  /**
+   * @return Returns length rounded up to whole words.
+   */
+  static int getPaddedLength(final int length) {
+    return (length + MAX_BYTE_LENGTH - 1) / MAX_BYTE_LENGTH * MAX_BYTE_LENGTH;
   }
 
-  static byte[] hexToBytes(final String hex) {
+  /**
+   * @return Returns the low byte length bytes of the word at the index as unsigned value.
+   */
+  static BigInteger getUnsigned(final ByteBuffer raw, final int index, final int byteLength) {
 
-    final int len = hex.length();
-    if (len == 0) {
-      return new byte[] {};
+    final int low = index + MAX_BYTE_LENGTH - Long.BYTES;
+    if (byteLength < Long.BYTES) {
+      return BigInteger.valueOf(getLong(raw, low) & ((1L << (byteLength << 3)) - 1));
     }
-    byte[] data;
-    int startIdx;
-    if (len % 2 != 0) {
-      data = new byte[(len / 2) + 1];
-      data[0] = (byte) Character.digit(hex.charAt(0), 16);
-      startIdx = 1;
+    final long value = getLong(raw, low);
+    if (value >= 0 && isZero(raw, index + MAX_BYTE_LENGTH - byteLength, byteLength - Long.BYTES)) {
+      return BigInteger.valueOf(value);
     }
-    else {
-      data = new byte[len / 2];
-      startIdx = 0;
+    final byte[] bytes = new byte[byteLength];
+    get(raw, index + MAX_BYTE_LENGTH - byteLength, bytes);
+    return new BigInteger(1, bytes);
+  }
+
+  private static boolean isZero(final ByteBuffer raw, final int index, final int length) {
+    for (int i = index; i < index + length; i++) {
+      if (raw.get(i) != 0) {
+        return false;
+      }
     }
-    for (int i = startIdx; i < len; i += 2) {
-      data[(i + 1) / 2] = (byte) ((Character.digit(hex.charAt(i), 16) << 4) + Character.digit(hex.charAt(i + 1), 16));
+    return true;
+  }
+
+  private static void putLong(final ByteBuffer dest, final long value) {
+    dest.putLong(dest.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value));
+  }
+
+  /**
+   * Writes zeros padding data of the length to whole words.
+   */
+  static void putPadding(final ByteBuffer dest, final int length) {
+    dest.put(ZEROS, 0, getPaddedLength(length) - length);
+  }
+
+  /**
+   * Writes the value as two's complement word.
+   */
+  static void putWord(final ByteBuffer dest, final BigInteger value) {
+
+    final byte[] fill = value.signum() < 0 ? ONES : ZEROS;
+    if (value.bitLength() < Long.SIZE) {
+      dest.put(fill, 0, MAX_BYTE_LENGTH - Long.BYTES);
+      putLong(dest, value.longValue());
+      return;
     }
-    return data;
+    final byte[] bytes = value.toByteArray();
+    final int length = Math.min(bytes.length, MAX_BYTE_LENGTH);
+    dest.put(fill, 0, MAX_BYTE_LENGTH - length);
+    dest.put(bytes, bytes.length - length, length);
   }
 
-  static String toHex(final byte[] input) {
-    final StringBuilder dest = new StringBuilder();
-    hexTo(dest, input);
-    return dest.toString();
+  /**
+   * Writes the non negative value as word, e.g. a length or an offset.
+   */
+  static void putWord(final ByteBuffer dest, final long value) {
+    dest.put(ZEROS, 0, MAX_BYTE_LENGTH - Long.BYTES);
+    putLong(dest, value);
   }
-}
+}
\ No newline at end of file
@@ -1,7 +1,9 @@
 package tech.xwood.ether4j.abi;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Objects;
+import tech.xwood.ether4j.Hex;
 import tech.xwood.ether4j.Quantity;
 
 public class AbiAddress extends AbiValue {
@@ -18,6 +20,11 @@ public class AbiAddress extends AbiValue {
       super("address");
     }
 
+    @Override
+    public AbiAddress decode(final ByteBuffer raw, final int offset) {
+      return new AbiAddress(Abi.getUnsigned(raw, offset, 20));
+    }
+
     @Override
     public AbiAddress decode(final String raw) {
       return decode(raw, 0);
@@ -25,7 +32,7 @@ public class AbiAddress extends AbiValue {
 
     @Override
     public AbiAddress decode(final String raw, final int offset) {
-      return new AbiAddress(AbiUint.Type.decode(raw, offset, 160));
+      return decode(Abi.fromHex(raw), offset >> 1);
     }
 
     public AbiAddress valueOf(final BigInteger value) {
@@ -37,7 +44,7 @@ public class AbiAddress extends AbiValue {
     }
 
     public AbiAddress valueOf(final String hexWithoutPrefix) {
-      return new AbiAddress(new BigInteger(hexWithoutPrefix, 16));
+      return new AbiAddress(Hex.decodeNumber(hexWithoutPrefix, 0, hexWithoutPrefix.length()));
     }
 
   }
@@ -66,8 +73,8 @@ public class AbiAddress extends AbiValue {
   }
 
   @Override
-  public void encodeTo(final StringBuilder dest) {
-    AbiUint.encodeTo(dest, value);
+  public void encodeTo(final ByteBuffer dest) {
+    Abi.putWord(dest, value);
   }
 
   @Override
@@ -75,6 +82,11 @@ public class AbiAddress extends AbiValue {
     return Objects.equals(value, ((AbiAddress) other).value);
   }
 
+  @Override
+  public int getEncodedLength() {
+    return Abi.MAX_BYTE_LENGTH;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(value);
@@ -86,7 +98,7 @@ public class AbiAddress extends AbiValue {
 
   @Override
   public String toString() {
-    return "0x" + value.toString(16);
+    return Hex.encode(value, 0, true);
   }
 
 }
\ No newline at end of file
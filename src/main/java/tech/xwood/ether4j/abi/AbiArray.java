@@ -1,5 +1,6 @@
 package tech.xwood.ether4j.abi;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import tech.xwood.ether4j.Utils;
 
@@ -7,16 +8,16 @@ public class AbiArray extends AbiValue {
 
   public static class Type extends AbiType {
 
-    static int getValueLength(final String input, final int offset, final AbiType valueType) {
+    static int getValueLength(final ByteBuffer input, final int offset, final AbiType valueType) {
 
-      if (input.length() == offset) {
+      if (input.limit() == offset) {
         return 0;
       }
       else if (valueType instanceof AbiString.Type || valueType instanceof AbiBytesDynamic.Type) {
-        return (AbiUint.Type.decode(input, offset, 256).intValue() / Abi.MAX_BYTE_LENGTH) + 2;
+        return Abi.MAX_BYTE_LENGTH + Abi.getPaddedLength(Abi.getInt(input, offset));
       }
       else {
-        return 1;
+        return Abi.MAX_BYTE_LENGTH;
       }
     }
 
@@ -35,23 +36,28 @@ public class AbiArray extends AbiValue {
     }
 
     @Override
-    public AbiArray decode(final String raw) {
-      return decode(raw, 0);
-    }
-
-    @Override
-    public AbiArray decode(final String raw, final int offset) {
+    public AbiArray decode(final ByteBuffer raw, final int offset) {
 
       Utils.require(length > 0, "Zero length fixed array is invalid type");
       final AbiValue[] values = new AbiValue[length];
       int currOffset = offset;
       for (int i = 0; i < length; i++) {
         values[i] = valueType.decode(raw, currOffset);
-        currOffset += getValueLength(raw, currOffset, valueType) * Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING;
+        currOffset += getValueLength(raw, currOffset, valueType);
       }
       return new AbiArray(values, this);
     }
 
+    @Override
+    public AbiArray decode(final String raw) {
+      return decode(raw, 0);
+    }
+
+    @Override
+    public AbiArray decode(final String raw, final int offset) {
+      return decode(Abi.fromHex(raw), offset >> 1);
+    }
+
     public AbiArray valueOf(final AbiValue... values) {
       return new AbiArray(values, this);
     }
@@ -71,7 +77,7 @@ public class AbiArray extends AbiValue {
   }
 
   @Override
-  public void encodeTo(final StringBuilder dest) {
+  public void encodeTo(final ByteBuffer dest) {
     for (final AbiValue value : values) {
       value.encodeTo(dest);
     }
@@ -82,6 +88,15 @@ public class AbiArray extends AbiValue {
     return Arrays.equals(values, ((AbiArray) other).values);
   }
 
+  @Override
+  public int getEncodedLength() {
+    int length = 0;
+    for (final AbiValue value : values) {
+      length += value.getEncodedLength();
+    }
+    return length;
+  }
+
   @Override
   public int hashCode() {
     return Arrays.hashCode(values);
@@ -1,6 +1,6 @@
 package tech.xwood.ether4j.abi;
 
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public class AbiArrayDynamic extends AbiValue {
@@ -19,25 +19,30 @@ public class AbiArrayDynamic extends AbiValue {
     }
 
     @Override
-    public AbiArrayDynamic decode(final String raw) {
-      return decode(raw, 0);
-    }
-
-    @Override
-    public AbiArrayDynamic decode(final String raw, final int offset) {
-      final int length = AbiUint.Type.decode(raw, offset, 256).intValue();
+    public AbiArrayDynamic decode(final ByteBuffer raw, final int offset) {
+      final int length = Abi.getInt(raw, offset);
       if (length == 0) {
         return new AbiArrayDynamic(new AbiValue[0], this);
       }
       final AbiValue[] values = new AbiValue[length];
-      int currOffset = offset + Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING;
+      int currOffset = offset + Abi.MAX_BYTE_LENGTH;
       for (int i = 0; i < length; i++) {
         values[i] = valueType.decode(raw, currOffset);
-        currOffset += AbiArray.Type.getValueLength(raw, currOffset, valueType) * Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING;
+        currOffset += AbiArray.Type.getValueLength(raw, currOffset, valueType);
       }
       return new AbiArrayDynamic(values, this);
     }
 
+    @Override
+    public AbiArrayDynamic decode(final String raw) {
+      return decode(raw, 0);
+    }
+
+    @Override
+    public AbiArrayDynamic decode(final String raw, final int offset) {
+      return decode(Abi.fromHex(raw), offset >> 1);
+    }
+
     public AbiArrayDynamic valueOf(final AbiValue... values) {
       return new AbiArrayDynamic(values, this);
     }
@@ -60,8 +65,8 @@ public class AbiArrayDynamic extends AbiValue {
   }
 
   @Override
-  public void encodeTo(final StringBuilder dest) {
-    AbiUint.encodeTo(dest, BigInteger.valueOf(values.length));
+  public void encodeTo(final ByteBuffer dest) {
+    Abi.putWord(dest, values.length);
     for (final AbiValue value : values) {
       value.encodeTo(dest);
     }
@@ -72,6 +77,15 @@ public class AbiArrayDynamic extends AbiValue {
     return Arrays.equals(values, ((AbiArrayDynamic) other).values);
   }
 
+  @Override
+  public int getEncodedLength() {
+    int length = Abi.MAX_BYTE_LENGTH;
+    for (final AbiValue value : values) {
+      length += value.getEncodedLength();
+    }
+    return length;
+  }
+
   @Override
   public int hashCode() {
     return Arrays.hashCode(values);
@@ -1,6 +1,7 @@
 package tech.xwood.ether4j.abi;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public class AbiBool extends AbiValue {
@@ -17,6 +18,11 @@ public class AbiBool extends AbiValue {
       super("bool");
     }
 
+    @Override
+    public AbiBool decode(final ByteBuffer raw, final int offset) {
+      return new AbiBool(Abi.getUnsigned(raw, offset, Abi.MAX_BYTE_LENGTH).equals(BigInteger.ONE));
+    }
+
     @Override
     public AbiBool decode(final String raw) {
       return decode(raw, 0);
@@ -24,9 +30,7 @@ public class AbiBool extends AbiValue {
 
     @Override
     public AbiBool decode(final String raw, final int offset) {
-      final String input = raw.substring(offset, offset + Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING);
-      final boolean value = new BigInteger(input, 16).equals(BigInteger.ONE);
-      return new AbiBool(value);
+      return decode(Abi.fromHex(raw), offset >> 1);
     }
 
     public AbiBool valueOf(final boolean value) {
@@ -47,10 +51,8 @@ public class AbiBool extends AbiValue {
   }
 
   @Override
-  public void encodeTo(final StringBuilder dest) {
-    final byte[] rawValue = new byte[Abi.MAX_BYTE_LENGTH];
-    rawValue[rawValue.length - 1] = value ? (byte) 1 : (byte) 0;
-    Abi.hexTo(dest, rawValue);
+  public void encodeTo(final ByteBuffer dest) {
+    Abi.putWord(dest, value ? 1 : 0);
   }
 
   @Override
@@ -58,6 +60,11 @@ public class AbiBool extends AbiValue {
     return Objects.equals(value, ((AbiBool) other).value);
   }
 
+  @Override
+  public int getEncodedLength() {
+    return Abi.MAX_BYTE_LENGTH;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(value);
@@ -1,5 +1,6 @@
 package tech.xwood.ether4j.abi;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -29,6 +30,13 @@ public class AbiBytes extends AbiValue {
       this.byteSize = byteSize;
     }
 
+    @Override
+    public AbiBytes decode(final ByteBuffer raw, final int offset) {
+      final byte[] value = new byte[byteSize];
+      Abi.get(raw, offset, value);
+      return new AbiBytes(value, this);
+    }
+
     @Override
     public AbiBytes decode(final String raw) {
       return decode(raw, 0);
@@ -36,10 +44,7 @@ public class AbiBytes extends AbiValue {
 
     @Override
     public AbiBytes decode(final String raw, final int offset) {
-      final int hexStringLength = byteSize << 1;
-      final String input = raw.substring(offset, hexStringLength);
-      final byte[] inputBytes = Abi.hexToBytes(input);
-      return new AbiBytes(inputBytes, this);
+      return decode(Abi.fromHex(raw), offset >> 1);
     }
 
     public AbiBytes valueOf(final byte[] value) {
@@ -48,19 +53,6 @@ public class AbiBytes extends AbiValue {
 
   }
 
-  static byte[] encodeBytes(final byte[] data) {
-
-    final int length = data.length;
-    final int mod = length % Abi.MAX_BYTE_LENGTH;
-    if (mod == 0) {
-      return data;
-    }
-    final int padding = Abi.MAX_BYTE_LENGTH - mod;
-    final byte[] dest = new byte[length + padding];
-    System.arraycopy(data, 0, dest, 0, length);
-    return dest;
-  }
-
   public static AbiBytes of(final byte[] value) {
     return Type.of(value.length).valueOf(value);
   }
@@ -74,8 +66,9 @@ public class AbiBytes extends AbiValue {
   }
 
   @Override
-  public void encodeTo(final StringBuilder dest) {
-    Abi.hexTo(dest, encodeBytes(value));
+  public void encodeTo(final ByteBuffer dest) {
+    dest.put(value);
+    Abi.putPadding(dest, value.length);
   }
 
   @Override
@@ -83,6 +76,11 @@ public class AbiBytes extends AbiValue {
     return Arrays.equals(value, ((AbiBytes) other).value);
   }
 
+  @Override
+  public int getEncodedLength() {
+    return Abi.getPaddedLength(value.length);
+  }
+
   @Override
   public int hashCode() {
     return Arrays.hashCode(value);
@@ -1,7 +1,8 @@
 package tech.xwood.ether4j.abi;
 
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import tech.xwood.ether4j.Error;
 
 public class AbiBytesDynamic extends AbiValue {
 
@@ -9,14 +10,14 @@ public class AbiBytesDynamic extends AbiValue {
 
     private static final AbiBytesDynamic.Type INSTANCE = new Type();
 
-    static byte[] decodeBytes(final String raw, final int offset) {
-
-      final int encodedLength = AbiUint.Type.decode(raw, offset, 256).intValue();
-      final int hexStringEncodedLength = encodedLength << 1;
-      final int valueOffset = offset + Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING;
-      final String data = raw.substring(valueOffset, valueOffset + hexStringEncodedLength);
-      return Abi.hexToBytes(data);
-
+    static byte[] decodeBytes(final ByteBuffer raw, final int offset) {
+      final int length = Abi.getInt(raw, offset);
+      if (length > raw.limit() - offset - Abi.MAX_BYTE_LENGTH) {
+        throw new Error("ABI bytes at " + offset + " are out of the data");
+      }
+      final byte[] bytes = new byte[length];
+      Abi.get(raw, offset + Abi.MAX_BYTE_LENGTH, bytes);
+      return bytes;
     }
 
     public static AbiBytesDynamic.Type get() {
@@ -27,6 +28,11 @@ public class AbiBytesDynamic extends AbiValue {
       super("bytes");
     }
 
+    @Override
+    public AbiBytesDynamic decode(final ByteBuffer raw, final int offset) {
+      return new AbiBytesDynamic(decodeBytes(raw, offset));
+    }
+
     @Override
     public AbiBytesDynamic decode(final String raw) {
       return decode(raw, 0);
@@ -34,8 +40,7 @@ public class AbiBytesDynamic extends AbiValue {
 
     @Override
     public AbiBytesDynamic decode(final String raw, final int offset) {
-      final byte[] bytes = decodeBytes(raw, offset);
-      return new AbiBytesDynamic(bytes);
+      return decode(Abi.fromHex(raw), offset >> 1);
     }
 
     public AbiBytesDynamic valueOf(final byte[] value) {
@@ -44,9 +49,14 @@ public class AbiBytesDynamic extends AbiValue {
 
   }
 
-  static void encodeBytesTo(final StringBuilder dest, final byte[] value) {
-    AbiUint.encodeTo(dest, BigInteger.valueOf(value.length));
-    Abi.hexTo(dest, AbiBytes.encodeBytes(value));
+  static void encodeBytesTo(final ByteBuffer dest, final byte[] value) {
+    Abi.putWord(dest, value.length);
+    dest.put(value);
+    Abi.putPadding(dest, value.length);
+  }
+
+  static int getEncodedLength(final byte[] value) {
+    return Abi.MAX_BYTE_LENGTH + Abi.getPaddedLength(value.length);
   }
 
   public static AbiBytesDynamic of(final byte[] value) {
@@ -61,7 +71,7 @@ public class AbiBytesDynamic extends AbiValue {
   }
 
   @Override
-  public void encodeTo(final StringBuilder dest) {
+  public void encodeTo(final ByteBuffer dest) {
     encodeBytesTo(dest, value);
   }
 
@@ -70,6 +80,11 @@ public class AbiBytesDynamic extends AbiValue {
     return Arrays.equals(value, ((AbiBytesDynamic) other).value);
   }
 
+  @Override
+  public int getEncodedLength() {
+    return getEncodedLength(value);
+  }
+
   @Override
   public int hashCode() {
     return Arrays.hashCode(value);
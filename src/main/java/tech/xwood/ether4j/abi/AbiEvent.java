@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import tech.xwood.ether4j.Crypto;
 import tech.xwood.ether4j.Error;
+import tech.xwood.ether4j.Hex;
 import tech.xwood.ether4j.Quantity;
 
 public class AbiEvent {
@@ -114,13 +115,13 @@ public class AbiEvent {
   public static void encodeTo(final StringBuilder dest, final String name, final AbiType... argTypes) {
     final byte[] input = getSignature(name, argTypes).getBytes();
     final byte[] hash = Crypto.keccak256(input);
-    Abi.hexTo(dest, hash);
+    Hex.encodeTo(dest, hash);
   }
 
   public static String getSignature(final String name, final AbiType... argTypes) {
     final byte[] input = AbiFunction.getSignature(name, argTypes).getBytes();
     final byte[] hash = Crypto.keccak256(input);
-    return Abi.toHex(hash);
+    return Hex.encode(hash);
   }
 
   public static Quantity getSignatureAsQuantity(final String name, final AbiType... argTypes) {
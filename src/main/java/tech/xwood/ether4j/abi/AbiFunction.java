@@ -1,30 +1,37 @@
 package tech.xwood.ether4j.abi;
 
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 import tech.xwood.ether4j.Crypto;
+import tech.xwood.ether4j.Hex;
 import tech.xwood.ether4j.Quantity;
 
 public class AbiFunction {
 
+  private static final int ID_LENGTH = 4;
+
   private static int argLength(final AbiValue[] args) {
     int count = 0;
     for (final AbiValue arg : args) {
-      count += (arg instanceof AbiArray) ? count += ((AbiArray) arg).values.length : 1;
+      count += (arg instanceof AbiArray) ? ((AbiArray) arg).values.length : 1;
     }
     return count;
   }
 
-  public static AbiValue[] decodeResult(final Quantity data, final AbiType... resultTypes) {
-    return decodeResult(data.toHexWithoutPrefix(), resultTypes);
+  public static AbiValue[] decodeResult(final byte[] raw, final AbiType... resultTypes) {
+    return decodeResult(ByteBuffer.wrap(raw), resultTypes);
   }
 
-  public static AbiValue[] decodeResult(final String raw, AbiType... resultTypes) {
+  /**
+   * @param raw - binary encoding from the position to the limit of the buffer, the position is not changed.
+   */
+  public static AbiValue[] decodeResult(final ByteBuffer raw, AbiType... resultTypes) {
 
-    if (raw.isEmpty()) {
+    if (!raw.hasRemaining()) {
       return new AbiValue[0];
     }
+    final ByteBuffer data = raw.slice();
     resultTypes = (resultTypes == null) ? new AbiType[0] : resultTypes;
     final AbiValue[] outValues = new AbiValue[resultTypes.length];
 
@@ -32,42 +39,49 @@ public class AbiFunction {
     for (int i = 0; i < resultTypes.length; i++) {
 
       final AbiType type = resultTypes[i];
-      final int dataOffset = getDataOffset(raw, offset, type);
-
-      if (type instanceof AbiArrayDynamic.Type) {
-        outValues[i] = type.decode(raw, dataOffset);
-        offset += Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING;
-      }
-      else if (type instanceof AbiArray.Type) {
-        outValues[i] = type.decode(raw, dataOffset);
-        final int length = ((AbiArray.Type) type).length;
-        offset += length * Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING;
+      final int dataOffset = getDataOffset(data, offset, type);
+      outValues[i] = type.decode(data, dataOffset);
+      if (type instanceof AbiArray.Type) {
+        offset += ((AbiArray.Type) type).length * Abi.MAX_BYTE_LENGTH;
       }
       else {
-        outValues[i] = type.decode(raw, dataOffset);
-        offset += Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING;
+        offset += Abi.MAX_BYTE_LENGTH;
       }
     }
     return outValues;
   }
 
-  static void encodeArgs(final StringBuilder dest, final AbiValue[] args) {
+  public static AbiValue[] decodeResult(final Quantity data, final AbiType... resultTypes) {
+    return decodeResult(data.toHexWithoutPrefix(), resultTypes);
+  }
+
+  public static AbiValue[] decodeResult(final String raw, final AbiType... resultTypes) {
+    return decodeResult(Abi.fromHex(raw), resultTypes);
+  }
+
+  static void encodeArgs(final ByteBuffer dest, final AbiValue[] args) {
 
     int dynamicDataOffset = argLength(args) * Abi.MAX_BYTE_LENGTH;
-    final StringBuilder dynamicData = new StringBuilder();
     for (final AbiValue arg : args) {
-      final String encodedValue = arg.encode();
-      if ((arg instanceof AbiBytesDynamic) || (arg instanceof AbiString) || (arg instanceof AbiArrayDynamic)) {
-        final String encodedDataOffset = AbiUint.encode(BigInteger.valueOf(dynamicDataOffset));
-        dest.append(encodedDataOffset);
-        dynamicData.append(encodedValue);
-        dynamicDataOffset += encodedValue.length() >> 1;
+      if (isDynamic(arg)) {
+        Abi.putWord(dest, dynamicDataOffset);
+        dynamicDataOffset += arg.getEncodedLength();
       }
       else {
-        dest.append(encodedValue);
+        arg.encodeTo(dest);
+      }
+    }
+    for (final AbiValue arg : args) {
+      if (isDynamic(arg)) {
+        arg.encodeTo(dest);
       }
     }
-    dest.append(dynamicData);
+  }
+
+  static void encodeArgs(final StringBuilder dest, final AbiValue[] args) {
+    final ByteBuffer encoded = ByteBuffer.allocate(getEncodedLength(args));
+    encodeArgs(encoded, args);
+    Hex.encodeTo(dest, encoded.array());
   }
 
   public static String encodeCall(final String name, final AbiValue... args) {
@@ -80,7 +94,17 @@ public class AbiFunction {
     return Quantity.ofHexWithoutPrefix(encodeCall(name, args));
   }
 
-  public static void encodeCallTo(final StringBuilder dest, final String name, AbiValue... args) {
+  public static byte[] encodeCallBytes(final String name, AbiValue... args) {
+    args = args == null ? new AbiValue[0] : args;
+    final ByteBuffer dest = ByteBuffer.allocate(ID_LENGTH + getEncodedLength(args));
+    encodeCallTo(dest, name, args);
+    return dest.array();
+  }
+
+  /**
+   * Writes function id and arguments at the position of the buffer, {@link #getEncodedLength(AbiValue...)} + 4 bytes.
+   */
+  public static void encodeCallTo(final ByteBuffer dest, final String name, AbiValue... args) {
 
     args = args == null ? new AbiValue[0] : args;
 
@@ -88,34 +112,61 @@ public class AbiFunction {
       .map(v -> v.type)
       .toArray(size -> new AbiType[size]);
 
-    dest.append(getId(name, argTypes));
+    dest.put(getIdBytes(name, argTypes));
     encodeArgs(dest, args);
   }
 
+  public static void encodeCallTo(final StringBuilder dest, final String name, final AbiValue... args) {
+    Hex.encodeTo(dest, encodeCallBytes(name, args));
+  }
+
   public static String encodeConstructorCall(final AbiValue... args) {
     final StringBuilder dest = new StringBuilder();
     encodeConstructorCallTo(dest, args);
     return dest.toString();
   }
 
+  public static byte[] encodeConstructorCallBytes(final AbiValue... args) {
+    final ByteBuffer dest = ByteBuffer.allocate(getEncodedLength(args));
+    encodeConstructorCallTo(dest, args);
+    return dest.array();
+  }
+
+  public static void encodeConstructorCallTo(final ByteBuffer dest, final AbiValue... args) {
+    encodeArgs(dest, args);
+  }
+
   public static void encodeConstructorCallTo(final StringBuilder dest, final AbiValue... args) {
     encodeArgs(dest, args);
   }
 
-  private static int getDataOffset(final String raw, final int offset, final AbiType type) {
+  private static int getDataOffset(final ByteBuffer raw, final int offset, final AbiType type) {
 
     if (type instanceof AbiBytesDynamic.Type || type instanceof AbiString.Type || type instanceof AbiArrayDynamic.Type) {
-      return AbiUint.Type.decode(raw, offset, 256).intValue() << 1;
+      return Abi.getInt(raw, offset);
     }
     return offset;
   }
 
+  /**
+   * @return Returns number of bytes of the encoded arguments.
+   */
+  public static int getEncodedLength(final AbiValue... args) {
+    int length = 0;
+    for (final AbiValue arg : args) {
+      length += isDynamic(arg) ? Abi.MAX_BYTE_LENGTH + arg.getEncodedLength() : arg.getEncodedLength();
+    }
+    return length;
+  }
+
   public static String getId(final String name, final AbiType... argTypes) {
-    final byte[] input = getSignature(name, argTypes).getBytes();
-    final byte[] hash = Crypto.keccak256(input);
-    return Abi.toHex(hash).substring(0, 8);
+    return Hex.encode(getIdBytes(name, argTypes));
   }
 
+  public static byte[] getIdBytes(final String name, final AbiType... argTypes) {
+    final byte[] input = getSignature(name, argTypes).getBytes();
+    return Arrays.copyOf(Crypto.keccak256(input), ID_LENGTH);
+  }
   public static String getSignature(final String name, final AbiType... argTypes) {
     final StringBuilder result = new StringBuilder(name.length() + argTypes.length * 32);
     result.append(name);
@@ -127,4 +178,8 @@ public class AbiFunction {
     result.append(")");
     return result.toString();
   }
+
+  private static boolean isDynamic(final AbiValue arg) {
+    return (arg instanceof AbiBytesDynamic) || (arg instanceof AbiString) || (arg instanceof AbiArrayDynamic);
+  }
 }
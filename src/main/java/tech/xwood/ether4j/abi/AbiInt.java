@@ -1,6 +1,7 @@
 package tech.xwood.ether4j.abi;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -30,6 +31,17 @@ public class AbiInt extends AbiValue {
       this.bitLength = bitLength;
     }
 
+    @Override
+    public AbiInt decode(final ByteBuffer raw, final int offset) {
+      final int byteLength = bitLength >> 3;
+      final byte[] valueBytes = new byte[byteLength + 1];
+      valueBytes[0] = raw.get(offset); // take MSB as sign bit
+      final ByteBuffer view = raw.duplicate();
+      view.position(offset + Abi.MAX_BYTE_LENGTH - byteLength);
+      view.get(valueBytes, 1, byteLength);
+      return new AbiInt(new BigInteger(valueBytes), this);
+    }
+
     @Override
     public AbiInt decode(final String raw) {
       return decode(raw, 0);
@@ -37,15 +49,7 @@ public class AbiInt extends AbiValue {
 
     @Override
     public AbiInt decode(final String raw, final int offset) {
-      final String input = raw.substring(offset, offset + Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING);
-      final byte[] inputBytes = Abi.hexToBytes(input);
-      final int byteLength = bitLength >> 3;
-      final byte[] valueBytes = new byte[byteLength + 1];
-      valueBytes[0] = inputBytes[0]; // take MSB as sign bit
-      final int valueOffset = Abi.MAX_BYTE_LENGTH - byteLength;
-      System.arraycopy(inputBytes, valueOffset, valueBytes, 1, byteLength);
-      final BigInteger value = new BigInteger(valueBytes);
-      return new AbiInt(value, this);
+      return decode(Abi.fromHex(raw), offset >> 1);
     }
 
     public AbiInt valueOf(final BigInteger value) {
@@ -62,19 +66,6 @@ public class AbiInt extends AbiValue {
 
   }
 
-  static void encodeTo(final StringBuilder dest, final BigInteger value) {
-    final byte[] rawValue = value.toByteArray();
-    final byte paddingValue = value.signum() == -1 ? (byte) 0xff : 0;
-    final byte[] paddedRawValue = new byte[Abi.MAX_BYTE_LENGTH];
-    if (paddingValue != 0) {
-      for (int i = 0; i < paddedRawValue.length; i++) {
-        paddedRawValue[i] = paddingValue;
-      }
-    }
-    System.arraycopy(rawValue, 0, paddedRawValue, Abi.MAX_BYTE_LENGTH - rawValue.length, rawValue.length);
-    Abi.hexTo(dest, paddedRawValue);
-  }
-
   public static AbiInt of(final int bitLength, final BigInteger value) {
     return Type.of(bitLength).valueOf(value);
   }
@@ -96,8 +87,8 @@ public class AbiInt extends AbiValue {
   }
 
   @Override
-  public void encodeTo(final StringBuilder dest) {
-    encodeTo(dest, value);
+  public void encodeTo(final ByteBuffer dest) {
+    Abi.putWord(dest, value);
   }
 
   @Override
@@ -105,6 +96,11 @@ public class AbiInt extends AbiValue {
     return Objects.equals(value, ((AbiInt) other).value);
   }
 
+  @Override
+  public int getEncodedLength() {
+    return Abi.MAX_BYTE_LENGTH;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(value);
@@ -1,5 +1,6 @@
 package tech.xwood.ether4j.abi;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
@@ -17,6 +18,12 @@ public class AbiString extends AbiValue {
       super("string");
     }
 
+    @Override
+    public AbiString decode(final ByteBuffer raw, final int offset) {
+      final byte[] bytes = AbiBytesDynamic.Type.decodeBytes(raw, offset);
+      return new AbiString(new String(bytes, StandardCharsets.UTF_8));
+    }
+
     @Override
     public AbiString decode(final String raw) {
       return decode(raw, 0);
@@ -24,8 +31,7 @@ public class AbiString extends AbiValue {
 
     @Override
     public AbiString decode(final String raw, final int offset) {
-      final byte[] bytes = AbiBytesDynamic.Type.decodeBytes(raw, offset);
-      return new AbiString(new String(bytes, StandardCharsets.UTF_8));
+      return decode(Abi.fromHex(raw), offset >> 1);
     }
 
     public AbiString valueOf(final String value) {
@@ -38,15 +44,23 @@ public class AbiString extends AbiValue {
   }
 
   public final String value;
+  private byte[] bytes;
 
   private AbiString(final String value) {
     super(Type.INSTANCE);
     this.value = value;
   }
 
+  private byte[] bytes() {
+    if (bytes == null) {
+      bytes = value.getBytes(StandardCharsets.UTF_8);
+    }
+    return bytes;
+  }
+
   @Override
-  public void encodeTo(final StringBuilder dest) {
-    AbiBytesDynamic.encodeBytesTo(dest, value.getBytes(StandardCharsets.UTF_8));
+  public void encodeTo(final ByteBuffer dest) {
+    AbiBytesDynamic.encodeBytesTo(dest, bytes());
   }
 
   @Override
@@ -54,6 +68,11 @@ public class AbiString extends AbiValue {
     return Objects.equals(value, ((AbiString) other).value);
   }
 
+  @Override
+  public int getEncodedLength() {
+    return AbiBytesDynamic.getEncodedLength(bytes());
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(value);
@@ -1,5 +1,6 @@
 package tech.xwood.ether4j.abi;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public abstract class AbiType {
@@ -10,6 +11,12 @@ public abstract class AbiType {
     this.name = name;
   }
 
+  /**
+   * @param raw - binary encoding, read without changing its position.
+   * @param offset - index of the value in bytes.
+   */
+  public abstract AbiValue decode(final ByteBuffer raw, final int offset);
+
   public abstract AbiValue decode(final String raw);
 
   public abstract AbiValue decode(final String raw, final int offset);
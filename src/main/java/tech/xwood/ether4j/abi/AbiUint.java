@@ -1,9 +1,11 @@
 package tech.xwood.ether4j.abi;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import tech.xwood.ether4j.Hex;
 import tech.xwood.ether4j.Utils;
 
 public class AbiUint extends AbiValue {
@@ -18,16 +20,6 @@ public class AbiUint extends AbiValue {
       }
     }
 
-    static BigInteger decode(final String raw, final int offset, final int bitLength) {
-      final String input = raw.substring(offset, offset + Abi.MAX_BYTE_LENGTH_FOR_HEX_STRING);
-      final byte[] inputBytes = Abi.hexToBytes(input);
-      final int byteLength = bitLength >> 3;
-      final byte[] valueBytes = new byte[byteLength + 1];
-      final int valueOffset = Abi.MAX_BYTE_LENGTH - byteLength;
-      System.arraycopy(inputBytes, valueOffset, valueBytes, 1, byteLength);
-      return new BigInteger(valueBytes);
-    }
-
     public static AbiUint.Type of(final int bitLength) {
       return INSTANCES.get(bitLength);
     }
@@ -40,6 +32,11 @@ public class AbiUint extends AbiValue {
       this.bitLength = bitLength;
     }
 
+    @Override
+    public AbiUint decode(final ByteBuffer raw, final int offset) {
+      return new AbiUint(Abi.getUnsigned(raw, offset, bitLength >> 3), this);
+    }
+
     @Override
     public AbiUint decode(final String raw) {
       return decode(raw, 0);
@@ -47,7 +44,7 @@ public class AbiUint extends AbiValue {
 
     @Override
     public AbiUint decode(final String raw, final int offset) {
-      return new AbiUint(decode(raw, offset, bitLength), this);
+      return decode(Abi.fromHex(raw), offset >> 1);
     }
 
     public AbiUint valueOf(final BigInteger value) {
@@ -59,41 +56,11 @@ public class AbiUint extends AbiValue {
     }
 
     public AbiUint valueOf(final String hexWithoutPrefix) {
-      return new AbiUint(new BigInteger(hexWithoutPrefix, 16), this);
+      return new AbiUint(Hex.decodeNumber(hexWithoutPrefix, 0, hexWithoutPrefix.length()), this);
     }
 
   }
 
-  static String encode(final BigInteger value) {
-    final StringBuilder dest = new StringBuilder();
-    encodeTo(dest, value);
-    return dest.toString();
-  }
-
-  static void encodeTo(final StringBuilder dest, final BigInteger value) {
-
-    final byte[] rawValue;
-    {
-      if (value.bitLength() == Abi.MAX_BIT_LENGTH) {
-        final byte[] byteArray = new byte[Abi.MAX_BYTE_LENGTH];
-        System.arraycopy(value.toByteArray(), 1, byteArray, 0, Abi.MAX_BYTE_LENGTH);
-        rawValue = byteArray;
-      }
-      else {
-        rawValue = value.toByteArray();
-      }
-    }
-    final byte paddingValue = value.signum() == -1 ? (byte) 0xff : 0;
-    final byte[] paddedRawValue = new byte[Abi.MAX_BYTE_LENGTH];
-    if (paddingValue != 0) {
-      for (int i = 0; i < paddedRawValue.length; i++) {
-        paddedRawValue[i] = paddingValue;
-      }
-    }
-    System.arraycopy(rawValue, 0, paddedRawValue, Abi.MAX_BYTE_LENGTH - rawValue.length, rawValue.length);
-    Abi.hexTo(dest, paddedRawValue);
-  }
-
   public static AbiUint of(final int bitLength, final BigInteger value) {
     return Type.of(bitLength).valueOf(value);
   }
@@ -116,8 +83,8 @@ public class AbiUint extends AbiValue {
   }
 
   @Override
-  public void encodeTo(final StringBuilder dest) {
-    encodeTo(dest, value);
+  public void encodeTo(final ByteBuffer dest) {
+    Abi.putWord(dest, value);
   }
 
   @Override
@@ -125,6 +92,11 @@ public class AbiUint extends AbiValue {
     return Objects.equals(value, ((AbiUint) other).value);
   }
 
+  @Override
+  public int getEncodedLength() {
+    return Abi.MAX_BYTE_LENGTH;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(value);
@@ -1,5 +1,8 @@
 package tech.xwood.ether4j.abi;
 
+import java.nio.ByteBuffer;
+import tech.xwood.ether4j.Hex;
+
 public abstract class AbiValue {
 
   public final AbiType type;
@@ -14,7 +17,20 @@ public abstract class AbiValue {
     return dest.toString();
   }
 
-  public abstract void encodeTo(StringBuilder dest);
+  public byte[] encodeBytes() {
+    final ByteBuffer dest = ByteBuffer.allocate(getEncodedLength());
+    encodeTo(dest);
+    return dest.array();
+  }
+
+  /**
+   * Writes {@link #getEncodedLength()} bytes of binary encoding at the position of the buffer.
+   */
+  public abstract void encodeTo(ByteBuffer dest);
+
+  public void encodeTo(final StringBuilder dest) {
+    Hex.encodeTo(dest, encodeBytes());
+  }
 
   @Override
   public boolean equals(final Object obj) {
@@ -29,6 +45,11 @@ public abstract class AbiValue {
 
   protected abstract boolean equalsImpl(AbiValue other);
 
+  /**
+   * @return Returns number of bytes of binary encoding.
+   */
+  public abstract int getEncodedLength();
+
   @Override
   public abstract int hashCode();
 }
\ No newline at end of file
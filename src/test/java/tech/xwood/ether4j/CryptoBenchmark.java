@@ -0,0 +1,66 @@
+package tech.xwood.ether4j;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures signing and decoding throughput of raw transactions.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=tech.xwood.ether4j.CryptoBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoBenchmark {
+
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CryptoBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  private Quantity privateKey;
+  private Quantity publicKey;
+  private Transaction tx;
+  private Quantity raw;
+  private long nonce;
+
+  @Benchmark
+  public Transaction decodeRawTransaction() {
+    return Crypto.decodeRawTransaction(raw);
+  }
+
+  @Setup
+  public void setup() {
+    privateKey = Quantity.of("0x360c7c7fc4f90f52af8385e52eb1e02cbd8d22d37ecf43d8604a827d94fba230");
+    publicKey = Crypto.createPublicKey(privateKey);
+    tx = Transaction
+      .create()
+      .setGasPrice(Quantity.of(20_000_000_000L))
+      .setGasLimit(Quantity.of(21_000))
+      .setTo(Crypto.createAddress(publicKey))
+      .setValue(Quantity.of(100500));
+    raw = Crypto.createRawTransaction(privateKey, publicKey, tx.setNonce(Quantity.of(0)));
+  }
+
+  /**
+   * Changes nonce on every call, so each signature has a new deterministic k.
+   */
+  @Benchmark
+  public Quantity signRawTransaction() {
+    return Crypto.createRawTransaction(privateKey, publicKey, tx.setNonce(Quantity.of(nonce++)));
+  }
+
+}
@@ -0,0 +1,80 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares tree based and streaming binding of a large JSON-RPC response (transactions of a full block).
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=tech.xwood.ether4j.JsonRpcBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonRpcBenchmark {
+
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(JsonRpcBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Param({ "1", "200" })
+  private int transactionCount;
+
+  private byte[] response;
+
+  @Setup
+  public void setup() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < transactionCount; i++) {
+      transactions.add(Transaction.create()
+        .setBlockHash(TestQuantity.randomQuanity())
+        .setBlockNumber(Quantity.of(i))
+        .setFrom(TestQuantity.randomQuanity())
+        .setGasLimit(Quantity.of(21_000))
+        .setGasPrice(TestQuantity.randomQuanity())
+        .setHash(TestQuantity.randomQuanity())
+        .setInput(TestQuantity.randomQuanity())
+        .setNonce(Quantity.of(i))
+        .setR(TestQuantity.randomQuanity())
+        .setS(TestQuantity.randomQuanity())
+        .setTo(TestQuantity.randomQuanity())
+        .setTransactionIndex(Quantity.of(i))
+        .setV(Quantity.of(27))
+        .setValue(TestQuantity.randomQuanity()));
+    }
+    final ObjectNode jsonRpcResponse = Utils.createJsonObject();
+    jsonRpcResponse.put("jsonrpc", "2.0");
+    jsonRpcResponse.put("id", "1");
+    jsonRpcResponse.set("result", Utils.toJsonNode(transactions));
+    response = Utils.toJsonAsBytes(jsonRpcResponse, false);
+  }
+
+  @Benchmark
+  public Transaction[] streaming() {
+    return JsonRpc.readResult(response, "1", Transaction[].class);
+  }
+
+  @Benchmark
+  public Transaction[] tree() {
+    return JsonRpc.getResult(JsonRpc.readResponse(response, ObjectNode.class), "1", Transaction[].class);
+  }
+
+}
@@ -0,0 +1,59 @@
+package tech.xwood.ether4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tech.xwood.ether4j.abi.AbiAddress;
+import tech.xwood.ether4j.abi.AbiFunction;
+
+/**
+ * Compares UUID id with map envelope against counter id with direct generator envelope for an eth_call request.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=tech.xwood.ether4j.JsonRpcRequestBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class JsonRpcRequestBenchmark {
+
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(JsonRpcRequestBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  private final Transaction tx = Transaction.create()
+    .setTo(Quantity.of("0x5b3ffb6a1c0b1d7ec64d1e26f1f5cf3f2e4e7a10"))
+    .setData(AbiFunction.encodeCallAsQuantity("balanceOf", AbiAddress.of(7)));
+
+  @Benchmark
+  public byte[] uuidMap() {
+    final Map<String, Object> request = new HashMap<>(5);
+    request.put("id", UUID.randomUUID().toString());
+    request.put("jsonrpc", "2.0");
+    request.put("method", "eth_call");
+    request.put("params", new Object[] { tx, "latest" });
+    return Utils.toJsonAsBytes(request, false);
+  }
+
+  @Benchmark
+  public byte[] counterGenerator() {
+    return JsonRpc.writeRequest(JsonRpc.nextIds(1), "eth_call", tx, "latest");
+  }
+
+}
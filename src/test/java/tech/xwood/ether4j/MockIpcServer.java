@@ -0,0 +1,101 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.net.ProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * In-process JSON-RPC over Unix domain socket server for unit tests, requires Java 16 or later.
+ */
+public class MockIpcServer implements AutoCloseable {
+
+  public static MockIpcServer start(final MockRpcServer.Handler handler) {
+    try {
+      return new MockIpcServer(handler);
+    }
+    catch (final IOException | ReflectiveOperationException e) {
+      throw new Error(e);
+    }
+  }
+
+  private final MockRpcServer.Handler handler;
+  private final Path path;
+  private final ServerSocketChannel server;
+
+  private MockIpcServer(final MockRpcServer.Handler handler) throws IOException, ReflectiveOperationException {
+    this.handler = handler;
+    path = Files.createTempDirectory("ether4j").resolve("geth.ipc");
+    server = (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, IpcTransport.unixProtocolFamily());
+    server.bind(IpcTransport.unixSocketAddress(path));
+    final Thread acceptor = new Thread(this::accept, "mock-ipc-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  private void accept() {
+    while (server.isOpen()) {
+      try {
+        final SocketChannel channel = server.accept();
+        final Thread thread = new Thread(() -> serve(channel), "mock-ipc-connection");
+        thread.setDaemon(true);
+        thread.start();
+      }
+      catch (final IOException e) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      server.close();
+      Files.deleteIfExists(path);
+      Files.deleteIfExists(path.getParent());
+    }
+    catch (final IOException e) {
+    }
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  private void serve(final SocketChannel channel) {
+    try {
+      final ByteBuffer buffer = ByteBuffer.allocate(1024);
+      final IpcTransport.Framer framer = new IpcTransport.Framer(DuplexTransport.DEFAULT_MAX_MESSAGE_SIZE);
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        framer.feed(buffer, message -> {
+          final JsonNode response = MockRpcServer.respond(handler, Utils.fromJson(message, JsonNode.class));
+          final ByteBuffer out = ByteBuffer.wrap((Utils.toJson(response, false) + "\n").getBytes());
+          try {
+            while (out.hasRemaining()) {
+              channel.write(out);
+            }
+          }
+          catch (final IOException e) {
+            throw new Error(e);
+          }
+        });
+        buffer.clear();
+      }
+    }
+    catch (final IOException | RuntimeException e) {
+    }
+    finally {
+      try {
+        channel.close();
+      }
+      catch (final IOException e) {
+      }
+    }
+  }
+
+}
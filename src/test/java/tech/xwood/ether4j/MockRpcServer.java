@@ -0,0 +1,126 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process JSON-RPC over HTTP server for unit tests.
+ */
+public class MockRpcServer implements AutoCloseable {
+
+  public interface Handler {
+
+    /**
+     * @return result of the call, throw {@link Error} to respond with JSON-RPC error.
+     */
+    Object handle(String method, JsonNode params);
+  }
+
+  /**
+   * @return Returns JSON-RPC response for a single request or batch.
+   */
+  static JsonNode respond(final Handler handler, final JsonNode request) {
+    if (request.isArray()) {
+      // batch responses come back in reverse order to exercise matching by id
+      final ArrayNode responses = Utils.createJsonArray();
+      for (final JsonNode item : request) {
+        responses.insert(0, call(handler, item));
+      }
+      return responses;
+    }
+    return call(handler, request);
+  }
+
+  public static MockRpcServer start(final Handler handler) {
+    return start(handler, 8);
+  }
+
+  public static MockRpcServer start(final Handler handler, final int threadCount) {
+    try {
+      return new MockRpcServer(handler, threadCount);
+    }
+    catch (final IOException e) {
+      throw new Error(e);
+    }
+  }
+
+  private final Handler handler;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final AtomicInteger requestCount = new AtomicInteger();
+  private final AtomicInteger callCount = new AtomicInteger();
+
+  private MockRpcServer(final Handler handler, final int threadCount) throws IOException {
+    this.handler = handler;
+    executor = Executors.newFixedThreadPool(threadCount);
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  private static JsonNode call(final Handler handler, final JsonNode request) {
+
+    final ObjectNode response = Utils.createJsonObject();
+    response.put("jsonrpc", "2.0");
+    response.set("id", request.get("id"));
+    try {
+      final Object result = handler.handle(request.get("method").asText(), request.path("params"));
+      response.set("result", result == null ? NullNode.getInstance() : Utils.fromJson(Utils.toJson(result), JsonNode.class));
+    }
+    catch (final Error e) {
+      final ObjectNode error = response.putObject("error");
+      error.put("code", e.getCode());
+      error.put("message", e.getMessage());
+    }
+    catch (final RuntimeException e) {
+      final ObjectNode error = response.putObject("error");
+      error.put("code", -32603);
+      error.put("message", String.valueOf(e));
+    }
+    return response;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  public int getCallCount() {
+    return callCount.get();
+  }
+
+  public int getRequestCount() {
+    return requestCount.get();
+  }
+
+  public String getUri() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+
+    requestCount.incrementAndGet();
+    final JsonNode request = Utils.fromJson(exchange.getRequestBody(), JsonNode.class);
+    callCount.addAndGet(request.isArray() ? request.size() : 1);
+    final JsonNode response = respond(handler, request);
+    final byte[] body = Utils.toJsonAsBytes(response, false);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(body);
+    }
+  }
+
+}
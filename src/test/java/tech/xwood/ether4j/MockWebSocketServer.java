@@ -0,0 +1,173 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.net.ssl.SSLContext;
+
+/**
+ * In-process JSON-RPC over WebSocket server for unit tests, can push eth_subscription notifications.
+ */
+public class MockWebSocketServer implements AutoCloseable {
+
+  private static class Connection {
+
+    private final Socket socket;
+    private final OutputStream out;
+
+    Connection(final Socket socket) throws IOException {
+      this.socket = socket;
+      out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    void send(final JsonNode message) throws IOException {
+      synchronized (out) {
+        WebSocket.writeFrame(out, WebSocket.OPCODE_TEXT, Utils.toJsonAsBytes(message, false), false);
+      }
+    }
+  }
+
+  private static String readLine(final InputStream in) throws IOException {
+    final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != '\n' && b >= 0) {
+      if (b != '\r') {
+        line.write(b);
+      }
+    }
+    return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+  public static MockWebSocketServer start(final MockRpcServer.Handler handler) {
+    return start(handler, null);
+  }
+
+  /**
+   * @param sslContext - (optional) serves wss with the key of the context.
+   */
+  public static MockWebSocketServer start(final MockRpcServer.Handler handler, final SSLContext sslContext) {
+    try {
+      return new MockWebSocketServer(handler, sslContext);
+    }
+    catch (final IOException e) {
+      throw new Error(e);
+    }
+  }
+
+  private final MockRpcServer.Handler handler;
+  private final ServerSocket server;
+  private final boolean secure;
+  private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+  private MockWebSocketServer(final MockRpcServer.Handler handler, final SSLContext sslContext) throws IOException {
+    this.handler = handler;
+    secure = sslContext != null;
+    server = secure
+      ? sslContext.getServerSocketFactory().createServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))
+      : new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+    final Thread acceptor = new Thread(this::accept, "mock-websocket-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  private void accept() {
+    while (!server.isClosed()) {
+      try {
+        final Socket socket = server.accept();
+        final Thread thread = new Thread(() -> serve(socket), "mock-websocket-connection");
+        thread.setDaemon(true);
+        thread.start();
+      }
+      catch (final IOException e) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      server.close();
+      for (final Connection connection : connections) {
+        connection.socket.close();
+      }
+    }
+    catch (final IOException e) {
+    }
+  }
+
+  public String getUri() {
+    return (secure ? "wss" : "ws") + "://127.0.0.1:" + server.getLocalPort() + "/";
+  }
+
+  /**
+   * Sends eth_subscription notification to all connections.
+   */
+  public void push(final String subscriptionId, final Object result) {
+    final ObjectNode notification = Utils.createJsonObject();
+    notification.put("jsonrpc", "2.0");
+    notification.put("method", "eth_subscription");
+    final ObjectNode params = notification.putObject("params");
+    params.put("subscription", subscriptionId);
+    params.set("result", Utils.fromJson(Utils.toJson(result), JsonNode.class));
+    for (final Connection connection : connections) {
+      try {
+        connection.send(notification);
+      }
+      catch (final IOException e) {
+        connections.remove(connection);
+      }
+    }
+  }
+
+  private void serve(final Socket socket) {
+    try {
+      final InputStream in = new BufferedInputStream(socket.getInputStream());
+      String key = null;
+      for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+        if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+          key = line.substring(line.indexOf(':') + 1).trim();
+        }
+      }
+      final Connection connection = new Connection(socket);
+      connection.out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+        + "Upgrade: websocket\r\n"
+        + "Connection: Upgrade\r\n"
+        + "Sec-WebSocket-Accept: " + WebSocket.acceptKey(key) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+      connection.out.flush();
+      connections.add(connection);
+
+      while (true) {
+        final WebSocket.Frame frame = WebSocket.readFrame(in);
+        if (frame.opcode == WebSocket.OPCODE_CLOSE) {
+          break;
+        }
+        if (frame.opcode == WebSocket.OPCODE_TEXT) {
+          final JsonNode request = Utils.fromJson(frame.payload, JsonNode.class);
+          connection.send(MockRpcServer.respond(handler, request));
+        }
+      }
+    }
+    catch (final IOException e) {
+    }
+    finally {
+      try {
+        socket.close();
+      }
+      catch (final IOException e) {
+      }
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+package tech.xwood.ether4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestAsyncClient {
+
+  @Test
+  public void testError() {
+
+    try (MockRpcServer server = MockRpcServer.start((method, params) -> {
+      throw new Error(-32000, "Nope");
+    });
+      AsyncClient client = new AsyncClient(server.getUri())) {
+
+      final CompletionException e = Assert.expectThrows(CompletionException.class, () -> client.getGasPrice().join());
+      Assert.assertTrue(e.getCause() instanceof Error);
+      Assert.assertEquals(((Error) e.getCause()).getCode(), -32000);
+    }
+  }
+
+  @Test
+  public void testMaxInFlight() {
+
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger maxActive = new AtomicInteger();
+    final int maxInFlight = 4;
+
+    try (MockRpcServer server = MockRpcServer.start((method, params) -> {
+      maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+      try {
+        TimeUnit.MILLISECONDS.sleep(20);
+      }
+      catch (final InterruptedException e) {
+        throw new Error(e);
+      }
+      active.decrementAndGet();
+      return params.get(0).asText();
+    }, 16);
+      AsyncClient client = new AsyncClient(server.getUri(), maxInFlight)) {
+
+      final List<CompletableFuture<Quantity>> balances = new ArrayList<>();
+      for (int i = 0; i < 40; i++) {
+        balances.add(client.getBalance(Quantity.of(i)));
+      }
+      Assert.assertTrue(client.getQueuedCount() > 0);
+      CompletableFuture.allOf(balances.toArray(new CompletableFuture<?>[0])).join();
+
+      for (int i = 0; i < 40; i++) {
+        Assert.assertEquals(balances.get(i).join(), Quantity.of(i));
+      }
+      Assert.assertEquals(client.getQueuedCount(), 0);
+      Assert.assertTrue(maxActive.get() <= maxInFlight, "max active " + maxActive.get());
+      Assert.assertEquals(server.getRequestCount(), 40);
+    }
+  }
+
+  @Test
+  public void testTransportThrows() {
+
+    final AtomicInteger calls = new AtomicInteger();
+    final InMemoryTransport node = new InMemoryTransport((method, params) -> "0x1");
+    final Transport transport = new Transport() {
+
+      @Override
+      public void close() {
+      }
+
+      @Override
+      public CompletableFuture<byte[]> send(final byte[] request) {
+        if (calls.incrementAndGet() <= 3) {
+          throw new IllegalStateException("Transport is closed");
+        }
+        return node.send(request);
+      }
+    };
+    try (AsyncClient client = new AsyncClient(transport, 1)) {
+
+      for (int i = 0; i < 3; i++) {
+        final CompletionException e = Assert.expectThrows(CompletionException.class, () -> client.getGasPrice().join());
+        Assert.assertTrue(e.getCause() instanceof Error);
+        Assert.assertTrue(e.getCause().getMessage().contains("Transport is closed"));
+      }
+      // the permit of each failed send is released and the queue is still drained
+      Assert.assertEquals(client.getGasPrice().join(), Quantity.of(1));
+      Assert.assertEquals(client.getGasPrice().join(), Quantity.of(1));
+      Assert.assertEquals(client.getQueuedCount(), 0);
+    }
+  }
+
+}
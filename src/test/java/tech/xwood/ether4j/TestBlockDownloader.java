@@ -0,0 +1,119 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBlockDownloader {
+
+  private static final long HEAD = 1000;
+
+  private static Object blockOf(final String method, final JsonNode params) {
+
+    final long number;
+    switch (method) {
+      case "eth_getBlockByNumber":
+        number = "latest".equals(params.get(0).asText()) ? HEAD : Quantity.of(params.get(0).asText()).toBigInteger().longValue();
+        break;
+      case "eth_getBlockByHash":
+        number = Quantity.of(params.get(0).asText()).toBigInteger().longValue() - 0x1000;
+        break;
+      default:
+        throw new Error(-32601, "Method not found");
+    }
+    if (number > HEAD) {
+      return null;
+    }
+    final ObjectNode block = Utils.createJsonObject();
+    block.put("number", Quantity.of(number).toHex());
+    block.put("hash", Quantity.of(number + 0x1000).toHexHash());
+    block.put("parentHash", Quantity.of(number + 0x0fff).toHexHash());
+    final ArrayNode transactions = block.putArray("transactions");
+    for (int i = 0; i < 3; i++) {
+      final Quantity txHash = Quantity.of(number * 10 + i);
+      if (params.get(1).asBoolean()) {
+        transactions.addObject()
+          .put("hash", txHash.toHexHash())
+          .put("blockNumber", Quantity.of(number).toHex())
+          .put("transactionIndex", Quantity.of(i).toHex());
+      }
+      else {
+        transactions.add(txHash.toHexHash());
+      }
+    }
+    block.putArray("uncles");
+    return block;
+  }
+
+  @Test
+  public void testDownload() {
+
+    final AtomicInteger requests = new AtomicInteger();
+    final InMemoryTransport transport = new InMemoryTransport(TestBlockDownloader::blockOf) {
+
+      @Override
+      public CompletableFuture<byte[]> send(final byte[] request) {
+        requests.incrementAndGet();
+        try {
+          TimeUnit.MILLISECONDS.sleep(5);
+        }
+        catch (final InterruptedException e) {
+          throw new Error(e);
+        }
+        return super.send(request);
+      }
+    };
+
+    try (Client client = new Client(transport);
+      BlockDownloader downloader = BlockDownloader.builder(client).setBatchSize(25).setMaxConcurrency(4).setFullTransactions(true).build()) {
+
+      final Iterator<Block> blocks = downloader.download(100, 599);
+      long expected = 100;
+      while (blocks.hasNext()) {
+        final Block block = blocks.next();
+        Assert.assertEquals(block.getNumber(), Quantity.of(expected));
+        Assert.assertEquals(block.getTransactions().size(), 3);
+        Assert.assertEquals(block.getTransactions().get(2).getTransactionIndex(), Quantity.of(2));
+        expected++;
+      }
+      Assert.assertEquals(expected, 600);
+      Assert.assertEquals(requests.get(), 500 / 25);
+
+      // beyond the chain head
+      final Iterator<Block> tail = downloader.download(990, 1010);
+      Assert.expectThrows(Error.class, () -> {
+        while (tail.hasNext()) {
+          tail.next();
+        }
+      });
+      Assert.assertFalse(downloader.download(5, 4).hasNext());
+    }
+  }
+
+  @Test
+  public void testGetBlock() {
+
+    try (Client client = new Client(new InMemoryTransport(TestBlockDownloader::blockOf))) {
+
+      final Block block = client.getBlockByNumber(Quantity.of(7), false);
+      Assert.assertEquals(block.getHash(), Quantity.of(0x1007));
+      Assert.assertEquals(block.getTransactions().get(1).getHash(), Quantity.of(71));
+      Assert.assertNull(block.getTransactions().get(1).getBlockNumber());
+      Assert.assertTrue(block.getUncles().isEmpty());
+
+      final Block full = client.getBlockByHash(Quantity.of(0x1007), true);
+      Assert.assertEquals(full.getNumber(), Quantity.of(7));
+      Assert.assertEquals(full.getTransactions().get(1).getBlockNumber(), Quantity.of(7));
+
+      Assert.assertEquals(client.getBlockByNumber(Tag.LATEST, false).getNumber(), Quantity.of(HEAD));
+      Assert.assertNull(client.getBlockByNumber(Quantity.of(HEAD + 1), false));
+    }
+  }
+
+}
@@ -0,0 +1,324 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestClient {
+
+  private static Object balanceOf(final String method, final JsonNode params) {
+    if (!"eth_getBalance".equals(method)) {
+      throw new Error(-32601, "Method not found");
+    }
+    final Quantity value = Quantity.of(params.get(0).asText());
+    if (value.equals(Quantity.of(13))) {
+      throw new Error(-32000, "Account is unlucky");
+    }
+    return value.toHex();
+  }
+
+  @Test
+  public void testBatch() {
+
+    try (MockRpcServer server = MockRpcServer.start(TestClient::balanceOf);
+      Client client = new Client(server.getUri())) {
+
+      final Client.Batch batch = client.createBatch(4);
+      final List<Client.Batch.Call<Quantity>> calls = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        calls.add(batch.add(Quantity.class, "eth_getBalance", Quantity.of(i).toHexAddress(), Tag.LATEST.getName()));
+      }
+      final Client.Batch.Call<Quantity> unknown = batch.add(Quantity.class, "eth_unknown");
+      final Client.Batch.Call<Quantity> unlucky = batch.add(Quantity.class, "eth_getBalance", Quantity.of(13).toHexAddress(), "latest");
+      batch.execute();
+
+      Assert.assertEquals(server.getRequestCount(), 3);
+      Assert.assertEquals(server.getCallCount(), 12);
+      for (int i = 0; i < 10; i++) {
+        Assert.assertTrue(calls.get(i).isSuccess());
+        Assert.assertEquals(calls.get(i).get(), Quantity.of(i));
+      }
+      Assert.assertFalse(unknown.isSuccess());
+      Assert.assertEquals(unknown.getError().getCode(), -32601);
+      Assert.assertEquals(unlucky.getError().getCode(), -32000);
+    }
+  }
+
+  @Test
+  public void testBatchFailedChunk() {
+
+    final InMemoryTransport inMemory = new InMemoryTransport(TestClient::balanceOf);
+    final AtomicInteger requests = new AtomicInteger();
+    final Transport transport = new Transport() {
+
+      @Override
+      public void close() {
+      }
+
+      @Override
+      public CompletableFuture<byte[]> send(final byte[] request) {
+        if (requests.incrementAndGet() == 2) {
+          final CompletableFuture<byte[]> failed = new CompletableFuture<>();
+          failed.completeExceptionally(new Error("Connection reset"));
+          return failed;
+        }
+        return inMemory.send(request);
+      }
+    };
+    try (Client client = new Client(transport)) {
+
+      final Client.Batch batch = client.createBatch(2);
+      final List<Client.Batch.Call<Quantity>> calls = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        calls.add(batch.add(Quantity.class, "eth_getBalance", Quantity.of(i).toHexAddress(), Tag.LATEST.getName()));
+      }
+      final Error error = Assert.expectThrows(Error.class, batch::execute);
+
+      Assert.assertEquals(requests.get(), 2);
+      Assert.assertTrue(calls.get(0).isSuccess());
+      Assert.assertTrue(calls.get(1).isSuccess());
+      for (int i = 2; i < 6; i++) {
+        Assert.assertTrue(calls.get(i).isDone());
+        Assert.assertSame(calls.get(i).getError(), error);
+      }
+    }
+  }
+
+  @Test
+  public void testBatchNotExecuted() {
+    try (Client client = new Client("http://127.0.0.1:1/")) {
+      final Client.Batch.Call<Quantity> call = client.createBatch().add(Quantity.class, "eth_gasPrice");
+      Assert.assertFalse(call.isDone());
+      Assert.expectThrows(Error.class, call::get);
+    }
+  }
+
+  @Test
+  public void testCache() throws Exception {
+
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger head = new AtomicInteger(100);
+    final InMemoryTransport transport = new InMemoryTransport((method, params) -> {
+      if ("eth_blockNumber".equals(method)) {
+        return Quantity.of(head.get()).toHex();
+      }
+      calls.incrementAndGet();
+      switch (method) {
+        case "eth_getBalance":
+          return params.get(0).asText();
+        case "eth_getTransactionByHash":
+          final Transaction tx = Transaction.create().setHash(Quantity.of(params.get(0).asText()));
+          if (params.get(0).asText().endsWith("1")) {
+            return tx.setBlockHash(Quantity.of(100)).setBlockNumber(Quantity.of(5));
+          }
+          return params.get(0).asText().endsWith("3") ? tx.setBlockHash(Quantity.of(101)).setBlockNumber(Quantity.of(90)) : tx;
+        default:
+          throw new Error(-32601, "Method not found");
+      }
+    });
+
+    try (Client client = Client.builder(transport).setCacheMaxSize(2).setCacheTtl(200).build()) {
+
+      final ResponseCache cache = client.getCache();
+      Assert.assertEquals(client.getBalance(Quantity.of(1), Quantity.of(10)), Quantity.of(1));
+      Assert.assertEquals(client.getBalance(Quantity.of(1), Quantity.of(10)), Quantity.of(1));
+      Assert.assertEquals(calls.get(), 1);
+      Assert.assertEquals(cache.getHitCount(), 1);
+      Assert.assertEquals(cache.getMissCount(), 1);
+
+      // not pinned to a block
+      client.getBalance(Quantity.of(1), Tag.LATEST);
+      client.getBalance(Quantity.of(1), Tag.LATEST);
+      Assert.assertEquals(calls.get(), 3);
+
+      // mined transaction is cached, pending one is not
+      final Transaction mined = client.getTransactionByHash(Quantity.of(1));
+      mined.setBlockNumber(Quantity.of(6));
+      Assert.assertEquals(client.getTransactionByHash(Quantity.of(1)).getBlockNumber(), Quantity.of(5));
+      client.getTransactionByHash(Quantity.of(2));
+      client.getTransactionByHash(Quantity.of(2));
+      Assert.assertEquals(calls.get(), 6);
+
+      // size eviction of least recently used
+      client.getBalance(Quantity.of(2), Quantity.of(10));
+      client.getBalance(Quantity.of(3), Quantity.of(10));
+      Assert.assertEquals(cache.size(), 2);
+      Assert.assertTrue(cache.getEvictionCount() >= 1);
+      client.getBalance(Quantity.of(1), Quantity.of(10));
+      Assert.assertEquals(calls.get(), 9);
+
+      // time to live
+      TimeUnit.MILLISECONDS.sleep(250);
+      client.getBalance(Quantity.of(1), Quantity.of(10));
+      Assert.assertEquals(calls.get(), 10);
+      Assert.assertTrue(cache.getHitRatio() > 0);
+
+      // block number not final yet
+      client.getBalance(Quantity.of(4), Quantity.of(50));
+      client.getBalance(Quantity.of(4), Quantity.of(50));
+      Assert.assertEquals(calls.get(), 12);
+      head.set(114);
+      client.getBalance(Quantity.of(4), Quantity.of(50));
+      client.getBalance(Quantity.of(4), Quantity.of(50));
+      Assert.assertEquals(calls.get(), 13);
+
+      // transaction mined in a block that is not final yet
+      client.getTransactionByHash(Quantity.of(3));
+      client.getTransactionByHash(Quantity.of(3));
+      Assert.assertEquals(calls.get(), 15);
+      head.set(154);
+      client.getTransactionByHash(Quantity.of(3));
+      client.getTransactionByHash(Quantity.of(3));
+      Assert.assertEquals(calls.get(), 16);
+    }
+
+    try (Client client = new Client(transport)) {
+      Assert.assertNull(client.getCache());
+    }
+  }
+
+  @Test
+  public void testCoalescing() throws Exception {
+
+    final AtomicInteger calls = new AtomicInteger();
+    final InMemoryTransport transport = new InMemoryTransport((method, params) -> {
+      calls.incrementAndGet();
+      try {
+        TimeUnit.MILLISECONDS.sleep(200);
+      }
+      catch (final InterruptedException e) {
+        throw new Error(e);
+      }
+      switch (method) {
+        case "eth_gasPrice":
+          return "0x1";
+        case "eth_getTransactionCount":
+          return "0x3";
+        case "eth_sendTransaction":
+          return "0x2";
+        default:
+          throw new Error(-32601, "Method not found");
+      }
+    });
+
+    final int threadCount = 8;
+    final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try (Client client = Client.builder(transport).setCoalescing(true).setCoalescingWindow(500).build()) {
+
+      final CyclicBarrier start = new CyclicBarrier(threadCount);
+      final List<Future<Quantity>> results = new ArrayList<>();
+      for (int i = 0; i < threadCount; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return client.getGasPrice();
+        }));
+      }
+      for (final Future<Quantity> result : results) {
+        Assert.assertEquals(result.get(), Quantity.of(1));
+      }
+      Assert.assertEquals(calls.get(), 1);
+      Assert.assertEquals(client.getCoalescedCount(), threadCount - 1);
+
+      // reused within the window, sent again after it
+      Assert.assertEquals(client.getGasPrice(), Quantity.of(1));
+      Assert.assertEquals(calls.get(), 1);
+      TimeUnit.MILLISECONDS.sleep(600);
+      Assert.assertEquals(client.getGasPrice(), Quantity.of(1));
+      Assert.assertEquals(calls.get(), 2);
+
+      // pending state is not reused after the response arrived
+      Assert.assertEquals(client.getTransactionCount(Quantity.of(1), Tag.PENDING), Quantity.of(3));
+      Assert.assertEquals(client.getTransactionCount(Quantity.of(1), Tag.PENDING), Quantity.of(3));
+      Assert.assertEquals(calls.get(), 4);
+
+      // writes are never coalesced
+      final Transaction tx = Transaction.create().setFrom(Quantity.of(1)).setTo(Quantity.of(2));
+      final Future<Quantity> first = executor.submit(() -> client.sendTransaction(tx));
+      final Future<Quantity> second = executor.submit(() -> client.sendTransaction(tx));
+      Assert.assertEquals(first.get(), Quantity.of(2));
+      Assert.assertEquals(second.get(), Quantity.of(2));
+      Assert.assertEquals(calls.get(), 6);
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Concurrency benchmark: the same load must finish several times faster with a larger connection pool.
+   */
+  @Test
+  public void testConnectionPoolScaling() throws Exception {
+
+    final int threadCount = 8;
+    final int requestCount = 32;
+    try (MockRpcServer server = MockRpcServer.start((method, params) -> {
+      try {
+        TimeUnit.MILLISECONDS.sleep(20);
+      }
+      catch (final InterruptedException e) {
+        throw new Error(e);
+      }
+      return "0x1";
+    }, 32)) {
+
+      final long[] elapsed = new long[2];
+      final int[] poolSizes = { 1, threadCount };
+      for (int i = 0; i < poolSizes.length; i++) {
+        try (Client client = Client.builder(server.getUri())
+          .setMaxConnectionsPerRoute(poolSizes[i])
+          .setMaxConnectionsTotal(poolSizes[i])
+          .setConnectTimeout(1000)
+          .setSocketTimeout(5000)
+          .setConnectionRequestTimeout(10_000)
+          .setKeepAlive(10_000)
+          .setMaxIdleTime(1000)
+          .build()) {
+
+          final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+          final long start = System.nanoTime();
+          final List<Future<Quantity>> results = new ArrayList<>();
+          for (int n = 0; n < requestCount; n++) {
+            results.add(executor.submit(client::getGasPrice));
+          }
+          for (final Future<Quantity> result : results) {
+            Assert.assertEquals(result.get(), Quantity.of(1));
+          }
+          elapsed[i] = System.nanoTime() - start;
+          executor.shutdown();
+        }
+      }
+      Assert.assertTrue(elapsed[1] * 3 < elapsed[0], "Throughput does not scale with pool size");
+    }
+  }
+
+  @Test
+  public void testGetBalances() {
+
+    try (MockRpcServer server = MockRpcServer.start(TestClient::balanceOf);
+      Client client = new Client(server.getUri())) {
+
+      final List<Quantity> addresses = new ArrayList<>();
+      for (int i = 1; i <= 2500; i++) {
+        addresses.add(Quantity.of(i * 1000));
+      }
+      final Map<Quantity, Quantity> balances = client.getBalances(addresses, Tag.LATEST);
+      Assert.assertEquals(server.getRequestCount(), 3);
+      Assert.assertEquals(new ArrayList<>(balances.keySet()), addresses);
+      for (final Quantity address : addresses) {
+        Assert.assertEquals(balances.get(address), address);
+      }
+    }
+  }
+
+}
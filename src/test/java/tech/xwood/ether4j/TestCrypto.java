@@ -1,5 +1,6 @@
 package tech.xwood.ether4j;
 
+import java.math.BigInteger;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -52,6 +53,71 @@ public class TestCrypto {
     Assert.assertEquals(rawTransaction, rawTransactionCalc);
   }
 
+  @Test
+  public void testDecodeRawTransaction() {
+
+    final Quantity privateKey = Quantity.of("0x360c7c7fc4f90f52af8385e52eb1e02cbd8d22d37ecf43d8604a827d94fba230");
+    final Quantity publicKey = Crypto.createPublicKey(privateKey);
+    final Quantity rawTransaction = Quantity.of("0xf8608002029433dad137746366bbac2be3cf8e187bb99aa9648a83018894"
+      + "801ca0e832126d063c6cfb14d266b8ba7e24582bb3566ab9406bf01ff91cab67068967a026391f97960b74f41f61602048398b"
+      + "97755c7976775676b51b03c9e4ecf52044");
+    final Transaction tx = Crypto.decodeRawTransaction(rawTransaction);
+    Assert.assertEquals(tx.getNonce(), Quantity.of(0));
+    Assert.assertEquals(tx.getGasPrice(), Quantity.of(2));
+    Assert.assertEquals(tx.getGasLimit(), Quantity.of(2));
+    Assert.assertEquals(tx.getTo(), Crypto.createAddress(publicKey));
+    Assert.assertEquals(tx.getValue(), Quantity.of(100500));
+    Assert.assertNull(tx.getData());
+    Assert.assertEquals(tx.getV(), Quantity.of(28));
+    Assert.assertEquals(tx.getFrom(), Crypto.createAddress(publicKey));
+    Assert.assertEquals(tx.getHash(), Crypto.keccak256(rawTransaction));
+    Assert.assertEquals(Crypto.createRawTransaction(privateKey, publicKey, tx), rawTransaction);
+
+    // EIP-155 example: chain id 1, private key 0x4646...46
+    final Transaction protectedTx = Crypto.decodeRawTransaction(Quantity.of("0xf86c098504a817c800825208943535353535353535"
+      + "353535353535353535353535880de0b6b3a76400008025a028ef61340bd939bc2195fe537567866003e1a15d3c71ff63e1590620aa6362"
+      + "76a067cbe9d8997f761aecb703304b3800ccf555c9f3dc64214b297fb1966a3b6d83"));
+    Assert.assertEquals(protectedTx.getNonce(), Quantity.of(9));
+    Assert.assertEquals(protectedTx.getGasPrice(), Quantity.of(20_000_000_000L));
+    Assert.assertEquals(protectedTx.getTo().toHex(), "0x3535353535353535353535353535353535353535");
+    Assert.assertEquals(protectedTx.getV(), Quantity.of(37));
+    Assert.assertEquals(protectedTx.getFrom().toHex(), "0x9d8a62f656a8d1615c1294fd71e9cfb3e4855a4f");
+    Assert.assertEquals(protectedTx.getFrom(), Crypto.createAddress(Crypto.createPublicKey(Quantity.of(
+      "0x4646464646464646464646464646464646464646464646464646464646464646"))));
+
+    final Quantity withData = Crypto.createRawTransaction(privateKey, publicKey, Transaction.create()
+      .setNonce(Quantity.of(1)).setGasPrice(Quantity.of(1)).setGasLimit(Quantity.of(21000)).setValue(Quantity.of(0))
+      .setData(Quantity.of("0xa9059cbb")));
+    Assert.assertNull(Crypto.decodeRawTransaction(withData).getTo());
+    Assert.assertEquals(Crypto.decodeRawTransaction(withData).getInput().toHex(), "0xa9059cbb");
+    Assert.assertEquals(Crypto.decodeRawTransaction(withData).getFrom(), tx.getFrom());
+
+    // Recipient with leading zero bytes is signed at full length and survives the round trip
+    final Address zeroPrefixed = Address.of("0x0000000000000000000000000000000000000001");
+    final Quantity toZeroPrefixed = Crypto.createRawTransaction(privateKey, publicKey, Transaction.create()
+      .setNonce(Quantity.of(2)).setGasPrice(Quantity.of(1)).setGasLimit(Quantity.of(21000)).setValue(Quantity.of(1))
+      .setTo(zeroPrefixed));
+    Assert.assertEquals(Crypto.decodeRawTransaction(toZeroPrefixed).getTo(), zeroPrefixed);
+    Assert.assertEquals(Crypto.decodeRawTransaction(toZeroPrefixed).getFrom(), tx.getFrom());
+
+    Assert.expectThrows(Error.class, () -> Crypto.decodeRawTransaction(Hex.decode("02c0")));
+    Assert.expectThrows(Error.class, () -> Crypto.decodeRawTransaction(Hex.decode("c0")));
+    final byte[] tampered = rawTransaction.toBytes();
+    tampered[tampered.length - 1] ^= 1;
+    Assert.assertNotEquals(Crypto.decodeRawTransaction(tampered).getFrom(), tx.getFrom());
+
+    // Same signature with s flipped to the upper half of the curve order is malleable, EIP-2
+    final BigInteger n = new BigInteger("fffffffffffffffffffffffffffffffebaaedce6af48a03bbfd25e8cd0364141", 16);
+    final Rlp.TypeList highS = Rlp.decode(rawTransaction.toBytes()).getList(0);
+    highS.items().set(6, Rlp.createString((byte) 27));
+    highS.items().set(8, Rlp.createString(Quantity.of(n.subtract(tx.getS().toBigInteger()))));
+    Assert.expectThrows(Error.class, () -> Crypto.decodeRawTransaction(Rlp.encode(highS)));
+
+    final Rlp.TypeList shortTo = Rlp.decode(rawTransaction.toBytes()).getList(0);
+    shortTo.items().set(3, Rlp.createString(new byte[Address.BYTES - 1]));
+    Assert.expectThrows(Error.class, () -> Crypto.decodeRawTransaction(Rlp.encode(shortTo)));
+  }
+
   @Test
   public void testKeccak256() {
     Assert.assertEquals(
@@ -59,4 +125,16 @@ public class TestCrypto {
       Crypto.keccak256(Quantity.of("0x68656c6c6f20776f726c64")));
   }
 
+  @Test
+  public void testSignRecoveryId() {
+
+    for (int i = 0; i < 64; i++) {
+      final Quantity privateKey = Crypto.createPrivateKey(new byte[] { (byte) i });
+      final Quantity publicKey = Crypto.createPublicKey(privateKey);
+      final Quantity raw = Crypto.createRawTransaction(privateKey, publicKey, Transaction.create()
+        .setNonce(Quantity.of(i)).setGasPrice(Quantity.of(1)).setGasLimit(Quantity.of(21000)).setValue(Quantity.of(i)));
+      Assert.assertEquals(Crypto.decodeRawTransaction(raw).getFrom(), Crypto.createAddress(publicKey));
+    }
+  }
+
 }
@@ -0,0 +1,171 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestEventStream {
+
+  /**
+   * Node where every block has two logs.
+   */
+  private static class Chain {
+
+    private final List<Quantity> hashes = new ArrayList<>();
+    private final Map<Quantity, Quantity> parents = new HashMap<>();
+    private int salt;
+
+    private Chain(final int length) {
+      mine(length);
+    }
+
+    private synchronized Object handle(final String method, final JsonNode params) {
+      switch (method) {
+        case "eth_blockNumber":
+          return Quantity.of(hashes.size() - 1).toHex();
+        case "eth_getBlockByNumber": {
+          final int number = Quantity.of(params.get(0).asText()).toBigInteger().intValue();
+          if (number >= hashes.size()) {
+            return null;
+          }
+          final ObjectNode block = Utils.createJsonObject();
+          block.put("number", Quantity.of(number).toHex());
+          block.put("hash", hashes.get(number).toHexHash());
+          block.put("parentHash", parents.get(hashes.get(number)).toHexHash());
+          return block;
+        }
+        case "eth_getLogs": {
+          final int from = Quantity.of(params.get(0).get("fromBlock").asText()).toBigInteger().intValue();
+          final int to = Quantity.of(params.get(0).get("toBlock").asText()).toBigInteger().intValue();
+          final ArrayNode logs = Utils.createJsonArray();
+          for (int number = from; number <= to && number < hashes.size(); number++) {
+            for (int i = 0; i < 2; i++) {
+              final ObjectNode log = logs.addObject();
+              log.put("blockNumber", Quantity.of(number).toHex());
+              log.put("blockHash", hashes.get(number).toHexHash());
+              log.put("logIndex", Quantity.of(i).toHex());
+            }
+          }
+          return logs;
+        }
+        default:
+          throw new Error(-32601, "Method not found");
+      }
+    }
+
+    private synchronized void mine(final int count) {
+      for (int i = 0; i < count; i++) {
+        final long number = hashes.size();
+        final Quantity hash = Quantity.of(0x100000 + number * 0x100 + salt);
+        parents.put(hash, number == 0 ? Quantity.of(0) : hashes.get(hashes.size() - 1));
+        hashes.add(hash);
+      }
+    }
+
+    private synchronized void reorg(final int depth, final int length) {
+      salt++;
+      hashes.subList(hashes.size() - depth, hashes.size()).clear();
+      mine(length);
+    }
+  }
+
+  private static void await(final BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + 5_000;
+    while (!condition.getAsBoolean()) {
+      Assert.assertTrue(System.currentTimeMillis() < deadline, "Timeout");
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+  }
+
+  private static List<String> describe(final List<Event> events) {
+    return events.stream()
+      .map(event -> (event.isRemoved() ? "-" : "+") + event.getBlockNumber().toBigInteger() + "/" + event.getLogIndex().toBigInteger())
+      .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testListenerError() throws Exception {
+
+    final Chain chain = new Chain(10);
+    final List<Event> events = new CopyOnWriteArrayList<>();
+    final List<Throwable> errors = new CopyOnWriteArrayList<>();
+    try (Client client = new Client(new InMemoryTransport(chain::handle));
+      EventStream stream = EventStream.builder(client, LogFilter.create())
+        .setFromBlock(5)
+        .setConfirmations(1)
+        .setPollInterval(10)
+        .setErrorHandler(errors::add)
+        .setListener(event -> {
+          events.add(event);
+          if (event.getBlockNumber().equals(Quantity.of(6)) && event.getLogIndex().equals(Quantity.of(0))) {
+            throw new IllegalStateException("listener failed");
+          }
+        })
+        .build()) {
+
+      await(() -> stream.getReleasedBlock() == 9);
+      Assert.assertEquals(describe(events.subList(0, 4)), Arrays.asList("+5/0", "+5/1", "+6/0", "+6/1"));
+      Assert.assertEquals(events.size(), 10);
+      Assert.assertEquals(errors.size(), 1);
+      Assert.assertEquals(stream.getErrorCount(), 0);
+    }
+  }
+
+  @Test
+  public void testStream() throws Exception {
+
+    final Chain chain = new Chain(10);
+    final List<Event> events = new CopyOnWriteArrayList<>();
+    try (Client client = new Client(new InMemoryTransport(chain::handle));
+      EventStream stream = EventStream.builder(client, LogFilter.create())
+        .setFromBlock(5)
+        .setConfirmations(3)
+        .setHistorySize(8)
+        .setMaxRange(4)
+        .setPollInterval(10)
+        .setListener(events::add)
+        .build()) {
+
+      // blocks 5..7 have 3 confirmations
+      await(() -> stream.getReleasedBlock() == 7);
+      Assert.assertEquals(describe(events), Arrays.asList("+5/0", "+5/1", "+6/0", "+6/1", "+7/0", "+7/1"));
+
+      // reorganization of unconfirmed blocks only, nothing retracted
+      events.clear();
+      chain.reorg(2, 3);
+      await(() -> stream.getReleasedBlock() == 8);
+      Assert.assertEquals(describe(events), Arrays.asList("+8/0", "+8/1"));
+      Assert.assertEquals(events.get(0).getBlockHash(), chain.hashes.get(8));
+      Assert.assertEquals(stream.getRetractedCount(), 0);
+
+      // blocks 7 and 8 released and replaced
+      events.clear();
+      chain.reorg(4, 5);
+      await(() -> stream.getReleasedBlock() == 9);
+      Assert.assertEquals(describe(events), Arrays.asList("-8/1", "-8/0", "-7/1", "-7/0", "+7/0", "+7/1", "+8/0", "+8/1", "+9/0", "+9/1"));
+      Assert.assertEquals(events.get(4).getBlockHash(), chain.hashes.get(7));
+      Assert.assertEquals(stream.getRetractedCount(), 4);
+      Assert.assertTrue(stream.getReorgCount() >= 2);
+
+      // long stream passes through the history ring
+      events.clear();
+      chain.mine(100);
+      await(() -> stream.getReleasedBlock() == 109);
+      Assert.assertEquals(events.size(), 200);
+      Assert.assertEquals(events.get(199).getBlockHash(), chain.hashes.get(109));
+      Assert.assertEquals(stream.getErrorCount(), 0);
+    }
+  }
+
+}
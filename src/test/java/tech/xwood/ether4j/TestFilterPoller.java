@@ -0,0 +1,233 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestFilterPoller {
+
+  /**
+   * Node with log and block filters, every block has two logs. Filter changes of replaced blocks are not sent again
+   * and removed logs are not reported, as some nodes do.
+   */
+  private static class Chain {
+
+    private static final Quantity CONTRACT = Quantity.of(0xc0de);
+
+    private final List<Quantity> hashes = new ArrayList<>();
+    private final Map<Quantity, Long> numbers = new HashMap<>();
+    private final Map<Quantity, Quantity> parents = new HashMap<>();
+    private final Map<String, Integer> filters = new HashMap<>();
+    private final Map<String, Boolean> blockFilters = new HashMap<>();
+    private int salt;
+    private int failures;
+
+    private Chain(final int length) {
+      mine(length);
+    }
+
+    private ObjectNode block(final Quantity hash) {
+      final ObjectNode block = Utils.createJsonObject();
+      block.put("number", Quantity.of(numbers.get(hash)).toHex());
+      block.put("hash", hash.toHexHash());
+      block.put("parentHash", parents.get(hash).toHexHash());
+      return block;
+    }
+
+    private synchronized Object handle(final String method, final JsonNode params) {
+      if (failures > 0 && method.startsWith("eth_getBlockBy")) {
+        failures--;
+        throw new Error(-32000, "server busy");
+      }
+      switch (method) {
+        case "eth_blockNumber":
+          return Quantity.of(hashes.size() - 1).toHex();
+        case "eth_newFilter":
+        case "eth_newBlockFilter":
+          final String id = "0x0f" + filters.size() + salt + hashes.size();
+          filters.put(id, hashes.size());
+          blockFilters.put(id, method.equals("eth_newBlockFilter"));
+          return id;
+        case "eth_uninstallFilter":
+          return filters.remove(params.get(0).asText()) != null;
+        case "eth_getFilterChanges": {
+          final String filterId = params.get(0).asText();
+          final Integer from = filters.get(filterId);
+          if (from == null) {
+            throw new Error(-32000, "filter not found");
+          }
+          filters.put(filterId, hashes.size());
+          if (blockFilters.get(filterId)) {
+            final ArrayNode result = Utils.createJsonArray();
+            hashes.subList(Math.min(from, hashes.size()), hashes.size()).forEach(hash -> result.add(hash.toHexHash()));
+            return result;
+          }
+          return logs(from, hashes.size() - 1);
+        }
+        case "eth_getLogs":
+          return logs(
+            Quantity.of(params.get(0).get("fromBlock").asText()).toBigInteger().intValue(),
+            Quantity.of(params.get(0).get("toBlock").asText()).toBigInteger().intValue());
+        case "eth_getBlockByNumber": {
+          final int number = Quantity.of(params.get(0).asText()).toBigInteger().intValue();
+          return number < hashes.size() ? block(hashes.get(number)) : null;
+        }
+        case "eth_getBlockByHash": {
+          final Quantity hash = Quantity.of(params.get(0).asText());
+          return numbers.containsKey(hash) ? block(hash) : null;
+        }
+        default:
+          throw new Error(-32601, "Method not found");
+      }
+    }
+
+    private ArrayNode logs(final int from, final int to) {
+      final ArrayNode logs = Utils.createJsonArray();
+      for (int number = from; number <= to && number < hashes.size(); number++) {
+        for (int i = 0; i < 2; i++) {
+          final ObjectNode log = logs.addObject();
+          log.put("blockNumber", Quantity.of(number).toHex());
+          log.put("blockHash", hashes.get(number).toHexHash());
+          log.put("logIndex", Quantity.of(i).toHex());
+          log.put("address", CONTRACT.toHexAddress());
+        }
+      }
+      return logs;
+    }
+
+    private synchronized void forgetFilters() {
+      filters.clear();
+    }
+
+    private synchronized void mine(final int count) {
+      for (int i = 0; i < count; i++) {
+        final long number = hashes.size();
+        final Quantity hash = Quantity.of(0x100000 + number * 0x100 + salt);
+        numbers.put(hash, number);
+        parents.put(hash, number == 0 ? Quantity.of(0) : hashes.get(hashes.size() - 1));
+        hashes.add(hash);
+      }
+    }
+
+    /**
+     * Mines blocks, the next block requests fail so the poll fails after filter changes were read.
+     */
+    private synchronized void mineFailing(final int count, final int failures) {
+      mine(count);
+      this.failures = failures;
+    }
+
+    private synchronized void reorg(final int depth, final int length) {
+      salt++;
+      hashes.subList(hashes.size() - depth, hashes.size()).clear();
+      mine(length);
+    }
+  }
+
+  private static void await(final BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + 5_000;
+    while (!condition.getAsBoolean()) {
+      Assert.assertTrue(System.currentTimeMillis() < deadline, "Timeout");
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+  }
+
+  private static List<String> describe(final List<Event> events) {
+    return events.stream()
+      .map(event -> (event.isRemoved() ? "-" : "+") + event.getBlockNumber().toBigInteger() + "/" + event.getLogIndex().toBigInteger())
+      .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testFailedPoll() throws Exception {
+
+    final Chain chain = new Chain(10);
+    final List<Event> events = new CopyOnWriteArrayList<>();
+    final List<Block> blocks = new CopyOnWriteArrayList<>();
+    final List<Throwable> errors = new CopyOnWriteArrayList<>();
+    try (Client client = new Client(new InMemoryTransport(chain::handle));
+      FilterPoller poller = FilterPoller.builder(client).setPollInterval(10).setErrorHandler(errors::add).build()) {
+
+      poller.addLogListener(LogFilter.create().addAddress(Chain.CONTRACT), event -> {
+        events.add(event);
+        if (event.getBlockNumber().equals(Quantity.of(11)) && event.getLogIndex().equals(Quantity.of(0))) {
+          throw new IllegalStateException("log listener failed");
+        }
+      });
+      poller.addBlockListener(block -> {
+        blocks.add(block);
+        if (block.getNumber().equals(Quantity.of(11))) {
+          throw new IllegalStateException("block listener failed");
+        }
+      });
+      await(() -> chain.filters.size() == 2);
+
+      // listener exceptions do not stop delivery
+      chain.mine(2);
+      await(() -> events.size() == 4 && blocks.size() == 2);
+      Assert.assertEquals(errors.size(), 2);
+
+      // changes read by a failed poll are delivered by the next one
+      chain.mineFailing(1, 2);
+      await(() -> events.size() == 6 && blocks.size() == 3);
+      Assert.assertEquals(describe(events), Arrays.asList("+10/0", "+10/1", "+11/0", "+11/1", "+12/0", "+12/1"));
+      Assert.assertEquals(blocks.stream().map(Block::getHash).collect(Collectors.toList()), chain.hashes.subList(10, 13));
+      Assert.assertTrue(poller.getErrorCount() >= 2);
+      Assert.assertEquals(errors.size(), 2);
+    }
+  }
+
+  @Test
+  public void testPoll() throws Exception {
+
+    final Chain chain = new Chain(10);
+    final List<Event> events = new CopyOnWriteArrayList<>();
+    final List<Block> blocks = new CopyOnWriteArrayList<>();
+    try (Client client = new Client(new InMemoryTransport(chain::handle));
+      FilterPoller poller = FilterPoller.builder(client).setPollInterval(10).build()) {
+
+      poller.addLogListener(LogFilter.create().addAddress(Chain.CONTRACT), events::add);
+      poller.addBlockListener(blocks::add);
+      await(() -> chain.filters.size() == 2);
+
+      chain.mine(3);
+      await(() -> events.size() == 6 && blocks.size() == 3);
+      Assert.assertEquals(describe(events), Arrays.asList("+10/0", "+10/1", "+11/0", "+11/1", "+12/0", "+12/1"));
+
+      // blocks 11 and 12 replaced, the node reports block 13 only
+      events.clear();
+      blocks.clear();
+      chain.reorg(2, 3);
+      await(() -> events.size() == 10 && blocks.size() == 3);
+      Assert.assertEquals(describe(events),
+        Arrays.asList("-12/1", "-12/0", "-11/1", "-11/0", "+11/0", "+11/1", "+12/0", "+12/1", "+13/0", "+13/1"));
+      Assert.assertEquals(events.get(4).getBlockHash(), chain.hashes.get(11));
+      Assert.assertEquals(blocks.stream().map(Block::getHash).collect(Collectors.toList()), chain.hashes.subList(11, 14));
+      Assert.assertTrue(poller.getReorgCount() >= 2);
+
+      // filters expired, logs of blocks mined meanwhile are queried
+      events.clear();
+      blocks.clear();
+      chain.forgetFilters();
+      chain.mine(2);
+      await(() -> poller.getReinstallCount() == 2 && events.size() == 4);
+      Assert.assertEquals(describe(events), Arrays.asList("+14/0", "+14/1", "+15/0", "+15/1"));
+      chain.mine(1);
+      await(() -> blocks.size() == 3);
+      Assert.assertEquals(blocks.stream().map(Block::getHash).collect(Collectors.toList()), chain.hashes.subList(14, 17));
+    }
+    Assert.assertTrue(chain.filters.isEmpty());
+  }
+
+}
@@ -0,0 +1,56 @@
+package tech.xwood.ether4j;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestHex {
+
+  @Test
+  public void testBytes() {
+
+    final Random random = new Random(1);
+    for (int length = 0; length < 100; length++) {
+      final byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      final StringBuilder expected = new StringBuilder();
+      for (final byte b : bytes) {
+        expected.append(String.format("%02x", b & 0xff));
+      }
+      Assert.assertEquals(Hex.encode(bytes), expected.toString());
+      Assert.assertEquals(Hex.decode(expected), bytes);
+      Assert.assertEquals(Hex.decode("0x" + expected.toString().toUpperCase() + "!", 2, 2 + length * 2), bytes);
+    }
+    Assert.assertEquals(Hex.decode("abc"), new byte[] { 0x0a, (byte) 0xbc });
+
+    final char[] dest = new char[8];
+    Assert.assertEquals(Hex.encode(new byte[] { 1, (byte) 0xfe, 3 }, 1, 2, dest, 3), 7);
+    Assert.assertEquals(new String(dest, 3, 4), "fe03");
+    final byte[] decoded = new byte[4];
+    Assert.assertEquals(Hex.decode("0x0102", 2, 6, decoded, 1), 2);
+    Assert.assertEquals(decoded, new byte[] { 0, 1, 2, 0 });
+
+    Assert.expectThrows(Error.class, () -> Hex.decode("0g"));
+    Assert.expectThrows(Error.class, () -> Hex.decode("\u00e900"));
+  }
+
+  @Test
+  public void testNumber() {
+
+    final Random random = new Random(1);
+    for (int bitLength = 0; bitLength <= 256; bitLength++) {
+      final BigInteger value = new BigInteger(bitLength, random);
+      final String hex = value.toString(16);
+      Assert.assertEquals(Hex.encode(value, 0, false), hex);
+      Assert.assertEquals(Hex.encode(value, 70, true), "0x" + String.format("%70s", hex).replace(' ', '0'));
+      Assert.assertEquals(Hex.getDigitCount(value), hex.length());
+      Assert.assertEquals(Hex.decodeNumber("0x" + hex, 2, 2 + hex.length()), value);
+    }
+    Assert.assertEquals(Quantity.of("0x00ff").toHex(), "0x00ff");
+    Assert.assertEquals(Quantity.of(255).toHexHash(), "0x" + String.format("%64s", "ff").replace(' ', '0'));
+    Assert.expectThrows(Error.class, () -> Quantity.of(0x1ff).toHex(2));
+    Assert.expectThrows(Error.class, () -> Quantity.of("0x-1"));
+  }
+
+}
@@ -0,0 +1,138 @@
+package tech.xwood.ether4j;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestIpcTransport {
+
+  private static final MockRpcServer.Handler HANDLER = (method, params) -> {
+    switch (method) {
+      case "eth_getBalance":
+        return params.get(0).asText();
+      case "eth_gasPrice":
+        return "0x1";
+      default:
+        throw new Error(-32601, "Method not found");
+    }
+  };
+
+  private static long measure(final Client client, final int count) {
+    final long start = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      client.getGasPrice();
+    }
+    return System.nanoTime() - start;
+  }
+
+  @BeforeClass
+  public void checkSupported() {
+    if (!IpcTransport.isSupported()) {
+      throw new SkipException("Unix domain sockets are not supported by this JVM");
+    }
+  }
+
+  @Test
+  public void testError() {
+    try (MockIpcServer server = MockIpcServer.start(HANDLER);
+      Client client = new Client(server.getPath().toString())) {
+      final Error e = Assert.expectThrows(Error.class, client::getLastBlockNumber);
+      Assert.assertEquals(e.getCode(), -32601);
+    }
+  }
+
+  @Test
+  public void testFramer() {
+
+    final String message1 = "{\"id\":\"1\",\"result\":\"}\\\"{\"}";
+    final String message2 = "[{\"id\":\"2\",\"result\":[1,{\"a\":\"]\"}]}]";
+    final byte[] stream = (message1 + "\n" + message2 + message1).getBytes(StandardCharsets.UTF_8);
+    final List<String> messages = new ArrayList<>();
+    final IpcTransport.Framer framer = new IpcTransport.Framer(DuplexTransport.DEFAULT_MAX_MESSAGE_SIZE);
+    for (int i = 0; i < stream.length; i += 5) {
+      framer.feed(ByteBuffer.wrap(stream, i, Math.min(5, stream.length - i)).slice(), message -> messages.add(new String(message, StandardCharsets.UTF_8)));
+    }
+    Assert.assertEquals(messages.size(), 3);
+    Assert.assertEquals(messages.get(0), message1);
+    Assert.assertEquals(messages.get(1), message2);
+    Assert.assertEquals(messages.get(2), message1);
+  }
+
+  @Test
+  public void testLatency() {
+
+    try (MockIpcServer ipcServer = MockIpcServer.start(HANDLER);
+      MockRpcServer httpServer = MockRpcServer.start(HANDLER);
+      Client ipcClient = new Client(ipcServer.getPath().toString());
+      Client httpClient = new Client(httpServer.getUri())) {
+
+      final int count = 500;
+      measure(ipcClient, count);
+      measure(httpClient, count);
+      final long ipcTime = measure(ipcClient, count);
+      final long httpTime = measure(httpClient, count);
+      Assert.assertTrue(ipcTime < httpTime);
+    }
+  }
+
+  @Test
+  public void testMaxMessageSize() {
+
+    final IpcTransport.Framer framer = new IpcTransport.Framer(16);
+    final List<byte[]> messages = new ArrayList<>();
+    framer.feed(ByteBuffer.wrap("{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8)), messages::add);
+    Assert.assertEquals(messages.size(), 1);
+    Assert.expectThrows(Error.class, () -> framer.feed(ByteBuffer.wrap("[\"0123456789abcdef\"]".getBytes(StandardCharsets.UTF_8)), messages::add));
+    Assert.expectThrows(Error.class, () -> new IpcTransport.Framer(16).feed(ByteBuffer.wrap("{\"id\":\"0123456789".getBytes(StandardCharsets.UTF_8)), messages::add));
+    Assert.assertEquals(messages.size(), 1);
+
+    try (MockIpcServer server = MockIpcServer.start(HANDLER);
+      Client client = Client.builder(server.getPath().toString()).setMaxMessageSize(64).build()) {
+      final Error e = Assert.expectThrows(Error.class, () -> client.getBalance(Quantity.of(1)));
+      Assert.assertEquals(e.getCause().getMessage(), "IPC message is too large");
+    }
+  }
+
+  @Test
+  public void testPipelining() throws Exception {
+
+    try (MockIpcServer server = MockIpcServer.start(HANDLER);
+      Client client = Client.builder("ipc://" + server.getPath()).build()) {
+
+      final ExecutorService executor = Executors.newFixedThreadPool(16);
+      final List<Future<Quantity>> balances = new ArrayList<>();
+      for (int i = 0; i < 500; i++) {
+        final Quantity address = Quantity.of(i);
+        balances.add(executor.submit(() -> client.getBalance(address)));
+      }
+      for (int i = 0; i < 500; i++) {
+        Assert.assertEquals(balances.get(i).get(), Quantity.of(i));
+      }
+      executor.shutdown();
+
+      final Client.Batch batch = client.createBatch();
+      final Client.Batch.Call<Quantity> balance = batch.add(Quantity.class, "eth_getBalance", Quantity.of(7).toHexAddress(), "latest");
+      batch.execute();
+      Assert.assertEquals(balance.get(), Quantity.of(7));
+    }
+  }
+
+  @Test
+  public void testServerClosed() {
+    final MockIpcServer server = MockIpcServer.start(HANDLER);
+    final Client client = new Client(server.getPath().toString());
+    server.close();
+    client.close();
+    Assert.expectThrows(Error.class, client::getGasPrice);
+    Assert.expectThrows(Error.class, () -> new Client(server.getPath().toString()));
+  }
+
+}
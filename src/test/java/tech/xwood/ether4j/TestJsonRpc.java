@@ -0,0 +1,75 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestJsonRpc {
+
+  private static byte[] bytes(final String json) {
+    return json.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testReadIds() {
+    Assert.assertEquals(JsonRpc.readIds(bytes("{\"jsonrpc\":\"2.0\",\"result\":{\"id\":\"x\"},\"id\":\"1\"}")), Arrays.asList("1"));
+    Assert.assertEquals(JsonRpc.readIds(bytes("[{\"id\":1},{\"id\":\"2\"}]")), Arrays.asList("1", "2"));
+    Assert.assertTrue(JsonRpc.readIds(bytes("{\"method\":\"eth_subscription\",\"params\":{}}")).isEmpty());
+  }
+
+  @Test
+  public void testReadItems() {
+    final List<byte[]> items = JsonRpc.readItems(bytes(" [ {\"id\":1,\"result\":[1,{}]} , {\"id\":2} ]"));
+    Assert.assertEquals(items.size(), 2);
+    Assert.assertEquals(new String(items.get(0), StandardCharsets.UTF_8), "{\"id\":1,\"result\":[1,{}]}");
+    Assert.assertEquals(new String(items.get(1), StandardCharsets.UTF_8), "{\"id\":2}");
+  }
+
+  @Test
+  public void testReadResult() {
+
+    Assert.assertEquals(
+      JsonRpc.readResult(bytes("{\"result\":\"0x2a\",\"jsonrpc\":\"2.0\",\"id\":\"1\"}"), "1", Quantity.class),
+      Quantity.of(42));
+    Assert.assertNull(JsonRpc.readResult(bytes("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":null}"), "1", Transaction.class));
+
+    final Transaction tx = Transaction.create().setHash(Quantity.of(7)).setNonce(Quantity.of(1));
+    final byte[] response = bytes("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"extra\":{\"a\":[1]},\"result\":" + Utils.toJson(tx) + "}");
+    Assert.assertEquals(JsonRpc.readResult(response, "1", Transaction.class), tx);
+    Assert.assertEquals(
+      JsonRpc.readResult(response, "1", Transaction.class),
+      JsonRpc.getResult(Utils.fromJson(response, JsonNode.class), "1", Transaction.class));
+
+    final Error error = Assert.expectThrows(Error.class,
+      () -> JsonRpc.readResult(bytes("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"error\":{\"code\":-32000,\"message\":\"nonce too low\"}}"), "1", Quantity.class));
+    Assert.assertEquals(error.getCode(), -32000);
+    Assert.assertEquals(error.getMessage(), "nonce too low");
+
+    Assert.expectThrows(Error.class, () -> JsonRpc.readResult(bytes("{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":\"0x1\"}"), "1", Quantity.class));
+    Assert.expectThrows(Error.class, () -> JsonRpc.readResult(bytes("[]"), "1", Quantity.class));
+  }
+
+  @Test
+  public void testWriteRequest() {
+
+    final Transaction tx = Transaction.create().setTo(Quantity.of(10)).setValue(Quantity.of(1));
+    Assert.assertEquals(
+      new String(JsonRpc.writeRequest(5, "eth_call", tx, "latest"), StandardCharsets.UTF_8),
+      "{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"eth_call\",\"params\":[" + Utils.toJson(tx) + ",\"latest\"]}");
+    Assert.assertEquals(
+      new String(JsonRpc.writeRequest(6, "eth_gasPrice"), StandardCharsets.UTF_8),
+      "{\"jsonrpc\":\"2.0\",\"id\":6,\"method\":\"eth_gasPrice\"}");
+    Assert.assertEquals(
+      new String(JsonRpc.writeBatch(7, 2, i -> "m" + i, i -> new Object[] { i }), StandardCharsets.UTF_8),
+      "[{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"m0\",\"params\":[0]},{\"jsonrpc\":\"2.0\",\"id\":8,\"method\":\"m1\",\"params\":[1]}]");
+
+    final String data = new String(new char[100_000]).replace('\0', 'a');
+    Assert.assertEquals(JsonRpc.readIds(JsonRpc.writeRequest(9, "eth_sendRawTransaction", data)), Arrays.asList("9"));
+    Assert.assertEquals(JsonRpc.readIds(JsonRpc.writeRequest(10, "eth_sendRawTransaction", "0x")), Arrays.asList("10"));
+    Assert.assertTrue(JsonRpc.nextIds(2) + 2 <= JsonRpc.nextIds(1));
+  }
+
+}
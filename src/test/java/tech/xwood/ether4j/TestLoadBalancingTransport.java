@@ -0,0 +1,264 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestLoadBalancingTransport {
+
+  /**
+   * Mock node answering after a delay, counting balance and raw transaction calls.
+   */
+  private static class Node implements AutoCloseable {
+
+    final AtomicInteger balanceCalls = new AtomicInteger();
+    final AtomicInteger sendCalls = new AtomicInteger();
+    final AtomicLong blockNumber = new AtomicLong(100);
+    volatile long delay;
+    final MockRpcServer server;
+
+    Node(final long delay) {
+      this.delay = delay;
+      server = MockRpcServer.start(this::handle, 16);
+    }
+
+    @Override
+    public void close() {
+      server.close();
+    }
+
+    private Object handle(final String method, final JsonNode params) {
+      switch (method) {
+        case "eth_blockNumber":
+          sleep(delay);
+          return Quantity.of(blockNumber.get());
+        case "eth_getBalance":
+          balanceCalls.incrementAndGet();
+          sleep(delay);
+          return params.get(0).asText();
+        case "eth_sendTransaction":
+          sendCalls.incrementAndGet();
+          sleep(delay);
+          return Quantity.of(1).toHexHash();
+        default:
+          throw new Error(-32601, "Method not found");
+      }
+    }
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void getBalancesConcurrently(final Client client, final int count) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(12);
+    final List<Future<Quantity>> balances = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final Quantity address = Quantity.of(i);
+      balances.add(executor.submit(() -> client.getBalance(address)));
+    }
+    for (int i = 0; i < count; i++) {
+      Assert.assertEquals(balances.get(i).get(), Quantity.of(i));
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  public void testFailover() {
+
+    try (Node alive = new Node(0)) {
+      final Node dead = new Node(0);
+      dead.close();
+      try (LoadBalancingTransport transport = LoadBalancingTransport.builder()
+        .addEndpoint(dead.server.getUri())
+        .addEndpoint(alive.server.getUri())
+        .build();
+        Client client = new Client(transport)) {
+
+        for (int i = 0; i < 10; i++) {
+          Assert.assertEquals(client.getBalance(Quantity.of(i)), Quantity.of(i));
+        }
+        Assert.assertEquals(alive.balanceCalls.get(), 10);
+        Assert.assertFalse(transport.getEndpoints().get(0).isAvailable());
+        Assert.assertTrue(transport.getEndpoints().get(1).isAvailable());
+      }
+    }
+  }
+
+  @Test
+  public void testHedging() {
+
+    try (Node slow = new Node(500);
+      Node fast = new Node(0);
+      LoadBalancingTransport transport = LoadBalancingTransport.builder()
+        .addEndpoint(slow.server.getUri())
+        .addEndpoint(fast.server.getUri())
+        .setHedgeDelay(20)
+        .build();
+      Client client = new Client(transport)) {
+
+      for (int i = 0; i < 6; i++) {
+        final long start = System.nanoTime();
+        Assert.assertEquals(client.getBalance(Quantity.of(i)), Quantity.of(i));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(400));
+      }
+      Assert.assertTrue(slow.balanceCalls.get() > 0);
+
+      // writes are never hedged
+      client.sendTransaction(Transaction.create().setTo(Quantity.of(1)));
+      client.sendTransaction(Transaction.create().setTo(Quantity.of(1)));
+      Assert.assertEquals(slow.sendCalls.get() + fast.sendCalls.get(), 2);
+    }
+  }
+
+  @Test
+  public void testHealthCheckPending() throws Exception {
+
+    try (Node node1 = new Node(300);
+      Node node2 = new Node(300);
+      LoadBalancingTransport transport = LoadBalancingTransport.builder()
+        .addEndpoint(node1.server.getUri())
+        .addEndpoint(node2.server.getUri())
+        .setHealthCheckInterval(200)
+        .build()) {
+
+      for (final LoadBalancingTransport.Endpoint endpoint : transport.getEndpoints()) {
+        Assert.assertTrue(endpoint.isAvailable());
+      }
+      for (int i = 0; i < 100 && (transport.getEndpoints().get(0).getBlockNumber() < 0 || transport.getEndpoints().get(1).getBlockNumber() < 0); i++) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      for (final LoadBalancingTransport.Endpoint endpoint : transport.getEndpoints()) {
+        Assert.assertEquals(endpoint.getBlockNumber(), 100);
+        Assert.assertTrue(endpoint.isAvailable());
+      }
+    }
+  }
+
+  @Test
+  public void testLaggingEjection() throws Exception {
+
+    try (Node node1 = new Node(0);
+      Node node2 = new Node(0);
+      Node lagging = new Node(0)) {
+
+      lagging.blockNumber.set(90);
+      try (LoadBalancingTransport transport = LoadBalancingTransport.builder()
+        .addEndpoint(node1.server.getUri())
+        .addEndpoint(node2.server.getUri())
+        .addEndpoint(lagging.server.getUri())
+        .setHealthCheckInterval(20)
+        .setMaxBlockLag(5)
+        .build();
+        Client client = new Client(transport)) {
+
+        for (int i = 0; i < 100 && transport.getEndpoints().get(2).isAvailable(); i++) {
+          TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assert.assertTrue(transport.getEndpoints().get(0).isAvailable());
+        Assert.assertTrue(transport.getEndpoints().get(1).isAvailable());
+        Assert.assertFalse(transport.getEndpoints().get(2).isAvailable());
+        Assert.assertEquals(transport.getEndpoints().get(2).getBlockNumber(), 90);
+        getBalancesConcurrently(client, 30);
+        Assert.assertEquals(lagging.balanceCalls.get(), 0);
+        Assert.assertEquals(node1.balanceCalls.get() + node2.balanceCalls.get(), 30);
+
+        lagging.blockNumber.set(100);
+        for (int i = 0; i < 100 && !transport.getEndpoints().get(2).isAvailable(); i++) {
+          TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assert.assertTrue(transport.getEndpoints().get(2).isAvailable());
+      }
+    }
+  }
+
+  @Test
+  public void testLatencyRecovery() throws Exception {
+
+    try (Node node1 = new Node(50);
+      Node node2 = new Node(0);
+      LoadBalancingTransport transport = LoadBalancingTransport.builder()
+        .addEndpoint(node1.server.getUri())
+        .addEndpoint(node2.server.getUri())
+        .setStrategy(LoadBalancingTransport.Strategy.LATENCY_WEIGHTED)
+        .setHealthCheckInterval(30)
+        .build();
+      Client client = new Client(transport)) {
+
+      // health checks measure every endpoint several times, also the one never selected
+      TimeUnit.MILLISECONDS.sleep(500);
+      Assert.assertTrue(transport.getEndpoints().get(0).getLatency() > transport.getEndpoints().get(1).getLatency());
+      node1.delay = 0;
+      node2.delay = 50;
+      for (int i = 0; i < 100 && transport.getEndpoints().get(0).getLatency() * 2 > transport.getEndpoints().get(1).getLatency(); i++) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      for (int i = 0; i < 20; i++) {
+        client.getBalance(Quantity.of(i));
+      }
+      Assert.assertEquals(node1.balanceCalls.get(), 20);
+    }
+  }
+
+  @Test
+  public void testLatencyWeighted() throws Exception {
+
+    try (Node slow = new Node(30);
+      Node fast1 = new Node(0);
+      Node fast2 = new Node(0);
+      LoadBalancingTransport transport = LoadBalancingTransport.builder()
+        .addEndpoint(slow.server.getUri())
+        .addEndpoint(fast1.server.getUri())
+        .addEndpoint(fast2.server.getUri())
+        .setStrategy(LoadBalancingTransport.Strategy.LATENCY_WEIGHTED)
+        .setHealthCheckInterval(30)
+        .build();
+      Client client = new Client(transport)) {
+
+      // a cold first request may be slow, health checks correct it before the calls
+      TimeUnit.MILLISECONDS.sleep(500);
+      for (int i = 0; i < 100; i++) {
+        client.getBalance(Quantity.of(i));
+      }
+      Assert.assertTrue(slow.balanceCalls.get() < 10, "slow endpoint calls: " + slow.balanceCalls.get());
+      Assert.assertTrue(transport.getEndpoints().get(0).getLatency() > transport.getEndpoints().get(1).getLatency());
+    }
+  }
+
+  @Test
+  public void testLeastOutstanding() throws Exception {
+
+    try (Node node1 = new Node(10);
+      Node node2 = new Node(10);
+      Node node3 = new Node(10);
+      LoadBalancingTransport transport = LoadBalancingTransport.builder()
+        .addEndpoint(node1.server.getUri())
+        .addEndpoint(node2.server.getUri())
+        .addEndpoint(node3.server.getUri())
+        .build();
+      Client client = new Client(transport)) {
+
+      getBalancesConcurrently(client, 60);
+      for (final Node node : new Node[] { node1, node2, node3 }) {
+        Assert.assertTrue(node.balanceCalls.get() >= 10, "calls: " + node.balanceCalls.get());
+      }
+      for (final LoadBalancingTransport.Endpoint endpoint : transport.getEndpoints()) {
+        Assert.assertEquals(endpoint.getOutstanding(), 0);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,155 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestLogDownloader {
+
+  private static final int MAX_RESULTS = 100;
+  private static final Quantity CONTRACT = Quantity.of(0xc0de);
+  private static final Quantity TRANSFER = Quantity.of(0x7a);
+
+  /**
+   * Block n has n % 7 logs of the contract and one log of another contract.
+   */
+  private static Object logsOf(final String method, final JsonNode params) {
+
+    if (!"eth_getLogs".equals(method)) {
+      throw new Error(-32601, "Method not found");
+    }
+    final JsonNode query = params.get(0);
+    final long from = Quantity.of(query.get("fromBlock").asText()).toBigInteger().longValue();
+    final long to = Quantity.of(query.get("toBlock").asText()).toBigInteger().longValue();
+    final Quantity address = query.has("address") ? Quantity.of(query.get("address").get(0).asText()) : null;
+    final ArrayNode logs = Utils.createJsonArray();
+    for (long block = from; block <= to; block++) {
+      for (int i = 0; i <= block % 7; i++) {
+        final Quantity logAddress = i == 0 ? Quantity.of(1) : CONTRACT;
+        if (address != null && !address.equals(logAddress)) {
+          continue;
+        }
+        final ObjectNode log = logs.addObject();
+        log.put("blockNumber", Quantity.of(block).toHex());
+        log.put("logIndex", Quantity.of(i).toHex());
+        log.put("address", logAddress.toHexAddress());
+        log.putArray("topics").add(TRANSFER.toHexHash());
+        if (logs.size() > MAX_RESULTS) {
+          throw new Error(-32005, "query returned more than " + MAX_RESULTS + " results");
+        }
+      }
+    }
+    return logs;
+  }
+
+  @Test
+  public void testDownload() {
+
+    try (Client client = new Client(new InMemoryTransport(TestLogDownloader::logsOf));
+      LogDownloader downloader = LogDownloader.builder(client).setMaxRange(1000).setMaxConcurrency(4).build()) {
+
+      final LogFilter filter = LogFilter.create().addAddress(CONTRACT).addTopic(TRANSFER);
+      final Iterator<Event> events = downloader.download(filter, 0, 9999);
+      long expectedCount = 0;
+      for (long block = 0; block <= 9999; block++) {
+        expectedCount += block % 7;
+      }
+      long count = 0;
+      long lastBlock = -1;
+      long lastIndex = 0;
+      while (events.hasNext()) {
+        final Event event = events.next();
+        final long block = event.getBlockNumber().toBigInteger().longValue();
+        final long index = event.getLogIndex().toBigInteger().longValue();
+        Assert.assertTrue(block > lastBlock || block == lastBlock && index > lastIndex, "Logs are out of order");
+        Assert.assertEquals(event.getAddress(), CONTRACT);
+        Assert.assertTrue(filter.matches(event));
+        lastBlock = block;
+        lastIndex = index;
+        count++;
+      }
+      Assert.assertEquals(count, expectedCount);
+      Assert.assertTrue(downloader.getSplitCount() > 0);
+      Assert.assertTrue(downloader.getRangeSize() < 1000);
+      // range size adapted, later queries do not fail again and again
+      Assert.assertTrue(downloader.getQueryCount() < 2 * count / MAX_RESULTS + 100);
+
+      final List<Event> first = downloader.stream(filter, 10, 13).collect(Collectors.toList());
+      Assert.assertEquals(first.size(), 3 + 4 + 5 + 6);
+    }
+  }
+
+  @Test
+  public void testGetLogs() {
+
+    try (Client client = new Client(new InMemoryTransport(TestLogDownloader::logsOf))) {
+      final List<Event> events = client.getLogs(LogFilter.create(), Quantity.of(6), Quantity.of(7));
+      Assert.assertEquals(events.size(), 7 + 1);
+      Assert.assertEquals(events.get(0).getBlockNumber(), Quantity.of(6));
+      Assert.assertFalse(events.get(0).isRemoved());
+      final Error e = Assert.expectThrows(Error.class, () -> client.getLogs(LogFilter.create(), Quantity.of(0), Quantity.of(1000)));
+      Assert.assertTrue(LogDownloader.isTooManyResults(e));
+    }
+  }
+
+  @Test
+  public void testParallelSplit() {
+
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    try (Client client = new Client(new InMemoryTransport((method, params) -> {
+      final int current = running.incrementAndGet();
+      maxRunning.accumulateAndGet(current, Math::max);
+      try {
+        final Object logs = logsOf(method, params);
+        TimeUnit.MILLISECONDS.sleep(50);
+        return logs;
+      }
+      catch (final InterruptedException e) {
+        throw new Error(e);
+      }
+      finally {
+        running.decrementAndGet();
+      }
+    }));
+      LogDownloader downloader = LogDownloader.builder(client).setMaxRange(100).setMaxConcurrency(4).build()) {
+
+      final List<Event> events = downloader.stream(LogFilter.create(), 0, 99).collect(Collectors.toList());
+      long expectedCount = 0;
+      for (long block = 0; block <= 99; block++) {
+        expectedCount += block % 7 + 1;
+      }
+      Assert.assertEquals(events.size(), expectedCount);
+      Assert.assertTrue(downloader.getSplitCount() > 0);
+      Assert.assertTrue(maxRunning.get() > 1, "Halves are not queried in parallel");
+    }
+  }
+
+  @Test
+  public void testTooManyResults() {
+
+    Assert.assertTrue(LogDownloader.isTooManyResults(new Error(-32005, "limit exceeded")));
+    Assert.assertTrue(LogDownloader.isTooManyResults(new Error(-32000, "query returned more than 10000 results")));
+    Assert.assertTrue(LogDownloader.isTooManyResults(new Error(-32602, "Log response size exceeded. You can make eth_getLogs requests with up to a 2K block range")));
+    Assert.assertTrue(LogDownloader.isTooManyResults(new Error(-32600, "block range is too wide")));
+    Assert.assertFalse(LogDownloader.isTooManyResults(new Error(-32000, "execution reverted: more than allowed")));
+    Assert.assertFalse(LogDownloader.isTooManyResults(new Error(-32602, "invalid block range params")));
+    Assert.assertFalse(LogDownloader.isTooManyResults(new Error(-32000, "header not found")));
+  }
+
+  @Test
+  public void testFilter() {
+
+    final LogFilter filter = LogFilter.create().addAddress(CONTRACT).addTopic().addTopic(TRANSFER, Quantity.of(1));
+    Assert.assertEquals(filter.toString(),
+      "{\"address\":[\"" + CONTRACT.toHexAddress() + "\"],\"topics\":[null,[\"" + TRANSFER.toHexHash() + "\",\"" + Quantity.of(1).toHexHash() + "\"]]}");
+  }
+
+}
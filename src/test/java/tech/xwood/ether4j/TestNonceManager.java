@@ -0,0 +1,158 @@
+package tech.xwood.ether4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import tech.xwood.ether4j.abi.AbiValue;
+
+public class TestNonceManager {
+
+  private static InMemoryTransport.Handler handler(final AtomicInteger syncs, final AtomicBoolean nonceTooLow, final List<Quantity> sent) {
+    return (method, params) -> {
+      switch (method) {
+        case "eth_getTransactionCount":
+          Assert.assertEquals(params.get(1).asText(), "pending");
+          return Quantity.of(syncs.incrementAndGet() == 1 ? 3 : 100).toHex();
+        case "eth_sendRawTransaction":
+          if (nonceTooLow.getAndSet(false)) {
+            throw new Error(-32000, "nonce too low");
+          }
+          final Quantity rawTx = Quantity.of(params.get(0).asText());
+          sent.add(Crypto.decodeRawTransaction(rawTx).getNonce());
+          return Crypto.keccak256(rawTx).toHex();
+        default:
+          throw new Error(-32601, "Method not found");
+      }
+    };
+  }
+
+  @Test
+  public void testAllocate() {
+
+    final AtomicInteger syncs = new AtomicInteger();
+    final AtomicLong pending = new AtomicLong(7);
+    final NonceManager nonces = new NonceManager(address -> {
+      syncs.incrementAndGet();
+      return CompletableFuture.completedFuture(Quantity.of(pending.get()));
+    });
+    final Quantity address = Quantity.of(1);
+
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(7));
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(8));
+    final Quantity nine = nonces.allocate(address).join();
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(10));
+    Assert.assertEquals(syncs.get(), 1);
+    Assert.assertEquals(nonces.getInFlightCount(address), 4);
+
+    // released nonce fills the gap first
+    nonces.release(address, nine);
+    Assert.assertEquals(nonces.allocate(address).join(), nine);
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(11));
+    for (int i = 7; i <= 11; i++) {
+      nonces.confirm(address, Quantity.of(i));
+    }
+    Assert.assertEquals(nonces.getInFlightCount(address), 0);
+
+    // another client sent from the same account
+    pending.set(20);
+    nonces.resync(address);
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(20));
+    Assert.assertEquals(syncs.get(), 2);
+
+    // lost transactions leave a gap, refilled from the pending count when nothing is in flight
+    nonces.confirm(address, Quantity.of(20));
+    nonces.resync(address);
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(20));
+  }
+
+  @Test
+  public void testAsyncClientSend() {
+
+    final AtomicInteger syncs = new AtomicInteger();
+    final List<Quantity> sent = new CopyOnWriteArrayList<>();
+    final Account account = Account.generate();
+    try (AsyncClient client = new AsyncClient(new InMemoryTransport(handler(syncs, new AtomicBoolean(), sent)), 16)) {
+
+      final Quantity to = Quantity.of(2);
+      client.callContractMethodTransact(account, to, Quantity.of(50000), Quantity.of(1), Quantity.of(0), "vote", new AbiValue[0]).join();
+      final Transaction template = Transaction.create().setTo(to).setGasLimit(Quantity.of(21000)).setGasPrice(Quantity.of(1));
+      client.sendRawTransaction(account, template).join();
+      client.sendRawTransaction(account, template).join();
+      Assert.assertNull(template.getNonce());
+      Assert.assertEquals(sent, Arrays.asList(Quantity.of(3), Quantity.of(4), Quantity.of(5)));
+      Assert.assertEquals(syncs.get(), 1);
+      Assert.assertEquals(client.getNonceManager().getInFlightCount(account.getAddress()), 0);
+    }
+  }
+
+  @Test
+  public void testClientSend() throws Exception {
+
+    final AtomicInteger syncs = new AtomicInteger();
+    final AtomicBoolean nonceTooLow = new AtomicBoolean();
+    final List<Quantity> sent = new CopyOnWriteArrayList<>();
+    final InMemoryTransport transport = new InMemoryTransport(handler(syncs, nonceTooLow, sent));
+
+    final Account account = Account.generate();
+    final int txCount = 200;
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try (Client client = Client.builder(transport).setCoalescing(true).setCoalescingWindow(60_000).build()) {
+
+      // one template shared by all threads, signed copies get the nonces
+      final Transaction template = Transaction.create().setTo(Quantity.of(2)).setGasLimit(Quantity.of(21000)).setGasPrice(Quantity.of(1));
+      final List<Future<Quantity>> hashes = new ArrayList<>();
+      for (int i = 0; i < txCount; i++) {
+        hashes.add(executor.submit(() -> client.sendRawTransaction(account, template)));
+      }
+      for (final Future<Quantity> hash : hashes) {
+        hash.get();
+      }
+      Assert.assertNull(template.getNonce());
+      Assert.assertEquals(new HashSet<>(sent).size(), txCount);
+      Assert.assertEquals(syncs.get(), 1);
+      Assert.assertEquals(client.getNonceManager().getInFlightCount(account.getAddress()), 0);
+
+      // nonce too low: resync bypasses coalescing and retries with the pending count
+      nonceTooLow.set(true);
+      client.sendRawTransaction(account, template);
+      Assert.assertEquals(sent.get(sent.size() - 1), Quantity.of(100));
+      Assert.assertEquals(syncs.get(), 2);
+
+      // explicit nonce is never allocated, the skipped one is allocated first
+      client.sendRawTransaction(account, Transaction.create().setTo(Quantity.of(2)).setGasLimit(Quantity.of(21000)).setGasPrice(Quantity.of(1)).setNonce(Quantity.of(102)));
+      client.sendRawTransaction(account, template);
+      client.sendRawTransaction(account, template);
+      Assert.assertEquals(sent.subList(sent.size() - 3, sent.size()), Arrays.asList(Quantity.of(102), Quantity.of(101), Quantity.of(103)));
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testMarkUsed() {
+
+    final NonceManager nonces = new NonceManager(address -> CompletableFuture.completedFuture(Quantity.of(5)));
+    final Quantity address = Quantity.of(1);
+
+    nonces.markUsed(address, Quantity.of(3));
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(5));
+    nonces.markUsed(address, Quantity.of(8));
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(6));
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(7));
+    Assert.assertEquals(nonces.allocate(address).join(), Quantity.of(9));
+  }
+
+}
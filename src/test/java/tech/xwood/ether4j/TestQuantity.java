@@ -1,6 +1,8 @@
 package tech.xwood.ether4j;
 
+import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.Random;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -15,6 +17,53 @@ public class TestQuantity {
     return Quantity.of(next);
   }
 
+  @Test
+  public void testCompact() {
+
+    final Random random = new Random(1);
+    for (int bitLength = 0; bitLength <= 256; bitLength++) {
+      final BigInteger value = new BigInteger(bitLength, random);
+      final Quantity big = Quantity.of(value);
+      final Quantity hash = Quantity.of(Quantity.of(value).toHexHash());
+      Assert.assertTrue(hash instanceof Hash);
+      Assert.assertEquals(hash.toBigInteger(), value);
+      Assert.assertEquals(hash, big);
+      Assert.assertEquals(big, hash);
+      Assert.assertEquals(hash.hashCode(), value.hashCode());
+      Assert.assertEquals(big.hashCode(), value.hashCode());
+      Assert.assertSame(hash.toHex(), hash.toHexHash());
+      Assert.assertEquals(hash.toHexWithoutPrefix(), String.format("%64s", value.toString(16)).replace(' ', '0'));
+      Assert.assertEquals(Hash.of(hash.toBytes(Hash.BYTES)), hash);
+      Assert.assertEquals(Hash.of(big.toBytes()), hash);
+      Assert.assertEquals(Hash.of(big), hash);
+      Assert.assertEquals(Quantity.of("0x" + value.toString(16)), big);
+      if (bitLength <= 160) {
+        final Quantity address = Quantity.of(big.toHexAddress());
+        Assert.assertTrue(address instanceof Address);
+        Assert.assertEquals(address, hash);
+        Assert.assertEquals(address.hashCode(), value.hashCode());
+        Assert.assertEquals(address.toBytes(), big.toBytes());
+        Assert.assertEquals(Address.of(address.toBytes(Address.BYTES)), address);
+        Assert.assertEquals(Address.of(big), address);
+        Assert.assertEquals(Address.of("0x" + value.toString(16)), address);
+      }
+      if (bitLength < 64) {
+        Assert.assertEquals(big.toLong(), value.longValue());
+        Assert.assertEquals(Quantity.of(value.longValue()), hash);
+        Assert.assertEquals(Quantity.of(value.longValue()).hashCode(), value.hashCode());
+      }
+    }
+    Assert.assertEquals(Quantity.of(Long.MAX_VALUE).toHex(), "0x7fffffffffffffff");
+    Assert.assertEquals(Quantity.of("0xffffffffffffffff").toBigInteger(), BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE));
+    Assert.assertEquals(Quantity.of("0x0000ff").toHexWithoutPrefix(), "0000ff");
+    Assert.assertEquals(Address.of(Quantity.of(255)).toHex(), "0x" + String.format("%40s", "ff").replace(' ', '0'));
+    Assert.assertEquals(Address.of(Quantity.of(255)).toHex(2), "0xff");
+    Assert.expectThrows(Error.class, () -> Address.of(Quantity.of(BigInteger.ONE.shiftLeft(160))));
+    Assert.expectThrows(Error.class, () -> Address.of(new byte[21]));
+    Assert.expectThrows(Error.class, () -> Quantity.of(1L << 62).toHex(4));
+    Assert.expectThrows(Error.class, () -> Quantity.of(BigInteger.ONE.shiftLeft(64)).toLong());
+  }
+
   @Test
   public void testEquals() {
     Assert.assertEquals(Quantity.of(0), Quantity.of(0));
@@ -79,6 +128,19 @@ public class TestQuantity {
     Assert.assertEquals(orig, hex);
   }
 
+  @Test
+  public void testJson() {
+
+    final Address address = Address.of("0xc0ffee254729296a45a3885639ac7e10f9d54979");
+    final Hash hash = Hash.of(Crypto.keccak256(new byte[] { 1 }));
+    Assert.assertEquals(Utils.toJson(address), "\"" + address.toHex() + "\"");
+    Assert.assertEquals(Utils.fromJson(Utils.toJson(address), Address.class), address);
+    Assert.assertEquals(Utils.fromJson(Utils.toJson(hash), Hash.class), hash);
+    Assert.assertTrue(Utils.fromJson(Utils.toJson(hash), Quantity.class) instanceof Hash);
+    Assert.assertEquals(Utils.fromJson("\"0x1\"", Address.class).toHex(), Quantity.of(1).toHexAddress());
+    Assert.assertEquals(Utils.fromJson("\"0x0a\"", Quantity.class).toHex(), "0x0a");
+  }
+
   @Test
   public void testToBytes() {
     Assert.assertEquals(Quantity.of(Quantity.of(0).toBytes()), Quantity.of(0));
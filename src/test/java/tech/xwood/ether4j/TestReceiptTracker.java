@@ -0,0 +1,128 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestReceiptTracker {
+
+  private static class Chain {
+
+    private final AtomicLong head = new AtomicLong(1);
+    private final Map<Quantity, Long> mined = new ConcurrentHashMap<>();
+    private final AtomicInteger receiptCalls = new AtomicInteger();
+
+    private Client connect() {
+      return new Client(new InMemoryTransport((method, params) -> {
+        switch (method) {
+          case "eth_blockNumber":
+            return Quantity.of(head.get()).toHex();
+          case "eth_getTransactionReceipt":
+            receiptCalls.incrementAndGet();
+            final Quantity txHash = Quantity.of(params.get(0).asText());
+            final Long blockNumber = mined.get(txHash);
+            if (blockNumber == null) {
+              return null;
+            }
+            final ObjectNode receipt = Utils.createJsonObject();
+            receipt.put("transactionHash", txHash.toHexHash());
+            receipt.put("blockNumber", Quantity.of(blockNumber).toHex());
+            receipt.put("blockHash", Quantity.of(blockNumber + 1000).toHexHash());
+            return receipt;
+          default:
+            throw new Error(-32601, "Method not found");
+        }
+      }));
+    }
+  }
+
+  @Test
+  public void testConfirmationsAndReorg() throws Exception {
+
+    final Chain chain = new Chain();
+    try (Client client = chain.connect();
+      ReceiptTracker tracker = ReceiptTracker.builder(client).setPollInterval(10).setConfirmations(3).build()) {
+
+      final Quantity txHash = Quantity.of(7);
+      final CompletableFuture<TransactionReceipt> receipt = tracker.track(txHash);
+      chain.mined.put(txHash, 2L);
+      chain.head.set(2);
+      TimeUnit.MILLISECONDS.sleep(100);
+      Assert.assertFalse(receipt.isDone());
+
+      // dropped by reorg and mined again later
+      chain.mined.remove(txHash);
+      chain.head.set(3);
+      TimeUnit.MILLISECONDS.sleep(100);
+      chain.mined.put(txHash, 4L);
+      chain.head.set(5);
+      TimeUnit.MILLISECONDS.sleep(100);
+      Assert.assertFalse(receipt.isDone());
+
+      chain.head.set(6);
+      Assert.assertEquals(receipt.get(1, TimeUnit.SECONDS).getBlockNumber(), Quantity.of(4));
+      Assert.assertEquals(tracker.getPendingCount(), 0);
+    }
+  }
+
+  @Test
+  public void testManyPending() throws Exception {
+
+    final Chain chain = new Chain();
+    final int txCount = 10_000;
+    try (Client client = chain.connect();
+      ReceiptTracker tracker = ReceiptTracker.builder(client).setPollInterval(10).build()) {
+
+      final List<CompletableFuture<TransactionReceipt>> receipts = new ArrayList<>();
+      for (int i = 1; i <= txCount; i++) {
+        receipts.add(tracker.track(Quantity.of(i)));
+      }
+      final long deadline = System.currentTimeMillis() + 5_000;
+      while (chain.receiptCalls.get() < txCount && System.currentTimeMillis() < deadline) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      TimeUnit.MILLISECONDS.sleep(100);
+      Assert.assertEquals(tracker.getPendingCount(), txCount);
+      // no new block, no more receipt requests than the first poll
+      Assert.assertEquals(chain.receiptCalls.get(), txCount);
+
+      for (int i = 1; i <= txCount; i++) {
+        chain.mined.put(Quantity.of(i), 2L);
+      }
+      chain.head.set(2);
+      CompletableFuture.allOf(receipts.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+      Assert.assertEquals(chain.receiptCalls.get(), 2 * txCount);
+      Assert.assertEquals(receipts.get(0).get().getTransactionHash(), Quantity.of(1));
+      Assert.assertEquals(tracker.getHeadBlock(), 2);
+      Assert.assertTrue(tracker.getRequestCount() < 100);
+    }
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+
+    final Chain chain = new Chain();
+    final ReceiptTracker tracker;
+    final CompletableFuture<TransactionReceipt> closed;
+    try (Client client = chain.connect()) {
+      tracker = ReceiptTracker.builder(client).setPollInterval(10).setTimeout(50).build();
+      final CompletableFuture<TransactionReceipt> receipt = tracker.track(Quantity.of(1));
+      final ExecutionException e = Assert.expectThrows(ExecutionException.class, () -> receipt.get(1, TimeUnit.SECONDS));
+      Assert.assertTrue(e.getCause().getMessage().contains("timeout"));
+      closed = tracker.track(Quantity.of(2), 1, 0);
+      tracker.close();
+    }
+    Assert.assertTrue(closed.isCompletedExceptionally());
+    Assert.assertTrue(tracker.track(Quantity.of(3)).isCompletedExceptionally());
+  }
+
+}
@@ -1,5 +1,7 @@
 package tech.xwood.ether4j;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -22,4 +24,86 @@ public class TestRlp {
     Assert.assertEquals(decoded.getString(2), Rlp.createString("c"));
   }
 
+  private static void assertEncoded(final Rlp.Type value, final String hex) {
+    Assert.assertEquals(Hex.encode(Rlp.encode(value)), hex);
+    Assert.assertEquals(Rlp.getEncodedLength(value), hex.length() / 2);
+    final ByteBuffer buffer = ByteBuffer.allocate(hex.length() / 2 + 2);
+    buffer.position(1);
+    Rlp.encodeTo(buffer, value);
+    Assert.assertEquals(buffer.position(), 1 + hex.length() / 2);
+    Assert.assertEquals(Hex.encode(Arrays.copyOfRange(buffer.array(), 1, buffer.position())), hex);
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    Rlp.encodeTo(stream, value);
+    Assert.assertEquals(Hex.encode(stream.toByteArray()), hex);
+  }
+
+  @Test
+  public void testEncodeVectors() {
+
+    assertEncoded(Rlp.createString("dog"), "83646f67");
+    assertEncoded(Rlp.createList(Arrays.asList(Rlp.createString("cat"), Rlp.createString("dog"))), "c88363617483646f67");
+    assertEncoded(Rlp.createEmptyString(), "80");
+    assertEncoded(Rlp.createList(), "c0");
+    assertEncoded(Rlp.createString(Quantity.of(0)), "80");
+    assertEncoded(Rlp.createString(Quantity.of(15)), "0f");
+    assertEncoded(Rlp.createString(Quantity.of(1024)), "820400");
+    assertEncoded(Rlp.createString((byte) 0x80), "8180");
+    assertEncoded(Rlp.createList(Arrays.asList(
+      Rlp.createList(),
+      Rlp.createList(Arrays.asList(Rlp.createList())),
+      Rlp.createList(Arrays.asList(Rlp.createList(), Rlp.createList(Arrays.asList(Rlp.createList())))))),
+      "c7c0c1c0c3c0c1c0");
+
+    final String lorem = "Lorem ipsum dolor sit amet, consectetur adipisicing elit";
+    assertEncoded(Rlp.createString(lorem), "b838" + Hex.encode(lorem.getBytes()));
+    assertEncoded(Rlp.createList(Arrays.asList(Rlp.createString(lorem))), "f83ab838" + Hex.encode(lorem.getBytes()));
+    assertEncoded(Rlp.createString(new byte[1024]), "b90400" + Hex.encode(new byte[1024]));
+    assertEncoded(Rlp.createString(new byte[0x10000]), "ba010000" + Hex.encode(new byte[0x10000]));
+  }
+
+  @Test
+  public void testView() {
+
+    final String lorem = "Lorem ipsum dolor sit amet, consectetur adipisicing elit";
+    final byte[] encoded = Rlp.encode(Rlp.createList(Arrays.asList(
+      Rlp.createString(Quantity.of(1024)),
+      Rlp.createString(lorem),
+      Rlp.createList(Arrays.asList(Rlp.createString("cat"), Rlp.createList())),
+      Rlp.createString((byte) 5),
+      Rlp.createEmptyString())));
+
+    final Rlp.Slice view = Rlp.view(encoded);
+    Assert.assertTrue(view.isList());
+    Assert.assertEquals(view.size(), 5);
+    Assert.assertEquals(view.getEncodedLength(), encoded.length);
+    Assert.assertEquals(view.get(0).getLong(), 1024);
+    Assert.assertEquals(view.get(0).getQuantity(), Quantity.of(1024));
+    Assert.assertEquals(new String(view.get(1).getBytes()), lorem);
+    Assert.assertSame(view.get(1).getByteBuffer().array(), encoded);
+    Assert.assertEquals(view.get(1).getByteBuffer().remaining(), lorem.length());
+    Assert.assertSame(view.get(1).getData(), encoded);
+    Assert.assertEquals(view.get(2).get(0).getBytes(), "cat".getBytes());
+    Assert.assertEquals(view.get(2).get(1).size(), 0);
+    Assert.assertEquals(Rlp.view(encoded, view.get(2).getEncodedOffset(), view.get(2).getEncodedLength()).size(), 2);
+    Assert.assertEquals(view.get(3).getLong(), 5);
+    Assert.assertEquals(view.get(4).getLength(), 0);
+    Assert.assertEquals(view.get(4).getQuantity(), Quantity.of(0));
+    Assert.assertEquals(Rlp.encode(view.toType()), encoded);
+    Assert.expectThrows(Error.class, () -> view.get(1).size());
+    Assert.expectThrows(Error.class, () -> view.get(2).getBytes());
+    Assert.expectThrows(Error.class, () -> view.get(1).getLong());
+
+    for (int length = 1; length < encoded.length; length++) {
+      final int truncated = length;
+      Assert.expectThrows(Error.class, () -> Rlp.view(Arrays.copyOf(encoded, truncated)));
+    }
+    Assert.expectThrows(Error.class, () -> Rlp.view(Arrays.copyOf(encoded, encoded.length + 1)));
+    Assert.expectThrows(Error.class, () -> Rlp.view(Hex.decode("8105")));
+    Assert.expectThrows(Error.class, () -> Rlp.view(Hex.decode("b80161")));
+    Assert.expectThrows(Error.class, () -> Rlp.view(Hex.decode("b9003861")));
+    Assert.expectThrows(Error.class, () -> Rlp.view(Hex.decode("bc7fffffffff")));
+    Assert.expectThrows(Error.class, () -> Rlp.view(Hex.decode("c1826162")).get(0));
+    Assert.expectThrows(Error.class, () -> Rlp.decode(Hex.decode("c3616263c2")));
+  }
+
 }
@@ -0,0 +1,176 @@
+package tech.xwood.ether4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestTransactionPipeline {
+
+  private static Transaction transfer() {
+    return Transaction.create()
+      .setTo(Quantity.of(2))
+      .setGasLimit(Quantity.of(21000))
+      .setGasPrice(Quantity.of(1))
+      .setValue(Quantity.of(1));
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+
+    final InMemoryTransport transport = new InMemoryTransport((method, params) -> {
+      if ("eth_getTransactionCount".equals(method)) {
+        return "0x0";
+      }
+      try {
+        TimeUnit.MILLISECONDS.sleep(5);
+      }
+      catch (final InterruptedException e) {
+        throw new Error(e);
+      }
+      return Crypto.keccak256(Quantity.of(params.get(0).asText())).toHex();
+    });
+
+    final Account account = Account.generate();
+    try (Client client = new Client(transport);
+      TransactionPipeline pipeline = TransactionPipeline.builder(client).setMaxPending(10).setMaxBatchSize(4).build()) {
+
+      final List<CompletableFuture<Quantity>> hashes = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        hashes.add(pipeline.submit(account, transfer()));
+        Assert.assertTrue(pipeline.getPendingCount() <= 10);
+      }
+      CompletableFuture.allOf(hashes.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+      Assert.assertTrue(pipeline.getSendStage().getRunCount() >= 50 / 4);
+    }
+  }
+
+  @Test(timeOut = 10_000)
+  public void testCloseWhileSyncing() throws Exception {
+
+    final CountDownLatch syncing = new CountDownLatch(1);
+    final CountDownLatch synced = new CountDownLatch(1);
+    final InMemoryTransport transport = new InMemoryTransport((method, params) -> {
+      syncing.countDown();
+      try {
+        synced.await();
+      }
+      catch (final InterruptedException e) {
+        throw new Error(e);
+      }
+      return "0x0";
+    });
+
+    final Account account = Account.generate();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (Client client = new Client(transport)) {
+      final TransactionPipeline pipeline = TransactionPipeline.builder(client).build();
+      final Future<CompletableFuture<Quantity>> submitted = executor.submit(() -> pipeline.submit(account, transfer()));
+      syncing.await();
+      pipeline.close();
+      synced.countDown();
+
+      Assert.expectThrows(ExecutionException.class, () -> submitted.get().get());
+      Assert.assertEquals(pipeline.getPendingCount(), 0);
+      Assert.assertEquals(client.getNonceManager().getInFlightCount(account.getAddress()), 0);
+      Assert.assertEquals(client.getNonceManager().allocate(account.getAddress()).join(), Quantity.of(0));
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testSubmit() throws Exception {
+
+    final int txCount = 500;
+    final AtomicInteger sendCalls = new AtomicInteger();
+    final AtomicInteger requests = new AtomicInteger();
+    final Map<Quantity, Quantity> rawTxs = new ConcurrentHashMap<>();
+    final Transport transport = new InMemoryTransport((method, params) -> {
+      switch (method) {
+        case "eth_getTransactionCount":
+          return "0x0";
+        case "eth_sendRawTransaction":
+          if (sendCalls.incrementAndGet() == 7) {
+            throw new Error(-32000, "insufficient funds for gas * price + value");
+          }
+          final Quantity rawTx = Quantity.of(params.get(0).asText());
+          final Quantity hash = Crypto.keccak256(rawTx);
+          rawTxs.put(hash, rawTx);
+          return hash.toHex();
+        default:
+          throw new Error(-32601, "Method not found");
+      }
+    }) {
+
+      @Override
+      public CompletableFuture<byte[]> send(final byte[] request) {
+        requests.incrementAndGet();
+        return super.send(request);
+      }
+    };
+
+    final Account account = Account.generate();
+    try (Client client = new Client(transport);
+      TransactionPipeline pipeline = TransactionPipeline.builder(client).setSignerThreads(4).setMaxBatchSize(50).build()) {
+
+      // One template submitted many times, each submission gets its own nonce and the template is not changed
+      final Transaction tx = transfer();
+      final List<CompletableFuture<Quantity>> hashes = new ArrayList<>();
+      for (int i = 0; i < txCount; i++) {
+        hashes.add(pipeline.submit(account, tx));
+      }
+
+      int failed = 0;
+      final Set<Quantity> nonces = new HashSet<>();
+      for (int i = 0; i < txCount; i++) {
+        try {
+          final Quantity hash = hashes.get(i).get(10, TimeUnit.SECONDS);
+          final Transaction sent = Crypto.decodeRawTransaction(rawTxs.get(hash));
+          Assert.assertEquals(sent.getFrom(), account.getAddress());
+          Assert.assertEquals(sent.getValue(), tx.getValue());
+          Assert.assertTrue(nonces.add(sent.getNonce()));
+          Assert.assertTrue(sent.getNonce().toBigInteger().intValue() < txCount);
+        }
+        catch (final ExecutionException e) {
+          Assert.assertEquals(((Error) e.getCause()).getCode(), -32000);
+          failed++;
+        }
+      }
+      Assert.assertNull(tx.getNonce());
+      Assert.assertEquals(failed, 1);
+      Assert.assertEquals(client.getNonceManager().getInFlightCount(account.getAddress()), 0);
+
+      final TransactionPipeline.Stage sign = pipeline.getSignStage();
+      final TransactionPipeline.Stage send = pipeline.getSendStage();
+      Assert.assertEquals(sign.getCompletedCount(), txCount);
+      Assert.assertEquals(send.getCompletedCount(), txCount - 1);
+      Assert.assertEquals(send.getFailedCount(), 1);
+      Assert.assertTrue(send.getRunCount() < txCount, "Transactions are not batched");
+      Assert.assertEquals(requests.get(), 1 + send.getRunCount());
+    }
+  }
+
+  @Test
+  public void testSubmitAfterClose() {
+    try (Client client = new Client(new InMemoryTransport((method, params) -> "0x0"))) {
+      final TransactionPipeline pipeline = TransactionPipeline.builder(client).build();
+      pipeline.close();
+      Assert.expectThrows(Error.class, () -> pipeline.submit(Account.generate(), transfer()));
+    }
+  }
+
+}
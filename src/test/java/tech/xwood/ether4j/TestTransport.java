@@ -0,0 +1,221 @@
+package tech.xwood.ether4j;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestTransport {
+
+  /**
+   * Custom transport example: records responses of a live transport by method and params.
+   */
+  private static class RecordingTransport implements Transport {
+
+    private final Transport transport;
+    private final Map<String, JsonNode> recorded = new ConcurrentHashMap<>();
+
+    RecordingTransport(final Transport transport) {
+      this.transport = transport;
+    }
+
+    @Override
+    public void close() {
+      transport.close();
+    }
+
+    InMemoryTransport replay() {
+      return new InMemoryTransport((method, params) -> {
+        final JsonNode response = recorded.get(method + params);
+        if (response == null) {
+          throw new Error("Not recorded: " + method + params);
+        }
+        if (response.has("error")) {
+          throw new Error(response.get("error").path("code").asInt(), response.get("error").path("message").asText());
+        }
+        return response.get("result");
+      });
+    }
+
+    @Override
+    public CompletableFuture<byte[]> send(final byte[] request) {
+      final JsonNode jsonRpcRequest = Utils.fromJson(request, JsonNode.class);
+      return transport.send(request).thenApply(response -> {
+        final JsonNode jsonRpcResponse = Utils.fromJson(response, JsonNode.class);
+        recorded.put(jsonRpcRequest.path("method").asText() + jsonRpcRequest.path("params"), jsonRpcResponse);
+        return response;
+      });
+    }
+  }
+
+  /**
+   * Counts requests reaching the delegate transport.
+   */
+  private static class CountingTransport implements Transport {
+
+    private final Transport transport;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    CountingTransport(final Transport transport) {
+      this.transport = transport;
+    }
+
+    @Override
+    public void close() {
+      transport.close();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> send(final byte[] request) {
+      requestCount.incrementAndGet();
+      return transport.send(request);
+    }
+  }
+
+  private static final InMemoryTransport.Handler HANDLER = (method, params) -> {
+    switch (method) {
+      case "eth_getBalance":
+        return params.get(0).asText();
+      case "eth_gasPrice":
+        return "0x2a";
+      default:
+        throw new Error(-32601, "Method not found");
+    }
+  };
+
+  @Test
+  public void testAsyncClient() {
+
+    try (AsyncClient client = new AsyncClient(new InMemoryTransport(HANDLER), 4)) {
+      final List<CompletableFuture<Quantity>> balances = new ArrayList<>();
+      for (int i = 0; i < 10_000; i++) {
+        balances.add(client.getBalance(Quantity.of(i)));
+      }
+      for (int i = 0; i < balances.size(); i++) {
+        Assert.assertEquals(balances.get(i).join(), Quantity.of(i));
+      }
+      Assert.assertEquals(client.getQueuedCount(), 0);
+    }
+  }
+
+  @Test
+  public void testBatching() throws Exception {
+
+    final CountingTransport counting = new CountingTransport(new InMemoryTransport(HANDLER));
+    try (Client client = new Client(new BatchingTransport(counting, 50, 5, TimeUnit.MILLISECONDS))) {
+
+      final ExecutorService executor = Executors.newFixedThreadPool(32);
+      final List<Future<Quantity>> balances = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        final Quantity address = Quantity.of(i);
+        balances.add(executor.submit(() -> client.getBalance(address)));
+      }
+      for (int i = 0; i < balances.size(); i++) {
+        Assert.assertEquals(balances.get(i).get(), Quantity.of(i));
+      }
+      executor.shutdown();
+      Assert.assertTrue(counting.requestCount.get() < 1000 / 4, "requests: " + counting.requestCount.get());
+
+      final Error e = Assert.expectThrows(Error.class, client::getLastBlockNumber);
+      Assert.assertEquals(e.getCode(), -32601);
+      Assert.assertEquals(client.getGasPrice(), Quantity.of(42));
+    }
+  }
+
+  @Test
+  public void testBatchingFailedSend() throws Exception {
+
+    final Transport failing = new InMemoryTransport(HANDLER) {
+
+      @Override
+      public CompletableFuture<byte[]> send(final byte[] request) {
+        throw new IllegalStateException("Transport is broken");
+      }
+    };
+    try (BatchingTransport transport = new BatchingTransport(failing, 10, 5, TimeUnit.MILLISECONDS)) {
+
+      // the flusher thread sends the batch, the failure must reach every call of it
+      final List<CompletableFuture<byte[]>> responses = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        responses.add(transport.send(("{\"jsonrpc\":\"2.0\",\"id\":\"" + i + "\",\"method\":\"eth_gasPrice\",\"params\":[]}").getBytes()));
+      }
+      for (final CompletableFuture<byte[]> response : responses) {
+        final ExecutionException e = Assert.expectThrows(ExecutionException.class, () -> response.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(e.getCause() instanceof Error);
+      }
+
+      final CompletableFuture<byte[]> single = transport.send("{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"method\":\"eth_gasPrice\",\"params\":[]}".getBytes());
+      Assert.assertTrue(Assert.expectThrows(ExecutionException.class, () -> single.get(5, TimeUnit.SECONDS)).getCause() instanceof Error);
+    }
+  }
+
+  @Test
+  public void testBatchingOverHttp() throws Exception {
+
+    try (MockRpcServer server = MockRpcServer.start(HANDLER::handle);
+      Client client = new Client(new BatchingTransport(Client.builder(server.getUri()).buildTransport(), 100, 1, TimeUnit.MILLISECONDS))) {
+
+      final ExecutorService executor = Executors.newFixedThreadPool(32);
+      final List<Future<Quantity>> balances = new ArrayList<>();
+      for (int i = 0; i < 320; i++) {
+        final Quantity address = Quantity.of(i);
+        balances.add(executor.submit(() -> client.getBalance(address)));
+      }
+      for (int i = 0; i < balances.size(); i++) {
+        Assert.assertEquals(balances.get(i).get(), Quantity.of(i));
+      }
+      executor.shutdown();
+      Assert.assertEquals(server.getCallCount(), 320);
+      Assert.assertTrue(server.getRequestCount() < 320 / 4, "requests: " + server.getRequestCount());
+    }
+  }
+
+  @Test
+  public void testInMemory() {
+
+    try (Client client = new Client(new InMemoryTransport(HANDLER))) {
+      Assert.assertEquals(client.getGasPrice(), Quantity.of(42));
+      Assert.assertEquals(client.getBalance(Quantity.of(5)), Quantity.of(5));
+      final Error e = Assert.expectThrows(Error.class, client::getLastBlockNumber);
+      Assert.assertEquals(e.getCode(), -32601);
+      Assert.expectThrows(Error.class, () -> client.subscribeNewHeads(block -> {
+      }));
+
+      final Client.Batch batch = client.createBatch();
+      final Client.Batch.Call<Quantity> balance = batch.add(Quantity.class, "eth_getBalance", Quantity.of(7).toHexAddress(), "latest");
+      final Client.Batch.Call<Quantity> unknown = batch.add(Quantity.class, "eth_unknown");
+      batch.execute();
+      Assert.assertEquals(balance.get(), Quantity.of(7));
+      Assert.assertEquals(unknown.getError().getCode(), -32601);
+    }
+  }
+
+  @Test
+  public void testRecordReplay() {
+
+    final RecordingTransport recording;
+    try (MockRpcServer server = MockRpcServer.start(HANDLER::handle)) {
+      recording = new RecordingTransport(Client.builder(server.getUri()).buildTransport());
+      try (Client client = new Client(recording)) {
+        Assert.assertEquals(client.getBalance(Quantity.of(3)), Quantity.of(3));
+        Assert.expectThrows(Error.class, client::getLastBlockNumber);
+      }
+    }
+    try (Client client = new Client(recording.replay())) {
+      Assert.assertEquals(client.getBalance(Quantity.of(3)), Quantity.of(3));
+      Assert.assertEquals(Assert.expectThrows(Error.class, client::getLastBlockNumber).getCode(), -32601);
+      Assert.expectThrows(Error.class, client::getGasPrice);
+    }
+  }
+
+}
@@ -0,0 +1,404 @@
+package tech.xwood.ether4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERNull;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.asn1.x509.TBSCertificate;
+import org.bouncycastle.asn1.x509.Time;
+import org.bouncycastle.asn1.x509.V3TBSCertificateGenerator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestWebSocketTransport {
+
+  private static final MockRpcServer.Handler HANDLER = (method, params) -> {
+    switch (method) {
+      case "eth_getBalance":
+        return params.get(0).asText();
+      case "eth_subscribe":
+        return "0xs" + params.get(0).asText().length();
+      case "eth_unsubscribe":
+        return true;
+      default:
+        throw new Error(-32601, "Method not found");
+    }
+  };
+
+  /**
+   * @return Returns key store with a self signed certificate of the host name, its key has empty password.
+   */
+  private static KeyStore createKeyStore(final String host) throws GeneralSecurityException, IOException {
+
+    final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    final KeyPair keyPair = generator.generateKeyPair();
+    final AlgorithmIdentifier algorithm = new AlgorithmIdentifier(PKCSObjectIdentifiers.sha256WithRSAEncryption, DERNull.INSTANCE);
+    final X500Name name = new X500Name("CN=" + host);
+    final long now = System.currentTimeMillis();
+    final V3TBSCertificateGenerator tbsGenerator = new V3TBSCertificateGenerator();
+    tbsGenerator.setSerialNumber(new ASN1Integer(BigInteger.valueOf(now)));
+    tbsGenerator.setIssuer(name);
+    tbsGenerator.setSubject(name);
+    tbsGenerator.setStartDate(new Time(new Date(now - 60_000)));
+    tbsGenerator.setEndDate(new Time(new Date(now + 3_600_000)));
+    tbsGenerator.setSubjectPublicKeyInfo(SubjectPublicKeyInfo.getInstance(keyPair.getPublic().getEncoded()));
+    tbsGenerator.setSignature(algorithm);
+    tbsGenerator.setExtensions(new Extensions(new Extension(Extension.subjectAlternativeName, false,
+      new DEROctetString(new GeneralNames(new GeneralName(GeneralName.dNSName, host))))));
+    final TBSCertificate tbs = tbsGenerator.generateTBSCertificate();
+
+    final Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initSign(keyPair.getPrivate());
+    signature.update(tbs.getEncoded(ASN1Encoding.DER));
+    final ASN1EncodableVector certificate = new ASN1EncodableVector();
+    certificate.add(tbs);
+    certificate.add(algorithm);
+    certificate.add(new DERBitString(signature.sign()));
+
+    final KeyStore keyStore = KeyStore.getInstance("PKCS12");
+    keyStore.load(null, null);
+    keyStore.setKeyEntry(host, keyPair.getPrivate(), new char[0], new Certificate[] {
+      CertificateFactory.getInstance("X.509").generateCertificate(new ByteArrayInputStream(new DERSequence(certificate).getEncoded(ASN1Encoding.DER)))
+    });
+    return keyStore;
+  }
+
+  private static Block header(final long number) {
+    return Utils.fromJson("{\"number\":\"" + Quantity.of(number) + "\",\"hash\":\"" + Quantity.of(number + 1000).toHexHash() + "\"}", Block.class);
+  }
+
+  @Test
+  public void testBufferOverflow() throws Exception {
+
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+      Client client = Client.builder(server.getUri()).setSubscriptionBufferSize(2).build()) {
+
+      final int count = 50;
+      final List<Quantity> numbers = new CopyOnWriteArrayList<>();
+      final CountDownLatch entered = new CountDownLatch(1);
+      final CountDownLatch blocked = new CountDownLatch(1);
+      final CountDownLatch received = new CountDownLatch(3);
+      final Client.Subscription subscription = client.subscribeNewHeads(block -> {
+        entered.countDown();
+        try {
+          blocked.await();
+        }
+        catch (final InterruptedException e) {
+        }
+        numbers.add(block.getNumber());
+        received.countDown();
+      });
+      server.push(subscription.getId(), header(0));
+      Assert.assertTrue(entered.await(5, TimeUnit.SECONDS));
+      for (int i = 1; i < count; i++) {
+        server.push(subscription.getId(), header(i));
+      }
+      final long deadline = System.currentTimeMillis() + 5000;
+      while (subscription.getDroppedCount() < count - 3 && System.currentTimeMillis() < deadline) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      Assert.assertEquals(subscription.getDroppedCount(), count - 3);
+      Assert.assertEquals(client.getBalance(Quantity.of(7)), Quantity.of(7), "Reader thread is blocked");
+      blocked.countDown();
+      Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(numbers, Arrays.asList(Quantity.of(0), Quantity.of(1), Quantity.of(2)));
+    }
+  }
+
+  @Test(timeOut = 10_000)
+  public void testCloseWhenBufferFull() throws Exception {
+
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+      Client client = Client.builder(server.getUri()).setSubscriptionBufferSize(1).build()) {
+
+      final CountDownLatch delivered = new CountDownLatch(1);
+      final Client.Subscription subscription = client.subscribeNewHeads(block -> {
+        delivered.countDown();
+        client.getBalance(Quantity.of(1));
+        try {
+          TimeUnit.SECONDS.sleep(10);
+        }
+        catch (final InterruptedException e) {
+        }
+      });
+      for (int i = 0; i < 10; i++) {
+        server.push(subscription.getId(), header(i));
+      }
+      Assert.assertTrue(delivered.await(5, TimeUnit.SECONDS));
+      subscription.close();
+      Assert.assertFalse(subscription.isActive());
+      Assert.assertEquals(subscription.getBufferedCount(), 0);
+      Assert.assertEquals(client.getBalance(Quantity.of(2)), Quantity.of(2));
+    }
+  }
+
+  @Test
+  public void testError() {
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+      Client client = new Client(server.getUri())) {
+      final Error e = Assert.expectThrows(Error.class, client::getGasPrice);
+      Assert.assertEquals(e.getCode(), -32601);
+    }
+  }
+
+  @Test
+  public void testFrameLength() throws Exception {
+
+    final byte[] negative = { (byte) 0x81, 127, (byte) 0x80, 0, 0, 0, 0, 0, 0, 1 };
+    final IOException e = Assert.expectThrows(IOException.class, () -> WebSocket.readFrame(new ByteArrayInputStream(negative)));
+    Assert.assertEquals(e.getMessage(), "Invalid WebSocket frame length");
+
+    final byte[] huge = { (byte) 0x81, 127, 0, 0, 0, 0, 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff };
+    Assert.expectThrows(IOException.class, () -> WebSocket.readFrame(new ByteArrayInputStream(huge), 1024));
+
+    final byte[] frame = { (byte) 0x81, 2, 'o', 'k' };
+    Assert.assertEquals(WebSocket.readFrame(new ByteArrayInputStream(frame), 2).payload, new byte[] { 'o', 'k' });
+    Assert.expectThrows(IOException.class, () -> WebSocket.readFrame(new ByteArrayInputStream(frame), 1));
+  }
+
+  @Test(timeOut = 10_000)
+  public void testHandshakeTimeout() throws Exception {
+
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      final String uri = "ws://127.0.0.1:" + server.getLocalPort() + "/";
+      final long start = System.currentTimeMillis();
+      Assert.expectThrows(Error.class, () -> Client.builder(uri).setConnectTimeout(500).build());
+      Assert.assertTrue(System.currentTimeMillis() - start < 5_000);
+    }
+  }
+
+  @Test
+  public void testListenerError() throws Exception {
+
+    final List<Throwable> errors = new CopyOnWriteArrayList<>();
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+      Client client = Client.builder(server.getUri()).setErrorHandler(errors::add).build()) {
+
+      final CountDownLatch received = new CountDownLatch(2);
+      final Client.Subscription subscription = client.subscribeNewHeads(block -> {
+        received.countDown();
+        throw new IllegalStateException("listener " + block.getNumber());
+      });
+      server.push(subscription.getId(), header(1));
+      server.push(subscription.getId(), header(2));
+      Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+      final long deadline = System.currentTimeMillis() + 5000;
+      while (errors.size() < 2 && System.currentTimeMillis() < deadline) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      Assert.assertEquals(errors.size(), 2);
+      Assert.assertEquals(errors.get(1).getMessage(), "listener " + Quantity.of(2));
+    }
+  }
+
+  @Test
+  public void testMaxMessageSize() {
+
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+      Client client = Client.builder(server.getUri()).setMaxMessageSize(64).build()) {
+      Assert.assertTrue(client.subscribeNewHeads(block -> {
+      }).isActive());
+      final Error e = Assert.expectThrows(Error.class, () -> client.getBalance(Quantity.of(1)));
+      Assert.assertEquals(e.getCause().getMessage(), "WebSocket message is too large");
+    }
+  }
+
+  @Test
+  public void testPipelining() throws Exception {
+
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+      Client client = new Client(server.getUri())) {
+
+      final ExecutorService executor = Executors.newFixedThreadPool(16);
+      final List<Future<Quantity>> balances = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        final Quantity address = Quantity.of(i);
+        balances.add(executor.submit(() -> client.getBalance(address)));
+      }
+      for (int i = 0; i < 200; i++) {
+        Assert.assertEquals(balances.get(i).get(), Quantity.of(i));
+      }
+      executor.shutdown();
+
+      final Client.Batch batch = client.createBatch();
+      final Client.Batch.Call<Quantity> balance = batch.add(Quantity.class, "eth_getBalance", Quantity.of(7).toHexAddress(), "latest");
+      batch.execute();
+      Assert.assertEquals(balance.get(), Quantity.of(7));
+    }
+  }
+
+  @Test
+  public void testSecureHostName() throws Exception {
+
+    final KeyStore keyStore = createKeyStore("localhost");
+    final KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+    keyManagers.init(keyStore, new char[0]);
+    final SSLContext serverContext = SSLContext.getInstance("TLS");
+    serverContext.init(keyManagers.getKeyManagers(), null, null);
+    final KeyStore trustStore = KeyStore.getInstance("PKCS12");
+    trustStore.load(null, null);
+    trustStore.setCertificateEntry("localhost", keyStore.getCertificate("localhost"));
+    final TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+    trustManagers.init(trustStore);
+    final SSLContext clientContext = SSLContext.getInstance("TLS");
+    clientContext.init(null, trustManagers.getTrustManagers(), null);
+
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER, serverContext)) {
+
+      final URI uri = URI.create(server.getUri());
+      final List<byte[]> messages = new CopyOnWriteArrayList<>();
+      final CountDownLatch received = new CountDownLatch(1);
+      final WebSocket.Listener listener = new WebSocket.Listener() {
+
+        @Override
+        public void onClose(final Throwable cause) {
+        }
+
+        @Override
+        public void onMessage(final byte[] message) {
+          messages.add(message);
+          received.countDown();
+        }
+      };
+      try (WebSocket webSocket = WebSocket.connect(URI.create("wss://localhost:" + uri.getPort() + "/"), 1000, WebSocketTransport.DEFAULT_MAX_MESSAGE_SIZE, clientContext.getSocketFactory(), listener)) {
+        webSocket.send(JsonRpc.writeRequest(1, "eth_getBalance", Quantity.of(3).toHexAddress(), "latest"));
+        Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(JsonRpc.readResult(messages.get(0), "1", Quantity.class), Quantity.of(3));
+      }
+      Assert.expectThrows(Error.class, () -> WebSocket.connect(uri, 1000, WebSocketTransport.DEFAULT_MAX_MESSAGE_SIZE, clientContext.getSocketFactory(), listener));
+    }
+  }
+
+  @Test
+  public void testServerClosed() {
+    final MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+    try (Client client = new Client(server.getUri())) {
+      Assert.assertEquals(client.getBalance(Quantity.of(1)), Quantity.of(1));
+      server.close();
+      Assert.expectThrows(Error.class, () -> {
+        for (int i = 0; i < 100; i++) {
+          client.getBalance(Quantity.of(1));
+          TimeUnit.MILLISECONDS.sleep(10);
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testSubscribeLogs() throws Exception {
+
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+      Client client = new Client(server.getUri())) {
+
+      final CountDownLatch received = new CountDownLatch(1);
+      final List<Event> events = new CopyOnWriteArrayList<>();
+      final Client.Subscription subscription = client.subscribeLogs(
+        Collections.singleton(Quantity.of(10)),
+        Arrays.asList(Quantity.of(1), null),
+        event -> {
+          events.add(event);
+          received.countDown();
+        });
+      server.push(subscription.getId(), Utils.fromJson(
+        "{\"address\":\"" + Quantity.of(10).toHexAddress() + "\",\"blockNumber\":\"0x5\",\"topics\":[\"" + Quantity.of(1).toHexHash() + "\"],\"data\":\"0x01\"}",
+        Event.class));
+      Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(events.get(0).getAddress(), Quantity.of(10));
+      Assert.assertEquals(events.get(0).getBlockNumber(), Quantity.of(5));
+    }
+  }
+
+  @Test
+  public void testSubscribeNewHeads() throws Exception {
+
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+      Client client = new Client(server.getUri())) {
+
+      final CountDownLatch received = new CountDownLatch(3);
+      final List<Block> blocks = new CopyOnWriteArrayList<>();
+      final Client.Subscription subscription = client.subscribeNewHeads(block -> {
+        blocks.add(block);
+        received.countDown();
+      });
+      Assert.assertTrue(subscription.isActive());
+      for (int i = 1; i <= 3; i++) {
+        server.push(subscription.getId(), header(i));
+      }
+      Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(blocks.get(2).getNumber(), Quantity.of(3));
+      Assert.assertEquals(blocks.get(2).getHash(), Quantity.of(1003));
+
+      subscription.close();
+      Assert.assertFalse(subscription.isActive());
+      server.push(subscription.getId(), header(4));
+      Assert.assertEquals(client.getBalance(Quantity.of(1)), Quantity.of(1));
+      Assert.assertEquals(blocks.size(), 3);
+    }
+  }
+
+  @Test
+  public void testSubscribeNewPendingTransactions() throws Exception {
+
+    try (MockWebSocketServer server = MockWebSocketServer.start(HANDLER);
+      Client client = new Client(server.getUri())) {
+
+      final CountDownLatch received = new CountDownLatch(1);
+      final List<Transaction> transactions = new CopyOnWriteArrayList<>();
+      final Client.Subscription subscription = client.subscribeNewPendingTransactions(tx -> {
+        transactions.add(tx);
+        received.countDown();
+      });
+      server.push(subscription.getId(), Quantity.of(77).toHexHash());
+      Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(transactions.get(0).getHash(), Quantity.of(77));
+    }
+  }
+
+  @Test(expectedExceptions = Error.class)
+  public void testSubscribeOverHttp() {
+    try (Client client = new Client("http://127.0.0.1:1/")) {
+      client.subscribeNewHeads(block -> {
+      });
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+package tech.xwood.ether4j.abi;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tech.xwood.ether4j.Hex;
+
+/**
+ * Compares hex and binary encoding of a call and decoding of its arguments.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=tech.xwood.ether4j.abi.AbiBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AbiBenchmark {
+
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(AbiBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  private AbiValue[] args;
+  private AbiType[] resultTypes;
+  private String resultHex;
+  private ByteBuffer result;
+  private ByteBuffer buffer;
+
+  @Benchmark
+  public AbiValue[] decodeResultBinary() {
+    return AbiFunction.decodeResult(result, resultTypes);
+  }
+
+  @Benchmark
+  public AbiValue[] decodeResultHex() {
+    return AbiFunction.decodeResult(resultHex, resultTypes);
+  }
+
+  @Benchmark
+  public ByteBuffer encodeCallBinary() {
+    buffer.clear();
+    AbiFunction.encodeCallTo(buffer, "submit", args);
+    return buffer;
+  }
+
+  @Benchmark
+  public String encodeCallHex() {
+    return AbiFunction.encodeCall("submit", args);
+  }
+
+  @Setup
+  public void setup() {
+    args = new AbiValue[] {
+      AbiAddress.of(new BigInteger("c0ffee254729296a45a3885639ac7e10f9d54979", 16)),
+      AbiUint.of(256, new BigInteger("1000000000000000000000")),
+      AbiBool.of(true),
+      AbiString.of("ether4j benchmark payload"),
+      AbiArrayDynamic.of(AbiUint.of(256, 1), AbiUint.of(256, 2), AbiUint.of(256, 3), AbiUint.of(256, 4))
+    };
+    resultTypes = new AbiType[args.length];
+    for (int i = 0; i < args.length; i++) {
+      resultTypes[i] = args[i].type;
+    }
+    final byte[] encoded = AbiFunction.encodeConstructorCallBytes(args);
+    resultHex = Hex.encode(encoded);
+    result = ByteBuffer.wrap(encoded);
+    buffer = ByteBuffer.allocate(4 + encoded.length);
+  }
+
+}
@@ -1,11 +1,56 @@
 package tech.xwood.ether4j.abi;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import tech.xwood.ether4j.Hex;
 
 public class TestAbiFunction {
 
+  @Test
+  public void testBinary() {
+
+    final AbiValue[] args = {
+      AbiAddress.of(0xc0de),
+      AbiInt.of(64, -5),
+      AbiUint.of(256, BigInteger.ONE.shiftLeft(255)),
+      AbiArray.of(AbiBool.of(true), AbiBool.of(false)),
+      AbiString.of("Hello, world!"),
+      AbiBytesDynamic.of(new byte[32]),
+      AbiArrayDynamic.of(AbiString.of(""), AbiString.of("0123456789abcdef0123456789abcdef"), AbiString.of("x")),
+      AbiBytes.of(new byte[] { 1, 2, 3 })
+    };
+    final AbiType[] types = new AbiType[args.length];
+    for (int i = 0; i < args.length; i++) {
+      types[i] = args[i].type;
+    }
+
+    final byte[] call = AbiFunction.encodeCallBytes("f", args);
+    Assert.assertEquals(Hex.encode(call), AbiFunction.encodeCall("f", args));
+    Assert.assertEquals(call.length, 4 + AbiFunction.getEncodedLength(args));
+
+    // arguments after the function id, little endian order must not matter
+    final ByteBuffer raw = ByteBuffer.wrap(call).order(ByteOrder.LITTLE_ENDIAN);
+    raw.position(4);
+    Assert.assertEquals(AbiFunction.decodeResult(raw, types), args);
+    Assert.assertEquals(raw.position(), 4);
+    Assert.assertEquals(AbiFunction.decodeResult(AbiFunction.encodeCall("f", args).substring(8), types), args);
+
+    final ByteBuffer direct = ByteBuffer.allocateDirect(AbiFunction.getEncodedLength(args));
+    AbiFunction.encodeConstructorCallTo(direct, args);
+    Assert.assertFalse(direct.hasRemaining());
+    direct.flip();
+    Assert.assertEquals(AbiFunction.decodeResult(direct, types), args);
+
+    for (final AbiValue arg : args) {
+      Assert.assertEquals(arg.encodeBytes().length, arg.getEncodedLength());
+      Assert.assertEquals(Hex.encode(arg.encodeBytes()), arg.encode());
+    }
+    Assert.assertEquals(AbiBytes.Type.of(3).decode(ByteBuffer.wrap(new byte[] { 9, 1, 2, 3 }), 1), AbiBytes.of(new byte[] { 1, 2, 3 }));
+  }
+
   @Test
   public void testDecodeResult() {
 
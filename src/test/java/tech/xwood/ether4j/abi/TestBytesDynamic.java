@@ -2,6 +2,7 @@ package tech.xwood.ether4j.abi;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import tech.xwood.ether4j.Error;
 
 public class TestBytesDynamic {
 
@@ -46,6 +47,23 @@ public class TestBytesDynamic {
           .getBytes()));
   }
 
+  @Test
+  public void testDecodeCorrupt() {
+
+    Assert.expectThrows(Error.class, () -> AbiBytesDynamic.Type.get().decode(
+      "00000000000000000000000000000000000000000000000000000001000000060001020304050000000000000000000000000000000000"
+        + "000000000000000000"));
+
+    Assert.expectThrows(Error.class, () -> AbiBytesDynamic.Type.get().decode(
+      "00000000000000000000000000000000000000000000000000000000000000210001020304050000000000000000000000000000000000"
+        + "000000000000000000"));
+
+    Assert.expectThrows(Error.class, () -> AbiBytesDynamic.Type.get().decode(
+      "000000000000000000000000000000000000000000000000000000007fffffff"));
+
+    Assert.expectThrows(Error.class, () -> AbiBytesDynamic.Type.get().decode("0006"));
+  }
+
   @Test
   public void testEncode() {
 